@@ -0,0 +1,41 @@
+-- Index: public.scheduled_event_candidates_idx
+-- Pending events, in the order the scheduler claims them. The table keeps every finished event, so polling
+-- should only ever read the part of it that can still run.
+
+-- DROP INDEX IF EXISTS public.scheduled_event_candidates_idx;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS scheduled_event_candidates_idx
+    ON public.scheduled_event USING btree
+    (created_at ASC NULLS LAST)
+    TABLESPACE pg_default
+    WHERE is_active::text = 'ACTIVE'::text AND status::text = ANY (ARRAY['PENDING'::text, 'ERROR'::text, 'PARKED'::text]);
+
+-- Index: public.scheduled_event_terminal_idx
+-- Finished events, oldest change first, for the retention purge.
+
+-- DROP INDEX IF EXISTS public.scheduled_event_terminal_idx;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS scheduled_event_terminal_idx
+    ON public.scheduled_event USING btree
+    (updated_at ASC NULLS LAST)
+    TABLESPACE pg_default
+    WHERE status::text = ANY (ARRAY['SUCCESSFUL'::text, 'OMITTED'::text, 'DISCARD'::text, 'CANCELED'::text]);
+
+-- Table: public.scheduled_event_archive
+-- Only used when event-scheduler.maintenance.archive is enabled.
+
+-- DROP TABLE IF EXISTS public.scheduled_event_archive;
+
+CREATE TABLE IF NOT EXISTS public.scheduled_event_archive
+(
+    LIKE public.scheduled_event INCLUDING DEFAULTS,
+    archived_at timestamp without time zone NOT NULL DEFAULT now(),
+    CONSTRAINT scheduled_event_archive_pkey PRIMARY KEY (id)
+)
+WITH (
+    OIDS = FALSE
+)
+TABLESPACE pg_default;
+
+ALTER TABLE IF EXISTS public.scheduled_event_archive
+    OWNER to "ic-interactive-model-trainer";
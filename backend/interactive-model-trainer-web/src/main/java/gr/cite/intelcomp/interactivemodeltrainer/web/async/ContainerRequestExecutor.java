@@ -0,0 +1,141 @@
+package gr.cite.intelcomp.interactivemodeltrainer.web.async;
+
+import gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties;
+import gr.cite.tools.logging.LoggerService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the controller calls that end in a manager container exec off the servlet threads, so that slow container
+ * commands hold a thread of their own container service instead of a Tomcat worker. Every container service gets
+ * a bounded pool with a bounded queue, and a call that finds the queue full is rejected at once, which the
+ * controllers report as 503, rather than piling up behind the commands already waiting.
+ * <p>
+ * The request scope and the security context of the calling request are bound to the pool thread for the
+ * duration of the call, since the services read the current user from the request scoped {@code UserScope}.
+ */
+@Component
+@Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class ContainerRequestExecutor {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(ContainerRequestExecutor.class));
+
+    private final ContainerServicesProperties.RequestExecutorConfiguration configuration;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+
+    public ContainerRequestExecutor(ContainerServicesProperties containerServicesProperties, MeterRegistry meterRegistry) {
+        this.configuration = containerServicesProperties.getRequests();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    @FunctionalInterface
+    public interface ContainerCall<T> {
+        T call() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface ContainerAction {
+        void run() throws Exception;
+    }
+
+    /**
+     * Queues the call on the pool of the given container service.
+     *
+     * @throws RejectedException when the queue of the container service is full
+     */
+    public <T> CompletableFuture<T> submit(String service, ContainerCall<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        try {
+            this.executor(service).execute(() -> {
+                T value = null;
+                Throwable failure = null;
+                // The request outlives its first dispatch, attributes of its own keep it usable from this thread
+                RequestContextHolder.setRequestAttributes(requestAttributes instanceof ServletRequestAttributes servletAttributes
+                        ? new ServletRequestAttributes(servletAttributes.getRequest(), servletAttributes.getResponse())
+                        : requestAttributes);
+                SecurityContextHolder.setContext(securityContext);
+                try {
+                    value = call.call();
+                } catch (Throwable e) {
+                    failure = e;
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                    SecurityContextHolder.clearContext();
+                }
+                if (failure != null) result.completeExceptionally(failure);
+                else result.complete(value);
+            });
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("container.requests.rejected", "service", service).increment();
+            logger.warn("Rejecting {} request, {} calls are already waiting", service, configuration.getQueueCapacity());
+            throw new RejectedException(service);
+        }
+        return result;
+    }
+
+    public CompletableFuture<Void> run(String service, ContainerAction action) {
+        return this.submit(service, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private ThreadPoolExecutor executor(String service) {
+        return executors.computeIfAbsent(service, name -> {
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(configuration.getThreads(), configuration.getThreads(), 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, configuration.getQueueCapacity())), runnable -> {
+                Thread thread = new Thread(runnable, "container-requests-" + name + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            Gauge.builder("container.requests.active", executor, ThreadPoolExecutor::getActiveCount).tag("service", name).register(meterRegistry);
+            Gauge.builder("container.requests.queued", executor, pool -> pool.getQueue().size()).tag("service", name).register(meterRegistry);
+            return executor;
+        });
+    }
+
+    public static class RejectedException extends RuntimeException {
+
+        private final String service;
+
+        public RejectedException(String service) {
+            super("Too many pending " + service + " requests");
+            this.service = service;
+        }
+
+        public String getService() {
+            return service;
+        }
+
+    }
+
+}
@@ -1,18 +1,22 @@
 package gr.cite.intelcomp.interactivemodeltrainer.web.config;
 
+import gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties;
 import gr.cite.intelcomp.interactivemodeltrainer.web.scope.user.UserInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfiguration implements WebMvcConfigurer {
     private final UserInterceptor userInterceptor;
+    private final ContainerServicesProperties containerServicesProperties;
 
     @Autowired
-    public WebConfiguration(UserInterceptor userInterceptor) {
+    public WebConfiguration(UserInterceptor userInterceptor, ContainerServicesProperties containerServicesProperties) {
         this.userInterceptor = userInterceptor;
+        this.containerServicesProperties = containerServicesProperties;
     }
 
     @Override
@@ -20,4 +24,10 @@ public class WebConfiguration implements WebMvcConfigurer {
         //int order = 1;
         registry.addWebRequestInterceptor(userInterceptor).order(1);
     }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Container backed requests complete asynchronously and may take as long as the command they wait for
+        configurer.setDefaultTimeout(containerServicesProperties.getRequests().getTimeoutInSeconds() * 1000);
+    }
 }
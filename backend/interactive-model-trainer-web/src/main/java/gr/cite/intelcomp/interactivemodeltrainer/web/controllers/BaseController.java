@@ -1,11 +1,15 @@
 package gr.cite.intelcomp.interactivemodeltrainer.web.controllers;
 
 import com.google.common.collect.Lists;
+import gr.cite.intelcomp.interactivemodeltrainer.common.utils.LogFileReader;
+import gr.cite.intelcomp.interactivemodeltrainer.web.async.ContainerRequestExecutor;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.QueryResult;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.ValidationErrorResponse;
 import gr.cite.tools.data.query.Lookup;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -13,10 +17,15 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -25,6 +34,8 @@ import java.util.function.Function;
 public class BaseController {
 
     public static final Integer DEFAULT_LOG_LINE_LIMIT = 2000;
+    public static final String LOG_OFFSET_HEADER = "x-log-offset";
+    public static final int REJECTED_RETRY_AFTER_SECONDS = 5;
 
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -48,6 +59,16 @@ public class BaseController {
         return new ValidationErrorResponse(errors);
     }
 
+    /**
+     * A container service with a full request queue, the client may try again shortly.
+     */
+    @ExceptionHandler(ContainerRequestExecutor.RejectedException.class)
+    public ResponseEntity<Void> handleRejectedContainerRequest(ContainerRequestExecutor.RejectedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(REJECTED_RETRY_AFTER_SECONDS))
+                .build();
+    }
+
     public static <T, L extends Lookup> QueryResult<T> extractQueryResultWithCount(Function<L, List<T>> service, L lookup) {
         return extractQueryResultWithCountWhen(service, lookup, null);
     }
@@ -72,4 +93,23 @@ public class BaseController {
         return new QueryResult<>(result, count);
     }
 
+    /**
+     * Returns the last lines of a training log and reports the byte offset they were read up to in the
+     * x-log-offset header, which is where a log stream should continue from.
+     */
+    public static List<String> readLogTail(Path log, Integer last, HttpServletResponse response) {
+        try {
+            LogFileReader.Chunk tail = LogFileReader.tail(log, Objects.requireNonNullElse(last, DEFAULT_LOG_LINE_LIMIT));
+            response.setHeader(LOG_OFFSET_HEADER, String.valueOf(tail.nextOffset()));
+            List<String> lines = new ArrayList<>(tail.lines());
+            if (lines.isEmpty()) {
+                lines.add("INFO: Logs empty. Nothing to display.");
+            }
+            return lines;
+        } catch (IOException e) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return List.of("ERROR: Logs not found.");
+        }
+    }
+
 }
@@ -7,31 +7,33 @@ import gr.cite.intelcomp.interactivemodeltrainer.model.DomainModel;
 import gr.cite.intelcomp.interactivemodeltrainer.model.persist.domainclassification.DomainClassificationRequestPersist;
 import gr.cite.intelcomp.interactivemodeltrainer.model.trainingtaskrequest.TrainingTaskRequest;
 import gr.cite.intelcomp.interactivemodeltrainer.query.lookup.DomainModelLookup;
+import gr.cite.intelcomp.interactivemodeltrainer.service.docker.DockerService;
 import gr.cite.intelcomp.interactivemodeltrainer.service.model.DomainModelService;
 import gr.cite.intelcomp.interactivemodeltrainer.service.trainingtaskrequest.TrainingTaskRequestService;
+import gr.cite.intelcomp.interactivemodeltrainer.web.async.ContainerRequestExecutor;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.ModelPatchInfo;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.QueryResult;
+import gr.cite.intelcomp.interactivemodeltrainer.web.logs.TrainingLogFollower;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.RenameInfo;
 import gr.cite.tools.logging.LoggerService;
 import io.kubernetes.client.openapi.ApiException;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.management.InvalidApplicationException;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
-import static gr.cite.intelcomp.interactivemodeltrainer.web.controllers.BaseController.DEFAULT_LOG_LINE_LIMIT;
 import static gr.cite.intelcomp.interactivemodeltrainer.web.controllers.BaseController.extractQueryResultWithCount;
+import static gr.cite.intelcomp.interactivemodeltrainer.web.controllers.BaseController.readLogTail;
 
 @RestController
 @RequestMapping(path = "api/domain-model", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -42,36 +44,37 @@ public class DomainModelController {
     private final DomainModelService domainModelService;
     private final TrainingTaskRequestService trainingTaskRequestService;
     private final ContainerServicesProperties containerServicesProperties;
+    private final TrainingLogFollower trainingLogFollower;
+    private final ContainerRequestExecutor containerRequestExecutor;
 
     @Autowired
-    public DomainModelController(DomainModelService domainModelService, TrainingTaskRequestService trainingTaskRequestService, ContainerServicesProperties containerServicesProperties) {
+    public DomainModelController(DomainModelService domainModelService, TrainingTaskRequestService trainingTaskRequestService, ContainerServicesProperties containerServicesProperties, TrainingLogFollower trainingLogFollower, ContainerRequestExecutor containerRequestExecutor) {
         this.domainModelService = domainModelService;
         this.trainingTaskRequestService = trainingTaskRequestService;
         this.containerServicesProperties = containerServicesProperties;
+        this.trainingLogFollower = trainingLogFollower;
+        this.containerRequestExecutor = containerRequestExecutor;
     }
 
     @PostMapping("all")
-    @Transactional
-    public QueryResult<DomainModel> GetAll(@RequestBody DomainModelLookup lookup) {
-        return extractQueryResultWithCount(l -> {
+    public CompletableFuture<QueryResult<DomainModel>> GetAll(@RequestBody DomainModelLookup lookup) {
+        return containerRequestExecutor.submit(DockerService.MANAGE_MODELS, () -> extractQueryResultWithCount(l -> {
             try {
                 return domainModelService.getAll(l);
             } catch (IOException | InterruptedException | ApiException e) {
                 throw new RuntimeException(e);
             }
-        }, lookup);
+        }, lookup));
     }
 
     @PostMapping("{name}/copy")
-    @Transactional
-    public void Copy(@PathVariable("name") String name) throws InterruptedException, IOException, ApiException {
-        domainModelService.copy(ModelType.DOMAIN, name);
+    public CompletableFuture<Void> Copy(@PathVariable("name") String name) {
+        return containerRequestExecutor.run(DockerService.MANAGE_MODELS, () -> domainModelService.copy(ModelType.DOMAIN, name));
     }
 
     @PutMapping("rename")
-    @Transactional
-    public void Rename(@Valid @RequestBody RenameInfo model) throws InterruptedException, IOException, ApiException {
-        domainModelService.rename(ModelType.DOMAIN, model.getOldName(), model.getNewName());
+    public CompletableFuture<Void> Rename(@Valid @RequestBody RenameInfo model) {
+        return containerRequestExecutor.run(DockerService.MANAGE_MODELS, () -> domainModelService.rename(ModelType.DOMAIN, model.getOldName(), model.getNewName()));
     }
 
     @PatchMapping("{name}/patch")
@@ -81,9 +84,8 @@ public class DomainModelController {
     }
 
     @DeleteMapping("{name}/delete")
-    @Transactional
-    public void Delete(@PathVariable("name") String name) throws InterruptedException, IOException, ApiException {
-        domainModelService.delete(ModelType.DOMAIN, name);
+    public CompletableFuture<Void> Delete(@PathVariable("name") String name) {
+        return containerRequestExecutor.run(DockerService.MANAGE_MODELS, () -> domainModelService.delete(ModelType.DOMAIN, name));
     }
 
     @PostMapping("train")
@@ -95,19 +97,16 @@ public class DomainModelController {
     @GetMapping("train/logs/{name}")
     @Transactional
     public List<String> getTrainingLogs(@PathVariable(name = "name") String modelName, @RequestParam(value = "last", required = false) Integer last, HttpServletResponse response) {
-        try {
-            List<String> lines = Files.readAllLines(Path.of(containerServicesProperties.getDomainTrainingService().getModelsFolder(ContainerServicesProperties.ManageDomainModels.class), modelName, "execution.log"));
-            if (lines.isEmpty()) {
-                lines.add("INFO: Logs empty. Nothing to display.");
-                return lines;
-            }
-            return lines.subList(
-                    Math.max(lines.size() - Objects.requireNonNullElse(last, DEFAULT_LOG_LINE_LIMIT), 0), lines.size()
-            );
-        } catch (IOException e) {
-            response.setStatus(HttpStatus.NOT_FOUND.value());
-            return List.of("ERROR: Logs not found.");
-        }
+        return readLogTail(this.trainingLog(modelName), last, response);
+    }
+
+    @GetMapping(path = "train/log-stream/{name}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter followTrainingLogs(@PathVariable(name = "name") String modelName, @RequestParam(value = "offset", required = false) Long offset, @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return trainingLogFollower.follow(this.trainingLog(modelName), lastEventId != null ? lastEventId : offset);
+    }
+
+    private Path trainingLog(String modelName) {
+        return Path.of(containerServicesProperties.getDomainTrainingService().getModelsFolder(ContainerServicesProperties.ManageDomainModels.class), modelName, "execution.log");
     }
 
     @PostMapping("retrain")
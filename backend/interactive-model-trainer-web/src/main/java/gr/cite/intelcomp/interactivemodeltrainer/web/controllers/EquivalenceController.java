@@ -2,7 +2,9 @@ package gr.cite.intelcomp.interactivemodeltrainer.web.controllers;
 
 import gr.cite.intelcomp.interactivemodeltrainer.model.Equivalence;
 import gr.cite.intelcomp.interactivemodeltrainer.query.lookup.WordListLookup;
+import gr.cite.intelcomp.interactivemodeltrainer.service.docker.DockerService;
 import gr.cite.intelcomp.interactivemodeltrainer.service.wordlist.EquivalenceService;
+import gr.cite.intelcomp.interactivemodeltrainer.web.async.ContainerRequestExecutor;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.QueryResult;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.RenameInfo;
 import gr.cite.tools.logging.LoggerService;
@@ -12,9 +14,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
-import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import static gr.cite.intelcomp.interactivemodeltrainer.web.controllers.BaseController.extractQueryResultWithCount;
 
@@ -25,51 +27,47 @@ public class EquivalenceController {
     private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(EquivalenceController.class));
 
     private final EquivalenceService equivalenceService;
+    private final ContainerRequestExecutor containerRequestExecutor;
 
     @Autowired
-    public EquivalenceController(EquivalenceService equivalenceService){
+    public EquivalenceController(EquivalenceService equivalenceService, ContainerRequestExecutor containerRequestExecutor){
         this.equivalenceService = equivalenceService;
+        this.containerRequestExecutor = containerRequestExecutor;
     }
 
     @PostMapping("all")
-    @Transactional
-    public QueryResult<Equivalence> GetAll(@RequestBody WordListLookup lookup) {
-        return extractQueryResultWithCount(l -> {
+    public CompletableFuture<QueryResult<Equivalence>> GetAll(@RequestBody WordListLookup lookup) {
+        return containerRequestExecutor.submit(DockerService.MANAGE_LISTS, () -> extractQueryResultWithCount(l -> {
             try {
                 return equivalenceService.getAll(l);
             } catch (IOException | InterruptedException | ApiException e) {
                 throw new RuntimeException(e);
             }
-        }, lookup);
+        }, lookup));
     }
 
     @PostMapping("create")
-    @Transactional
-    public void Create(@Valid @RequestBody Equivalence equivalence) throws InterruptedException, IOException, ApiException {
-        equivalenceService.create(equivalence);
+    public CompletableFuture<Void> Create(@Valid @RequestBody Equivalence equivalence) {
+        return containerRequestExecutor.run(DockerService.MANAGE_LISTS, () -> equivalenceService.create(equivalence));
     }
 
     @PostMapping("patch")
-    @Transactional
-    public void Patch(@Valid @RequestBody Equivalence equivalence) throws InterruptedException, IOException, ApiException {
-        equivalenceService.patch(equivalence);
+    public CompletableFuture<Void> Patch(@Valid @RequestBody Equivalence equivalence) {
+        return containerRequestExecutor.run(DockerService.MANAGE_LISTS, () -> equivalenceService.patch(equivalence));
     }
 
     @PostMapping("copy/{name}")
-    @Transactional
-    public void Copy(@PathVariable("name") String name) throws InterruptedException, IOException, ApiException {
-        equivalenceService.copy(name);
+    public CompletableFuture<Void> Copy(@PathVariable("name") String name) {
+        return containerRequestExecutor.run(DockerService.MANAGE_LISTS, () -> equivalenceService.copy(name));
     }
 
     @PutMapping("rename")
-    @Transactional
-    public void Rename(@Valid @RequestBody RenameInfo wordList) throws InterruptedException, IOException, ApiException {
-        equivalenceService.rename(wordList.getOldName(), wordList.getNewName());
+    public CompletableFuture<Void> Rename(@Valid @RequestBody RenameInfo wordList) {
+        return containerRequestExecutor.run(DockerService.MANAGE_LISTS, () -> equivalenceService.rename(wordList.getOldName(), wordList.getNewName()));
     }
 
     @DeleteMapping("delete/{name}")
-    @Transactional
-    public void Delete(@PathVariable("name") String name) throws InterruptedException, IOException, ApiException {
-        equivalenceService.delete(name);
+    public CompletableFuture<Void> Delete(@PathVariable("name") String name) {
+        return containerRequestExecutor.run(DockerService.MANAGE_LISTS, () -> equivalenceService.delete(name));
     }
 }
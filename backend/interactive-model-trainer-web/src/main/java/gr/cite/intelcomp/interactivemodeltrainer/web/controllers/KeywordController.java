@@ -2,7 +2,9 @@ package gr.cite.intelcomp.interactivemodeltrainer.web.controllers;
 
 import gr.cite.intelcomp.interactivemodeltrainer.model.Keyword;
 import gr.cite.intelcomp.interactivemodeltrainer.query.lookup.WordListLookup;
+import gr.cite.intelcomp.interactivemodeltrainer.service.docker.DockerService;
 import gr.cite.intelcomp.interactivemodeltrainer.service.wordlist.KeywordService;
+import gr.cite.intelcomp.interactivemodeltrainer.web.async.ContainerRequestExecutor;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.QueryResult;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.RenameInfo;
 import gr.cite.tools.logging.LoggerService;
@@ -12,9 +14,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
-import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import static gr.cite.intelcomp.interactivemodeltrainer.web.controllers.BaseController.extractQueryResultWithCount;
 
@@ -25,51 +27,47 @@ public class KeywordController {
     private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(KeywordController.class));
 
     private final KeywordService keywordService;
+    private final ContainerRequestExecutor containerRequestExecutor;
 
     @Autowired
-    public KeywordController(KeywordService keywordService){
+    public KeywordController(KeywordService keywordService, ContainerRequestExecutor containerRequestExecutor){
         this.keywordService = keywordService;
+        this.containerRequestExecutor = containerRequestExecutor;
     }
 
     @PostMapping("all")
-    @Transactional
-    public QueryResult<Keyword> GetAll(@RequestBody WordListLookup lookup) {
-        return extractQueryResultWithCount(l -> {
+    public CompletableFuture<QueryResult<Keyword>> GetAll(@RequestBody WordListLookup lookup) {
+        return containerRequestExecutor.submit(DockerService.MANAGE_LISTS, () -> extractQueryResultWithCount(l -> {
             try {
                 return keywordService.getAll(l);
             } catch (IOException | InterruptedException | ApiException e) {
                 throw new RuntimeException(e);
             }
-        }, lookup);
+        }, lookup));
     }
 
     @PostMapping("create")
-    @Transactional
-    public void Create(@Valid @RequestBody Keyword keyword) throws InterruptedException, IOException, ApiException {
-        keywordService.create(keyword);
+    public CompletableFuture<Void> Create(@Valid @RequestBody Keyword keyword) {
+        return containerRequestExecutor.run(DockerService.MANAGE_LISTS, () -> keywordService.create(keyword));
     }
 
     @PostMapping("patch")
-    @Transactional
-    public void Patch(@Valid @RequestBody Keyword keyword) throws InterruptedException, IOException, ApiException {
-        keywordService.patch(keyword);
+    public CompletableFuture<Void> Patch(@Valid @RequestBody Keyword keyword) {
+        return containerRequestExecutor.run(DockerService.MANAGE_LISTS, () -> keywordService.patch(keyword));
     }
 
     @PostMapping("copy/{name}")
-    @Transactional
-    public void Copy(@PathVariable("name") String name) throws InterruptedException, IOException, ApiException {
-        keywordService.copy(name);
+    public CompletableFuture<Void> Copy(@PathVariable("name") String name) {
+        return containerRequestExecutor.run(DockerService.MANAGE_LISTS, () -> keywordService.copy(name));
     }
 
     @PutMapping("rename")
-    @Transactional
-    public void Rename(@Valid @RequestBody RenameInfo wordList) throws InterruptedException, IOException, ApiException {
-        keywordService.rename(wordList.getOldName(), wordList.getNewName());
+    public CompletableFuture<Void> Rename(@Valid @RequestBody RenameInfo wordList) {
+        return containerRequestExecutor.run(DockerService.MANAGE_LISTS, () -> keywordService.rename(wordList.getOldName(), wordList.getNewName()));
     }
 
     @DeleteMapping("delete/{name}")
-    @Transactional
-    public void Delete(@PathVariable("name") String name) throws InterruptedException, IOException, ApiException {
-        keywordService.delete(name);
+    public CompletableFuture<Void> Delete(@PathVariable("name") String name) {
+        return containerRequestExecutor.run(DockerService.MANAGE_LISTS, () -> keywordService.delete(name));
     }
 }
@@ -3,6 +3,8 @@ package gr.cite.intelcomp.interactivemodeltrainer.web.controllers;
 import gr.cite.intelcomp.interactivemodeltrainer.model.LogicalCorpus;
 import gr.cite.intelcomp.interactivemodeltrainer.query.lookup.CorpusLookup;
 import gr.cite.intelcomp.interactivemodeltrainer.service.corpus.LogicalCorpusService;
+import gr.cite.intelcomp.interactivemodeltrainer.service.docker.DockerService;
+import gr.cite.intelcomp.interactivemodeltrainer.web.async.ContainerRequestExecutor;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.QueryResult;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.RenameInfo;
 import gr.cite.tools.logging.LoggerService;
@@ -12,9 +14,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
-import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import static gr.cite.intelcomp.interactivemodeltrainer.web.controllers.BaseController.extractQueryResultWithCount;
 
@@ -25,51 +27,47 @@ public class LogicalCorpusController {
     private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(LogicalCorpusController.class));
 
     private final LogicalCorpusService logicalCorpusService;
+    private final ContainerRequestExecutor containerRequestExecutor;
 
     @Autowired
-    public LogicalCorpusController(LogicalCorpusService logicalCorpusService) {
+    public LogicalCorpusController(LogicalCorpusService logicalCorpusService, ContainerRequestExecutor containerRequestExecutor) {
         this.logicalCorpusService = logicalCorpusService;
+        this.containerRequestExecutor = containerRequestExecutor;
     }
 
     @PostMapping("all")
-    @Transactional
-    public QueryResult<LogicalCorpus> GetAll(@RequestBody CorpusLookup lookup) {
-        return extractQueryResultWithCount(l -> {
+    public CompletableFuture<QueryResult<LogicalCorpus>> GetAll(@RequestBody CorpusLookup lookup) {
+        return containerRequestExecutor.submit(DockerService.MANAGE_CORPUS, () -> extractQueryResultWithCount(l -> {
             try {
                 return logicalCorpusService.getAll(l);
             } catch (IOException | InterruptedException | ApiException e) {
                 throw new RuntimeException(e);
             }
-        }, lookup);
+        }, lookup));
     }
 
     @PostMapping("create")
-    @Transactional
-    public void Create(@Valid @RequestBody LogicalCorpus corpus) throws InterruptedException, IOException, ApiException {
-        logicalCorpusService.create(corpus);
+    public CompletableFuture<Void> Create(@Valid @RequestBody LogicalCorpus corpus) {
+        return containerRequestExecutor.run(DockerService.MANAGE_CORPUS, () -> logicalCorpusService.create(corpus));
     }
 
     @PostMapping("patch")
-    @Transactional
-    public void Patch(@Valid @RequestBody LogicalCorpus corpus) throws InterruptedException, IOException, ApiException {
-        logicalCorpusService.patch(corpus);
+    public CompletableFuture<Void> Patch(@Valid @RequestBody LogicalCorpus corpus) {
+        return containerRequestExecutor.run(DockerService.MANAGE_CORPUS, () -> logicalCorpusService.patch(corpus));
     }
 
     @PostMapping("copy/{name}")
-    @Transactional
-    public void Copy(@PathVariable("name") String name) throws InterruptedException, IOException, ApiException {
-        logicalCorpusService.copy(name);
+    public CompletableFuture<Void> Copy(@PathVariable("name") String name) {
+        return containerRequestExecutor.run(DockerService.MANAGE_CORPUS, () -> logicalCorpusService.copy(name));
     }
 
     @PutMapping("rename")
-    @Transactional
-    public void Rename(@Valid @RequestBody RenameInfo renameInfo) throws InterruptedException, IOException, ApiException {
-        logicalCorpusService.rename(renameInfo.getOldName(), renameInfo.getNewName());
+    public CompletableFuture<Void> Rename(@Valid @RequestBody RenameInfo renameInfo) {
+        return containerRequestExecutor.run(DockerService.MANAGE_CORPUS, () -> logicalCorpusService.rename(renameInfo.getOldName(), renameInfo.getNewName()));
     }
 
     @DeleteMapping("delete/{name}")
-    @Transactional
-    public void Delete(@PathVariable("name") String name) throws InterruptedException, IOException, ApiException {
-        logicalCorpusService.delete(name);
+    public CompletableFuture<Void> Delete(@PathVariable("name") String name) {
+        return containerRequestExecutor.run(DockerService.MANAGE_CORPUS, () -> logicalCorpusService.delete(name));
     }
 }
@@ -4,6 +4,8 @@ import gr.cite.intelcomp.interactivemodeltrainer.model.LogicalCorpus;
 import gr.cite.intelcomp.interactivemodeltrainer.model.RawCorpus;
 import gr.cite.intelcomp.interactivemodeltrainer.query.lookup.CorpusLookup;
 import gr.cite.intelcomp.interactivemodeltrainer.service.corpus.RawCorpusService;
+import gr.cite.intelcomp.interactivemodeltrainer.service.docker.DockerService;
+import gr.cite.intelcomp.interactivemodeltrainer.web.async.ContainerRequestExecutor;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.QueryResult;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.RenameInfo;
 import gr.cite.tools.logging.LoggerService;
@@ -14,8 +16,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
-import jakarta.transaction.Transactional;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import static gr.cite.intelcomp.interactivemodeltrainer.web.controllers.BaseController.extractQueryResultWithCount;
 
@@ -26,33 +28,32 @@ public class RawCorpusController {
     private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(RawCorpusController.class));
 
     private final RawCorpusService rawCorpusService;
+    private final ContainerRequestExecutor containerRequestExecutor;
 
     @Autowired
-    public RawCorpusController(RawCorpusService rawCorpusService) {
+    public RawCorpusController(RawCorpusService rawCorpusService, ContainerRequestExecutor containerRequestExecutor) {
         this.rawCorpusService = rawCorpusService;
+        this.containerRequestExecutor = containerRequestExecutor;
     }
 
     @PostMapping("all")
-    @Transactional
-    public QueryResult<RawCorpus> GetAll(@RequestBody CorpusLookup lookup) {
-        return extractQueryResultWithCount(l -> {
+    public CompletableFuture<QueryResult<RawCorpus>> GetAll(@RequestBody CorpusLookup lookup) {
+        return containerRequestExecutor.submit(DockerService.MANAGE_CORPUS, () -> extractQueryResultWithCount(l -> {
             try {
                 return rawCorpusService.getAll(lookup);
             } catch (IOException | InterruptedException | ApiException e) {
                 throw new RuntimeException(e);
             }
-        }, lookup);
+        }, lookup));
     }
 
     @PostMapping("patch")
-    @Transactional
-    public void Patch(@Valid @RequestBody RawCorpus corpus) throws InterruptedException, IOException, ApiException {
-        rawCorpusService.patch(corpus);
+    public CompletableFuture<Void> Patch(@Valid @RequestBody RawCorpus corpus) {
+        return containerRequestExecutor.run(DockerService.MANAGE_CORPUS, () -> rawCorpusService.patch(corpus));
     }
 
     @PutMapping("rename/{source}")
-    @Transactional
-    public void Rename(@Valid @RequestBody RenameInfo renameInfo, @PathVariable("source") String source) throws InterruptedException, IOException, ApiException {
-        rawCorpusService.rename(renameInfo.getOldName(), renameInfo.getNewName(), source);
+    public CompletableFuture<Void> Rename(@Valid @RequestBody RenameInfo renameInfo, @PathVariable("source") String source) {
+        return containerRequestExecutor.run(DockerService.MANAGE_CORPUS, () -> rawCorpusService.rename(renameInfo.getOldName(), renameInfo.getNewName(), source));
     }
 }
@@ -1,26 +1,39 @@
 package gr.cite.intelcomp.interactivemodeltrainer.web.controllers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import gr.cite.intelcomp.interactivemodeltrainer.cache.CacheLibrary;
-import gr.cite.intelcomp.interactivemodeltrainer.cache.UserTasksCacheEntity;
+import gr.cite.intelcomp.interactivemodeltrainer.cache.RunningTaskRegistry;
+import gr.cite.intelcomp.interactivemodeltrainer.cache.TaskResultStore;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.TrainingTaskRequestStatus;
+import gr.cite.intelcomp.interactivemodeltrainer.common.scope.user.UserScope;
 import gr.cite.intelcomp.interactivemodeltrainer.data.DocumentEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskQueueItem;
 import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskSubType;
 import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskType;
 import gr.cite.intelcomp.interactivemodeltrainer.service.trainingtaskrequest.TrainingTaskRequestService;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.QueryResult;
+import gr.cite.intelcomp.interactivemodeltrainer.web.tasks.RunningTaskStream;
 import gr.cite.tools.logging.LoggerService;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -31,12 +44,23 @@ public class RunningTasksController {
     private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(RunningTasksController.class));
 
     private final TrainingTaskRequestService trainingTaskRequestService;
-    private final CacheLibrary cacheLibrary;
+    private final RunningTaskRegistry runningTaskRegistry;
+    private final RunningTaskStream runningTaskStream;
+    private final TaskResultStore taskResultStore;
+    private final UserScope userScope;
 
     @Autowired
-    public RunningTasksController(TrainingTaskRequestService trainingTaskRequestService, CacheLibrary cacheLibrary) {
+    public RunningTasksController(TrainingTaskRequestService trainingTaskRequestService, RunningTaskRegistry runningTaskRegistry, RunningTaskStream runningTaskStream, TaskResultStore taskResultStore, UserScope userScope) {
         this.trainingTaskRequestService = trainingTaskRequestService;
-        this.cacheLibrary = cacheLibrary;
+        this.runningTaskRegistry = runningTaskRegistry;
+        this.runningTaskStream = runningTaskStream;
+        this.taskResultStore = taskResultStore;
+        this.userScope = userScope;
+    }
+
+    @GetMapping(path = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTasks(@RequestParam(value = "token", required = false) String token, @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return runningTaskStream.subscribe(userScope.getUserIdSafe(), lastEventId != null ? lastEventId : token);
     }
 
     @GetMapping("{task}/status")
@@ -54,52 +78,44 @@ public class RunningTasksController {
         if (task != null) trainingTaskRequestService.cancelTask(task);
     }
 
+    /**
+     * Serves a PU score image from the task result store. The image of a task never changes, so it is sent with
+     * an ETag and a private cache lifetime, and range requests are answered from the file directly.
+     */
     @GetMapping("{task}/pu-scores/{image}")
-    public ResponseEntity<byte[]> getPU_scores(@PathVariable(name = "task") String task, @PathVariable(name = "image") String image) {
-        try {
-            UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-            if (cache == null || cache.getPayload() == null || cache.getPayload().isEmpty()) return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-            for (RunningTaskQueueItem item : cache.getPayload()) {
-                if (!item.getTask().toString().equals(task) || !item.getSubType().equals(RunningTaskSubType.EVALUATE_DOMAIN_MODEL)) continue;
-                return ResponseEntity.ok().contentType(MediaType.IMAGE_PNG).body(item.getResponse().getPuScores().get(image));
-            }
-        } catch (Exception e) {
-            logger.error(e.getMessage(), e);
+    public ResponseEntity<Resource> getPU_scores(@PathVariable(name = "task") UUID task, @PathVariable(name = "image") String image) throws IOException {
+        RunningTaskQueueItem item = runningTaskRegistry.get(task);
+        if (item == null || !item.getSubType().equals(RunningTaskSubType.EVALUATE_DOMAIN_MODEL) || item.getResponse() == null || item.getResponse().getPuScores() == null || !item.getResponse().getPuScores().contains(image))
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        Path file = taskResultStore.file(task, image);
+        if (file == null)
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        }
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        Instant lastModified = Files.getLastModifiedTime(file).toInstant();
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .eTag(Long.toHexString(Files.size(file)) + "-" + Long.toHexString(lastModified.toEpochMilli()))
+                .lastModified(lastModified)
+                .cacheControl(CacheControl.maxAge(Duration.ofHours(1)).cachePrivate())
+                .body(new FileSystemResource(file));
     }
 
     @GetMapping("{task}/documents")
-    public QueryResult<DocumentEntity> getSampledDocuments(@PathVariable(name = "task") String task) {
-        try {
-            UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-            if (cache == null || cache.getPayload() == null || cache.getPayload().isEmpty()) return new QueryResult<>(List.of());
-            for (RunningTaskQueueItem item : cache.getPayload()) {
-                if (!item.getTask().toString().equals(task) || !item.getSubType().equals(RunningTaskSubType.SAMPLE_DOMAIN_MODEL)) continue;
-                return new QueryResult<>(item.getResponse().getDocuments());
-            }
-        } catch (Exception e) {
-            logger.error(e.getMessage(), e);
+    public QueryResult<DocumentEntity> getSampledDocuments(@PathVariable(name = "task") UUID task,
+                                                           @RequestParam(value = "offset", required = false, defaultValue = "0") Integer offset,
+                                                           @RequestParam(value = "limit", required = false) Integer limit) throws IOException {
+        RunningTaskQueueItem item = runningTaskRegistry.get(task);
+        if (item == null || !item.getSubType().equals(RunningTaskSubType.SAMPLE_DOMAIN_MODEL) || item.getResponse() == null || item.getResponse().getDocumentCount() == null)
             return new QueryResult<>(List.of());
-        }
-        return new QueryResult<>(List.of());
+        TaskResultStore.DocumentPage page = taskResultStore.documents(task, offset, limit);
+        return new QueryResult<>(page.items(), page.count());
     }
 
     @GetMapping("{task}/logs")
-    public QueryResult<String> getLogs(@PathVariable(name = "task") String task) {
-        try {
-            UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-            if (cache == null || cache.getPayload() == null || cache.getPayload().isEmpty()) return new QueryResult<>(List.of());
-            for (RunningTaskQueueItem item : cache.getPayload()) {
-                if (!item.getTask().toString().equals(task) || item.getResponse().getLogs() == null) continue;
-                return new QueryResult<>(item.getResponse().getLogs());
-            }
-        } catch (Exception e) {
-            logger.error(e.getMessage(), e);
+    public QueryResult<String> getLogs(@PathVariable(name = "task") UUID task) {
+        RunningTaskQueueItem item = runningTaskRegistry.get(task);
+        if (item == null || item.getResponse() == null || item.getResponse().getLogs() == null)
             return new QueryResult<>(List.of());
-        }
-        return new QueryResult<>(List.of());
+        return new QueryResult<>(item.getResponse().getLogs());
     }
 
     @GetMapping("{type}/clear-all")
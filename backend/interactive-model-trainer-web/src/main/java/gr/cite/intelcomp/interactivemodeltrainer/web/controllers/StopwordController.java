@@ -2,7 +2,9 @@ package gr.cite.intelcomp.interactivemodeltrainer.web.controllers;
 
 import gr.cite.intelcomp.interactivemodeltrainer.model.Stopword;
 import gr.cite.intelcomp.interactivemodeltrainer.query.lookup.WordListLookup;
+import gr.cite.intelcomp.interactivemodeltrainer.service.docker.DockerService;
 import gr.cite.intelcomp.interactivemodeltrainer.service.wordlist.StopwordService;
+import gr.cite.intelcomp.interactivemodeltrainer.web.async.ContainerRequestExecutor;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.QueryResult;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.RenameInfo;
 import gr.cite.tools.logging.LoggerService;
@@ -12,9 +14,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
-import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import static gr.cite.intelcomp.interactivemodeltrainer.web.controllers.BaseController.extractQueryResultWithCount;
 
@@ -25,52 +27,48 @@ public class StopwordController {
     private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(StopwordController.class));
 
     private final StopwordService stopwordService;
+    private final ContainerRequestExecutor containerRequestExecutor;
 
     @Autowired
-    public StopwordController(StopwordService stopwordService){
+    public StopwordController(StopwordService stopwordService, ContainerRequestExecutor containerRequestExecutor){
         this.stopwordService = stopwordService;
+        this.containerRequestExecutor = containerRequestExecutor;
     }
 
     @PostMapping("all")
-    @Transactional
-    public QueryResult<Stopword> GetAll(@RequestBody WordListLookup lookup) {
-        return extractQueryResultWithCount(l -> {
+    public CompletableFuture<QueryResult<Stopword>> GetAll(@RequestBody WordListLookup lookup) {
+        return containerRequestExecutor.submit(DockerService.MANAGE_LISTS, () -> extractQueryResultWithCount(l -> {
             try {
                 return stopwordService.getAll(l);
             } catch (IOException | InterruptedException | ApiException e) {
                 throw new RuntimeException(e);
             }
-        }, lookup);
+        }, lookup));
     }
 
     @PostMapping("create")
-    @Transactional
-    public void Create(@Valid @RequestBody Stopword stopword) throws InterruptedException, IOException, ApiException {
-        stopwordService.create(stopword);
+    public CompletableFuture<Void> Create(@Valid @RequestBody Stopword stopword) {
+        return containerRequestExecutor.run(DockerService.MANAGE_LISTS, () -> stopwordService.create(stopword));
     }
 
     @PostMapping("patch")
-    @Transactional
-    public void Patch(@Valid @RequestBody Stopword stopword) throws InterruptedException, IOException, ApiException {
-        stopwordService.patch(stopword);
+    public CompletableFuture<Void> Patch(@Valid @RequestBody Stopword stopword) {
+        return containerRequestExecutor.run(DockerService.MANAGE_LISTS, () -> stopwordService.patch(stopword));
     }
 
     @PostMapping("copy/{name}")
-    @Transactional
-    public void Copy(@PathVariable("name") String name) throws InterruptedException, IOException, ApiException {
-        stopwordService.copy(name);
+    public CompletableFuture<Void> Copy(@PathVariable("name") String name) {
+        return containerRequestExecutor.run(DockerService.MANAGE_LISTS, () -> stopwordService.copy(name));
     }
 
     @PutMapping("rename")
-    @Transactional
-    public void Rename(@Valid @RequestBody RenameInfo wordList) throws InterruptedException, IOException, ApiException {
-        stopwordService.rename(wordList.getOldName(), wordList.getNewName());
+    public CompletableFuture<Void> Rename(@Valid @RequestBody RenameInfo wordList) {
+        return containerRequestExecutor.run(DockerService.MANAGE_LISTS, () -> stopwordService.rename(wordList.getOldName(), wordList.getNewName()));
     }
 
     @DeleteMapping("delete/{name}")
-    @Transactional
-    public void Delete(@PathVariable("name") String name) throws InterruptedException, IOException, ApiException {
-        stopwordService.delete(name);
+    public CompletableFuture<Void> Delete(@PathVariable("name") String name) {
+        return containerRequestExecutor.run(DockerService.MANAGE_LISTS, () -> stopwordService.delete(name));
     }
 
 }
@@ -1,5 +1,6 @@
 package gr.cite.intelcomp.interactivemodeltrainer.web.controllers;
 
+import gr.cite.intelcomp.interactivemodeltrainer.cache.ModelAssetStore;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.ModelType;
 import gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties;
 import gr.cite.intelcomp.interactivemodeltrainer.model.TopicModel;
@@ -9,29 +10,37 @@ import gr.cite.intelcomp.interactivemodeltrainer.model.topic.*;
 import gr.cite.intelcomp.interactivemodeltrainer.model.trainingtaskrequest.TrainingTaskRequest;
 import gr.cite.intelcomp.interactivemodeltrainer.query.lookup.TopicLookup;
 import gr.cite.intelcomp.interactivemodeltrainer.query.lookup.TopicModelLookup;
+import gr.cite.intelcomp.interactivemodeltrainer.service.docker.DockerService;
 import gr.cite.intelcomp.interactivemodeltrainer.service.model.TopicModelService;
 import gr.cite.intelcomp.interactivemodeltrainer.service.trainingtaskrequest.TrainingTaskRequestService;
+import gr.cite.intelcomp.interactivemodeltrainer.web.async.ContainerRequestExecutor;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.ModelPatchInfo;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.QueryResult;
+import gr.cite.intelcomp.interactivemodeltrainer.web.logs.TrainingLogFollower;
 import gr.cite.intelcomp.interactivemodeltrainer.web.model.RenameInfo;
 import gr.cite.tools.logging.LoggerService;
 import io.kubernetes.client.openapi.ApiException;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.management.InvalidApplicationException;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import static gr.cite.intelcomp.interactivemodeltrainer.web.controllers.BaseController.*;
 
@@ -41,46 +50,53 @@ public class TopicModelController {
 
     private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(TopicModelController.class));
 
+    private static final MediaType JAVASCRIPT = MediaType.valueOf("text/javascript");
+    // The scripts are the same in every model, pages change whenever the model is trained or curated again
+    private static final CacheControl SCRIPT_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(1)).cachePrivate();
+    private static final CacheControl PAGE_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     private final TopicModelService topicModelService;
     private final TrainingTaskRequestService trainingTaskRequestService;
     private final ContainerServicesProperties containerServicesProperties;
+    private final TrainingLogFollower trainingLogFollower;
+    private final ContainerRequestExecutor containerRequestExecutor;
 
     @Autowired
-    public TopicModelController(TopicModelService domainModelService, TrainingTaskRequestService trainingTaskRequestService, ContainerServicesProperties containerServicesProperties) {
+    public TopicModelController(TopicModelService domainModelService, TrainingTaskRequestService trainingTaskRequestService, ContainerServicesProperties containerServicesProperties, TrainingLogFollower trainingLogFollower, ContainerRequestExecutor containerRequestExecutor) {
         this.topicModelService = domainModelService;
         this.trainingTaskRequestService = trainingTaskRequestService;
         this.containerServicesProperties = containerServicesProperties;
+        this.trainingLogFollower = trainingLogFollower;
+        this.containerRequestExecutor = containerRequestExecutor;
     }
 
     @PostMapping("all")
-    @Transactional
-    public QueryResult<TopicModelListing> GetAll(@RequestBody TopicModelLookup lookup) {
-        return extractQueryResultWithCount(l -> {
+    public CompletableFuture<QueryResult<TopicModelListing>> GetAll(@RequestBody TopicModelLookup lookup) {
+        return containerRequestExecutor.submit(DockerService.MANAGE_MODELS, () -> extractQueryResultWithCount(l -> {
             try {
                 return topicModelService.getAll(l);
             } catch (IOException | InterruptedException | ApiException e) {
                 throw new RuntimeException(e);
             }
-        }, lookup);
+        }, lookup));
     }
 
     @GetMapping("{name}")
-    @Transactional
-    public QueryResult<TopicModelListing> GetSingle(@PathVariable(name = "name") String name) throws InterruptedException, IOException, ApiException {
-        List<TopicModelListing> models = topicModelService.getModel(name);
-        return new QueryResult<>(models, models.size());
+    public CompletableFuture<QueryResult<TopicModelListing>> GetSingle(@PathVariable(name = "name") String name) {
+        return containerRequestExecutor.submit(DockerService.MANAGE_MODELS, () -> {
+            List<TopicModelListing> models = topicModelService.getModel(name);
+            return new QueryResult<>(models, models.size());
+        });
     }
 
     @PostMapping("{name}/copy")
-    @Transactional
-    public void Copy(@PathVariable("name") String name) throws InterruptedException, IOException, ApiException {
-        topicModelService.copy(ModelType.TOPIC, name);
+    public CompletableFuture<Void> Copy(@PathVariable("name") String name) {
+        return containerRequestExecutor.run(DockerService.MANAGE_MODELS, () -> topicModelService.copy(ModelType.TOPIC, name));
     }
 
     @PutMapping("rename")
-    @Transactional
-    public void Rename(@Valid @RequestBody RenameInfo model) throws InterruptedException, IOException, ApiException {
-        topicModelService.rename(ModelType.TOPIC, model.getOldName(), model.getNewName());
+    public CompletableFuture<Void> Rename(@Valid @RequestBody RenameInfo model) {
+        return containerRequestExecutor.run(DockerService.MANAGE_MODELS, () -> topicModelService.rename(ModelType.TOPIC, model.getOldName(), model.getNewName()));
     }
 
     @PatchMapping("{name}/patch")
@@ -96,9 +112,8 @@ public class TopicModelController {
     }
 
     @DeleteMapping("{name}/delete")
-    @Transactional
-    public void Delete(@PathVariable("name") String name) throws InterruptedException, IOException, ApiException {
-        topicModelService.delete(ModelType.TOPIC, name);
+    public CompletableFuture<Void> Delete(@PathVariable("name") String name) {
+        return containerRequestExecutor.run(DockerService.MANAGE_MODELS, () -> topicModelService.delete(ModelType.TOPIC, name));
     }
 
     @GetMapping("{name}/reset")
@@ -110,63 +125,88 @@ public class TopicModelController {
     }
 
     @GetMapping(value = "{name}/ldavis.v3.0.0.js", produces = "text/javascript")
-    @ResponseBody
-    public String PyLDAvisLibrary(@PathVariable("name") String name) throws IOException {
-        return topicModelService.getPyLDAvisLibrary(name);
+    public ResponseEntity<Resource> PyLDAvisLibrary(@PathVariable("name") String name, @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
+        return asset(topicModelService.getPyLDAvisLibrary(name), JAVASCRIPT, SCRIPT_CACHE_CONTROL, acceptEncoding);
     }
 
     @GetMapping(value = "/{name}/pyLDAvis.html", produces = MediaType.TEXT_HTML_VALUE)
-    @ResponseBody
-    public String PyLDAvis(@PathVariable("name") String name) throws IOException {
-        return topicModelService.getPyLDAvis(name);
+    public ResponseEntity<Resource> PyLDAvis(@PathVariable("name") String name, @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
+        return asset(topicModelService.getPyLDAvis(name), MediaType.TEXT_HTML, PAGE_CACHE_CONTROL, acceptEncoding);
     }
 
     @GetMapping(value = "/{name}/d3.js", produces = "text/javascript")
-    @ResponseBody
-    public String D3(@PathVariable("name") String name) throws IOException {
-        return topicModelService.getD3(name);
+    public ResponseEntity<Resource> D3(@PathVariable("name") String name, @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
+        return asset(topicModelService.getD3(name), JAVASCRIPT, SCRIPT_CACHE_CONTROL, acceptEncoding);
     }
 
     @GetMapping(value = "{parentName}/{name}/ldavis.v3.0.0.js", produces = "text/javascript")
-    @ResponseBody
-    public String PyLDAvisLibraryHierarchical(@PathVariable("parentName") String parentName, @PathVariable("name") String name) throws IOException {
-        return topicModelService.getPyLDAvisLibrary(parentName, name);
+    public ResponseEntity<Resource> PyLDAvisLibraryHierarchical(@PathVariable("parentName") String parentName, @PathVariable("name") String name, @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
+        return asset(topicModelService.getPyLDAvisLibrary(parentName, name), JAVASCRIPT, SCRIPT_CACHE_CONTROL, acceptEncoding);
     }
 
     @GetMapping(value = "{parentName}/{name}/pyLDAvis.html", produces = MediaType.TEXT_HTML_VALUE)
-    @ResponseBody
-    public String PyLDAvisHierarchical(@PathVariable("parentName") String parentName, @PathVariable("name") String name) throws IOException {
-        return topicModelService.getPyLDAvis(parentName, name);
+    public ResponseEntity<Resource> PyLDAvisHierarchical(@PathVariable("parentName") String parentName, @PathVariable("name") String name, @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
+        return asset(topicModelService.getPyLDAvis(parentName, name), MediaType.TEXT_HTML, PAGE_CACHE_CONTROL, acceptEncoding);
     }
 
     @GetMapping(value = "{parentName}/{name}/d3.js", produces = "text/javascript")
-    @ResponseBody
-    public String D3Hierarchical(@PathVariable("parentName") String parentName, @PathVariable("name") String name) throws IOException {
-        return topicModelService.getD3(parentName, name);
+    public ResponseEntity<Resource> D3Hierarchical(@PathVariable("parentName") String parentName, @PathVariable("name") String name, @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
+        return asset(topicModelService.getD3(parentName, name), JAVASCRIPT, SCRIPT_CACHE_CONTROL, acceptEncoding);
+    }
+
+    /**
+     * Sends a visualization file from the asset store, gzip compressed when the client accepts it. The ETag is the
+     * content hash, so Spring answers a matching If-None-Match with 304 and nothing is read.
+     */
+    private static ResponseEntity<Resource> asset(ModelAssetStore.Asset asset, MediaType mediaType, CacheControl cacheControl, String acceptEncoding) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(mediaType)
+                .cacheControl(cacheControl)
+                .lastModified(asset.lastModified())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (asset.gzipFile() != null && acceptsGzip(acceptEncoding)) {
+            return response
+                    .eTag(asset.hash() + "-gzip")
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(new FileSystemResource(asset.gzipFile()));
+        }
+        return response
+                .eTag(asset.hash())
+                .body(new FileSystemResource(asset.file()));
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].trim().matches("q=0(\\.0*)?")) return false;
+            }
+            return true;
+        }
+        return false;
     }
 
     @PostMapping("/{name}/topics/all")
-    @Transactional
-    public QueryResult<Topic> GetAllTopics(@PathVariable("name") String name, @RequestBody TopicLookup lookup) {
-        return extractQueryResultWithCount((n, l) -> {
+    public CompletableFuture<QueryResult<Topic>> GetAllTopics(@PathVariable("name") String name, @RequestBody TopicLookup lookup) {
+        return containerRequestExecutor.submit(DockerService.MANAGE_MODELS, () -> extractQueryResultWithCount((n, l) -> {
             try {
                 return topicModelService.getAllTopics(n, l);
             } catch (IOException | InterruptedException | ApiException e) {
                 throw new RuntimeException(e);
             }
-        }, name, lookup);
+        }, name, lookup));
     }
 
     @PostMapping("/{name}/topics/labels")
-    @Transactional
-    public void SetTopicLabels(@PathVariable("name") String name, @Valid @RequestBody TopicLabelsPayload payload) throws IOException, InterruptedException, ApiException {
-        topicModelService.setTopicLabels(name, payload.getLabels());
+    public CompletableFuture<Void> SetTopicLabels(@PathVariable("name") String name, @Valid @RequestBody TopicLabelsPayload payload) {
+        return containerRequestExecutor.run(DockerService.MANAGE_MODELS, () -> topicModelService.setTopicLabels(name, payload.getLabels()));
     }
 
     @PostMapping("/{name}/topics/similar")
-    @Transactional
-    public QueryResult<TopicSimilarity> GetSimilarTopics(@PathVariable("name") String name, @Valid @RequestBody TopicSimilarityPayload payload) throws InterruptedException, IOException, ApiException {
-        return new QueryResult<>(List.of(topicModelService.getSimilarTopics(name, payload.getPairs())), 1);
+    public CompletableFuture<QueryResult<TopicSimilarity>> GetSimilarTopics(@PathVariable("name") String name, @Valid @RequestBody TopicSimilarityPayload payload) {
+        return containerRequestExecutor.submit(DockerService.MANAGE_MODELS, () -> new QueryResult<>(List.of(topicModelService.getSimilarTopics(name, payload.getPairs(), payload.getMetric())), 1));
     }
 
     @PostMapping("/{name}/topics/fuse")
@@ -182,9 +222,8 @@ public class TopicModelController {
     }
 
     @PostMapping("/{name}/topics/delete")
-    @Transactional
-    public void deleteTopics(@PathVariable("name") String name, @RequestBody TopicDeletionPayload payload) throws InterruptedException, IOException, ApiException {
-        topicModelService.deleteTopics(name, payload.getTopics());
+    public CompletableFuture<Void> deleteTopics(@PathVariable("name") String name, @RequestBody TopicDeletionPayload payload) {
+        return containerRequestExecutor.run(DockerService.MANAGE_MODELS, () -> topicModelService.deleteTopics(name, payload.getTopics()));
     }
 
     @PostMapping("train")
@@ -197,37 +236,27 @@ public class TopicModelController {
     @GetMapping("train/logs/{name}")
     @Transactional
     public List<String> getTrainingLogs(@PathVariable(name = "name") String modelName, @RequestParam(value = "last", required = false) Integer last, HttpServletResponse response) {
-        try {
-            List<String> lines = Files.readAllLines(Path.of(containerServicesProperties.getTopicTrainingService().getModelsFolder(ContainerServicesProperties.ManageTopicModels.class), modelName, "execution.log"));
-            if (lines.isEmpty()) {
-                lines.add("INFO: Logs empty. Nothing to display.");
-                return lines;
-            }
-            return lines.subList(
-                    Math.max(lines.size() - Objects.requireNonNullElse(last, DEFAULT_LOG_LINE_LIMIT), 0), lines.size()
-            );
-        } catch (IOException e) {
-            response.setStatus(HttpStatus.NOT_FOUND.value());
-            return List.of("ERROR: Logs not found.");
-        }
+        return readLogTail(this.trainingLog(modelName), last, response);
+    }
+
+    @GetMapping(path = "train/log-stream/{name}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter followTrainingLogs(@PathVariable(name = "name") String modelName, @RequestParam(value = "offset", required = false) Long offset, @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return trainingLogFollower.follow(this.trainingLog(modelName), lastEventId != null ? lastEventId : offset);
     }
 
     @GetMapping("train/logs/{parent}/{name}")
     @Transactional
     public List<String> getHierarchicalTrainingLogs(@PathVariable(name = "parent") String parentModelName, @PathVariable(name = "name") String modelName, @RequestParam(value = "last", required = false) Integer last, HttpServletResponse response) {
-        try {
-            List<String> lines = Files.readAllLines(Path.of(containerServicesProperties.getTopicTrainingService().getModelsFolder(ContainerServicesProperties.ManageTopicModels.class), parentModelName, modelName, "execution.log"));
-            if (lines.isEmpty()) {
-                lines.add("INFO: Logs empty. Nothing to display.");
-                return lines;
-            }
-            return lines.subList(
-                    Math.max(lines.size() - Objects.requireNonNullElse(last, DEFAULT_LOG_LINE_LIMIT), 0), lines.size()
-            );
-        } catch (IOException e) {
-            response.setStatus(HttpStatus.NOT_FOUND.value());
-            return List.of("ERROR: Logs not found.");
-        }
+        return readLogTail(this.trainingLog(parentModelName, modelName), last, response);
+    }
+
+    @GetMapping(path = "train/log-stream/{parent}/{name}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter followHierarchicalTrainingLogs(@PathVariable(name = "parent") String parentModelName, @PathVariable(name = "name") String modelName, @RequestParam(value = "offset", required = false) Long offset, @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return trainingLogFollower.follow(this.trainingLog(parentModelName, modelName), lastEventId != null ? lastEventId : offset);
+    }
+
+    private Path trainingLog(String... modelPath) {
+        return Path.of(containerServicesProperties.getTopicTrainingService().getModelsFolder(ContainerServicesProperties.ManageTopicModels.class), modelPath).resolve("execution.log");
     }
 
 
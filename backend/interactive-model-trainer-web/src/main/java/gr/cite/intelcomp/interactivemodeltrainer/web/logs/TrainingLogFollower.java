@@ -0,0 +1,119 @@
+package gr.cite.intelcomp.interactivemodeltrainer.web.logs;
+
+import gr.cite.intelcomp.interactivemodeltrainer.common.utils.LogFileReader;
+import gr.cite.tools.logging.LoggerService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams the lines appended to a training log as server sent events. Every follower polls the file size from
+ * a shared scheduler and only reads the bytes written after its offset. Each "log" event carries the new lines
+ * and has the offset to continue from as its id, so a reconnecting EventSource resumes through the
+ * Last-Event-ID header without receiving lines twice.
+ */
+@Component
+public class TrainingLogFollower {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(TrainingLogFollower.class));
+
+    private static final Duration POLL_INTERVAL = Duration.ofSeconds(1);
+    private static final Duration STREAM_TIMEOUT = Duration.ofMinutes(30);
+    private static final int MAX_CHUNK_BYTES = 256 * 1024;
+
+    private final ScheduledExecutorService scheduler;
+
+    public TrainingLogFollower() {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "training-log-follower-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Follows the given log starting at the given byte offset. Without an offset the stream starts at the
+     * current end of the file, as the lines before it are served by the plain logs endpoint.
+     */
+    public SseEmitter follow(Path log, Long offset) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT.toMillis());
+        Follower follower = new Follower(log, emitter);
+        try {
+            follower.offset = offset != null ? offset : LogFileReader.tail(log, 0).nextOffset();
+        } catch (IOException e) {
+            follower.missing();
+            return emitter;
+        }
+
+        ScheduledFuture<?> poll = scheduler.scheduleWithFixedDelay(follower::poll, 0, POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        emitter.onCompletion(() -> poll.cancel(false));
+        emitter.onTimeout(() -> poll.cancel(false));
+        emitter.onError(e -> poll.cancel(false));
+        return emitter;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private static class Follower {
+        private final Path log;
+        private final SseEmitter emitter;
+        private long offset;
+
+        private Follower(Path log, SseEmitter emitter) {
+            this.log = log;
+            this.emitter = emitter;
+        }
+
+        private void poll() {
+            try {
+                LogFileReader.Chunk chunk;
+                do {
+                    chunk = LogFileReader.readFrom(log, offset, MAX_CHUNK_BYTES);
+                    if (chunk.nextOffset() == offset) break;
+                    this.send(chunk.lines(), chunk.nextOffset());
+                    offset = chunk.nextOffset();
+                } while (!chunk.lines().isEmpty());
+            } catch (NoSuchFileException e) {
+                this.missing();
+            } catch (IOException | IllegalStateException e) {
+                // The client went away, completing the emitter cancels the poll
+                logger.debug("Stopped following {}: {}", log, e.getMessage());
+                emitter.complete();
+            }
+        }
+
+        private void send(List<String> lines, long nextOffset) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(nextOffset))
+                    .name("log")
+                    .data(lines, MediaType.APPLICATION_JSON));
+        }
+
+        private void missing() {
+            try {
+                emitter.send(SseEmitter.event().name("missing").data(List.of("ERROR: Logs not found."), MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+}
@@ -3,6 +3,7 @@ package gr.cite.intelcomp.interactivemodeltrainer.web.scope.user;
 
 import gr.cite.commons.web.oidc.principal.CurrentPrincipalResolver;
 import gr.cite.commons.web.oidc.principal.extractor.ClaimExtractor;
+import gr.cite.intelcomp.interactivemodeltrainer.cache.UserDirectory;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.IsActive;
 import gr.cite.intelcomp.interactivemodeltrainer.common.scope.user.UserScope;
 import gr.cite.intelcomp.interactivemodeltrainer.data.UserEntity;
@@ -40,6 +41,7 @@ public class UserInterceptor implements WebRequestInterceptor {
     private final LocaleService localeService;
     private final PlatformTransactionManager transactionManager;
     private final UserInterceptorCacheService userInterceptorCacheService;
+    private final UserDirectory userDirectory;
     @PersistenceContext
     public EntityManager entityManager;
 
@@ -50,7 +52,8 @@ public class UserInterceptor implements WebRequestInterceptor {
             ClaimExtractor claimExtractor,
             CurrentPrincipalResolver currentPrincipalResolver,
             PlatformTransactionManager transactionManager,
-            UserInterceptorCacheService userInterceptorCacheService
+            UserInterceptorCacheService userInterceptorCacheService,
+            UserDirectory userDirectory
     ) {
         this.userScope = userScope;
         this.localeService = localeService;
@@ -58,6 +61,7 @@ public class UserInterceptor implements WebRequestInterceptor {
         this.claimExtractor = claimExtractor;
         this.transactionManager = transactionManager;
         this.userInterceptorCacheService = userInterceptorCacheService;
+        this.userDirectory = userDirectory;
     }
 
     @Override
@@ -137,6 +141,7 @@ public class UserInterceptor implements WebRequestInterceptor {
 
             this.entityManager.flush();
             transactionManager.commit(status);
+            this.userDirectory.invalidate();
         } catch (Exception ex) {
             if (status != null)
                 transactionManager.rollback(status);
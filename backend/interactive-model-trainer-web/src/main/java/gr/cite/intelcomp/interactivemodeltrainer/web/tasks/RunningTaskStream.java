@@ -0,0 +1,182 @@
+package gr.cite.intelcomp.interactivemodeltrainer.web.tasks;
+
+import gr.cite.intelcomp.interactivemodeltrainer.cache.RunningTaskEvents;
+import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskType;
+import gr.cite.tools.logging.LoggerService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the running task changes of each user to their open dashboards as server sent events, instead of
+ * every dashboard polling and filtering the whole task list. Changes are fanned out to the subscribers of the
+ * owning user only, or to everyone for curating tasks. Every subscriber has a bounded queue of its own that is
+ * drained in order on a sender thread, so a slow dashboard only delays itself, and one that falls
+ * {@link #QUEUED_EVENTS} events behind is disconnected to resume with its last token.
+ * <p>
+ * Events are named "task" and carry a {@link RunningTaskEvents.Delta}, with the resume token as the event id.
+ * A "ready" event closes the replay of missed changes, and a "reset" event tells the client that its token can
+ * no longer be resumed and that it has to reload the task listing.
+ */
+@Component
+public class RunningTaskStream implements RunningTaskEvents.Listener {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(RunningTaskStream.class));
+
+    private static final Duration STREAM_TIMEOUT = Duration.ofMinutes(30);
+    private static final int QUEUED_EVENTS = 256;
+
+    private final RunningTaskEvents runningTaskEvents;
+    private final Map<UUID, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService sender;
+
+    public RunningTaskStream(RunningTaskEvents runningTaskEvents) {
+        this.runningTaskEvents = runningTaskEvents;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "running-task-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void register() {
+        runningTaskEvents.addListener(this);
+    }
+
+    public SseEmitter subscribe(UUID user, String token) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT.toMillis());
+        if (user == null) {
+            emitter.complete();
+            return emitter;
+        }
+        Subscriber subscriber = new Subscriber(user, emitter);
+        emitter.onCompletion(() -> this.drop(subscriber));
+        emitter.onTimeout(() -> this.drop(subscriber));
+        emitter.onError(e -> this.drop(subscriber));
+
+        // Queued before any later delta, so the replay and the live changes reach the client in order
+        runningTaskEvents.resume(user, token, replay -> {
+            subscribers.computeIfAbsent(user, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+            String current = runningTaskEvents.currentToken();
+            this.enqueue(subscriber, target -> this.replay(target, replay, current));
+        });
+        return emitter;
+    }
+
+    @Override
+    public void onDelta(RunningTaskEvents.Delta delta) {
+        Delivery delivery = target -> target.send(SseEmitter.event().id(delta.token()).name("task").data(delta, MediaType.APPLICATION_JSON));
+        if (delta.type() == RunningTaskType.curating) {
+            subscribers.values().forEach(group -> group.forEach(subscriber -> this.enqueue(subscriber, delivery)));
+        } else if (delta.userId() != null) {
+            Set<Subscriber> group = subscribers.get(delta.userId());
+            if (group != null) group.forEach(subscriber -> this.enqueue(subscriber, delivery));
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        runningTaskEvents.removeListener(this);
+        sender.shutdownNow();
+        subscribers.values().forEach(group -> group.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+    }
+
+    private void replay(SseEmitter emitter, RunningTaskEvents.Replay replay, String current) throws IOException {
+        if (replay == null) {
+            emitter.send(SseEmitter.event().id(current).name("reset").data(current));
+            return;
+        }
+        for (RunningTaskEvents.Delta delta : replay.deltas()) {
+            emitter.send(SseEmitter.event().id(delta.token()).name("task").data(delta, MediaType.APPLICATION_JSON));
+        }
+        emitter.send(SseEmitter.event().id(replay.token()).name("ready").data(replay.token()));
+    }
+
+    /**
+     * Queues the event for the subscriber and makes sure a sender drains its queue, disconnecting the subscriber
+     * when its queue is full.
+     */
+    private void enqueue(Subscriber subscriber, Delivery delivery) {
+        if (!subscriber.pending.offer(delivery)) {
+            logger.debug("Running task stream of user {} fell behind, disconnecting it", subscriber.user);
+            this.drop(subscriber);
+            try {
+                // Not on the publishing thread, the emitter is locked while a send to the slow client is stuck
+                sender.execute(subscriber.emitter::complete);
+            } catch (RejectedExecutionException ignored) {
+            }
+            return;
+        }
+        this.schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) return;
+        try {
+            sender.execute(() -> this.drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.draining.set(false);
+            logger.debug("Running task stream is shutting down, dropping an event");
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        Delivery delivery;
+        while ((delivery = subscriber.pending.poll()) != null) {
+            try {
+                delivery.send(subscriber.emitter);
+            } catch (IOException | RuntimeException e) {
+                this.drop(subscriber);
+                subscriber.pending.clear();
+            }
+        }
+        subscriber.draining.set(false);
+        // An event queued after the last poll and before the flag was cleared found the queue still being drained
+        if (!subscriber.pending.isEmpty()) this.schedule(subscriber);
+    }
+
+    private void drop(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.user, (k, group) -> {
+            group.remove(subscriber);
+            return group.isEmpty() ? null : group;
+        });
+    }
+
+    @FunctionalInterface
+    private interface Delivery {
+        void send(SseEmitter emitter) throws IOException;
+    }
+
+    private static class Subscriber {
+        private final UUID user;
+        private final SseEmitter emitter;
+        private final Queue<Delivery> pending = new ArrayBlockingQueue<>(QUEUED_EVENTS);
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(UUID user, SseEmitter emitter) {
+            this.user = user;
+            this.emitter = emitter;
+        }
+    }
+
+}
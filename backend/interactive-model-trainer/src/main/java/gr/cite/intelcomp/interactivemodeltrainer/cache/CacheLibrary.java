@@ -1,30 +1,22 @@
 package gr.cite.intelcomp.interactivemodeltrainer.cache;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import gr.cite.intelcomp.interactivemodeltrainer.common.JsonHandlingService;
-import gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties;
-import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskQueueItem;
-import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskQueueItemFull;
-import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskType;
-import gr.cite.intelcomp.interactivemodeltrainer.model.trainingtaskrequest.CuratingTaskQueueItem;
 import gr.cite.tools.logging.LoggerService;
-import org.apache.commons.io.FileUtils;
+import io.kubernetes.client.openapi.ApiException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
-import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-
-import static gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties.DockerServiceConfiguration.CACHE_DUMP_FILE_NAME;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Component
 @Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
@@ -32,46 +24,163 @@ public class CacheLibrary extends ConcurrentHashMap<String, CachedEntity<?>> {
 
     private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(CacheLibrary.class));
 
-    private final JsonHandlingService jsonHandlingService;
-    private final ContainerServicesProperties containerServicesProperties;
-    private final ObjectMapper mapper;
+    private final MeterRegistry meterRegistry;
+
+    private static final int REFRESH_THREADS = 4;
+    private static final int MAX_RELOAD_ATTEMPTS = 3;
+    private final Map<String, Reload> refreshing = new ConcurrentHashMap<>();
+    // Counts the changes made to every key outside of a reload, so that a reload that raced with one is not stored
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor;
+    private final List<Consumer<String>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    public CacheLibrary(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refreshExecutor = Executors.newFixedThreadPool(REFRESH_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "cache-refresh-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @FunctionalInterface
+    public interface Loader<E extends CachedEntity<?>> {
+        E load() throws InterruptedException, IOException, ApiException;
+    }
+
+    @PreDestroy
+    public void onDestroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    public <E extends CachedEntity<?>> E getOrLoad(String code, int validPeriodInSeconds, Loader<E> loader) throws InterruptedException, IOException, ApiException {
+        return getOrLoad(code, code, validPeriodInSeconds, loader);
+    }
+
+    /**
+     * A reload of a key, started at the given generation of the key.
+     */
+    private static class Reload extends CompletableFuture<CachedEntity<?>> {
+        private final long generation;
+        private volatile boolean superseded;
 
-    public CacheLibrary(JsonHandlingService jsonHandlingService, ContainerServicesProperties containerServicesProperties, ObjectMapper mapper) {
-        this.jsonHandlingService = jsonHandlingService;
-        this.containerServicesProperties = containerServicesProperties;
-        this.mapper = mapper;
+        private Reload(long generation) {
+            this.generation = generation;
+        }
     }
 
-    @PostConstruct()
-    public void onConstruct() {
-        File file = new File(Path.of(
-                containerServicesProperties.getTopicTrainingService().getTempFolder(),
-                CACHE_DUMP_FILE_NAME
-        ).toUri());
+    /**
+     * Stale-while-revalidate lookup with a single reload in flight per key. A fresh entry is returned as is.
+     * An expired entry is returned immediately while one caller schedules its reload in the background; an
+     * entry explicitly marked dirty, or a missing one, is reloaded by the first caller and awaited by whoever
+     * has nothing to fall back to. A reload only stores what it loaded when the entry was not marked dirty,
+     * patched or cleared while it ran, and a caller that has to reload never settles for a reload started before
+     * the entry was marked dirty. Returns null when the loader yields nothing to cache.
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends CachedEntity<?>> E getOrLoad(String code, String key, int validPeriodInSeconds, Loader<E> loader) throws InterruptedException, IOException, ApiException {
+        E cached = (E) get(key);
+        if (cached != null && !cached.isDirty(validPeriodInSeconds)) {
+            countLookup(code, "hit");
+            return cached;
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            long generation = generation(key);
+            Reload reload = new Reload(generation);
+            Reload inFlight = refreshing.putIfAbsent(key, reload);
+            if (inFlight != null) {
+                if (cached != null && !cached.isInvalidated()) {
+                    countLookup(code, "stale");
+                    return cached;
+                }
+                if (inFlight.generation == generation || attempt >= MAX_RELOAD_ATTEMPTS) {
+                    countLookup(code, "miss");
+                    return (E) await(inFlight);
+                }
+                // Started before the entry was invalidated, wait for it to finish and reload again
+                try {
+                    inFlight.get();
+                } catch (ExecutionException ignored) {
+                }
+            } else if (cached == null || cached.isInvalidated()) {
+                reload(code, key, loader, reload);
+                E loaded = (E) await(reload);
+                if (!reload.superseded || attempt >= MAX_RELOAD_ATTEMPTS) {
+                    countLookup(code, "miss");
+                    return loaded;
+                }
+            } else {
+                countLookup(code, "stale");
+                try {
+                    refreshExecutor.execute(() -> reload(code, key, loader, reload));
+                } catch (RejectedExecutionException e) {
+                    refreshing.remove(key, reload);
+                }
+                return cached;
+            }
+
+            cached = (E) get(key);
+            if (cached != null && !cached.isDirty(validPeriodInSeconds)) {
+                countLookup(code, "hit");
+                return cached;
+            }
+        }
+    }
+
+    private <E extends CachedEntity<?>> void reload(String code, String key, Loader<E> loader, Reload reload) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
         try {
-            String json = FileUtils.readFileToString(file, Charset.defaultCharset());
-            if (json != null && !json.isBlank()) {
-                UserTasksCacheEntityFull cache = jsonHandlingService.fromJson(UserTasksCacheEntityFull.class, json);
-                UserTasksCacheEntity cacheToBeSet = new UserTasksCacheEntity();
-                List<RunningTaskQueueItem> payload = new ArrayList<>();
-                for (RunningTaskQueueItemFull cacheItem : cache.getPayload()) {
-                    if (cacheItem.getType() == RunningTaskType.curating) {
-                        CuratingTaskQueueItem item = mapper.convertValue(cacheItem, CuratingTaskQueueItem.class);
-                        item.setUserId(cacheItem.getUserId());
-                        item.getResponse().setDocuments(cacheItem.getResponse().getDocuments());
-                        item.getResponse().setPuScores(cacheItem.getResponse().getPuScores());
-                        payload.add(item);
+            E loaded = loader.load();
+            if (loaded != null) {
+                // Checked and stored under the lock of the key in generations, which every change of the key takes
+                generations.compute(key, (k, generation) -> {
+                    if ((generation == null ? 0L : generation) == reload.generation) {
+                        update(loaded, key);
+                    } else {
+                        reload.superseded = true;
+                        loaded.setDirty();
                     }
-                }
-                cacheToBeSet.setPayload(payload);
-                update(cacheToBeSet);
+                    return generation;
+                });
             }
-        } catch (IOException e) {
-            logger.warn("Unable to initialize user tasks cache from dump file.");
-            logger.warn("Message: {}", e.getMessage());
-            return;
+            reload.complete(loaded);
+        } catch (Throwable e) {
+            outcome = "failure";
+            logger.warn("Reloading cache entry '{}' failed: {}", key, e.getMessage());
+            reload.completeExceptionally(e);
+        } finally {
+            refreshing.remove(key, reload);
+            meterRegistry.counter("cache.library.reloads", "cache", code, "outcome", outcome).increment();
+            sample.stop(meterRegistry.timer("cache.library.reload.duration", "cache", code));
         }
-        logger.info("User tasks cache initialized.");
+    }
+
+    private long generation(String key) {
+        return generations.getOrDefault(key, 0L);
+    }
+
+    private void changed(String key) {
+        generations.merge(key, 1L, Long::sum);
+    }
+
+    private static CachedEntity<?> await(CompletableFuture<CachedEntity<?>> reload) throws InterruptedException, IOException, ApiException {
+        try {
+            return reload.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) throw ioException;
+            if (cause instanceof ApiException apiException) throw apiException;
+            if (cause instanceof InterruptedException interruptedException) throw interruptedException;
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IOException(cause);
+        }
+    }
+
+    private void countLookup(String code, String result) {
+        meterRegistry.counter("cache.library.lookups", "cache", code, "result", result).increment();
     }
 
     public void update(CachedEntity<?> entity) {
@@ -84,12 +193,43 @@ public class CacheLibrary extends ConcurrentHashMap<String, CachedEntity<?>> {
 
     public void setDirtyByKey(String key) {
         if (key == null) return;
+        changed(key);
         CachedEntity<?> entity = get(key);
         if (entity != null) entity.setDirty();
+        invalidated(key);
+    }
+
+    /**
+     * Registers a listener for the keys marked dirty or cleared, for state derived from an entry that is kept
+     * outside the library.
+     */
+    public void addInvalidationListener(Consumer<String> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    private void invalidated(String key) {
+        for (Consumer<String> listener : invalidationListeners) listener.accept(key);
+    }
+
+    /**
+     * Patches the entries of a keyed listing in place. When the listing has not been loaded yet there is
+     * nothing to patch, since the next read will load it in full anyway.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void patchByKey(String key, Consumer<KeyedCachedEntity<T>> patch) {
+        if (key == null) return;
+        changed(key);
+        computeIfPresent(key, (k, entity) -> {
+            if (entity instanceof KeyedCachedEntity<?> keyed) patch.accept((KeyedCachedEntity<T>) keyed);
+            else entity.setDirty();
+            return entity;
+        });
     }
 
     public void clearByKey(String key) {
+        changed(key);
         remove(key);
+        invalidated(key);
     }
 
 }
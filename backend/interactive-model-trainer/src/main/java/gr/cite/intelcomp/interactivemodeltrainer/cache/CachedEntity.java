@@ -1,6 +1,7 @@
 package gr.cite.intelcomp.interactivemodeltrainer.cache;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -23,6 +24,9 @@ public abstract class CachedEntity<T> {
     private Instant updatedAt;
     private List<T> payload;
 
+    private volatile int revision;
+    private volatile IndexedView<T> view;
+
     public abstract String getCode();
 
     public boolean isDirty(int retentionPeriod) {
@@ -33,6 +37,11 @@ public abstract class CachedEntity<T> {
         this.dirty = true;
     }
 
+    @JsonIgnore
+    public boolean isInvalidated() {
+        return dirty;
+    }
+
     public Instant getUpdatedAt() {
         return updatedAt;
     }
@@ -43,6 +52,35 @@ public abstract class CachedEntity<T> {
 
     public void setPayload(List<T> payload) {
         this.payload = payload;
+        refreshed();
+    }
+
+    protected void refreshed() {
         this.updatedAt = Instant.now();
+        contentChanged();
+    }
+
+    /**
+     * Returns the query index over the current payload, building it on first use after every change.
+     */
+    @JsonIgnore
+    public IndexedView<T> getView() {
+        IndexedView<T> current = view;
+        if (current != null) return current;
+        int seen = revision;
+        current = buildView(getPayload());
+        synchronized (this) {
+            if (seen == revision) view = current;
+        }
+        return current;
+    }
+
+    protected IndexedView<T> buildView(List<T> payload) {
+        return IndexedView.builder(payload).build();
+    }
+
+    protected synchronized void contentChanged() {
+        revision++;
+        view = null;
     }
 }
@@ -2,4 +2,32 @@ package gr.cite.intelcomp.interactivemodeltrainer.cache;
 
 import gr.cite.intelcomp.interactivemodeltrainer.data.CorpusEntity;
 
-public abstract class CorpusCachedEntity <T extends CorpusEntity> extends CachedEntity<T>{ }
+import java.util.Comparator;
+import java.util.List;
+
+public abstract class CorpusCachedEntity <T extends CorpusEntity> extends KeyedCachedEntity<T>{
+
+    @Override
+    protected String keyOf(T item) {
+        return item.getName();
+    }
+
+    public static final String VALID_FOR = "valid_for";
+
+    /**
+     * Indexes the fields shared by all corpus listings, subclasses add their own orderings.
+     */
+    protected IndexedView.Builder<T> viewBuilder(List<T> payload) {
+        return IndexedView.builder(payload)
+                .text(IndexedView.NAME, CorpusEntity::getName)
+                .bucket(IndexedView.CREATOR, CorpusEntity::getCreator)
+                .bucket(IndexedView.VISIBILITY, CorpusEntity::getVisibility)
+                .bucket(VALID_FOR, CorpusEntity::getValid_for)
+                .order("name", Comparator.comparing(CorpusEntity::getName));
+    }
+
+    @Override
+    protected IndexedView<T> buildView(List<T> payload) {
+        return viewBuilder(payload).build();
+    }
+}
@@ -3,6 +3,9 @@ package gr.cite.intelcomp.interactivemodeltrainer.cache;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.CommandType;
 import gr.cite.intelcomp.interactivemodeltrainer.data.DomainModelEntity;
 
+import java.util.Comparator;
+import java.util.List;
+
 public class DomainModelCachedEntity extends ModelCachedEntity<DomainModelEntity>{
 
     public static final String CODE = CommandType.MODEL_GET_DOMAIN.name();
@@ -11,4 +14,11 @@ public class DomainModelCachedEntity extends ModelCachedEntity<DomainModelEntity
     public String getCode() {
         return CODE;
     }
+
+    @Override
+    protected IndexedView<DomainModelEntity> buildView(List<DomainModelEntity> payload) {
+        return viewBuilder(payload)
+                .order("tag", Comparator.comparing(DomainModelEntity::getTag))
+                .build();
+    }
 }
@@ -0,0 +1,228 @@
+package gr.cite.intelcomp.interactivemodeltrainer.cache;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Read-only index over one version of a cached listing. It keeps lowercase copies of the searchable text
+ * fields, the item positions for every value of the bucketed fields and, built on first use, one stable
+ * ordering per sortable field and direction. A filtered, sorted page is then produced by walking the
+ * precomputed ordering and stopping as soon as the page is full, instead of filtering and sorting the
+ * whole listing per request.
+ */
+public class IndexedView<T> {
+
+    public static final String NAME = "name";
+    public static final String CREATOR = "creator";
+    public static final String VISIBILITY = "visibility";
+
+    private final List<T> items;
+    private final Map<String, String[]> texts;
+    private final Map<String, Map<Object, BitSet>> buckets;
+    private final Map<String, Comparator<? super T>> comparators;
+    private final Map<String, int[]> orderings = new ConcurrentHashMap<>();
+
+    private IndexedView(Builder<T> builder) {
+        this.items = builder.items;
+        this.comparators = builder.comparators;
+        this.texts = new HashMap<>();
+        builder.texts.forEach((field, extractor) -> {
+            String[] values = new String[items.size()];
+            for (int i = 0; i < values.length; i++) {
+                String value = extractor.apply(items.get(i));
+                values[i] = value == null ? null : value.toLowerCase();
+            }
+            texts.put(field, values);
+        });
+        this.buckets = new HashMap<>();
+        builder.buckets.forEach((field, extractor) -> {
+            Map<Object, BitSet> bucket = new HashMap<>();
+            for (int i = 0; i < items.size(); i++) {
+                bucket.computeIfAbsent(extractor.apply(items.get(i)), value -> new BitSet()).set(i);
+            }
+            buckets.put(field, bucket);
+        });
+    }
+
+    public static <T> Builder<T> builder(List<T> payload) {
+        return new Builder<>(payload);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public Query<T> query() {
+        return new Query<>(this);
+    }
+
+    private int[] ordering(String field, boolean descending) {
+        Comparator<? super T> comparator = comparators.get(field);
+        if (comparator == null) return null;
+        return orderings.computeIfAbsent((descending ? "-" : "") + field, key -> {
+            Comparator<? super T> effective = descending ? Collections.reverseOrder(comparator) : comparator;
+            return IntStream.range(0, items.size())
+                    .boxed()
+                    .sorted((a, b) -> effective.compare(items.get(a), items.get(b)))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        });
+    }
+
+    private BitSet bucketOf(String field, Collection<?> values) {
+        Map<Object, BitSet> bucket = buckets.get(field);
+        if (bucket == null) throw new IllegalArgumentException("No bucket indexed for field " + field);
+        BitSet result = new BitSet(items.size());
+        for (Object value : values) {
+            BitSet positions = bucket.get(value);
+            if (positions != null) result.or(positions);
+        }
+        return result;
+    }
+
+    public static class Builder<T> {
+
+        private final List<T> items;
+        private final Map<String, Function<? super T, String>> texts = new HashMap<>();
+        private final Map<String, Function<? super T, ?>> buckets = new HashMap<>();
+        private final Map<String, Comparator<? super T>> comparators = new HashMap<>();
+
+        private Builder(List<T> payload) {
+            this.items = payload == null ? List.of() : List.copyOf(payload);
+        }
+
+        public Builder<T> text(String field, Function<? super T, String> extractor) {
+            texts.put(field, extractor);
+            return this;
+        }
+
+        public Builder<T> bucket(String field, Function<? super T, ?> extractor) {
+            buckets.put(field, extractor);
+            return this;
+        }
+
+        public Builder<T> order(String field, Comparator<? super T> comparator) {
+            comparators.put(field, comparator);
+            return this;
+        }
+
+        public IndexedView<T> build() {
+            return new IndexedView<>(this);
+        }
+    }
+
+    /**
+     * Single use query over the view. Bucket constraints narrow the candidate positions up front, text and
+     * predicate filters are only evaluated for the positions actually walked.
+     */
+    public static class Query<T> {
+
+        private final IndexedView<T> view;
+        private BitSet candidates;
+        private final Map<String, List<String>> contains = new HashMap<>();
+        private Predicate<T> predicate;
+        private int[] ordering;
+        private int offset = 0;
+        private Integer size;
+
+        private Query(IndexedView<T> view) {
+            this.view = view;
+        }
+
+        public Query<T> copy() {
+            Query<T> copy = new Query<>(view);
+            copy.candidates = candidates == null ? null : (BitSet) candidates.clone();
+            contains.forEach((field, needles) -> copy.contains.put(field, new ArrayList<>(needles)));
+            copy.predicate = predicate;
+            copy.ordering = ordering;
+            copy.offset = offset;
+            copy.size = size;
+            return copy;
+        }
+
+        /**
+         * Keeps the items whose lowercased text field contains the given value, which is matched as is.
+         */
+        public Query<T> contains(String field, String value) {
+            if (!view.texts.containsKey(field)) throw new IllegalArgumentException("No text indexed for field " + field);
+            contains.computeIfAbsent(field, f -> new ArrayList<>()).add(value);
+            return this;
+        }
+
+        public Query<T> in(String field, Collection<?> values) {
+            BitSet positions = view.bucketOf(field, values);
+            if (candidates == null) candidates = positions;
+            else candidates.and(positions);
+            return this;
+        }
+
+        public Query<T> equal(String field, Object value) {
+            return in(field, Collections.singleton(value));
+        }
+
+        public Query<T> filter(Predicate<T> filter) {
+            predicate = predicate == null ? filter : predicate.and(filter);
+            return this;
+        }
+
+        /**
+         * Orders by a lookup order item, where a leading '-' means descending. Unknown fields keep the
+         * natural order of the view, which for a {@link KeyedCachedEntity} is the key order.
+         */
+        public Query<T> order(String orderItem) {
+            if (orderItem == null) return this;
+            boolean descending = orderItem.contains("-");
+            ordering = view.ordering(orderItem.replace("-", ""), descending);
+            return this;
+        }
+
+        public Query<T> page(int offset, int size) {
+            this.offset = Math.max(offset, 0);
+            this.size = size;
+            return this;
+        }
+
+        public List<T> list() {
+            List<T> result = new ArrayList<>();
+            if (size != null && size <= 0) return result;
+            int skipped = 0;
+            PrimitiveIterator.OfInt positions = positions();
+            while (positions.hasNext()) {
+                int position = positions.nextInt();
+                if (!matches(position)) continue;
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                result.add(view.items.get(position));
+                if (size != null && result.size() >= size) break;
+            }
+            return result;
+        }
+
+        private PrimitiveIterator.OfInt positions() {
+            if (ordering == null) {
+                if (candidates != null) return candidates.stream().iterator();
+                return IntStream.range(0, view.items.size()).iterator();
+            }
+            if (candidates == null) return IntStream.of(ordering).iterator();
+            BitSet allowed = candidates;
+            return IntStream.of(ordering).filter(allowed::get).iterator();
+        }
+
+        private boolean matches(int position) {
+            for (Map.Entry<String, List<String>> entry : contains.entrySet()) {
+                String text = view.texts.get(entry.getKey())[position];
+                if (text == null) return false;
+                for (String value : entry.getValue()) {
+                    if (!text.contains(value)) return false;
+                }
+            }
+            return predicate == null || predicate.test(view.items.get(position));
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package gr.cite.intelcomp.interactivemodeltrainer.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+/**
+ * Cached listing whose items are indexed by a natural key, so that a single create, rename, copy or delete
+ * can patch the affected entry instead of marking the whole listing dirty. A full reload through
+ * {@link #setPayload(List)} only acts as a periodic reconciliation against the container state.
+ * <p>
+ * The payload is returned in key order rather than in the order the container listed it, so an unordered
+ * lookup over the listing comes back sorted by key.
+ */
+public abstract class KeyedCachedEntity<T> extends CachedEntity<T> {
+
+    private volatile ConcurrentNavigableMap<String, T> entries = new ConcurrentSkipListMap<>();
+
+    protected abstract String keyOf(T item);
+
+    @Override
+    public List<T> getPayload() {
+        return new ArrayList<>(entries.values());
+    }
+
+    @Override
+    public void setPayload(List<T> payload) {
+        ConcurrentNavigableMap<String, T> indexed = new ConcurrentSkipListMap<>();
+        if (payload != null) {
+            for (T item : payload) {
+                String key = keyOf(item);
+                if (key != null) indexed.put(key, item);
+            }
+        }
+        this.entries = indexed;
+        refreshed();
+    }
+
+    public T getEntry(String key) {
+        if (key == null) return null;
+        return entries.get(key);
+    }
+
+    public List<T> findEntries(Predicate<T> predicate) {
+        return entries.values().stream().filter(predicate).toList();
+    }
+
+    public void upsertEntry(T item) {
+        String key = keyOf(item);
+        if (key != null) entries.put(key, item);
+        contentChanged();
+    }
+
+    public void replaceEntry(String oldKey, T item) {
+        if (oldKey != null) entries.remove(oldKey);
+        upsertEntry(item);
+    }
+
+    public void evictEntry(String key) {
+        if (key != null) entries.remove(key);
+        contentChanged();
+    }
+
+    public void evictEntries(Predicate<T> predicate) {
+        if (entries.values().removeIf(predicate)) contentChanged();
+    }
+
+}
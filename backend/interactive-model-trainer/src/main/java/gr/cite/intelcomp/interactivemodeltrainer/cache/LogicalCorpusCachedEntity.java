@@ -3,6 +3,9 @@ package gr.cite.intelcomp.interactivemodeltrainer.cache;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.CommandType;
 import gr.cite.intelcomp.interactivemodeltrainer.data.LogicalCorpusEntity;
 
+import java.util.Comparator;
+import java.util.List;
+
 public class LogicalCorpusCachedEntity extends CorpusCachedEntity<LogicalCorpusEntity>{
 
     public static final String CODE = CommandType.CORPUS_GET_LOGICAL.name();
@@ -11,4 +14,12 @@ public class LogicalCorpusCachedEntity extends CorpusCachedEntity<LogicalCorpusE
     public String getCode() {
         return CODE;
     }
+
+    @Override
+    protected IndexedView<LogicalCorpusEntity> buildView(List<LogicalCorpusEntity> payload) {
+        return viewBuilder(payload)
+                .order("creation_date", Comparator.comparing(LogicalCorpusEntity::getCreationMilliseconds))
+                .order("valid_for", Comparator.comparing(LogicalCorpusEntity::getValid_for))
+                .build();
+    }
 }
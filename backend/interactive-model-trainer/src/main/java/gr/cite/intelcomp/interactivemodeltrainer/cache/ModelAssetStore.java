@@ -0,0 +1,221 @@
+package gr.cite.intelcomp.interactivemodeltrainer.cache;
+
+import gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties;
+import gr.cite.tools.logging.LoggerService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content addressed store for the files the model visualizations are served from, such as pyLDAvis.html and the
+ * ldavis and d3 scripts that every TMmodel folder carries a copy of. A file is stored once per distinct content,
+ * named by its SHA-256 hash, next to a gzip variant when that is smaller, so identical scripts of different models
+ * share one entry and one hash based ETag. Model files are only read again when their modification time or size
+ * changes. Stored files are served from disk and never held in memory.
+ * <p>
+ * Every instance keeps its files in a folder of its own. A file is stored under a lock of its path, so only
+ * requests for the same file wait on each other. A content no file is stored as anymore is deleted by a later
+ * store, once {@link #RELEASE_GRACE} has passed, so that it can still be served to the requests that were handed it
+ * before it was released.
+ */
+@Component
+@Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class ModelAssetStore {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(ModelAssetStore.class));
+
+    private static final String ASSETS_FOLDER = "model-assets";
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final Duration RELEASE_GRACE = Duration.ofMinutes(10);
+
+    private final Path root;
+    private final Map<Path, Source> sources = new ConcurrentHashMap<>();
+    private final Map<Path, Object> sourceLocks = new ConcurrentHashMap<>();
+    private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+    // Hashes of the contents no file is stored as anymore and when they were released, guarding the assets as well
+    private final Map<String, Instant> released = new HashMap<>();
+
+    public ModelAssetStore(ContainerServicesProperties containerServicesProperties) {
+        this.root = Path.of(containerServicesProperties.getTopicTrainingService().getTempFolder(), ASSETS_FOLDER, UUID.randomUUID().toString());
+    }
+
+    @PostConstruct
+    public void open() {
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            logger.warn("Model assets folder {} could not be prepared: {}", root, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        try {
+            FileUtils.deleteDirectory(root.toFile());
+        } catch (IOException e) {
+            logger.warn("Model assets folder {} could not be deleted: {}", root, e.getMessage());
+        }
+    }
+
+    /**
+     * A stored file content. The gzip variant is null when compressing does not make the file smaller.
+     */
+    public record Asset(String hash, Path file, Path gzipFile, long length, Instant lastModified) {
+    }
+
+    private record Source(long lastModified, long size, Asset asset) {
+    }
+
+    /**
+     * Returns the stored content of the given file, storing it first when the file is new or has changed since it
+     * was last read.
+     */
+    public Asset get(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        long lastModified;
+        long size;
+        try {
+            lastModified = Files.getLastModifiedTime(key).toMillis();
+            size = Files.size(key);
+        } catch (NoSuchFileException e) {
+            this.forget(key);
+            throw e;
+        }
+        Source source = sources.get(key);
+        if (source != null && source.lastModified() == lastModified && source.size() == size && Files.exists(source.asset().file()))
+            return source.asset();
+
+        synchronized (sourceLocks.computeIfAbsent(key, k -> new Object())) {
+            source = sources.get(key);
+            if (source != null && source.lastModified() == lastModified && source.size() == size && Files.exists(source.asset().file()))
+                return source.asset();
+            Asset asset = this.store(key, Instant.ofEpochMilli(lastModified));
+            Source previous = sources.put(key, new Source(lastModified, size, asset));
+            if (previous != null && !previous.asset().hash().equals(asset.hash())) this.release(previous.asset());
+            return asset;
+        }
+    }
+
+    /**
+     * Copies and compresses the file next to the stored contents first, so that only adding the content to the
+     * store is done under the lock of the store.
+     */
+    private Asset store(Path file, Instant lastModified) throws IOException {
+        Files.createDirectories(root);
+        Path incoming = Files.createTempFile(root, "incoming-", ".tmp");
+        Path incomingGzip = null;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream input = new DigestInputStream(Files.newInputStream(file), digest)) {
+                Files.copy(input, incoming, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            incomingGzip = this.compress(incoming);
+
+            synchronized (released) {
+                this.sweep();
+                Asset existing = assets.get(hash);
+                if (existing != null && Files.exists(existing.file())) {
+                    released.remove(hash);
+                    return existing;
+                }
+                Path stored = root.resolve(hash);
+                Path storedGzip = null;
+                Files.move(incoming, stored, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                if (incomingGzip != null) {
+                    storedGzip = stored.resolveSibling(hash + GZIP_EXTENSION);
+                    Files.move(incomingGzip, storedGzip, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                Asset asset = new Asset(hash, stored, storedGzip, Files.size(stored), lastModified);
+                assets.put(hash, asset);
+                released.remove(hash);
+                return asset;
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            Files.deleteIfExists(incoming);
+            if (incomingGzip != null) Files.deleteIfExists(incomingGzip);
+        }
+    }
+
+    private Path compress(Path incoming) throws IOException {
+        Path compressed = incoming.resolveSibling(incoming.getFileName() + GZIP_EXTENSION);
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+            Files.copy(incoming, output);
+        }
+        if (Files.size(compressed) < Files.size(incoming)) return compressed;
+        Files.deleteIfExists(compressed);
+        return null;
+    }
+
+    private void forget(Path key) {
+        synchronized (sourceLocks.computeIfAbsent(key, k -> new Object())) {
+            Source previous = sources.remove(key);
+            if (previous != null) this.release(previous.asset());
+        }
+    }
+
+    /**
+     * Marks a content for deletion once no file is stored as it anymore.
+     */
+    private void release(Asset asset) {
+        synchronized (released) {
+            if (!this.isReferenced(asset.hash())) released.put(asset.hash(), Instant.now());
+        }
+    }
+
+    /**
+     * Deletes the released contents that are past their grace period and were not stored again since.
+     */
+    private void sweep() {
+        Instant due = Instant.now().minus(RELEASE_GRACE);
+        Iterator<Map.Entry<String, Instant>> iterator = released.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Instant> entry = iterator.next();
+            if (entry.getValue().isAfter(due)) continue;
+            iterator.remove();
+            if (this.isReferenced(entry.getKey())) continue;
+            Asset asset = assets.remove(entry.getKey());
+            if (asset == null) continue;
+            try {
+                Files.deleteIfExists(asset.file());
+                if (asset.gzipFile() != null) Files.deleteIfExists(asset.gzipFile());
+            } catch (IOException e) {
+                logger.debug("Could not delete model asset {}: {}", asset.hash(), e.getMessage());
+            }
+        }
+    }
+
+    private boolean isReferenced(String hash) {
+        for (Source source : sources.values()) {
+            if (source.asset().hash().equals(hash)) return true;
+        }
+        return false;
+    }
+
+}
@@ -2,5 +2,30 @@ package gr.cite.intelcomp.interactivemodeltrainer.cache;
 
 import gr.cite.intelcomp.interactivemodeltrainer.data.ModelEntity;
 
-public abstract class ModelCachedEntity <T extends ModelEntity> extends CachedEntity<T> {
+import java.util.Comparator;
+import java.util.List;
+
+public abstract class ModelCachedEntity <T extends ModelEntity> extends KeyedCachedEntity<T> {
+
+    @Override
+    protected String keyOf(T item) {
+        return item.getName();
+    }
+
+    /**
+     * Indexes the fields shared by all model listings, subclasses add their own orderings.
+     */
+    protected IndexedView.Builder<T> viewBuilder(List<T> payload) {
+        return IndexedView.builder(payload)
+                .text(IndexedView.NAME, ModelEntity::getName)
+                .bucket(IndexedView.CREATOR, ModelEntity::getCreator)
+                .bucket(IndexedView.VISIBILITY, ModelEntity::getVisibility)
+                .order("name", Comparator.comparing(ModelEntity::getName))
+                .order("creation_date", Comparator.comparing(ModelEntity::getCreationMilliseconds));
+    }
+
+    @Override
+    protected IndexedView<T> buildView(List<T> payload) {
+        return viewBuilder(payload).build();
+    }
 }
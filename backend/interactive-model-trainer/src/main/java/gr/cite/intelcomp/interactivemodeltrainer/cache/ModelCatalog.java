@@ -0,0 +1,303 @@
+package gr.cite.intelcomp.interactivemodeltrainer.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.ModelType;
+import gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties;
+import gr.cite.intelcomp.interactivemodeltrainer.data.DomainModelEntity;
+import gr.cite.intelcomp.interactivemodeltrainer.data.ModelEntity;
+import gr.cite.intelcomp.interactivemodeltrainer.data.TopicModelEntity;
+import gr.cite.tools.logging.LoggerService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties.ManageDomainModels.InnerPaths.DC_MODEL_CONFIG_FILE_NAME;
+import static gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties.ManageTopicModels.InnerPaths.TM_MODELS_ROOT;
+import static gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties.ManageTopicModels.InnerPaths.TM_MODEL_CONFIG_FILE_NAME;
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * In-process listing of the topic and domain models, read from the config files of the models folders that the
+ * backend shares with the manager containers. The folders are scanned once and then followed through a
+ * {@link WatchService}, so that only config files that were created, changed or deleted are parsed again, and
+ * listings are served from memory without a container exec. Topic submodels live one level below their parent
+ * model and are reported with the same "Subcorpus created from" corpus and the same creator as their parent, as
+ * manageModels does, so they attach to their parent as before. A changed parent config reloads its submodels.
+ * <p>
+ * A listing is only served once its folder has been scanned and watched. When a models folder is not configured
+ * or cannot be watched, the getters return null and callers list the models through the container instead.
+ */
+@Component
+@Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class ModelCatalog {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(ModelCatalog.class));
+
+    private static final String SUBCORPUS_PREFIX = "Subcorpus created from ";
+
+    private final ObjectMapper mapper;
+    private final Tree<TopicModelEntity> topicModels;
+    private final Tree<DomainModelEntity> domainModels;
+    private final Map<WatchKey, Path> watched = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Thread watcher;
+
+    public ModelCatalog(ContainerServicesProperties containerServicesProperties, ObjectMapper mapper) {
+        // Creation dates are written in the format the manageModels listings are read with
+        this.mapper = mapper.copy().setDateFormat(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSSSSS"));
+        String topicFolder = containerServicesProperties.getTopicTrainingService().getModelsFolder(ContainerServicesProperties.ManageTopicModels.class);
+        String domainFolder = containerServicesProperties.getDomainTrainingService().getModelsFolder(ContainerServicesProperties.ManageDomainModels.class);
+        String domainInnerFolder = containerServicesProperties.getDomainTrainingService().getModelsInnerFolder(ContainerServicesProperties.ManageDomainModels.class);
+        this.topicModels = new Tree<>(topicFolder, TM_MODEL_CONFIG_FILE_NAME, 2, new TopicModelCachedEntity()) {
+            @Override
+            protected boolean skipped(Path folder) {
+                // Same folders manageModels leaves out when it looks for submodels
+                String name = folder.getFileName().toString();
+                return name.equals("modelFiles") || name.equals("corpus.parquet") || name.endsWith("_old");
+            }
+
+            @Override
+            protected TopicModelEntity parse(Path config) throws IOException {
+                TopicModelEntity model = mapper.readValue(config.toFile(), TopicModelEntity.class);
+                model.setLocation(TM_MODELS_ROOT + model.getName());
+                Path parentFolder = config.getParent().getParent();
+                if (!parentFolder.equals(root)) {
+                    Path parentConfig = parentFolder.resolve(TM_MODEL_CONFIG_FILE_NAME);
+                    String parentName = names.get(parentConfig);
+                    model.setCorpus(SUBCORPUS_PREFIX + (parentName != null ? parentName : parentFolder.getFileName().toString()));
+                    model.setCreator(Files.isRegularFile(parentConfig) ? mapper.readTree(parentConfig.toFile()).path("creator").asText(null) : null);
+                }
+                return model;
+            }
+        };
+        this.domainModels = new Tree<>(domainFolder, DC_MODEL_CONFIG_FILE_NAME, 1, new DomainModelCachedEntity()) {
+            @Override
+            protected DomainModelEntity parse(Path config) throws IOException {
+                JsonNode node = mapper.readTree(config.toFile());
+                DomainModelEntity model = mapper.treeToValue(node, DomainModelEntity.class);
+                if (model.getTrainer() == null) model.setTrainer(node.path("type").asText(null));
+                model.setLocation(domainInnerFolder + "/" + model.getName());
+                return model;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void start() {
+        if (topicModels.root == null && domainModels.root == null) return;
+        try {
+            this.watchService = Path.of("").getFileSystem().newWatchService();
+        } catch (IOException e) {
+            logger.warn("Models folders cannot be watched, models will be listed through the containers: {}", e.getMessage());
+            return;
+        }
+        this.watcher = new Thread(() -> {
+            topicModels.open();
+            domainModels.open();
+            this.watch();
+        }, "model-catalog");
+        this.watcher.setDaemon(true);
+        this.watcher.start();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (watcher != null) watcher.interrupt();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.debug("Closing the models folders watch failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The topic models listing, or null when the topic models folder is not followed.
+     */
+    public TopicModelCachedEntity getTopicModels() {
+        return topicModels.ready ? (TopicModelCachedEntity) topicModels.cached : null;
+    }
+
+    /**
+     * The domain models listing, or null when the domain models folder is not followed.
+     */
+    public DomainModelCachedEntity getDomainModels() {
+        return domainModels.ready ? (DomainModelCachedEntity) domainModels.cached : null;
+    }
+
+    /**
+     * Reads the folder of the named model again right away, for callers that have just created, copied, renamed or
+     * deleted it and should not wait for the watch to catch up.
+     */
+    public void refresh(ModelType modelType, String name) {
+        Tree<?> tree = ModelType.TOPIC == modelType ? topicModels : domainModels;
+        if (!tree.ready || name == null) return;
+        tree.changed(tree.root.resolve(name));
+    }
+
+    private void watch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path folder = watched.get(key);
+            Tree<?> tree = this.treeOf(folder);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (tree == null) continue;
+                if (event.kind() == OVERFLOW) {
+                    tree.open();
+                    continue;
+                }
+                tree.changed(folder.resolve((Path) event.context()));
+            }
+            if (!key.reset()) watched.remove(key);
+        }
+    }
+
+    private Tree<?> treeOf(Path folder) {
+        if (folder == null) return null;
+        if (topicModels.root != null && folder.startsWith(topicModels.root)) return topicModels;
+        if (domainModels.root != null && folder.startsWith(domainModels.root)) return domainModels;
+        return null;
+    }
+
+    /**
+     * One models folder, with its models at depth one and, for topic models, their submodels at depth two.
+     */
+    private abstract class Tree<T extends ModelEntity> {
+
+        protected final Path root;
+        private final String configFileName;
+        private final int depth;
+        private final KeyedCachedEntity<T> cached;
+        protected final Map<Path, String> names = new ConcurrentHashMap<>();
+        private volatile boolean ready;
+
+        private Tree(String folder, String configFileName, int depth, KeyedCachedEntity<T> cached) {
+            this.root = folder == null ? null : Path.of(folder).toAbsolutePath().normalize();
+            this.configFileName = configFileName;
+            this.depth = depth;
+            this.cached = cached;
+        }
+
+        protected boolean skipped(Path folder) {
+            return false;
+        }
+
+        protected abstract T parse(Path config) throws IOException;
+
+        /**
+         * Scans the whole folder, also after the watch lost events, and drops the models whose config is gone.
+         */
+        private synchronized void open() {
+            if (root == null || !Files.isDirectory(root)) {
+                if (root != null) logger.warn("Models folder {} not found, models will be listed through the containers", root);
+                return;
+            }
+            try {
+                this.scan(root);
+                for (Path config : List.copyOf(names.keySet())) {
+                    if (!Files.isRegularFile(config)) this.evict(config);
+                }
+                ready = true;
+                logger.info("Following {} models in {}", names.size(), root);
+            } catch (IOException e) {
+                ready = false;
+                logger.warn("Models folder {} cannot be watched, models will be listed through the containers: {}", root, e.getMessage());
+            }
+        }
+
+        private synchronized void changed(Path path) {
+            int level = root.relativize(path).getNameCount();
+            if (path.getFileName().toString().equals(configFileName)) {
+                if (level < 2 || level - 1 > depth) return;
+                if (Files.isRegularFile(path)) this.load(path);
+                else this.evict(path);
+            } else if (level <= depth && Files.isDirectory(path)) {
+                if (skipped(path)) return;
+                try {
+                    this.scan(path);
+                } catch (IOException e) {
+                    logger.warn("Model folder {} cannot be watched: {}", path, e.getMessage());
+                }
+            } else if (level <= depth) {
+                this.evictUnder(path);
+            }
+        }
+
+        private void scan(Path folder) throws IOException {
+            watched.put(folder.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), folder);
+            Path config = folder.resolve(configFileName);
+            if (!folder.equals(root) && Files.isRegularFile(config)) this.load(config);
+            if (root.relativize(folder).getNameCount() >= depth && !folder.equals(root)) return;
+            List<Path> children = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(folder, Files::isDirectory)) {
+                entries.forEach(children::add);
+            }
+            for (Path child : children) {
+                if (!skipped(child)) this.scan(child);
+            }
+        }
+
+        private void load(Path config) {
+            T model;
+            try {
+                model = parse(config);
+            } catch (IOException e) {
+                // Usually a config file caught halfway through its write, the following change reads it again
+                logger.debug("Skipping model config {}: {}", config, e.getMessage());
+                return;
+            }
+            if (model.getName() == null) return;
+            String previous = names.put(config, model.getName());
+            if (previous != null && !previous.equals(model.getName())) cached.evictEntry(previous);
+            cached.upsertEntry(model);
+            // Submodels are reported with the name and creator of their parent
+            Path folder = config.getParent();
+            for (Path child : List.copyOf(names.keySet())) {
+                if (!child.equals(config) && folder.equals(child.getParent().getParent())) this.load(child);
+            }
+        }
+
+        private void evict(Path config) {
+            String name = names.remove(config);
+            if (name != null) cached.evictEntry(name);
+        }
+
+        private void evictUnder(Path folder) {
+            for (Path config : List.copyOf(names.keySet())) {
+                if (config.startsWith(folder)) this.evict(config);
+            }
+            // A renamed folder keeps its watch, which would otherwise report changes under the old path
+            watched.entrySet().removeIf(entry -> {
+                if (!entry.getValue().startsWith(folder)) return false;
+                entry.getKey().cancel();
+                return true;
+            });
+        }
+
+    }
+
+}
@@ -3,6 +3,9 @@ package gr.cite.intelcomp.interactivemodeltrainer.cache;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.CommandType;
 import gr.cite.intelcomp.interactivemodeltrainer.data.RawCorpusEntity;
 
+import java.util.Comparator;
+import java.util.List;
+
 public class RawCorpusCachedEntity extends CorpusCachedEntity<RawCorpusEntity>{
 
     public static final String CODE = CommandType.CORPUS_GET_RAW.name();
@@ -11,4 +14,21 @@ public class RawCorpusCachedEntity extends CorpusCachedEntity<RawCorpusEntity>{
     public String getCode() {
         return CODE;
     }
+
+    public static String rawCorpusKey(String source, String name) {
+        return source + "/" + name;
+    }
+
+    @Override
+    protected String keyOf(RawCorpusEntity item) {
+        return rawCorpusKey(item.getSource(), item.getName());
+    }
+
+    @Override
+    protected IndexedView<RawCorpusEntity> buildView(List<RawCorpusEntity> payload) {
+        return viewBuilder(payload)
+                .order("download_date", Comparator.comparing(RawCorpusEntity::getDownloadedAtMilliseconds))
+                .order("records", Comparator.comparing(RawCorpusEntity::getRecords))
+                .build();
+    }
 }
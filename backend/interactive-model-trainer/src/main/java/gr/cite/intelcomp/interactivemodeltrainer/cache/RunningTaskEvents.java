@@ -0,0 +1,181 @@
+package gr.cite.intelcomp.interactivemodeltrainer.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskQueueItem;
+import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskQueueItemFull;
+import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskResponseFull;
+import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskType;
+import gr.cite.tools.logging.LoggerService;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Sequenced feed of the changes made to the running tasks cache. Every change gets the next sequence number and
+ * is kept in a bounded backlog, so that a subscriber reconnecting with the token of the last change it saw gets
+ * only what it missed. Tokens carry the epoch of this instance as well, so a token issued before a restart, or
+ * one older than the backlog, is answered with a request to resynchronize instead of a partial replay.
+ * <p>
+ * A change carries a copy of the task taken when it was published, since listeners handle it later on threads of
+ * their own while the task may be changed again.
+ */
+@Component
+@Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class RunningTaskEvents {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(RunningTaskEvents.class));
+
+    private static final int RETAINED_CHANGES = 1000;
+
+    public enum Change {
+        UPDATED, REMOVED
+    }
+
+    /**
+     * The item is the task as it is listed to its user and the snapshot the task with the fields that are only kept
+     * on the server, both as they were when the change was published and null for a removal.
+     */
+    public record Delta(long sequence, String token, Change change, UUID task, RunningTaskType type, @JsonIgnore UUID userId, JsonNode item, @JsonIgnore RunningTaskQueueItemFull snapshot) {
+
+        /**
+         * Curating tasks are listed for every user, the rest only for the user that started them.
+         */
+        public boolean isVisibleTo(UUID user) {
+            return type == RunningTaskType.curating || (user != null && user.equals(userId));
+        }
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        void onDelta(Delta delta);
+    }
+
+    /**
+     * The changes a subscriber missed, or null when it has to reload the task listing instead.
+     */
+    public record Replay(List<Delta> deltas, String token) {
+    }
+
+    private final ObjectMapper mapper;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Deque<Delta> recent = new ArrayDeque<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private long sequence;
+
+    public RunningTaskEvents(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    public void updated(RunningTaskQueueItem item) {
+        if (item != null) this.publish(Change.UPDATED, item);
+    }
+
+    public void removed(RunningTaskQueueItem item) {
+        if (item != null) this.publish(Change.REMOVED, item);
+    }
+
+    private synchronized void publish(Change change, RunningTaskQueueItem item) {
+        JsonNode listed = null;
+        RunningTaskQueueItemFull snapshot = null;
+        if (change != Change.REMOVED) {
+            try {
+                listed = mapper.valueToTree(item);
+                snapshot = this.snapshot(item);
+            } catch (RuntimeException e) {
+                // Changed while it was copied, the change that raced with the copy publishes it again
+                logger.warn("Could not copy task {} to publish its change: {}", item.getTask(), e.getMessage());
+                return;
+            }
+        }
+        sequence++;
+        Delta delta = new Delta(sequence, this.token(sequence), change, item.getTask(), item.getType(), item.getUserId(), listed, snapshot);
+        recent.addLast(delta);
+        if (recent.size() > RETAINED_CHANGES) recent.removeFirst();
+        for (Listener listener : listeners) {
+            listener.onDelta(delta);
+        }
+    }
+
+    /**
+     * Listeners are called while publishing, so they are expected to hand the delta off rather than doing any
+     * I/O.
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Hands the changes visible to the given user after the given token over to the consumer, with no change
+     * published in between, so that a subscriber registered by the consumer sees every later change exactly once.
+     */
+    public synchronized void resume(UUID user, String token, Consumer<Replay> consumer) {
+        consumer.accept(this.since(user, token));
+    }
+
+    private Replay since(UUID user, String token) {
+        String current = this.token(sequence);
+        if (token == null || token.equals(current)) return new Replay(List.of(), current);
+
+        Long since = this.parse(token);
+        if (since == null || since > sequence) return null;
+        long oldest = recent.isEmpty() ? sequence + 1 : recent.peekFirst().sequence();
+        if (since + 1 < oldest) return null;
+
+        List<Delta> missed = new ArrayList<>();
+        for (Delta delta : recent) {
+            if (delta.sequence() > since && delta.isVisibleTo(user)) missed.add(delta);
+        }
+        return new Replay(missed, current);
+    }
+
+    /**
+     * Copies the task with the fields that are only kept on the server. The copy shares nothing with the task,
+     * so that it can be serialized at any later point.
+     */
+    RunningTaskQueueItemFull snapshot(RunningTaskQueueItem item) {
+        RunningTaskQueueItemFull full = mapper.convertValue(item, RunningTaskQueueItemFull.class);
+        full.setUserId(item.getUserId());
+        if (item.getResponse() != null) {
+            RunningTaskResponseFull response = new RunningTaskResponseFull();
+            response.setLogs(item.getResponse().getLogs() == null ? null : new ArrayList<>(item.getResponse().getLogs()));
+            response.setDocumentCount(item.getResponse().getDocumentCount());
+            response.setPuScores(item.getResponse().getPuScores() == null ? null : new ArrayList<>(item.getResponse().getPuScores()));
+            full.setResponse(response);
+        }
+        return full;
+    }
+
+    public synchronized String currentToken() {
+        return this.token(sequence);
+    }
+
+    private String token(long value) {
+        return epoch + "-" + value;
+    }
+
+    private Long parse(String token) {
+        int separator = token.lastIndexOf('-');
+        if (separator < 0 || !token.substring(0, separator).equals(epoch)) return null;
+        try {
+            return Long.parseLong(token.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+}
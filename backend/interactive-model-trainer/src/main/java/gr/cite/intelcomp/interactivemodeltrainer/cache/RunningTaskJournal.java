@@ -0,0 +1,253 @@
+package gr.cite.intelcomp.interactivemodeltrainer.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.cite.intelcomp.interactivemodeltrainer.common.JsonHandlingService;
+import gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties;
+import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskQueueItem;
+import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskQueueItemFull;
+import gr.cite.tools.logging.LoggerService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties.DockerServiceConfiguration.CACHE_DUMP_FILE_NAME;
+
+/**
+ * Persists the user tasks cache as a snapshot plus an append-only journal of the changes made since, so that the
+ * cache survives any kind of exit and not only a graceful shutdown. Changes are appended from a single writer
+ * thread and forced to disk every second, which bounds what a crash can lose. Once the journal holds enough
+ * entries it is compacted into a new snapshot of the live tasks, which bounds the work of replaying it on startup.
+ * <p>
+ * Snapshot and journal share a generation number. Compaction first switches to the journal of the next
+ * generation and then replaces the snapshot, so a crash at any point leaves a snapshot and the journal that
+ * follows it.
+ */
+@Component
+@Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class RunningTaskJournal implements RunningTaskEvents.Listener {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(RunningTaskJournal.class));
+
+    private static final String JOURNAL_FOLDER = "user-tasks-journal";
+    private static final String SNAPSHOT_FILE_NAME = "snapshot.jsonl";
+    private static final String JOURNAL_FILE_PREFIX = "journal-";
+    private static final String JOURNAL_FILE_SUFFIX = ".jsonl";
+    private static final Duration FORCE_INTERVAL = Duration.ofSeconds(1);
+    private static final int COMPACT_AFTER_ENTRIES = 1000;
+
+    public record Header(long generation) {
+    }
+
+    public record Entry(RunningTaskEvents.Change change, UUID task, RunningTaskQueueItemFull item) {
+    }
+
+    private final Path folder;
+    private final Path legacyDump;
+    private final ObjectMapper mapper;
+    private final JsonHandlingService jsonHandlingService;
+    private final RunningTaskEvents runningTaskEvents;
+    private final ScheduledExecutorService writer;
+
+    private Supplier<Collection<RunningTaskQueueItem>> liveTasks;
+    private long generation;
+    private FileChannel journal;
+    private int entries;
+    private boolean unforced;
+
+    public RunningTaskJournal(ContainerServicesProperties containerServicesProperties, ObjectMapper mapper, JsonHandlingService jsonHandlingService, RunningTaskEvents runningTaskEvents) {
+        String tempFolder = containerServicesProperties.getTopicTrainingService().getTempFolder();
+        this.folder = Path.of(tempFolder, JOURNAL_FOLDER);
+        this.legacyDump = Path.of(tempFolder, CACHE_DUMP_FILE_NAME);
+        this.mapper = mapper;
+        this.jsonHandlingService = jsonHandlingService;
+        this.runningTaskEvents = runningTaskEvents;
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "running-task-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads the latest snapshot and replays its journal over it. A torn entry at the end of the journal, left by
+     * a crash in the middle of a write, ends the replay. The shutdown dump of older versions is read when there is
+     * no snapshot yet.
+     */
+    public Collection<RunningTaskQueueItemFull> recover() throws IOException {
+        Map<UUID, RunningTaskQueueItemFull> items = new LinkedHashMap<>();
+        Path snapshot = folder.resolve(SNAPSHOT_FILE_NAME);
+        if (Files.isRegularFile(snapshot)) {
+            try (BufferedReader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+                String line = reader.readLine();
+                generation = line == null ? 0 : mapper.readValue(line, Header.class).generation();
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    RunningTaskQueueItemFull item = mapper.readValue(line, RunningTaskQueueItemFull.class);
+                    items.put(item.getTask(), item);
+                }
+            }
+        } else if (Files.isRegularFile(legacyDump)) {
+            String json = Files.readString(legacyDump, Charset.defaultCharset());
+            if (!json.isBlank()) {
+                UserTasksCacheEntityFull cache = jsonHandlingService.fromJson(UserTasksCacheEntityFull.class, json);
+                for (RunningTaskQueueItemFull item : cache.getPayload()) items.put(item.getTask(), item);
+            }
+        }
+
+        Path journalFile = this.journalFile(generation);
+        int replayed = 0;
+        if (Files.isRegularFile(journalFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    Entry entry;
+                    try {
+                        entry = mapper.readValue(line, Entry.class);
+                    } catch (JsonProcessingException e) {
+                        logger.warn("Ignoring a torn entry at the end of the user tasks journal");
+                        break;
+                    }
+                    if (entry.change() == RunningTaskEvents.Change.REMOVED) items.remove(entry.task());
+                    else if (entry.item() != null) items.put(entry.task(), entry.item());
+                    replayed++;
+                }
+            }
+        }
+        logger.info("Recovered {} user tasks, {} of them changes from the journal", items.size(), replayed);
+        return items.values();
+    }
+
+    /**
+     * Starts journaling the published changes. The recovered state is compacted into a new snapshot right away,
+     * so the next startup does not replay the same journal again.
+     */
+    public synchronized void start(Supplier<Collection<RunningTaskQueueItem>> liveTasks) throws IOException {
+        this.liveTasks = liveTasks;
+        Files.createDirectories(folder);
+        this.compact();
+        Files.deleteIfExists(legacyDump);
+        runningTaskEvents.addListener(this);
+        writer.scheduleWithFixedDelay(this::force, FORCE_INTERVAL.toMillis(), FORCE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onDelta(RunningTaskEvents.Delta delta) {
+        try {
+            writer.execute(() -> this.append(delta));
+        } catch (RejectedExecutionException e) {
+            logger.debug("User tasks journal is closed, dropping the change of task {}", delta.task());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        runningTaskEvents.removeListener(this);
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) logger.warn("User tasks journal writer did not finish in time");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (journal == null) return;
+            try {
+                this.compact();
+                journal.close();
+                journal = null;
+            } catch (IOException e) {
+                logger.error("Unable to compact the user tasks journal on shutdown.");
+                logger.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    private synchronized void append(RunningTaskEvents.Delta delta) {
+        if (journal == null) return;
+        try {
+            byte[] line = mapper.writeValueAsBytes(new Entry(delta.change(), delta.task(), delta.snapshot()));
+            ByteBuffer buffer = ByteBuffer.allocate(line.length + 1).put(line).put((byte) '\n').flip();
+            while (buffer.hasRemaining()) journal.write(buffer);
+            unforced = true;
+            if (++entries >= COMPACT_AFTER_ENTRIES) this.compact();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Unable to append to the user tasks journal.");
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    private synchronized void force() {
+        if (journal == null || !unforced) return;
+        try {
+            journal.force(false);
+            unforced = false;
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    private void compact() throws IOException {
+        long next = generation + 1;
+        FileChannel nextJournal = FileChannel.open(this.journalFile(next), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        if (journal != null) {
+            journal.force(false);
+            journal.close();
+        }
+        journal = nextJournal;
+        entries = 0;
+        unforced = false;
+
+        Path part = folder.resolve(SNAPSHOT_FILE_NAME + ".part");
+        try (BufferedWriter output = Files.newBufferedWriter(part, StandardCharsets.UTF_8)) {
+            output.write(mapper.writeValueAsString(new Header(next)));
+            output.newLine();
+            for (RunningTaskQueueItem item : liveTasks.get()) {
+                output.write(mapper.writeValueAsString(runningTaskEvents.snapshot(item)));
+                output.newLine();
+            }
+        }
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(part, folder.resolve(SNAPSHOT_FILE_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        generation = next;
+        this.deleteOtherJournals();
+    }
+
+    private void deleteOtherJournals() throws IOException {
+        Path current = this.journalFile(generation);
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(folder, JOURNAL_FILE_PREFIX + "*" + JOURNAL_FILE_SUFFIX)) {
+            for (Path file : journals) {
+                if (!file.equals(current)) Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private Path journalFile(long generation) {
+        return folder.resolve(JOURNAL_FILE_PREFIX + generation + JOURNAL_FILE_SUFFIX);
+    }
+
+}
@@ -0,0 +1,203 @@
+package gr.cite.intelcomp.interactivemodeltrainer.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskQueueItem;
+import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskQueueItemFull;
+import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskType;
+import gr.cite.intelcomp.interactivemodeltrainer.model.trainingtaskrequest.CuratingTaskQueueItem;
+import gr.cite.tools.logging.LoggerService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+/**
+ * Registry of the running and finished user tasks, indexed by task id and by user so that status polls and
+ * per-user listings are lookups rather than scans over the whole task history. Reads go straight to concurrent
+ * maps without locking, and removals never interfere with a listing in progress. Finished tasks are also kept
+ * in a time ordered set per task type, so expiring old responses only visits the tasks that actually expire.
+ * Every change is published to {@link RunningTaskEvents}, and the cache is restored from the
+ * {@link RunningTaskJournal} on startup.
+ */
+@Component
+@Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class RunningTaskRegistry {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(RunningTaskRegistry.class));
+
+    private static final Comparator<RunningTaskQueueItem> BY_START = Comparator.comparing(RunningTaskQueueItem::getStartedAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final RunningTaskEvents runningTaskEvents;
+    private final RunningTaskJournal runningTaskJournal;
+    private final ObjectMapper mapper;
+
+    private final Map<UUID, RunningTaskQueueItem> tasks = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<UUID>> tasksByUser = new ConcurrentHashMap<>();
+    private final Map<RunningTaskType, NavigableSet<Expiry>> finishedByType = new EnumMap<>(RunningTaskType.class);
+
+    public RunningTaskRegistry(RunningTaskEvents runningTaskEvents, RunningTaskJournal runningTaskJournal, ObjectMapper mapper) {
+        this.runningTaskEvents = runningTaskEvents;
+        this.runningTaskJournal = runningTaskJournal;
+        this.mapper = mapper;
+        for (RunningTaskType type : RunningTaskType.values()) {
+            finishedByType.put(type, new ConcurrentSkipListSet<>());
+        }
+    }
+
+    @PostConstruct
+    public void onConstruct() {
+        try {
+            for (RunningTaskQueueItemFull cacheItem : runningTaskJournal.recover()) {
+                if (cacheItem.getType() == RunningTaskType.curating) {
+                    CuratingTaskQueueItem item = mapper.convertValue(cacheItem, CuratingTaskQueueItem.class);
+                    item.setUserId(cacheItem.getUserId());
+                    if (item.getResponse() != null && cacheItem.getResponse() != null) {
+                        item.getResponse().setDocumentCount(cacheItem.getResponse().getDocumentCount());
+                        item.getResponse().setPuScores(cacheItem.getResponse().getPuScores());
+                    }
+                    this.index(item);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to initialize user tasks cache from its journal.");
+            logger.warn("Message: {}", e.getMessage());
+        }
+        try {
+            runningTaskJournal.start(this::all);
+        } catch (IOException e) {
+            logger.error("Unable to start the user tasks journal, task changes will not survive a restart.");
+            logger.error(e.getMessage(), e);
+            return;
+        }
+        logger.info("User tasks cache initialized.");
+    }
+
+    public void add(RunningTaskQueueItem item) {
+        this.index(item);
+        runningTaskEvents.updated(item);
+    }
+
+    /**
+     * Re-indexes a task after it was changed in place, e.g. marked as finished, and publishes the change.
+     */
+    public void updated(RunningTaskQueueItem item) {
+        if (item == null || !tasks.containsKey(item.getTask())) return;
+        this.indexExpiry(item);
+        runningTaskEvents.updated(item);
+    }
+
+    public RunningTaskQueueItem get(UUID task) {
+        if (task == null) return null;
+        return tasks.get(task);
+    }
+
+    /**
+     * Returns the task only when it belongs to the given user.
+     */
+    public RunningTaskQueueItem get(UUID task, UUID user) {
+        RunningTaskQueueItem item = this.get(task);
+        if (item == null || user == null || !user.equals(item.getUserId())) return null;
+        return item;
+    }
+
+    /**
+     * Tasks of the given user, in the order they were started.
+     */
+    public List<RunningTaskQueueItem> ofUser(UUID user) {
+        if (user == null) return List.of();
+        Set<UUID> ids = tasksByUser.get(user);
+        if (ids == null) return List.of();
+        List<RunningTaskQueueItem> items = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            RunningTaskQueueItem item = tasks.get(id);
+            if (item != null) items.add(item);
+        }
+        items.sort(BY_START);
+        return items;
+    }
+
+    /**
+     * All tasks, in the order they were started.
+     */
+    public List<RunningTaskQueueItem> all() {
+        List<RunningTaskQueueItem> items = new ArrayList<>(tasks.values());
+        items.sort(BY_START);
+        return items;
+    }
+
+    public boolean anyMatch(Predicate<RunningTaskQueueItem> predicate) {
+        for (RunningTaskQueueItem item : tasks.values()) {
+            if (predicate.test(item)) return true;
+        }
+        return false;
+    }
+
+    public RunningTaskQueueItem remove(UUID task) {
+        if (task == null) return null;
+        RunningTaskQueueItem item = tasks.remove(task);
+        if (item == null) return null;
+        if (item.getUserId() != null) {
+            tasksByUser.computeIfPresent(item.getUserId(), (user, ids) -> {
+                ids.remove(task);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        if (item.getFinishedAt() != null && item.getType() != null) {
+            finishedByType.get(item.getType()).remove(new Expiry(item.getFinishedAt(), task));
+        }
+        runningTaskEvents.removed(item);
+        return item;
+    }
+
+    /**
+     * Removes the tasks of the given type that finished before the cutoff and returns how many were removed.
+     */
+    public int expire(RunningTaskType type, Instant cutoff) {
+        NavigableSet<Expiry> finished = finishedByType.get(type);
+        int removed = 0;
+        Expiry oldest;
+        while ((oldest = finished.pollFirst()) != null) {
+            if (!oldest.finishedAt().isBefore(cutoff)) {
+                finished.add(oldest);
+                break;
+            }
+            if (this.remove(oldest.task()) != null) removed++;
+        }
+        return removed;
+    }
+
+    private void index(RunningTaskQueueItem item) {
+        if (item == null || item.getTask() == null) return;
+        RunningTaskQueueItem previous = tasks.put(item.getTask(), item);
+        if (previous != null && previous.getFinishedAt() != null && previous.getType() != null) {
+            finishedByType.get(previous.getType()).remove(new Expiry(previous.getFinishedAt(), previous.getTask()));
+        }
+        if (item.getUserId() != null) {
+            tasksByUser.computeIfAbsent(item.getUserId(), user -> ConcurrentHashMap.newKeySet()).add(item.getTask());
+        }
+        this.indexExpiry(item);
+    }
+
+    private void indexExpiry(RunningTaskQueueItem item) {
+        if (item.isFinished() && item.getFinishedAt() != null && item.getType() != null) {
+            finishedByType.get(item.getType()).add(new Expiry(item.getFinishedAt(), item.getTask()));
+        }
+    }
+
+    private record Expiry(Instant finishedAt, UUID task) implements Comparable<Expiry> {
+        @Override
+        public int compareTo(Expiry other) {
+            int byTime = finishedAt.compareTo(other.finishedAt);
+            return byTime != 0 ? byTime : task.compareTo(other.task);
+        }
+    }
+
+}
@@ -0,0 +1,218 @@
+package gr.cite.intelcomp.interactivemodeltrainer.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties;
+import gr.cite.intelcomp.interactivemodeltrainer.data.DocumentEntity;
+import gr.cite.tools.logging.LoggerService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Disk store for the results of curating tasks, such as PU score images and sampled documents, so that the
+ * task cache only holds their names and counts. Every task gets a folder under the temp folder. Result files
+ * are copied there when the task finishes, which also keeps them stable when the model is evaluated again.
+ * Sampled documents are stored one JSON document per line, and the line offsets are indexed on first read, so a
+ * page of documents is read without parsing the rest. A task folder is deleted once the task is removed from
+ * the {@link RunningTaskRegistry}.
+ */
+@Component
+@Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class TaskResultStore implements RunningTaskEvents.Listener {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(TaskResultStore.class));
+
+    private static final String RESULTS_FOLDER = "task-results";
+    private static final String DOCUMENTS_FILE_NAME = "documents.jsonl";
+
+    private final Path root;
+    private final ObjectMapper mapper;
+    private final RunningTaskEvents runningTaskEvents;
+    private final Map<UUID, long[]> documentOffsets = new ConcurrentHashMap<>();
+    private final ExecutorService cleanup;
+
+    public TaskResultStore(ContainerServicesProperties containerServicesProperties, ObjectMapper mapper, RunningTaskEvents runningTaskEvents) {
+        this.root = Path.of(containerServicesProperties.getTopicTrainingService().getTempFolder(), RESULTS_FOLDER);
+        this.mapper = mapper;
+        this.runningTaskEvents = runningTaskEvents;
+        this.cleanup = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-result-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void register() {
+        runningTaskEvents.addListener(this);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        runningTaskEvents.removeListener(this);
+        cleanup.shutdown();
+    }
+
+    /**
+     * Copies the given result files of a task into the store and returns the names of the ones that existed.
+     */
+    public List<String> storeFiles(UUID task, List<Path> files) throws IOException {
+        Path folder = Files.createDirectories(this.folder(task));
+        List<String> stored = new ArrayList<>();
+        for (Path file : files) {
+            if (!Files.isRegularFile(file)) {
+                logger.warn("Result file {} of task {} does not exist", file, task);
+                continue;
+            }
+            String name = file.getFileName().toString();
+            Path part = folder.resolve(name + ".part");
+            Files.copy(file, part, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(part, folder.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            stored.add(name);
+        }
+        return stored;
+    }
+
+    /**
+     * Writes the sampled documents of a task to the store and returns how many were written.
+     */
+    public int storeDocuments(UUID task, List<DocumentEntity> documents) throws IOException {
+        Path folder = Files.createDirectories(this.folder(task));
+        Path part = folder.resolve(DOCUMENTS_FILE_NAME + ".part");
+        ObjectWriter writer = mapper.writerFor(DocumentEntity.class);
+        long[] offsets = new long[documents.size() + 1];
+        long position = 0;
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(part))) {
+            for (int i = 0; i < documents.size(); i++) {
+                byte[] line = writer.writeValueAsBytes(documents.get(i));
+                offsets[i] = position;
+                output.write(line);
+                output.write('\n');
+                position += line.length + 1;
+            }
+        }
+        offsets[documents.size()] = position;
+        Files.move(part, folder.resolve(DOCUMENTS_FILE_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        documentOffsets.put(task, offsets);
+        return documents.size();
+    }
+
+    /**
+     * Returns the stored result file with the given name, or null when there is none.
+     */
+    public Path file(UUID task, String name) {
+        if (task == null || name == null || name.isBlank() || name.contains("/") || name.contains("\\") || name.startsWith(".")) return null;
+        Path file = this.folder(task).resolve(name);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    /**
+     * Reads a page of the sampled documents of a task. A null limit reads up to the last document.
+     */
+    public DocumentPage documents(UUID task, int offset, Integer limit) throws IOException {
+        Path file = this.folder(task).resolve(DOCUMENTS_FILE_NAME);
+        if (!Files.isRegularFile(file)) return new DocumentPage(List.of(), 0);
+        long[] offsets = documentOffsets.get(task);
+        if (offsets == null) {
+            offsets = index(file);
+            documentOffsets.put(task, offsets);
+        }
+        int count = offsets.length - 1;
+        int from = Math.min(Math.max(offset, 0), count);
+        int to = limit == null ? count : Math.min(from + Math.max(limit, 0), count);
+        if (from == to) return new DocumentPage(List.of(), count);
+
+        List<DocumentEntity> items = new ArrayList<>(to - from);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(offsets[to] - offsets[from]));
+            long position = offsets[from];
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) break;
+                position += read;
+            }
+            byte[] data = buffer.array();
+            for (int i = from; i < to; i++) {
+                int start = (int) (offsets[i] - offsets[from]);
+                int length = (int) (offsets[i + 1] - offsets[i]) - 1;
+                items.add(mapper.readValue(data, start, length, DocumentEntity.class));
+            }
+        }
+        return new DocumentPage(items, count);
+    }
+
+    public void delete(UUID task) {
+        documentOffsets.remove(task);
+        try {
+            FileUtils.deleteDirectory(this.folder(task).toFile());
+        } catch (IOException e) {
+            logger.warn("Could not delete the results of task {}: {}", task, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onDelta(RunningTaskEvents.Delta delta) {
+        if (delta.change() != RunningTaskEvents.Change.REMOVED || delta.task() == null) return;
+        try {
+            cleanup.execute(() -> this.delete(delta.task()));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Task result store is shutting down, keeping the results of task {}", delta.task());
+        }
+    }
+
+    private Path folder(UUID task) {
+        return root.resolve(task.toString());
+    }
+
+    private static long[] index(Path file) throws IOException {
+        List<Long> starts = new ArrayList<>();
+        long position = 0;
+        boolean lineStart = true;
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream input = Files.newInputStream(file)) {
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                for (int i = 0; i < read; i++) {
+                    if (lineStart) {
+                        starts.add(position + i);
+                        lineStart = false;
+                    }
+                    if (buffer[i] == '\n') lineStart = true;
+                }
+                position += read;
+            }
+        }
+        long[] offsets = new long[starts.size() + 1];
+        for (int i = 0; i < starts.size(); i++) offsets[i] = starts.get(i);
+        offsets[starts.size()] = position;
+        return offsets;
+    }
+
+    public record DocumentPage(List<DocumentEntity> items, long count) {
+    }
+
+}
@@ -3,10 +3,30 @@ package gr.cite.intelcomp.interactivemodeltrainer.cache;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.CommandType;
 import gr.cite.intelcomp.interactivemodeltrainer.data.topic.TopicEntity;
 
+import java.util.Comparator;
+import java.util.List;
+
 public class TopicCachedEntity extends CachedEntity<TopicEntity> {
     public static final String CODE = CommandType.TOPIC_GET.name();
     @Override
     public String getCode() {
         return CODE;
     }
+
+    public static final String LABEL = "label";
+    public static final String WORD_DESCRIPTION = "wordDescription";
+
+    @Override
+    protected IndexedView<TopicEntity> buildView(List<TopicEntity> payload) {
+        return IndexedView.builder(payload)
+                .text(LABEL, TopicEntity::getLabel)
+                .text(WORD_DESCRIPTION, TopicEntity::getWordDescription)
+                .order("id", Comparator.comparing(TopicEntity::getId))
+                .order("size", Comparator.comparing(TopicEntity::getSizeNumber))
+                .order("label", Comparator.comparing(TopicEntity::getLabel))
+                .order("docsactive", Comparator.comparing(TopicEntity::getDocsActiveNumber))
+                .order("topiccoherence", Comparator.comparing(TopicEntity::getTopicCoherenceNumber))
+                .order("topicentropy", Comparator.comparing(TopicEntity::getTopicEntropyNumber))
+                .build();
+    }
 }
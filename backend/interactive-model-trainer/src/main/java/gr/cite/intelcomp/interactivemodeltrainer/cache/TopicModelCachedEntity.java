@@ -3,6 +3,9 @@ package gr.cite.intelcomp.interactivemodeltrainer.cache;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.CommandType;
 import gr.cite.intelcomp.interactivemodeltrainer.data.TopicModelEntity;
 
+import java.util.Comparator;
+import java.util.List;
+
 public class TopicModelCachedEntity extends ModelCachedEntity<TopicModelEntity> {
 
     public static final String CODE = CommandType.MODEL_GET_TOPIC.name();
@@ -11,4 +14,25 @@ public class TopicModelCachedEntity extends ModelCachedEntity<TopicModelEntity>
     public String getCode() {
         return CODE;
     }
+
+    public static final String PARENT = "parent";
+
+    /**
+     * Name of the model a submodel was trained from, as recorded in its corpus description.
+     */
+    public static String parentModelName(TopicModelEntity submodel) {
+        if (submodel.getCorpus() == null) return null;
+        return submodel.getCorpus()
+                .replaceAll("^(.*)/", "")
+                .replace("Subcorpus created from ", "")
+                .replace(".json", "");
+    }
+
+    @Override
+    protected IndexedView<TopicModelEntity> buildView(List<TopicModelEntity> payload) {
+        return viewBuilder(payload)
+                .bucket(PARENT, TopicModelCachedEntity::parentModelName)
+                .order("type", Comparator.comparing(TopicModelEntity::getTrainer))
+                .build();
+    }
 }
@@ -0,0 +1,121 @@
+package gr.cite.intelcomp.interactivemodeltrainer.cache;
+
+import gr.cite.intelcomp.interactivemodeltrainer.data.UserEntity;
+import gr.cite.intelcomp.interactivemodeltrainer.query.UserQuery;
+import gr.cite.tools.logging.LoggerService;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-memory directory of the application users, indexed by id, subject id and username, so that resolving
+ * the creator of a listed item is a map lookup instead of a scan over every user row. The whole directory is
+ * reloaded when it is invalidated, which happens whenever a user is created, or when it gets older than
+ * the refresh period, which covers users created through other instances.
+ */
+@Component
+@Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class UserDirectory {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(UserDirectory.class));
+
+    private static final Duration REFRESH_PERIOD = Duration.ofMinutes(5);
+
+    private final ApplicationContext applicationContext;
+
+    private volatile Snapshot snapshot;
+
+    public UserDirectory(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * Resolves a stored creator, which is either a user id or a subject id.
+     */
+    public UserEntity byCreator(String creator) {
+        if (creator == null || creator.equals("-"))
+            return null;
+        Snapshot current = current();
+        UUID id = parseId(creator);
+        UserEntity user = id == null ? null : current.byId.get(id);
+        if (user != null)
+            return user;
+        return current.bySubjectId.get(creator);
+    }
+
+    public UserEntity byId(UUID id) {
+        if (id == null)
+            return null;
+        return current().byId.get(id);
+    }
+
+    public UserEntity byUsername(String username) {
+        if (username == null)
+            return null;
+        return current().byUsername.get(username);
+    }
+
+    /**
+     * Returns the display name of a stored creator, or "-" when it cannot be resolved.
+     */
+    public String usernameOf(String creator) {
+        UserEntity user = byCreator(creator);
+        return user == null ? "-" : user.getFirstName();
+    }
+
+    public void invalidate() {
+        this.snapshot = null;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && current.loadedAt.plus(REFRESH_PERIOD).isAfter(Instant.now()))
+            return current;
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || !current.loadedAt.plus(REFRESH_PERIOD).isAfter(Instant.now())) {
+                current = new Snapshot(applicationContext.getBean(UserQuery.class).collect());
+                snapshot = current;
+                logger.debug("User directory loaded with {} users", current.byId.size());
+            }
+            return current;
+        }
+    }
+
+    private static UUID parseId(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static class Snapshot {
+        private final Instant loadedAt = Instant.now();
+        private final Map<UUID, UserEntity> byId = new HashMap<>();
+        private final Map<String, UserEntity> bySubjectId = new HashMap<>();
+        private final Map<String, UserEntity> byUsername = new HashMap<>();
+
+        private Snapshot(List<UserEntity> users) {
+            if (users == null)
+                return;
+            for (UserEntity user : users) {
+                byId.put(user.getId(), user);
+                if (user.getSubjectId() != null)
+                    bySubjectId.put(user.getSubjectId(), user);
+                if (user.getFirstName() != null)
+                    byUsername.putIfAbsent(user.getFirstName(), user);
+            }
+        }
+    }
+
+}
@@ -2,12 +2,31 @@ package gr.cite.intelcomp.interactivemodeltrainer.cache;
 
 import gr.cite.intelcomp.interactivemodeltrainer.data.WordListEntity;
 
+import java.util.Comparator;
+import java.util.List;
+
 import static gr.cite.intelcomp.interactivemodeltrainer.common.enums.CommandType.WORDLIST_GET;
 
-public class WordlistCachedEntity extends CachedEntity<WordListEntity>{
+public class WordlistCachedEntity extends KeyedCachedEntity<WordListEntity>{
     public static final String CODE = WORDLIST_GET.name();
     @Override
     public String getCode() {
         return CODE;
     }
+
+    @Override
+    protected String keyOf(WordListEntity item) {
+        return item.getName();
+    }
+
+    @Override
+    protected IndexedView<WordListEntity> buildView(List<WordListEntity> payload) {
+        return IndexedView.builder(payload)
+                .text(IndexedView.NAME, WordListEntity::getName)
+                .bucket(IndexedView.CREATOR, WordListEntity::getCreator)
+                .bucket(IndexedView.VISIBILITY, WordListEntity::getVisibility)
+                .order("name", Comparator.comparing(WordListEntity::getName))
+                .order("creation_date", Comparator.comparing(WordListEntity::getCreationMilliseconds))
+                .build();
+    }
 }
@@ -0,0 +1,7 @@
+package gr.cite.intelcomp.interactivemodeltrainer.common.enums;
+
+public enum TopicSimilarityMetric {
+
+    JENSEN_SHANNON, COSINE
+
+}
@@ -0,0 +1,140 @@
+package gr.cite.intelcomp.interactivemodeltrainer.common.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads training logs without decoding the whole file. Tails seek backwards from the end of the file block by
+ * block until enough line breaks are found, and follow reads only return the complete lines appended after a
+ * given byte offset.
+ * <p>
+ * A last line without a line break is taken to be still being written, and is left for a later read, until the
+ * file has not been modified for {@link #SETTLE_PERIOD}. It is then returned as a line of its own, e.g. for a
+ * training that ended without terminating its last line. Should the file grow again, the rest of that line
+ * comes as a separate line.
+ */
+public final class LogFileReader {
+
+    private static final int BLOCK_SIZE = 8192;
+    private static final Duration SETTLE_PERIOD = Duration.ofSeconds(10);
+
+    private LogFileReader() {
+    }
+
+    /**
+     * Returns at most the last maxLines complete lines of the file, along with the offset right after them, which
+     * is where a follow read picks up. With no lines requested, only that offset is returned.
+     */
+    public static Chunk tail(Path file, int maxLines) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            boolean terminated = size == 0 || byteAt(channel, size - 1) == '\n';
+            long next = terminated || settled(file) ? size : afterBreaks(channel, size, 1);
+            if (maxLines <= 0 || next == 0) return new Chunk(new ArrayList<>(), next);
+
+            // The text of the lines ends before the line break of the last one, if it has one
+            long end = next == size && !terminated ? size : next - 1;
+            long start = afterBreaks(channel, end, maxLines);
+            return new Chunk(splitLines(read(channel, start, end)), next);
+        }
+    }
+
+    /**
+     * Returns the complete lines written after the given offset, along with the offset to continue from. When the
+     * file got shorter than the offset, e.g. because the training was restarted, reading starts over from the
+     * beginning.
+     */
+    public static Chunk readFrom(Path file, long offset, int maxBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = offset > size || offset < 0 ? 0 : offset;
+            long end = Math.min(size, start + maxBytes);
+            if (end <= start) return new Chunk(List.of(), start);
+
+            byte[] data = read(channel, start, end);
+            int lastBreak = data.length - 1;
+            while (lastBreak >= 0 && data[lastBreak] != '\n') lastBreak--;
+            if (lastBreak < data.length - 1 && end == size && settled(file)) {
+                lastBreak = data.length - 1;
+            } else if (lastBreak < 0) {
+                // A single line longer than maxBytes is returned in pieces instead of blocking the reader
+                if (end - start < maxBytes) return new Chunk(List.of(), start);
+                lastBreak = data.length - 1;
+            }
+            String text = new String(data, 0, lastBreak + 1, StandardCharsets.UTF_8);
+            if (text.endsWith("\n")) text = text.substring(0, text.length() - 1);
+            return new Chunk(splitLines(text), start + lastBreak + 1);
+        }
+    }
+
+    private static boolean settled(Path file) throws IOException {
+        return Files.getLastModifiedTime(file).toInstant().isBefore(Instant.now().minus(SETTLE_PERIOD));
+    }
+
+    /**
+     * The offset right after the count-th line break before the given end, searching backwards, or 0 when there
+     * are fewer line breaks.
+     */
+    private static long afterBreaks(FileChannel channel, long end, int count) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+        int found = 0;
+        long position = end;
+        while (position > 0) {
+            int length = (int) Math.min(BLOCK_SIZE, position);
+            position -= length;
+            block.clear().limit(length);
+            readFully(channel, block, position);
+            for (int i = length - 1; i >= 0; i--) {
+                if (block.get(i) == '\n' && ++found == count) return position + i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static byte byteAt(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        readFully(channel, buffer, position);
+        return buffer.get(0);
+    }
+
+    private static List<String> splitLines(byte[] data) {
+        return splitLines(new String(data, StandardCharsets.UTF_8));
+    }
+
+    private static List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<>();
+        if (text.isEmpty()) return lines;
+        for (String line : text.split("\n", -1)) {
+            lines.add(line.endsWith("\r") ? line.substring(0, line.length() - 1) : line);
+        }
+        return lines;
+    }
+
+    private static byte[] read(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(end - start));
+        readFully(channel, buffer, start);
+        return buffer.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, current);
+            if (read < 0) break;
+            current += read;
+        }
+    }
+
+    public record Chunk(List<String> lines, long nextOffset) {
+    }
+
+}
@@ -151,6 +151,90 @@ public class ContainerServicesProperties {
         this.services = services;
     }
 
+    private ManagerWorkerConfiguration worker = new ManagerWorkerConfiguration();
+
+    public ManagerWorkerConfiguration getWorker() {
+        return worker;
+    }
+
+    public void setWorker(ManagerWorkerConfiguration worker) {
+        this.worker = worker;
+    }
+
+    public static class ManagerWorkerConfiguration {
+
+        private boolean enabled = false;
+        private String script = "execWorker.py";
+        private Long requestTimeoutInSeconds = 300L;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getScript() {
+            return script;
+        }
+
+        public void setScript(String script) {
+            this.script = script;
+        }
+
+        public Long getRequestTimeoutInSeconds() {
+            return requestTimeoutInSeconds;
+        }
+
+        public void setRequestTimeoutInSeconds(Long requestTimeoutInSeconds) {
+            this.requestTimeoutInSeconds = requestTimeoutInSeconds;
+        }
+
+    }
+
+    private RequestExecutorConfiguration requests = new RequestExecutorConfiguration();
+
+    public RequestExecutorConfiguration getRequests() {
+        return requests;
+    }
+
+    public void setRequests(RequestExecutorConfiguration requests) {
+        this.requests = requests;
+    }
+
+    public static class RequestExecutorConfiguration {
+
+        private int threads = 4;
+        private int queueCapacity = 16;
+        private Long timeoutInSeconds = 600L;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Long getTimeoutInSeconds() {
+            return timeoutInSeconds;
+        }
+
+        public void setTimeoutInSeconds(Long timeoutInSeconds) {
+            this.timeoutInSeconds = timeoutInSeconds;
+        }
+
+    }
+
     public static class DockerServiceConfiguration {
 
         public static final String TRAIN_TOPIC_MODELS_SERVICE_NAME = "trainModels";
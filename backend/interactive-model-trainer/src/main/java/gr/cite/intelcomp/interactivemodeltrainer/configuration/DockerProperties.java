@@ -8,6 +8,7 @@ import java.util.HashMap;
 public class DockerProperties {
     private String host;
     private Boolean enabled;
+    private Long serviceHealthCheckIntervalInSeconds = 30L;
 
     private HashMap<String, DockerServiceConfiguration> services;
     private HashMap<String, DockerJobConfiguration> jobs;
@@ -28,6 +29,14 @@ public class DockerProperties {
         this.enabled = enabled;
     }
 
+    public Long getServiceHealthCheckIntervalInSeconds() {
+        return serviceHealthCheckIntervalInSeconds;
+    }
+
+    public void setServiceHealthCheckIntervalInSeconds(Long serviceHealthCheckIntervalInSeconds) {
+        this.serviceHealthCheckIntervalInSeconds = serviceHealthCheckIntervalInSeconds;
+    }
+
     public HashMap<String, DockerServiceConfiguration> getServices() {
         return services;
     }
@@ -48,6 +57,8 @@ public class DockerProperties {
 
         private String image;
 
+        private Integer poolSize = 1;
+
         private HashMap<String, String> volumeConfiguration;
 
         public String getImage() {
@@ -58,6 +69,14 @@ public class DockerProperties {
             this.image = image;
         }
 
+        public Integer getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(Integer poolSize) {
+            this.poolSize = poolSize;
+        }
+
         public HashMap<String, String> getVolumeConfiguration() {
             return volumeConfiguration;
         }
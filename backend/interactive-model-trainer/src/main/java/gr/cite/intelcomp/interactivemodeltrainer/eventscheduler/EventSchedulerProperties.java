@@ -39,11 +39,15 @@ public class EventSchedulerProperties {
 			private final Boolean enable;
 			private final Long intervalSeconds;
 			private final Options options;
+			private final Integer workers;
+			private final Integer batchSize;
 
-			public Processor(Boolean enable, Long intervalSeconds, Options options) {
+			public Processor(Boolean enable, Long intervalSeconds, Options options, Integer workers, Integer batchSize) {
 				this.enable = enable;
 				this.intervalSeconds = intervalSeconds;
 				this.options = options;
+				this.workers = workers;
+				this.batchSize = batchSize;
 			}
 
 			public Boolean getEnable() {
@@ -58,6 +62,16 @@ public class EventSchedulerProperties {
 				return options;
 			}
 
+			public Integer getWorkers() {
+				if (workers == null || workers < 1) return 1;
+				return workers;
+			}
+
+			public Integer getBatchSize() {
+				if (batchSize == null || batchSize < 1) return 10;
+				return batchSize;
+			}
+
 
 			public static class Options {
 				private final Long retryThreshold;
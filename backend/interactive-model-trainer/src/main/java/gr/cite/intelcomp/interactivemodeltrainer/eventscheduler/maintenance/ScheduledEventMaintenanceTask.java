@@ -0,0 +1,233 @@
+package gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.maintenance;
+
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.IsActive;
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.ScheduledEventStatus;
+import gr.cite.intelcomp.interactivemodeltrainer.data.ScheduledEventEntity;
+import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.maintenance.config.ScheduledEventMaintenanceProperties;
+import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.task.EventSchedulerTask;
+import gr.cite.tools.logging.LoggerService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the scheduled_event table bounded. Every finished event stays in the table once run, and a new
+ * CHECK_RUNNING_TASKS event is created every check interval, so without a purge the table grows for as long as the
+ * application runs. Events in a terminal state that have not changed for the retention period are deleted, or
+ * moved to scheduled_event_archive, a batch per transaction so that the scheduler is never held up behind a large
+ * delete. The batches are locked with SKIP LOCKED and picked through the partial index on terminal events, so the
+ * purge never touches the pending events the scheduler polls.
+ * <p>
+ * Events that were claimed but stayed in PROCESSING for longer than the processing lease, e.g. because the replica
+ * that claimed them stopped, are moved back to ERROR so that the scheduler retries them. An event that is being
+ * handled stays locked by its worker until its outcome is committed, so the reclaim skips it however long it runs.
+ * <p>
+ * The task also samples the size of the table and the number of pending events for the metrics endpoint. The
+ * indexes and the archive table are created by the database scripts, the task only checks that they are there.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_SINGLETON)
+@EnableConfigurationProperties(ScheduledEventMaintenanceProperties.class)
+public class ScheduledEventMaintenanceTask {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(ScheduledEventMaintenanceTask.class));
+
+    public static final List<ScheduledEventStatus> TERMINAL_STATUSES = List.of(ScheduledEventStatus.SUCCESSFUL, ScheduledEventStatus.OMITTED, ScheduledEventStatus.DISCARD, ScheduledEventStatus.CANCELED);
+
+    private static final List<String> REQUIRED_INDEXES = List.of("scheduled_event_candidates_idx", "scheduled_event_terminal_idx");
+    private static final String ARCHIVE_TABLE = "public.scheduled_event_archive";
+
+    private static final String ARCHIVE_BATCH = """
+            WITH moved AS (DELETE FROM public.scheduled_event WHERE id IN (:ids) RETURNING *)
+            INSERT INTO public.scheduled_event_archive SELECT moved.*, now() FROM moved""";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ScheduledEventMaintenanceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong tableBytes = new AtomicLong();
+    private final AtomicLong estimatedRows = new AtomicLong();
+    private final AtomicLong pendingRows = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+    private boolean archiveAvailable;
+
+    public ScheduledEventMaintenanceTask(ApplicationContext applicationContext, ScheduledEventMaintenanceProperties properties, MeterRegistry meterRegistry) {
+        this.entityManagerFactory = applicationContext.getBean(EntityManagerFactory.class);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("scheduled.event.table.size", tableBytes, AtomicLong::get).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("scheduled.event.rows", estimatedRows, AtomicLong::get).tag("state", "all").register(meterRegistry);
+        Gauge.builder("scheduled.event.rows", pendingRows, AtomicLong::get).tag("state", "pending").register(meterRegistry);
+        if (properties.getEnabled()) {
+            logger.info("Scheduled events in a terminal state will be {} after {} hours, checking every {} minutes",
+                    properties.getArchive() ? "archived" : "deleted", properties.getRetentionInHours(), properties.getIntervalInMinutes());
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "scheduled-event-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.execute(this::checkSchema);
+            scheduler.scheduleWithFixedDelay(this::sample, 30, properties.getStatisticsIntervalInSeconds(), TimeUnit.SECONDS);
+            scheduler.scheduleWithFixedDelay(this::reclaim, 45, properties.getReclaimIntervalInSeconds(), TimeUnit.SECONDS);
+            scheduler.scheduleWithFixedDelay(this::purge, 60, properties.getIntervalInMinutes() * 60, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private void checkSchema() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            @SuppressWarnings("unchecked")
+            List<String> indexes = entityManager.createNativeQuery("SELECT indexname FROM pg_indexes WHERE schemaname = 'public' AND tablename = 'scheduled_event'").getResultList();
+            for (String index : REQUIRED_INDEXES) {
+                if (!indexes.contains(index)) logger.warn("Index {} is missing, apply the database scripts to keep scheduled event polling fast", index);
+            }
+            Object archive = entityManager.createNativeQuery("SELECT CAST(to_regclass(:table) AS text)").setParameter("table", ARCHIVE_TABLE).getSingleResult();
+            archiveAvailable = archive != null;
+            if (properties.getArchive() && !archiveAvailable)
+                logger.warn("Table {} is missing, scheduled events will not be purged until it is created", ARCHIVE_TABLE);
+        } catch (Exception e) {
+            logger.warn("Could not check the scheduled event schema: {}", e.getMessage());
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private void sample() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            tableBytes.set(((Number) entityManager.createNativeQuery("SELECT pg_total_relation_size('public.scheduled_event')").getSingleResult()).longValue());
+            // Planner estimate, an exact count would scan the whole table
+            estimatedRows.set(((Number) entityManager.createNativeQuery("SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = 'public.scheduled_event'::regclass").getSingleResult()).longValue());
+
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+            Root<ScheduledEventEntity> root = query.from(ScheduledEventEntity.class);
+            query.select(criteriaBuilder.count(root)).where(
+                    criteriaBuilder.equal(root.get(ScheduledEventEntity._isActive), IsActive.ACTIVE),
+                    root.get(ScheduledEventEntity._status).in(EventSchedulerTask.CANDIDATE_STATUSES));
+            pendingRows.set(entityManager.createQuery(query).getSingleResult());
+        } catch (Exception e) {
+            logger.warn("Could not sample the scheduled event table: {}", e.getMessage());
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private void reclaim() {
+        Instant expiredBefore = Instant.now().minus(Duration.ofMinutes(properties.getProcessingLeaseInMinutes()));
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        EntityTransaction transaction = entityManager.getTransaction();
+        try {
+            transaction.begin();
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<ScheduledEventEntity> query = criteriaBuilder.createQuery(ScheduledEventEntity.class);
+            Root<ScheduledEventEntity> root = query.from(ScheduledEventEntity.class);
+            query.select(root).where(
+                    criteriaBuilder.equal(root.get(ScheduledEventEntity._status), ScheduledEventStatus.PROCESSING),
+                    criteriaBuilder.lessThan(root.get(ScheduledEventEntity._updatedAt), expiredBefore));
+            List<ScheduledEventEntity> expired = entityManager.createQuery(query)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .setHint("jakarta.persistence.lock.timeout", EventSchedulerTask.SKIP_LOCKED)
+                    .setMaxResults(properties.getBatchSize())
+                    .getResultList();
+            Instant now = Instant.now();
+            for (ScheduledEventEntity event : expired) {
+                logger.warn("Scheduled event {} was claimed at {} and never handled, giving it back to the scheduler", event.getId(), event.getUpdatedAt());
+                event.setStatus(ScheduledEventStatus.ERROR);
+                event.setRetryCount(event.getRetryCount() == null ? 1 : event.getRetryCount() + 1);
+                event.setUpdatedAt(now);
+            }
+            transaction.commit();
+            if (!expired.isEmpty()) meterRegistry.counter("scheduled.event.reclaimed").increment(expired.size());
+        } catch (Exception e) {
+            if (transaction.isActive()) transaction.rollback();
+            logger.warn("Could not reclaim expired scheduled events: {}", e.getMessage());
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private void purge() {
+        if (properties.getArchive() && !archiveAvailable) {
+            // The archive table may have been created since the last check
+            this.checkSchema();
+            if (!archiveAvailable) return;
+        }
+        Instant cutoff = Instant.now().minus(Duration.ofHours(properties.getRetentionInHours()));
+        long purged = 0;
+        try {
+            int batch;
+            do {
+                batch = this.purgeBatch(cutoff);
+                purged += batch;
+            } while (batch == properties.getBatchSize() && !Thread.currentThread().isInterrupted());
+        } catch (Exception e) {
+            logger.error("Purging scheduled events failed after {} events: {}", purged, e.getMessage(), e);
+        }
+        if (purged > 0) {
+            meterRegistry.counter("scheduled.event.purged", "mode", properties.getArchive() ? "archive" : "delete").increment(purged);
+            logger.debug("Purged {} scheduled events older than {}", purged, cutoff);
+        }
+    }
+
+    private int purgeBatch(Instant cutoff) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        EntityTransaction transaction = entityManager.getTransaction();
+        try {
+            transaction.begin();
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<UUID> query = criteriaBuilder.createQuery(UUID.class);
+            Root<ScheduledEventEntity> root = query.from(ScheduledEventEntity.class);
+            query.select(root.get(ScheduledEventEntity._id)).where(
+                    root.get(ScheduledEventEntity._status).in(TERMINAL_STATUSES),
+                    criteriaBuilder.lessThan(root.get(ScheduledEventEntity._updatedAt), cutoff)
+            ).orderBy(criteriaBuilder.asc(root.get(ScheduledEventEntity._updatedAt)));
+            List<UUID> ids = entityManager.createQuery(query)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .setHint("jakarta.persistence.lock.timeout", EventSchedulerTask.SKIP_LOCKED)
+                    .setMaxResults(properties.getBatchSize())
+                    .getResultList();
+            if (!ids.isEmpty()) {
+                if (properties.getArchive()) {
+                    entityManager.createNativeQuery(ARCHIVE_BATCH).setParameter("ids", ids).executeUpdate();
+                } else {
+                    entityManager.createQuery("DELETE FROM ScheduledEventEntity e WHERE e.id IN :ids").setParameter("ids", ids).executeUpdate();
+                }
+            }
+            transaction.commit();
+            return ids.size();
+        } catch (RuntimeException e) {
+            if (transaction.isActive()) transaction.rollback();
+            throw e;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+}
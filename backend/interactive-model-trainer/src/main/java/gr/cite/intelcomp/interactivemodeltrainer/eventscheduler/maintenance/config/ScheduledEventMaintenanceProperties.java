@@ -0,0 +1,70 @@
+package gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.maintenance.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.ConstructorBinding;
+
+@ConfigurationProperties(prefix = "event-scheduler.maintenance")
+public class ScheduledEventMaintenanceProperties {
+
+    private final Boolean enabled, archive;
+
+    private final Long intervalInMinutes, retentionInHours, statisticsIntervalInSeconds, processingLeaseInMinutes, reclaimIntervalInSeconds;
+
+    private final Integer batchSize;
+
+    @ConstructorBinding
+    public ScheduledEventMaintenanceProperties(Boolean enabled, Boolean archive, Long intervalInMinutes, Long retentionInHours, Long statisticsIntervalInSeconds, Integer batchSize, Long processingLeaseInMinutes, Long reclaimIntervalInSeconds) {
+        this.enabled = enabled;
+        this.archive = archive;
+        this.intervalInMinutes = intervalInMinutes;
+        this.retentionInHours = retentionInHours;
+        this.statisticsIntervalInSeconds = statisticsIntervalInSeconds;
+        this.batchSize = batchSize;
+        this.processingLeaseInMinutes = processingLeaseInMinutes;
+        this.reclaimIntervalInSeconds = reclaimIntervalInSeconds;
+    }
+
+    public Boolean getEnabled() {
+        return enabled != null && enabled;
+    }
+
+    /**
+     * Whether purged events are moved to scheduled_event_archive instead of being deleted.
+     */
+    public Boolean getArchive() {
+        return archive != null && archive;
+    }
+
+    public Long getIntervalInMinutes() {
+        if (intervalInMinutes == null || intervalInMinutes < 1) return 60L;
+        return intervalInMinutes;
+    }
+
+    public Long getRetentionInHours() {
+        if (retentionInHours == null || retentionInHours < 1) return 168L;
+        return retentionInHours;
+    }
+
+    public Long getStatisticsIntervalInSeconds() {
+        if (statisticsIntervalInSeconds == null || statisticsIntervalInSeconds < 1) return 60L;
+        return statisticsIntervalInSeconds;
+    }
+
+    public Integer getBatchSize() {
+        if (batchSize == null || batchSize < 1) return 1000;
+        return batchSize;
+    }
+
+    /**
+     * How long a claimed event may stay in PROCESSING without being handled before it is given back to the scheduler.
+     */
+    public Long getProcessingLeaseInMinutes() {
+        if (processingLeaseInMinutes == null || processingLeaseInMinutes < 1) return 30L;
+        return processingLeaseInMinutes;
+    }
+
+    public Long getReclaimIntervalInSeconds() {
+        if (reclaimIntervalInSeconds == null || reclaimIntervalInSeconds < 1) return 60L;
+        return reclaimIntervalInSeconds;
+    }
+}
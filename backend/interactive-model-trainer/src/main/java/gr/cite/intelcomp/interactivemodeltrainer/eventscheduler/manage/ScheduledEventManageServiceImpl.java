@@ -86,6 +86,7 @@ public class ScheduledEventManageServiceImpl implements ScheduledEventManageServ
 		List<ScheduledEventEntity> events = this.queryFactory.query(ScheduledEventQuery.class).eventTypes(item.getType()).status(ScheduledEventStatus.PENDING, ScheduledEventStatus.ERROR).keyTypes(item.getKeyType()).keys(item.getKey()).collect();
 		for (ScheduledEventEntity data : events) {
 			data.setStatus(ScheduledEventStatus.CANCELED);
+			data.setUpdatedAt(Instant.now());
 
 			this.entityManager.merge(data);
 		}
@@ -98,6 +99,7 @@ public class ScheduledEventManageServiceImpl implements ScheduledEventManageServ
 		ScheduledEventEntity data = this.entityManager.find(ScheduledEventEntity.class, id);
 		if (data == null) throw new MyNotFoundException(messageSource.getMessage("General_ItemNotFound", new Object[]{id, ScheduledEventEntity.class.getSimpleName()}, LocaleContextHolder.getLocale()));
 		data.setStatus(ScheduledEventStatus.CANCELED);
+		data.setUpdatedAt(Instant.now());
 
 		this.entityManager.merge(data);
 		this.entityManager.flush();
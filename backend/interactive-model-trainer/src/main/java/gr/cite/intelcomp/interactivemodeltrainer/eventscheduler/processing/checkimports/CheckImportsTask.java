@@ -9,6 +9,7 @@ import gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServices
 import gr.cite.intelcomp.interactivemodeltrainer.data.CorpusImportEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.checkimports.config.CheckImportsProperties;
 import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.checkimports.hdfs.HdfsFileReader;
+import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.checkimports.hdfs.ImportFolderWatcher;
 import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.checkimports.model.ParquetMetadataModel;
 import gr.cite.intelcomp.interactivemodeltrainer.model.RawCorpus;
 import gr.cite.intelcomp.interactivemodeltrainer.query.CorpusImportQuery;
@@ -18,6 +19,7 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityTransaction;
 import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.metadata.ParquetMetadata;
@@ -31,14 +33,17 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Component
@@ -55,6 +60,11 @@ public class CheckImportsTask {
     private final RawCorpusService rawCorpusService;
     private final ContainerServicesProperties containerServicesProperties;
     private final JsonHandlingService jsonHandlingService;
+    private final Configuration localConfiguration = new Configuration();
+    private ExecutorService importExecutor;
+    private final ImportFolderWatcher folderWatcher = new ImportFolderWatcher();
+    private Map<String, CorpusImportStatus> knownImports;
+    private Instant lastFullScan;
 
     public CheckImportsTask(ApplicationContext applicationContext, HdfsFileReader hdfsFileReader, CheckImportsProperties properties, RawCorpusService rawCorpusService, ContainerServicesProperties containerServicesProperties, JsonHandlingService jsonHandlingService) {
         this.applicationContext = applicationContext;
@@ -68,6 +78,13 @@ public class CheckImportsTask {
             long intervalSeconds = properties.getCheckIntervalInSeconds();
             logger.info("Task to check for corpora imports is scheduled to run every {} seconds", intervalSeconds);
 
+            AtomicInteger threadCount = new AtomicInteger();
+            this.importExecutor = Executors.newFixedThreadPool(properties.getImportWorkers(), runnable -> {
+                Thread thread = new Thread(runnable, "corpus-import-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
             ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
             //GK: Fixed rate is heavily unpredictable, and it will not scale well on a very heavy workload
             scheduler.scheduleWithFixedDelay(this::process, 15, intervalSeconds, TimeUnit.SECONDS);
@@ -77,22 +94,30 @@ public class CheckImportsTask {
     public void process() {
         logger.trace("Check imports task running");
 
-        List<String> importing, imported, failed;
         try (FakeRequestScope ignored = new FakeRequestScope()) {
-            //Figuring out the database status
-            importing = getImportRecords(CorpusImportStatus.IMPORTING).stream().map(CorpusImportEntity::getName).toList();
-            if (!importing.isEmpty()) {
-                logger.error("Imports got interrupted. Setting status to fail.");
-                setImportStatus(importing, CorpusImportStatus.FAIL);
+            //Figuring out the database status, only on the first scan and on the periodic full rescans
+            if (knownImports == null || lastFullScan.plus(Duration.ofMinutes(properties.getFullRescanIntervalInMinutes())).isBefore(Instant.now())) {
+                List<String> importing = getImportRecords(CorpusImportStatus.IMPORTING).stream().map(CorpusImportEntity::getName).toList();
+                if (!importing.isEmpty()) {
+                    logger.error("Imports got interrupted. Setting status to fail.");
+                    setImportStatus(importing, CorpusImportStatus.FAIL);
+                }
+                Map<String, CorpusImportStatus> known = new HashMap<>();
+                for (CorpusImportEntity record : getImportRecords(CorpusImportStatus.SUCCESS, CorpusImportStatus.FAIL)) {
+                    known.put(record.getName(), record.getStatus());
+                }
+                knownImports = known;
+                folderWatcher.reset();
+                lastFullScan = Instant.now();
             }
-            imported = getImportRecords(CorpusImportStatus.SUCCESS).stream().map(CorpusImportEntity::getName).toList();
-            failed = getImportRecords(CorpusImportStatus.FAIL).stream().map(CorpusImportEntity::getName).toList();
 
-            //Scanning the hdfs folders
-            List<String> folders = hdfsFileReader.getFolders();
-            for (String folder : folders) {
-                if (imported.contains(folder)) {
+            //Scanning the hdfs folders that changed since they were last looked at, a failed listing leaves them as they were
+            List<FileStatus> folders = folderWatcher.changed(hdfsFileReader.listFolders());
+            for (FileStatus folderStatus : folders) {
+                String folder = folderStatus.getPath().getName();
+                if (knownImports.get(folder) == CorpusImportStatus.SUCCESS) {
                     logger.trace("Folder '{}' already imported. Skipping.", folder);
+                    folderWatcher.seen(folderStatus);
                     continue;
                 }
 
@@ -111,9 +136,10 @@ public class CheckImportsTask {
                     logger.trace("Success file found and filtered");
                     logger.trace("Found {} files", files.size());
 
-                    if (!failed.contains(folder)) addImportRecord(folder);
+                    if (!knownImports.containsKey(folder)) addImportRecord(folder);
                         //If the import has failed in the past, try again.
                     else setImportStatus(List.of(folder), CorpusImportStatus.IMPORTING);
+                    knownImports.put(folder, CorpusImportStatus.IMPORTING);
 
                     String nameRandomizer = String.valueOf(Instant.now().getNano());
                     String generatedName = "Imported_" + nameRandomizer;
@@ -122,11 +148,10 @@ public class CheckImportsTask {
 
                     //Gathering the corpus information and fetching parquet files
                     List<String> columns = new ArrayList<>();
-                    boolean fileColumnsRead = false;
                     String name = nameRandomizer;
-                    int filesCount = 0;
                     long records = 0;
                     String parameters = null;
+                    List<FileStatus> parquetFiles = new ArrayList<>();
                     for (FileStatus file : files) {
                         if (file.getPath().getName().equals("metadata.json")) {
                             ParquetMetadataModel metadata = readMetadataFile(file);
@@ -143,29 +168,53 @@ public class CheckImportsTask {
                             logger.trace("Ignoring file {}. It is not a parquet file", file.getPath().getName());
                             continue;
                         }
-                        saveFile(file, generatedName);
-                        filesCount++;
-
-                        if (file.getLen() > 0 && !metadataFileFound.get()) {
-                            ParquetFileReader reader = ParquetFileReader.open(
-                                    HadoopInputFile.fromStatus(file, hdfsFileReader.getConfiguration())
-                            );
-                            if (!fileColumnsRead) {
-                                ParquetMetadata parquetMetadata = reader.getFooter();
-                                columns = parquetMetadata.getFileMetaData().getSchema().getColumns().stream().map(
-                                                columnDescriptor -> columnDescriptor.toString().substring(1, columnDescriptor.toString().lastIndexOf(']')))
-                                        .toList();
+                        if (properties.getFileSizeThresholdInBytes() > 0 && file.getLen() >= properties.getFileSizeThresholdInBytes()) {
+                            logger.trace("File {} has size exceeding limit of {}MB. Skipping.", file.getPath().getName(), properties.getFileSizeThresholdInMB());
+                            continue;
+                        }
+                        parquetFiles.add(file);
+                    }
+
+                    //Copying the parquet files in parallel, reading the footers only when there is no metadata file
+                    boolean readFooters = !metadataFileFound.get();
+                    List<Future<ImportedFile>> imports = new ArrayList<>();
+                    for (FileStatus file : parquetFiles) {
+                        imports.add(importExecutor.submit(() -> importFile(file, directory, readFooters)));
+                    }
+                    int filesCount = 0;
+                    boolean copyFailed = false;
+                    boolean fileColumnsRead = false;
+                    for (Future<ImportedFile> future : imports) {
+                        try {
+                            ImportedFile imported = future.get();
+                            filesCount++;
+                            if (!readFooters) continue;
+                            if (!fileColumnsRead && imported.columns() != null) {
+                                columns = imported.columns();
                                 fileColumnsRead = true;
                             }
-                            records += reader.getRecordCount();
+                            records += imported.records();
+                        } catch (ExecutionException e) {
+                            copyFailed = true;
+                            logger.error("Failed to fetch and save file", e.getCause());
                         }
                     }
 
+                    //Aborting corpus creation since a file could not be copied
+                    if (copyFailed) {
+                        logger.error("Importing of folder '{}' failed", folder);
+                        FileUtils.forceDelete(new File(directory.toUri()));
+                        updateImportStatus(folder, CorpusImportStatus.FAIL);
+                        continue;
+                    }
+
                     //Aborting corpus creation since there were no valid files found
                     if (filesCount == 0) {
                         logger.trace("No parquet files found in folder {}. Skipping.", folder);
                         FileUtils.forceDelete(new File(directory.toUri()));
-                        setImportStatus(List.of(folder), CorpusImportStatus.FAIL);
+                        updateImportStatus(folder, CorpusImportStatus.FAIL);
+                        //Nothing will change until the folder does
+                        folderWatcher.seen(folderStatus);
                         continue;
                     }
 
@@ -174,15 +223,17 @@ public class CheckImportsTask {
 
                     try {
                         rawCorpusService.create(corpus, generatedName);
-                        setImportStatus(List.of(folder), CorpusImportStatus.SUCCESS);
+                        updateImportStatus(folder, CorpusImportStatus.SUCCESS);
+                        folderWatcher.seen(folderStatus);
                     } catch (IOException | InterruptedException e) {
-                        setImportStatus(List.of(folder), CorpusImportStatus.FAIL);
+                        updateImportStatus(folder, CorpusImportStatus.FAIL);
                         logger.error("Failed to persist raw corpus information");
                     }
 
                     logger.info("Importing of folder '{}' completed", folder);
                 } else {
                     logger.trace("Skipping folder '{}'. Either no data or not successful.", folder);
+                    folderWatcher.seen(folderStatus);
                 }
             }
         } catch (Exception e) {
@@ -201,20 +252,36 @@ public class CheckImportsTask {
         }
     }
 
-    private void saveFile(FileStatus file, String name) {
-        try {
-            if (properties.getFileSizeThresholdInBytes() == 0 || file.getLen() < properties.getFileSizeThresholdInBytes()) {
-                logger.trace("Downloading file from path {} with size {} bytes", file.getPath().toString(), file.getLen());
-                byte[] fileData = hdfsFileReader.getFileData(file);
-                logger.trace("Downloaded {} bytes", fileData.length);
-                File toSave = new File(Path.of(containerServicesProperties.getCorpusService().getParquetFolder(), name, file.getPath().getName()).toUri());
-                FileUtils.writeByteArrayToFile(toSave, fileData, false);
-            } else {
-                logger.trace("File {} has size exceeding limit of {}MB. Skipping.", file.getPath().getName(), properties.getFileSizeThresholdInMB());
-            }
+    /**
+     * Streams a parquet file from hdfs into the corpus directory and, if asked to, reads its schema and record
+     * count from the footer of the local copy.
+     */
+    private ImportedFile importFile(FileStatus file, Path directory, boolean readFooter) throws IOException {
+        Path target = directory.resolve(file.getPath().getName());
+        Path partial = directory.resolve(file.getPath().getName() + ".part");
+        logger.trace("Downloading file from path {} with size {} bytes", file.getPath().toString(), file.getLen());
+        try (OutputStream out = Files.newOutputStream(partial)) {
+            long copied = hdfsFileReader.copyFileData(file, out, properties.getCopyBufferSizeInKB() * 1024);
+            logger.trace("Downloaded {} bytes", copied);
         } catch (IOException e) {
-            logger.error("Failed to fetch and save file {}", file.getPath().toString());
+            Files.deleteIfExists(partial);
+            throw e;
         }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+
+        if (!readFooter || file.getLen() == 0) return new ImportedFile(0, null);
+        try (ParquetFileReader reader = ParquetFileReader.open(
+                HadoopInputFile.fromPath(new org.apache.hadoop.fs.Path(target.toUri()), localConfiguration)
+        )) {
+            ParquetMetadata parquetMetadata = reader.getFooter();
+            List<String> columns = parquetMetadata.getFileMetaData().getSchema().getColumns().stream().map(
+                            columnDescriptor -> columnDescriptor.toString().substring(1, columnDescriptor.toString().lastIndexOf(']')))
+                    .toList();
+            return new ImportedFile(reader.getRecordCount(), columns);
+        }
+    }
+
+    private record ImportedFile(long records, List<String> columns) {
     }
 
     private RawCorpus createCorpus(String name, Integer records, String parameters, List<String> columns, String generatedName) {
@@ -292,6 +359,11 @@ public class CheckImportsTask {
         entityManager.close();
     }
 
+    private void updateImportStatus(String folder, CorpusImportStatus status) {
+        setImportStatus(List.of(folder), status);
+        knownImports.put(folder, status);
+    }
+
     private boolean validateConfig() {
         try {
             Objects.requireNonNull(properties);
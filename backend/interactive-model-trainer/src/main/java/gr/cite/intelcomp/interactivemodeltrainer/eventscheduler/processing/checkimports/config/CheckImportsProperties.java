@@ -6,19 +6,24 @@ import org.springframework.boot.context.properties.bind.ConstructorBinding;
 @ConfigurationProperties(prefix = "event-scheduler.events.check-for-imports")
 public class CheckImportsProperties {
 
-    private final Long checkIntervalInSeconds, fileSizeThresholdInMB;
+    private final Long checkIntervalInSeconds, fileSizeThresholdInMB, fullRescanIntervalInMinutes;
 
     private final String hdfsServiceUrl, hdfsDataPath;
 
     private final Boolean enabled;
 
+    private final Integer importWorkers, copyBufferSizeInKB;
+
     @ConstructorBinding
-    public CheckImportsProperties(Long checkIntervalInSeconds, Long fileSizeThresholdInMB, String hdfsServiceUrl, String hdfsDataPath, Boolean enabled) {
+    public CheckImportsProperties(Long checkIntervalInSeconds, Long fileSizeThresholdInMB, String hdfsServiceUrl, String hdfsDataPath, Boolean enabled, Integer importWorkers, Integer copyBufferSizeInKB, Long fullRescanIntervalInMinutes) {
         this.checkIntervalInSeconds = checkIntervalInSeconds;
         this.fileSizeThresholdInMB = fileSizeThresholdInMB;
         this.hdfsServiceUrl = hdfsServiceUrl;
         this.hdfsDataPath = hdfsDataPath;
         this.enabled = enabled;
+        this.importWorkers = importWorkers;
+        this.copyBufferSizeInKB = copyBufferSizeInKB;
+        this.fullRescanIntervalInMinutes = fullRescanIntervalInMinutes;
     }
 
     public Boolean getEnabled() {
@@ -42,6 +47,22 @@ public class CheckImportsProperties {
     }
 
     public Long getFileSizeThresholdInBytes() {
+        if (fileSizeThresholdInMB == null) return 0L;
         return fileSizeThresholdInMB * 1000000;
     }
+
+    public Integer getImportWorkers() {
+        if (importWorkers == null || importWorkers < 1) return 4;
+        return importWorkers;
+    }
+
+    public Long getFullRescanIntervalInMinutes() {
+        if (fullRescanIntervalInMinutes == null || fullRescanIntervalInMinutes < 1) return 60L;
+        return fullRescanIntervalInMinutes;
+    }
+
+    public Integer getCopyBufferSizeInKB() {
+        if (copyBufferSizeInKB == null || copyBufferSizeInKB < 1) return 1024;
+        return copyBufferSizeInKB;
+    }
 }
@@ -1,6 +1,7 @@
 package gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.checkimports.hdfs;
 
 import gr.cite.tools.logging.LoggerService;
+import jakarta.annotation.PreDestroy;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
@@ -9,6 +10,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,7 +22,8 @@ public class HdfsFileReader {
     private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(HdfsFileReader.class));
 
     private URI fileName;
-    private FileSystem fileSystem;
+    private volatile FileSystem fileSystem;
+    private boolean providedFileSystem;
 
     public HdfsFileReader() {
     }
@@ -29,41 +33,48 @@ public class HdfsFileReader {
         return this;
     }
 
+    /**
+     * Reads the data path through the given client instead of one created from a service url, e.g. a local file
+     * system for imports dropped on a mounted volume. The client stays open for as long as its owner keeps it.
+     */
+    public synchronized HdfsFileReader config(FileSystem fileSystem, String dataPath) {
+        this.fileName = fileSystem.makeQualified(new Path(dataPath)).toUri();
+        this.fileSystem = fileSystem;
+        this.providedFileSystem = true;
+        return this;
+    }
+
     public String getRootUrl() {
         return fileName.getPath();
     }
 
-    public List<String> getFolders() {
-        try {
-            initHdfsClient();
-        } catch (IOException e) {
-            logger.error(e.getClass().getName(), e);
-        }
-
-        List<String> data = new ArrayList<>();
-
+    /**
+     * Lists the folders under the data path, including their modification times. A failed listing is thrown
+     * rather than reported as an empty data path, which would look as if every folder was removed.
+     */
+    public List<FileStatus> listFolders() throws IOException {
+        List<FileStatus> data = new ArrayList<>();
         try {
-            Path path = new Path(fileName);
-            FileStatus[] folders = fileSystem.listStatus(path);
+            FileStatus[] folders = fileSystem().listStatus(new Path(fileName));
             for (FileStatus fileStatus : folders) {
                 if (fileStatus.isDirectory()) {
-                    String folderName = fileStatus.getPath().getName();
-                    data.add(folderName);
+                    data.add(fileStatus);
                 }
             }
 
         } catch (IOException e) {
             logger.error(e.getClass().getName(), e);
+            reset();
+            throw e;
         }
 
         return data;
     }
 
-    public List<FileStatus> getFolderFiles(String folder) {
+    public List<FileStatus> getFolderFiles(String folder) throws IOException {
         List<FileStatus> files = new ArrayList<>();
         try {
-            Path path = new Path(URI.create(fileName.getPath() + "/" + folder));
-            FileStatus[] folders = fileSystem.listStatus(path);
+            FileStatus[] folders = fileSystem().listStatus(new Path(new Path(fileName), folder));
             for (FileStatus fileStatus : folders) {
                 if (fileStatus.isFile()) {
                     files.add(fileStatus);
@@ -72,30 +83,82 @@ public class HdfsFileReader {
 
         } catch (IOException e) {
             logger.error(e.getClass().getName(), e);
+            reset();
+            throw e;
         }
         return files;
     }
 
     public byte[] getFileData(FileStatus file) throws IOException {
-        return fileSystem.open(file.getPath()).readAllBytes();
+        try (InputStream in = fileSystem().open(file.getPath())) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Streams the file into the given output in chunks of the given size, returning the number of bytes copied.
+     */
+    public long copyFileData(FileStatus file, OutputStream out, int bufferSize) throws IOException {
+        byte[] buffer = new byte[bufferSize];
+        long copied = 0;
+        try (InputStream in = fileSystem().open(file.getPath(), bufferSize)) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+                copied += read;
+            }
+        }
+        return copied;
     }
 
     public Configuration getConfiguration() {
-        String endpoint = fileName.getScheme() + "://" + fileName.getAuthority();
         Configuration config = new Configuration();
-        config.set("fs.defaultFS", endpoint);
-        config.set("fs.hdfs.impl", "org.apache.hadoop.hdfs.DistributedFileSystem");
+        if ("hdfs".equals(fileName.getScheme())) {
+            config.set("fs.defaultFS", fileName.getScheme() + "://" + fileName.getAuthority());
+            config.set("fs.hdfs.impl", "org.apache.hadoop.hdfs.DistributedFileSystem");
+        }
         return config;
     }
 
+    /**
+     * A service url with a scheme, e.g. "file://", is used as is, otherwise it is taken as an hdfs authority.
+     */
     private void constructURI(String serviceUrl, String dataPath) {
-        this.fileName = URI.create("hdfs://" + serviceUrl + "/" + dataPath);
+        if (serviceUrl.contains("://"))
+            this.fileName = URI.create(serviceUrl + "/" + dataPath);
+        else
+            this.fileName = URI.create("hdfs://" + serviceUrl + "/" + dataPath);
+    }
+
+    /**
+     * The client is created once and reused by every scan, until a failed call drops it.
+     */
+    private FileSystem fileSystem() throws IOException {
+        FileSystem current = fileSystem;
+        if (current != null) return current;
+        synchronized (this) {
+            if (fileSystem == null) {
+                logger.trace("Trying to connect with the file system at '{}'", fileName);
+                fileSystem = FileSystem.newInstance(fileName, getConfiguration());
+                logger.trace("Connected with file system at '{}'", fileName.getAuthority());
+            }
+            return fileSystem;
+        }
+    }
+
+    private synchronized void reset() {
+        if (fileSystem == null || providedFileSystem) return;
+        try {
+            fileSystem.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close file system client: {}", e.getMessage());
+        }
+        fileSystem = null;
     }
 
-    private void initHdfsClient() throws IOException {
-        logger.trace("Trying to connect with the hdfs server");
-        fileSystem = FileSystem.get(getConfiguration());
-        logger.trace("Connected with hdfs at '{}'", fileName.getAuthority());
+    @PreDestroy
+    public void destroy() {
+        reset();
     }
 
 }
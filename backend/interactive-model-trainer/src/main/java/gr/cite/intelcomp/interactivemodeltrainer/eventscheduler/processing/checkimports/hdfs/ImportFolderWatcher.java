@@ -0,0 +1,43 @@
+package gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.checkimports.hdfs;
+
+import org.apache.hadoop.fs.FileStatus;
+
+import java.util.*;
+
+/**
+ * Remembers the modification time of every import folder that was looked at and did not need to be looked at
+ * again, so that a scan only reads the folders that are new or changed since. A folder modification time changes
+ * whenever a file is added to or removed from it, e.g. when the _SUCCESS marker of a job appears. Works on any
+ * hadoop file system, including the local one.
+ */
+public class ImportFolderWatcher {
+
+    private final Map<String, Long> lastSeen = new HashMap<>();
+
+    /**
+     * Returns the folders that were not marked as seen with their current modification time, and forgets the
+     * folders that no longer exist. Only a complete listing may be passed in, a listing that failed has to be
+     * skipped so that the folders seen so far are kept.
+     */
+    public synchronized List<FileStatus> changed(List<FileStatus> folders) {
+        Set<String> present = new HashSet<>();
+        List<FileStatus> changed = new ArrayList<>();
+        for (FileStatus folder : folders) {
+            String name = folder.getPath().getName();
+            present.add(name);
+            Long modificationTime = lastSeen.get(name);
+            if (modificationTime == null || modificationTime != folder.getModificationTime()) changed.add(folder);
+        }
+        lastSeen.keySet().retainAll(present);
+        return changed;
+    }
+
+    public synchronized void seen(FileStatus folder) {
+        lastSeen.put(folder.getPath().getName(), folder.getModificationTime());
+    }
+
+    public synchronized void reset() {
+        lastSeen.clear();
+    }
+
+}
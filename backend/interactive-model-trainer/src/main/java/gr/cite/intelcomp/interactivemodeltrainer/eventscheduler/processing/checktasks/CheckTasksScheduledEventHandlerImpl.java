@@ -3,8 +3,9 @@ package gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.chec
 import com.fasterxml.jackson.core.JsonProcessingException;
 import gr.cite.intelcomp.interactivemodeltrainer.cache.CacheLibrary;
 import gr.cite.intelcomp.interactivemodeltrainer.cache.DomainModelCachedEntity;
+import gr.cite.intelcomp.interactivemodeltrainer.cache.RunningTaskRegistry;
+import gr.cite.intelcomp.interactivemodeltrainer.cache.TaskResultStore;
 import gr.cite.intelcomp.interactivemodeltrainer.cache.TopicModelCachedEntity;
-import gr.cite.intelcomp.interactivemodeltrainer.cache.UserTasksCacheEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.common.JsonHandlingService;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.JobStatus;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.ScheduledEventStatus;
@@ -17,6 +18,7 @@ import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.manage.Scheduled
 import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.EventProcessingStatus;
 import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.checktasks.config.CheckTasksSchedulerEventConfig;
 import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.preparehierarchicaltraining.PrepareHierarchicalTrainingEventData;
+import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.runtraining.TrainingAdmissionScheduler;
 import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskQueueItem;
 import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskResponse;
 import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskSubType;
@@ -36,11 +38,12 @@ import org.springframework.stereotype.Component;
 
 import jakarta.persistence.EntityManager;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties.DockerServiceConfiguration.TRAIN_DOMAIN_MODELS_SERVICE_NAME;
 import static gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties.DockerServiceConfiguration.TRAIN_TOPIC_MODELS_SERVICE_NAME;
@@ -56,18 +59,26 @@ public class CheckTasksScheduledEventHandlerImpl implements CheckTasksScheduledE
     private final TrainingTaskRequestService trainingTaskRequestService;
     private final DomainClassificationParametersService domainClassificationParametersService;
     private final CacheLibrary cacheLibrary;
+    private final RunningTaskRegistry runningTaskRegistry;
+    private final TaskResultStore taskResultStore;
+    private final JobCompletionWatcher jobCompletionWatcher;
+    private final TrainingAdmissionScheduler trainingAdmissionScheduler;
 
     public CheckTasksScheduledEventHandlerImpl(
             ApplicationContext applicationContext,
             CheckTasksSchedulerEventConfig config,
             JsonHandlingService jsonHandlingService,
-            TrainingTaskRequestService trainingTaskRequestService, DomainClassificationParametersService domainClassificationParametersService, CacheLibrary cacheLibrary) {
+            TrainingTaskRequestService trainingTaskRequestService, DomainClassificationParametersService domainClassificationParametersService, CacheLibrary cacheLibrary, RunningTaskRegistry runningTaskRegistry, TaskResultStore taskResultStore, JobCompletionWatcher jobCompletionWatcher, TrainingAdmissionScheduler trainingAdmissionScheduler) {
         this.applicationContext = applicationContext;
         this.config = config;
         this.jsonHandlingService = jsonHandlingService;
         this.trainingTaskRequestService = trainingTaskRequestService;
         this.domainClassificationParametersService = domainClassificationParametersService;
         this.cacheLibrary = cacheLibrary;
+        this.runningTaskRegistry = runningTaskRegistry;
+        this.taskResultStore = taskResultStore;
+        this.jobCompletionWatcher = jobCompletionWatcher;
+        this.trainingAdmissionScheduler = trainingAdmissionScheduler;
     }
 
     @Override
@@ -93,13 +104,19 @@ public class CheckTasksScheduledEventHandlerImpl implements CheckTasksScheduledE
             CheckTasksConsistencyHandler checkTasksConsistencyHandler = applicationContext.getBean(CheckTasksConsistencyHandler.class);
             Boolean isConsistent = (checkTasksConsistencyHandler.isConsistent(new CheckTasksConsistencyPredicates()));
             if (isConsistent) {
+                boolean poll = jobCompletionWatcher.startRound();
                 for (TrainingTaskRequestEntity request : runningTrainRequests) {
                     try {
-                        this.run(request, entityManager);
+                        this.run(request, poll, entityManager);
                     } catch (Exception e) {
                         this.omit(request, entityManager, e);
                     }
                 }
+                jobCompletionWatcher.retain(runningTrainRequests.stream().map(TrainingTaskRequestEntity::getJobId).collect(Collectors.toSet()));
+                trainingAdmissionScheduler.release(runningTrainRequests.stream()
+                        .filter(request -> request.getStatus() != TrainingTaskRequestStatus.PENDING)
+                        .map(TrainingTaskRequestEntity::getId)
+                        .toList());
                 removeOldCache();
                 status = EventProcessingStatus.Success;
             } else {
@@ -142,10 +159,12 @@ public class CheckTasksScheduledEventHandlerImpl implements CheckTasksScheduledE
         scheduledEventManageService.publishAsync(publishData, entityManager);
     }
 
-    private void run(TrainingTaskRequestEntity trainingTaskRequest, EntityManager entityManager) throws Exception {
+    private void run(TrainingTaskRequestEntity trainingTaskRequest, boolean poll, EntityManager entityManager) throws Exception {
         ContainerManagementService containerManagementService = applicationContext.getBean(ContainerManagementService.class);
-        JobStatus jobStatus = containerManagementService.getJobStatus(trainingTaskRequest.getJobId());
-        if (jobStatus == JobStatus.RUNNING) return;
+        // Unless polling, only the jobs reported as finished by the watch are looked at
+        JobStatus jobStatus = poll ? containerManagementService.getJobStatus(trainingTaskRequest.getJobId()) : jobCompletionWatcher.finishedStatus(trainingTaskRequest.getJobId());
+        if (jobStatus == null || jobStatus == JobStatus.RUNNING) return;
+        jobCompletionWatcher.forget(trainingTaskRequest.getJobId());
         if (jobStatus == JobStatus.FINISHED) {
             trainingTaskRequest.setStatus(TrainingTaskRequestStatus.COMPLETED);
             if (trainingTaskRequest.getConfig().split(",").length >= 2) {
@@ -204,15 +223,9 @@ public class CheckTasksScheduledEventHandlerImpl implements CheckTasksScheduledE
     }
 
     private void updateCache(UUID task) {
-        UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-        if (cache == null || cache.getPayload() == null) return;
-        Optional<RunningTaskQueueItem> itemOptional = cache.getPayload()
-                .stream()
-                .filter(i -> i.getTask().equals(task))
-                .findFirst();
-        if (itemOptional.isEmpty())
+        RunningTaskQueueItem item = runningTaskRegistry.get(task);
+        if (item == null)
             return;
-        RunningTaskQueueItem item = itemOptional.get();
 
         item.setFinished(true);
         item.setFinishedAt(Instant.now());
@@ -225,6 +238,7 @@ public class CheckTasksScheduledEventHandlerImpl implements CheckTasksScheduledE
         }
         if (modelName == null) {
             logger.error("Cannot extract label from running task object. Updating cache failed.");
+            runningTaskRegistry.updated(item);
             return;
         }
         if (RunningTaskSubType.RETRAIN_DOMAIN_MODEL == item.getSubType()) {
@@ -238,34 +252,32 @@ public class CheckTasksScheduledEventHandlerImpl implements CheckTasksScheduledE
         } else if (RunningTaskSubType.EVALUATE_DOMAIN_MODEL == item.getSubType()) {
             RunningTaskResponse response = new RunningTaskResponse();
             response.setLogs(domainClassificationParametersService.getLogs(modelName, DC_MODEL_EVALUATE_LOG_FILE_NAME));
-            response.setPuScores(domainClassificationParametersService.getPU_scores(modelName, modelDomain));
+            try {
+                response.setPuScores(taskResultStore.storeFiles(task, domainClassificationParametersService.getPU_scores(modelName, modelDomain)));
+            } catch (IOException e) {
+                logger.error("Could not store the PU scores of task {}", task, e);
+            }
             item.setResponse(response);
         } else if (RunningTaskSubType.SAMPLE_DOMAIN_MODEL == item.getSubType()) {
             RunningTaskResponse response = new RunningTaskResponse();
             response.setLogs(domainClassificationParametersService.getLogs(modelName, DC_MODEL_SAMPLE_LOG_FILE_NAME));
-            response.setDocuments(domainClassificationParametersService.getSampledDocuments(modelName, modelDomain));
+            try {
+                response.setDocumentCount(taskResultStore.storeDocuments(task, domainClassificationParametersService.getSampledDocuments(modelName, modelDomain)));
+            } catch (IOException e) {
+                logger.error("Could not store the sampled documents of task {}", task, e);
+            }
             item.setResponse(response);
         } else if (RunningTaskSubType.GIVE_FEEDBACK_DOMAIN_MODEL == item.getSubType()) {
             RunningTaskResponse response = new RunningTaskResponse();
             response.setLogs(domainClassificationParametersService.getLogs(modelName, DC_MODEL_FEEDBACK_LOG_FILE_NAME));
             item.setResponse(response);
         }
+        runningTaskRegistry.updated(item);
     }
 
     private void removeOldCache() {
-        UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-        if (cache != null && cache.getPayload() != null) {
-            List<RunningTaskQueueItem> finishedItems = cache.getPayload()
-                    .stream()
-                    .filter(i -> i.isFinished() && i.getType() == RunningTaskType.curating)
-                    .toList();
-            for (RunningTaskQueueItem item : finishedItems) {
-                boolean isOld = item.getFinishedAt().isBefore(
-                        Instant.now().minus(config.get().getCacheOptions().getTaskResponseCacheRetentionInHours(), ChronoUnit.HOURS)
-                );
-                if (isOld)
-                    cache.getPayload().remove(item);
-            }
-        }
+        Instant cutoff = Instant.now().minus(config.get().getCacheOptions().getTaskResponseCacheRetentionInHours(), ChronoUnit.HOURS);
+        int removed = runningTaskRegistry.expire(RunningTaskType.curating, cutoff);
+        if (removed > 0) logger.debug("Removed {} expired curating task responses", removed);
     }
 }
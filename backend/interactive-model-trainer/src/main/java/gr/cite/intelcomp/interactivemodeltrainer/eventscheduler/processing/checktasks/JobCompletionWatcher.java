@@ -0,0 +1,173 @@
+package gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.checktasks;
+
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.JobStatus;
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.ScheduledEventStatus;
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.ScheduledEventType;
+import gr.cite.intelcomp.interactivemodeltrainer.data.ScheduledEventEntity;
+import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.task.EventSchedulerTask;
+import gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.ContainerManagementService;
+import gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.JobStatusListener;
+import gr.cite.tools.logging.LoggerService;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the final statuses of jobs as reported by the watch of the {@link ContainerManagementService}, so that
+ * checking the running tasks does not ask the container platform about every pending job on every round. When a
+ * job finishes, the pending check of the running tasks is made due and the event scheduler is woken up, so the
+ * task is completed right away instead of on the next check interval.
+ * <p>
+ * While the watch is down, and for the first round after it (re)connects, the statuses reported here cannot be
+ * trusted and the jobs are polled as before.
+ */
+@Component
+@Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class JobCompletionWatcher implements JobStatusListener {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(JobCompletionWatcher.class));
+
+    // Statuses of jobs not known as pending are kept for a while, as the job may be reported before its request is committed
+    private static final Duration UNCLAIMED_RETENTION = Duration.ofMinutes(5);
+
+    private record Reported(JobStatus status, Instant at) {
+    }
+
+    private final ApplicationContext applicationContext;
+    private final Map<String, Reported> finished = new ConcurrentHashMap<>();
+    private final AtomicBoolean checkRequested = new AtomicBoolean();
+    private final ExecutorService checker;
+    private volatile boolean live;
+    private volatile boolean resyncRequired = true;
+
+    public JobCompletionWatcher(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+        this.checker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-completion-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        ContainerManagementService containerManagementService = applicationContext.getBeanProvider(ContainerManagementService.class).getIfAvailable();
+        if (containerManagementService == null) return;
+        containerManagementService.watchJobs(this);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        checker.shutdownNow();
+    }
+
+    @Override
+    public void onJobStatus(String jobId, JobStatus status) {
+        if (jobId == null || status == null || JobStatus.checkIfStatusIsActive(status)) return;
+        finished.put(jobId, new Reported(status, Instant.now()));
+        this.checkNow();
+    }
+
+    @Override
+    public void onWatchStarted() {
+        resyncRequired = true;
+        live = true;
+        this.checkNow();
+    }
+
+    @Override
+    public void onWatchLost() {
+        live = false;
+    }
+
+    /**
+     * Starts a round of checks and tells whether its jobs have to be polled. Once a round has polled every pending
+     * job with the watch connected, the following rounds rely on the reported statuses only.
+     */
+    public boolean startRound() {
+        if (!live) return true;
+        if (resyncRequired) {
+            resyncRequired = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The final status reported for the job, or null while it is still running.
+     */
+    public JobStatus finishedStatus(String jobId) {
+        Reported reported = finished.get(jobId);
+        return reported == null ? null : reported.status();
+    }
+
+    /**
+     * Drops the statuses of jobs that are neither pending nor recently reported, such as service containers.
+     */
+    public void retain(Set<String> pendingJobs) {
+        Instant cutoff = Instant.now().minus(UNCLAIMED_RETENTION);
+        finished.entrySet().removeIf(entry -> !pendingJobs.contains(entry.getKey()) && entry.getValue().at().isBefore(cutoff));
+    }
+
+    public void forget(String jobId) {
+        if (jobId != null) finished.remove(jobId);
+    }
+
+    private void checkNow() {
+        if (!checkRequested.compareAndSet(false, true)) return;
+        try {
+            checker.execute(() -> {
+                checkRequested.set(false);
+                this.makeCheckDue();
+                applicationContext.getBeanProvider(EventSchedulerTask.class).ifAvailable(EventSchedulerTask::wakeUp);
+            });
+        } catch (RejectedExecutionException e) {
+            checkRequested.set(false);
+        }
+    }
+
+    private void makeCheckDue() {
+        EntityManager entityManager = applicationContext.getBean(EntityManagerFactory.class).createEntityManager();
+        EntityTransaction transaction = entityManager.getTransaction();
+        try {
+            transaction.begin();
+            Instant now = Instant.now();
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaUpdate<ScheduledEventEntity> update = criteriaBuilder.createCriteriaUpdate(ScheduledEventEntity.class);
+            Root<ScheduledEventEntity> root = update.from(ScheduledEventEntity.class);
+            update.set(root.<Instant>get(ScheduledEventEntity._runAt), now)
+                    .where(criteriaBuilder.equal(root.get(ScheduledEventEntity._eventType), ScheduledEventType.CHECK_RUNNING_TASKS),
+                            criteriaBuilder.equal(root.get(ScheduledEventEntity._status), ScheduledEventStatus.PENDING),
+                            criteriaBuilder.greaterThan(root.get(ScheduledEventEntity._runAt), now));
+            entityManager.createQuery(update).executeUpdate();
+            transaction.commit();
+        } catch (RuntimeException e) {
+            logger.warn("Could not bring the running tasks check forward: {}", e.getMessage());
+            if (transaction.isActive()) transaction.rollback();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+}
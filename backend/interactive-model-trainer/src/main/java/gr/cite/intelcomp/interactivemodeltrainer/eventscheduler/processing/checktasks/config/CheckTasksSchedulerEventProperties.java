@@ -27,10 +27,12 @@ public class CheckTasksSchedulerEventProperties {
 
         private final Integer taskResponseCacheRetentionInHours;
         private final Integer validPeriodInSeconds;
+        private final Integer reconciliationPeriodInSeconds;
 
-        public CacheOptions(Integer taskResponseCacheRetentionInHours, Integer validPeriodInSeconds) {
+        public CacheOptions(Integer taskResponseCacheRetentionInHours, Integer validPeriodInSeconds, Integer reconciliationPeriodInSeconds) {
             this.taskResponseCacheRetentionInHours = taskResponseCacheRetentionInHours;
             this.validPeriodInSeconds = validPeriodInSeconds;
+            this.reconciliationPeriodInSeconds = reconciliationPeriodInSeconds;
         }
 
         public Integer getTaskResponseCacheRetentionInHours() {
@@ -41,6 +43,11 @@ public class CheckTasksSchedulerEventProperties {
             return validPeriodInSeconds;
         }
 
+        public Integer getReconciliationPeriodInSeconds() {
+            if (reconciliationPeriodInSeconds == null) return validPeriodInSeconds;
+            return reconciliationPeriodInSeconds;
+        }
+
     }
 
 }
@@ -9,6 +9,7 @@ import gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServices
 import gr.cite.intelcomp.interactivemodeltrainer.data.ScheduledEventEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.data.TrainingTaskRequestEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.EventProcessingStatus;
+import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.runtraining.TrainingAdmissionScheduler;
 import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.runtraining.config.RunTrainingSchedulerEventConfig;
 import gr.cite.intelcomp.interactivemodeltrainer.model.persist.domainclassification.DomainClassificationRequestPersist;
 import gr.cite.intelcomp.interactivemodeltrainer.query.TrainingTaskRequestQuery;
@@ -31,7 +32,6 @@ import java.time.Instant;
 import java.util.*;
 
 import static gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties.DockerServiceConfiguration.TRAIN_DOMAIN_MODELS_SERVICE_NAME;
-import static gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties.DockerServiceConfiguration.TRAIN_TOPIC_MODELS_SERVICE_NAME;
 import static gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties.ManageDomainModels.InnerPaths.*;
 
 @Component
@@ -44,12 +44,14 @@ public class RunDomainTrainingScheduledEventHandlerImpl implements RunDomainTrai
     private final RunTrainingSchedulerEventConfig config;
 
     private final ContainerServicesProperties containerServicesProperties;
+    private final TrainingAdmissionScheduler trainingAdmissionScheduler;
 
-    public RunDomainTrainingScheduledEventHandlerImpl(JsonHandlingService jsonHandlingService, ApplicationContext applicationContext, RunTrainingSchedulerEventConfig config, ContainerServicesProperties containerServicesProperties) {
+    public RunDomainTrainingScheduledEventHandlerImpl(JsonHandlingService jsonHandlingService, ApplicationContext applicationContext, RunTrainingSchedulerEventConfig config, ContainerServicesProperties containerServicesProperties, TrainingAdmissionScheduler trainingAdmissionScheduler) {
         this.jsonHandlingService = jsonHandlingService;
         this.applicationContext = applicationContext;
         this.config = config;
         this.containerServicesProperties = containerServicesProperties;
+        this.trainingAdmissionScheduler = trainingAdmissionScheduler;
     }
 
     @Override
@@ -77,20 +79,15 @@ public class RunDomainTrainingScheduledEventHandlerImpl implements RunDomainTrai
             Boolean isConsistent = runDomainTrainingConsistencyHandler.isConsistent(new RunDomainTrainingConsistencyPredicates());
             if (isConsistent) {
                 TrainingTaskRequestQuery trainingTaskRequestQuery = applicationContext.getBean(TrainingTaskRequestQuery.class);
-                Long runningTasks = trainingTaskRequestQuery
-                        .status(TrainingTaskRequestStatus.PENDING)
-                        .jobName(TRAIN_TOPIC_MODELS_SERVICE_NAME, TRAIN_DOMAIN_MODELS_SERVICE_NAME)
-                        .count();
-                if (runningTasks >= config.get().getParallelTrainingsThreshold()) {
-                    logger.debug("Currently running tasks have reached the limit ({}), postponing train task to run again in {} seconds...", config.get().getParallelTrainingsThreshold(), config.get().getPostponePeriodInSeconds());
-                    scheduledEvent.setRunAt(Instant.now().plusSeconds(config.get().getPostponePeriodInSeconds()));
-                    status = EventProcessingStatus.Postponed;
-                }
-
                 TrainingTaskRequestEntity trainingTaskRequest = trainingTaskRequestQuery
                         .status(TrainingTaskRequestStatus.NEW)
                         .jobName(TRAIN_DOMAIN_MODELS_SERVICE_NAME)
                         .ids(trainingTaskRequestId).first();
+                if (trainingTaskRequest != null && !trainingAdmissionScheduler.admit(scheduledEvent, trainingTaskRequest)) {
+                    logger.debug("Not enough capacity to run train task, postponing it to run again in at most {} seconds...", config.get().getPostponePeriodInSeconds());
+                    scheduledEvent.setRunAt(Instant.now().plusSeconds(config.get().getPostponePeriodInSeconds()));
+                    status = EventProcessingStatus.Postponed;
+                }
                 try {
                     if (EventProcessingStatus.Postponed != status) {
                         if (scheduledEvent.getEventType() == ScheduledEventType.RUN_ROOT_DOMAIN_TRAINING)
@@ -110,6 +107,7 @@ public class RunDomainTrainingScheduledEventHandlerImpl implements RunDomainTrai
                     }
                 } catch (Exception e) {
                     status = EventProcessingStatus.Error;
+                    trainingAdmissionScheduler.abandon(trainingTaskRequestId);
                     logger.error(e);
                 }
             } else {
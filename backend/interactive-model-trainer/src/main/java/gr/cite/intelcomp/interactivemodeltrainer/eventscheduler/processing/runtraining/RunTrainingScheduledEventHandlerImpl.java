@@ -51,12 +51,15 @@ public class RunTrainingScheduledEventHandlerImpl implements RunTrainingSchedule
 
     private final DockerService dockerService;
 
+    private final TrainingAdmissionScheduler trainingAdmissionScheduler;
+
     @Autowired
-    public RunTrainingScheduledEventHandlerImpl(JsonHandlingService jsonHandlingService, ApplicationContext applicationContext, RunTrainingSchedulerEventConfig config, DockerService dockerService) {
+    public RunTrainingScheduledEventHandlerImpl(JsonHandlingService jsonHandlingService, ApplicationContext applicationContext, RunTrainingSchedulerEventConfig config, DockerService dockerService, TrainingAdmissionScheduler trainingAdmissionScheduler) {
         this.jsonHandlingService = jsonHandlingService;
         this.applicationContext = applicationContext;
         this.config = config;
         this.dockerService = dockerService;
+        this.trainingAdmissionScheduler = trainingAdmissionScheduler;
     }
 
     @Override
@@ -85,20 +88,15 @@ public class RunTrainingScheduledEventHandlerImpl implements RunTrainingSchedule
             Boolean isConsistent = runTrainingConsistencyHandler.isConsistent(new RunTrainingConsistencyPredicates(trainingTaskRequestId));
             if (isConsistent) {
                 TrainingTaskRequestQuery trainingTaskRequestQuery = applicationContext.getBean(TrainingTaskRequestQuery.class);
-                Long runningTasks = trainingTaskRequestQuery
-                        .status(TrainingTaskRequestStatus.PENDING)
-                        .jobName(TRAIN_TOPIC_MODELS_SERVICE_NAME, TRAIN_DOMAIN_MODELS_SERVICE_NAME)
-                        .count();
-                if (runningTasks >= config.get().getParallelTrainingsThreshold()) {
-                    logger.debug("Currently running tasks have reached the limit ({}), postponing train task to run again in {} seconds...", config.get().getParallelTrainingsThreshold(), config.get().getPostponePeriodInSeconds());
-                    scheduledEvent.setRunAt(Instant.now().plusSeconds(config.get().getPostponePeriodInSeconds()));
-                    status = EventProcessingStatus.Postponed;
-                }
-
                 TrainingTaskRequestEntity trainingTaskRequest = trainingTaskRequestQuery
                         .status(TrainingTaskRequestStatus.NEW)
                         .jobName(TRAIN_TOPIC_MODELS_SERVICE_NAME)
                         .ids(trainingTaskRequestId).first();
+                if (trainingTaskRequest != null && !trainingAdmissionScheduler.admit(scheduledEvent, trainingTaskRequest)) {
+                    logger.debug("Not enough capacity to run train task, postponing it to run again in at most {} seconds...", config.get().getPostponePeriodInSeconds());
+                    scheduledEvent.setRunAt(Instant.now().plusSeconds(config.get().getPostponePeriodInSeconds()));
+                    status = EventProcessingStatus.Postponed;
+                }
                 try {
                     if (!EventProcessingStatus.Postponed.equals(status)) {
                         if (scheduledEvent.getEventType() == ScheduledEventType.RUN_ROOT_TOPIC_TRAINING)
@@ -122,6 +120,7 @@ public class RunTrainingScheduledEventHandlerImpl implements RunTrainingSchedule
                     }
                 } catch (Exception e) {
                     status = EventProcessingStatus.Error;
+                    trainingAdmissionScheduler.abandon(trainingTaskRequestId);
                     logger.error(e.getLocalizedMessage());
                 }
             } else {
@@ -0,0 +1,345 @@
+package gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.runtraining;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.ScheduledEventStatus;
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.TrainingTaskRequestStatus;
+import gr.cite.intelcomp.interactivemodeltrainer.data.ScheduledEventEntity;
+import gr.cite.intelcomp.interactivemodeltrainer.data.TrainingTaskRequestEntity;
+import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.runtraining.config.RunTrainingSchedulerEventConfig;
+import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.runtraining.config.RunTrainingSchedulerEventProperties;
+import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.task.EventSchedulerTask;
+import gr.cite.intelcomp.interactivemodeltrainer.query.TrainingTaskRequestQuery;
+import gr.cite.tools.logging.LoggerService;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import static gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties.DockerServiceConfiguration.TRAIN_DOMAIN_MODELS_SERVICE_NAME;
+import static gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties.DockerServiceConfiguration.TRAIN_TOPIC_MODELS_SERVICE_NAME;
+
+/**
+ * Decides which training requests may start, based on the CPU and memory they declare against the budget of the
+ * node and on the number of parallel trainings. Requests that cannot start yet wait in a queue ordered by priority,
+ * then by the dominant share of the budget their user already holds, then by the time they started waiting. The
+ * head of the queue is never overtaken by a request that happens to fit, so large trainings are not starved.
+ * <p>
+ * The running trainings are read from the database on every decision, so the budget stays right across restarts
+ * and replicas. The listing is read before the decision takes the monitor, and read again when an admission or
+ * release happened meanwhile, so that one decision waiting on the database does not hold up the others. When
+ * trainings end, or an admitted one fails to start, the scheduled events of the requests that now fit are made due
+ * and the event scheduler is woken up, instead of waiting for their postpone period to pass. The postpone period
+ * is still applied and acts as a fallback, for instance for requests queued on another replica.
+ */
+@Component
+@Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class TrainingAdmissionScheduler {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(TrainingAdmissionScheduler.class));
+
+    private static final List<String> TRAINING_JOBS = List.of(TRAIN_TOPIC_MODELS_SERVICE_NAME, TRAIN_DOMAIN_MODELS_SERVICE_NAME);
+
+    // Admitted or released requests are counted from memory until the change is committed and visible in the database
+    private static final Duration SETTLE_RETENTION = Duration.ofMinutes(5);
+
+    // After that many listings overtaken by other decisions, the last one is used anyway, it can only be conservative
+    private static final int MAX_LISTING_ATTEMPTS = 3;
+
+    public record Demand(double cpu, long memoryInMB, int priority) {
+    }
+
+    private record Holder(UUID userId, Demand demand, Instant at) {
+    }
+
+    private static final class Waiting {
+        private final UUID request;
+        private final UUID userId;
+        private final Demand demand;
+        private final Instant enqueuedAt;
+        private UUID event;
+        private Instant seenAt;
+
+        private Waiting(UUID request, UUID userId, Demand demand, Instant enqueuedAt) {
+            this.request = request;
+            this.userId = userId;
+            this.demand = demand;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private final ApplicationContext applicationContext;
+    private final RunTrainingSchedulerEventConfig config;
+    private final ObjectMapper mapper;
+    private final Map<UUID, Waiting> waiting = new LinkedHashMap<>();
+    private final Map<UUID, Holder> admitted = new HashMap<>();
+    private final Map<UUID, Instant> released = new HashMap<>();
+    private final Map<UUID, Demand> demands = new ConcurrentHashMap<>();
+    private final ExecutorService waker;
+    // Bumped under the monitor whenever the admitted or released requests change
+    private volatile long version;
+
+    public TrainingAdmissionScheduler(ApplicationContext applicationContext, RunTrainingSchedulerEventConfig config, ObjectMapper mapper) {
+        this.applicationContext = applicationContext;
+        this.config = config;
+        this.mapper = mapper;
+        this.waker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "training-admission");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        waker.shutdownNow();
+    }
+
+    /**
+     * Tells whether the training request of the given event may start now. A request that may not is queued, and
+     * stays queued for as long as its event keeps being postponed.
+     */
+    public boolean admit(ScheduledEventEntity scheduledEvent, TrainingTaskRequestEntity request) {
+        this.demand(request);
+        return this.decide(pending -> {
+            Instant now = Instant.now();
+            Instant stale = now.minusSeconds(3 * config.get().getPostponePeriodInSeconds());
+            waiting.values().removeIf(entry -> entry.seenAt.isBefore(stale) && !entry.request.equals(request.getId()));
+
+            Waiting entry = waiting.computeIfAbsent(request.getId(), id -> new Waiting(id, request.getCreatorId(), this.demand(request), now));
+            entry.event = scheduledEvent.getId();
+            entry.seenAt = now;
+
+            List<Waiting> planned = this.plan(this.running(pending));
+            boolean admit = planned.remove(entry);
+            if (admit) {
+                waiting.remove(entry.request);
+                admitted.put(entry.request, new Holder(entry.userId, entry.demand, now));
+                version++;
+                logger.debug("Admitted training request {} after waiting {} seconds", entry.request, Duration.between(entry.enqueuedAt, now).toSeconds());
+            } else {
+                logger.debug("Training request {} waits for capacity, {} requests queued", entry.request, waiting.size());
+            }
+            this.wake(planned);
+            return admit;
+        });
+    }
+
+    /**
+     * Hands back the capacity of an admitted request whose training could not be started.
+     */
+    public void abandon(UUID request) {
+        synchronized (this) {
+            if (admitted.remove(request) == null) return;
+            version++;
+            if (waiting.isEmpty()) return;
+        }
+        this.replan();
+    }
+
+    /**
+     * Hands back the capacity of trainings that ended, ahead of the commit that moves their requests out of the
+     * pending state.
+     */
+    public void release(Collection<UUID> requests) {
+        if (requests.isEmpty()) return;
+        synchronized (this) {
+            Instant now = Instant.now();
+            for (UUID request : requests) released.put(request, now);
+            version++;
+            if (waiting.isEmpty()) return;
+        }
+        this.replan();
+    }
+
+    private void replan() {
+        this.decide(pending -> {
+            if (!waiting.isEmpty()) this.wake(this.plan(this.running(pending)));
+            return null;
+        });
+    }
+
+    /**
+     * Runs the decision under the monitor over a listing of the pending trainings read before taking it. When the
+     * admitted or released requests changed while the listing was read, it is read again.
+     */
+    private <T> T decide(Function<List<TrainingTaskRequestEntity>, T> decision) {
+        for (int attempt = 1; ; attempt++) {
+            long seen = version;
+            List<TrainingTaskRequestEntity> pending = this.pending();
+            synchronized (this) {
+                if (seen == version || attempt >= MAX_LISTING_ATTEMPTS) return decision.apply(pending);
+            }
+        }
+    }
+
+    private List<TrainingTaskRequestEntity> pending() {
+        List<TrainingTaskRequestEntity> pending = applicationContext.getBean(TrainingTaskRequestQuery.class)
+                .status(TrainingTaskRequestStatus.PENDING)
+                .jobName(TRAINING_JOBS)
+                .collect();
+        // Resolved here as well, since it may read the training configuration file
+        pending.forEach(this::demand);
+        return pending;
+    }
+
+    private Map<UUID, Holder> running(List<TrainingTaskRequestEntity> pending) {
+        Instant now = Instant.now();
+        Instant cutoff = now.minus(SETTLE_RETENTION);
+
+        Map<UUID, Holder> running = new HashMap<>();
+        Set<UUID> pendingIds = new HashSet<>();
+        for (TrainingTaskRequestEntity request : pending) {
+            pendingIds.add(request.getId());
+            admitted.remove(request.getId());
+            if (released.containsKey(request.getId())) continue;
+            running.put(request.getId(), new Holder(request.getCreatorId(), this.demand(request), now));
+        }
+        released.entrySet().removeIf(entry -> !pendingIds.contains(entry.getKey()) || entry.getValue().isBefore(cutoff));
+        admitted.values().removeIf(holder -> holder.at().isBefore(cutoff));
+        running.putAll(admitted);
+
+        demands.keySet().removeIf(request -> !running.containsKey(request) && !waiting.containsKey(request));
+        return running;
+    }
+
+    /**
+     * The queued requests that fit in the capacity left by the running ones, in the order they would be admitted.
+     * The shares of the users are updated as requests are planned, so one user's batch does not take all the
+     * capacity that frees up at once.
+     */
+    private List<Waiting> plan(Map<UUID, Holder> running) {
+        RunTrainingSchedulerEventProperties.Admission admission = config.get().getAdmission();
+        Long threshold = config.get().getParallelTrainingsThreshold();
+        Double cpuBudget = admission == null ? null : admission.getCpuBudget();
+        Long memoryBudget = admission == null ? null : admission.getMemoryBudgetInMB();
+
+        double cpu = 0;
+        long memory = 0;
+        int count = running.size();
+        Map<UUID, Double> shares = new HashMap<>();
+        for (Holder holder : running.values()) {
+            cpu += holder.demand().cpu();
+            memory += holder.demand().memoryInMB();
+            shares.merge(holder.userId(), this.share(holder.demand(), cpuBudget, memoryBudget), Double::sum);
+        }
+
+        List<Waiting> remaining = new ArrayList<>(waiting.values());
+        List<Waiting> planned = new ArrayList<>();
+        while (!remaining.isEmpty()) {
+            Comparator<Waiting> order = Comparator.<Waiting>comparingInt(entry -> -entry.demand.priority())
+                    .thenComparingDouble(entry -> shares.getOrDefault(entry.userId, 0d))
+                    .thenComparing(entry -> entry.enqueuedAt);
+            Waiting next = Collections.min(remaining, order);
+            // A request larger than the whole budget may still run alone
+            boolean fits = (threshold == null || count < threshold) && (count == 0 ||
+                    (cpuBudget == null || cpu + next.demand.cpu() <= cpuBudget) && (memoryBudget == null || memory + next.demand.memoryInMB() <= memoryBudget));
+            if (!fits) break;
+            remaining.remove(next);
+            planned.add(next);
+            cpu += next.demand.cpu();
+            memory += next.demand.memoryInMB();
+            count++;
+            shares.merge(next.userId, this.share(next.demand, cpuBudget, memoryBudget), Double::sum);
+        }
+        return planned;
+    }
+
+    private double share(Demand demand, Double cpuBudget, Long memoryBudget) {
+        if ((cpuBudget == null || cpuBudget <= 0) && (memoryBudget == null || memoryBudget <= 0)) return 1;
+        double share = 0;
+        if (cpuBudget != null && cpuBudget > 0) share = Math.max(share, demand.cpu() / cpuBudget);
+        if (memoryBudget != null && memoryBudget > 0) share = Math.max(share, (double) demand.memoryInMB() / memoryBudget);
+        return share;
+    }
+
+    private Demand demand(TrainingTaskRequestEntity request) {
+        return demands.computeIfAbsent(request.getId(), id -> {
+            RunTrainingSchedulerEventProperties.Admission admission = config.get().getAdmission();
+            RunTrainingSchedulerEventProperties.JobResources resources = admission == null ? null : admission.getJobs().get(request.getJobName());
+            if (resources == null) resources = new RunTrainingSchedulerEventProperties.JobResources(null, null, null);
+            double cpu = resources.getCpu();
+            if (TRAIN_TOPIC_MODELS_SERVICE_NAME.equals(request.getJobName())) {
+                Integer threads = this.malletThreads(request.getConfig());
+                if (threads != null && threads > 0) cpu = threads;
+            }
+            return new Demand(cpu, resources.getMemoryInMB(), resources.getPriority());
+        });
+    }
+
+    /**
+     * The number of threads a topic training is configured with, read from its configuration file. Hierarchical
+     * preparations keep the configurations of both the parent and the child, the child being the last one.
+     */
+    private Integer malletThreads(String trainingConfig) {
+        if (trainingConfig == null || trainingConfig.isBlank()) return null;
+        String[] configs = trainingConfig.split(",");
+        try {
+            Path file = Path.of(configs[configs.length - 1].trim());
+            if (!Files.isRegularFile(file)) return null;
+            JsonNode threads = mapper.readTree(file.toFile()).path("TMparam").path("num_threads");
+            return threads.isNumber() ? threads.asInt() : null;
+        } catch (IOException | InvalidPathException e) {
+            logger.debug("Could not read the threads of training configuration {}: {}", trainingConfig, e.getMessage());
+            return null;
+        }
+    }
+
+    private void wake(List<Waiting> planned) {
+        if (planned.isEmpty()) return;
+        List<UUID> events = planned.stream().map(entry -> entry.event).filter(Objects::nonNull).toList();
+        try {
+            waker.execute(() -> {
+                this.makeDue(events);
+                applicationContext.getBeanProvider(EventSchedulerTask.class).ifAvailable(EventSchedulerTask::wakeUp);
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Training admission is closed, queued requests wait for their postpone period");
+        }
+    }
+
+    private void makeDue(List<UUID> events) {
+        EntityManager entityManager = applicationContext.getBean(EntityManagerFactory.class).createEntityManager();
+        EntityTransaction transaction = entityManager.getTransaction();
+        try {
+            transaction.begin();
+            Instant now = Instant.now();
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaUpdate<ScheduledEventEntity> update = criteriaBuilder.createCriteriaUpdate(ScheduledEventEntity.class);
+            Root<ScheduledEventEntity> root = update.from(ScheduledEventEntity.class);
+            update.set(root.<Instant>get(ScheduledEventEntity._runAt), now)
+                    .where(root.get(ScheduledEventEntity._id).in(events),
+                            criteriaBuilder.equal(root.get(ScheduledEventEntity._status), ScheduledEventStatus.PENDING),
+                            criteriaBuilder.greaterThan(root.get(ScheduledEventEntity._runAt), now));
+            entityManager.createQuery(update).executeUpdate();
+            transaction.commit();
+        } catch (RuntimeException e) {
+            logger.warn("Could not bring the queued trainings forward: {}", e.getMessage());
+            if (transaction.isActive()) transaction.rollback();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+}
@@ -3,16 +3,20 @@ package gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.runt
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.bind.ConstructorBinding;
 
+import java.util.Map;
+
 @ConfigurationProperties(prefix = "event-scheduler.events.run-training")
 public class RunTrainingSchedulerEventProperties {
 
     private final Long parallelTrainingsThreshold;
     private final Long postponePeriodInSeconds;
+    private final Admission admission;
 
     @ConstructorBinding
-    public RunTrainingSchedulerEventProperties(Long parallelTrainingsThreshold, Long postponePeriodInSeconds) {
+    public RunTrainingSchedulerEventProperties(Long parallelTrainingsThreshold, Long postponePeriodInSeconds, Admission admission) {
         this.parallelTrainingsThreshold = parallelTrainingsThreshold;
         this.postponePeriodInSeconds = postponePeriodInSeconds;
+        this.admission = admission;
     }
 
     public Long getParallelTrainingsThreshold() {
@@ -22,4 +26,65 @@ public class RunTrainingSchedulerEventProperties {
     public Long getPostponePeriodInSeconds() {
         return postponePeriodInSeconds;
     }
+
+    public Admission getAdmission() {
+        return admission;
+    }
+
+    public static class Admission {
+
+        private final Double cpuBudget;
+        private final Long memoryBudgetInMB;
+        private final Map<String, JobResources> jobs;
+
+        public Admission(Double cpuBudget, Long memoryBudgetInMB, Map<String, JobResources> jobs) {
+            this.cpuBudget = cpuBudget;
+            this.memoryBudgetInMB = memoryBudgetInMB;
+            this.jobs = jobs;
+        }
+
+        public Double getCpuBudget() {
+            return cpuBudget;
+        }
+
+        public Long getMemoryBudgetInMB() {
+            return memoryBudgetInMB;
+        }
+
+        public Map<String, JobResources> getJobs() {
+            if (jobs == null) return Map.of();
+            return jobs;
+        }
+
+    }
+
+    public static class JobResources {
+
+        private final Double cpu;
+        private final Long memoryInMB;
+        private final Integer priority;
+
+        public JobResources(Double cpu, Long memoryInMB, Integer priority) {
+            this.cpu = cpu;
+            this.memoryInMB = memoryInMB;
+            this.priority = priority;
+        }
+
+        public Double getCpu() {
+            if (cpu == null) return 1d;
+            return cpu;
+        }
+
+        public Long getMemoryInMB() {
+            if (memoryInMB == null) return 0L;
+            return memoryInMB;
+        }
+
+        public Integer getPriority() {
+            if (priority == null) return 0;
+            return priority;
+        }
+
+    }
+
 }
@@ -11,63 +11,123 @@ import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.check
 import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.rundomaintraining.RunDomainTrainingScheduledEventHandler;
 import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.runtraining.RunTrainingScheduledEventHandler;
 import gr.cite.intelcomp.interactivemodeltrainer.query.ScheduledEventQuery;
-import gr.cite.tools.data.query.Ordering;
 import gr.cite.tools.logging.LoggerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 
 import java.security.SecureRandom;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Polls the scheduled_event table and hands due events to a pool of workers. Every poll claims a batch of due
+ * events in one transaction, locking the rows with SKIP LOCKED and moving them to PROCESSING before commit, so
+ * that the workers of this instance and the schedulers of other replicas never pick up the same event. At most
+ * as many events as there are idle workers are claimed, the rest stay pending for the next poll or for another
+ * replica.
+ * <p>
+ * The claim time is kept in updated_at. A worker locks its event while handling it, and an event whose handling
+ * fails is put back to ERROR. Claims that are never handled, e.g. because this replica stopped, are given back
+ * by the maintenance task once the processing lease expires.
+ */
 public class EventSchedulerTask {
     private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(EventSchedulerTask.class));
 
+    /**
+     * Hibernate lock timeout value that renders SELECT ... FOR UPDATE SKIP LOCKED.
+     */
+    public static final int SKIP_LOCKED = -2;
+
+    /**
+     * The states of events waiting to be run, which is what the candidate query and the partial index
+     * scheduled_event_candidates_idx are restricted to.
+     */
+    public static final List<ScheduledEventStatus> CANDIDATE_STATUSES = List.of(ScheduledEventStatus.PENDING, ScheduledEventStatus.ERROR, ScheduledEventStatus.PARKED);
+
     private final ApplicationContext applicationContext;
     private final EventSchedulerProperties properties;
+    private final Semaphore idleWorkers;
+    private final ExecutorService workers;
+    private final Timer candidatesTimer;
+    private ScheduledExecutorService scheduler;
 
     public EventSchedulerTask(ApplicationContext applicationContext, EventSchedulerProperties properties) {
         this.applicationContext = applicationContext;
         this.properties = properties;
+        int workerCount = properties.getTask().getProcessor().getWorkers();
+        this.idleWorkers = new Semaphore(workerCount);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "scheduled-event-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.candidatesTimer = Timer.builder("scheduled.event.candidates.duration")
+                .description("Time to claim a batch of due scheduled events")
+                .register(applicationContext.getBean(MeterRegistry.class));
         long intervalSeconds = properties.getTask().getProcessor().getIntervalSeconds();
         if (properties.getTask().getProcessor().getEnable() && intervalSeconds > 0) {
-            logger.info("Task '{}' will be scheduled to run every {} seconds", properties.getTask().getName(), intervalSeconds);
+            logger.info("Task '{}' will be scheduled to run every {} seconds on {} workers", properties.getTask().getName(), intervalSeconds, workerCount);
 
-            ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+            scheduler = Executors.newScheduledThreadPool(1);
             //GK: Fixed rate is heavily unpredictable, and it will not scale well on a very heavy workload
             scheduler.scheduleWithFixedDelay(this::process, 10, intervalSeconds, TimeUnit.SECONDS);
         }
     }
 
+    /**
+     * Runs a poll right away, queued behind the one in progress, for events that were just made due.
+     */
+    public void wakeUp() {
+        if (scheduler != null) scheduler.execute(this::process);
+    }
+
     public void process() {
         logger.trace("Scheduled task running");
         EntityManagerFactory entityManagerFactory = applicationContext.getBean(EntityManagerFactory.class);
         EntityManager entityManager = entityManagerFactory.createEntityManager();
 
-        try (FakeRequestScope ignored = new FakeRequestScope()) {
+        try {
             Instant lastCandidateCreationTimestamp = null;
             while (true) {
-                CandidateInfo candidateInfo = this.candidateEventToRun(lastCandidateCreationTimestamp, entityManager);
-                if (candidateInfo == null) break;
+                // Only the scheduler thread acquires permits, so every claimed event is guaranteed a worker
+                int available = Math.min(idleWorkers.availablePermits(), properties.getTask().getProcessor().getBatchSize());
+                if (available == 0) break;
 
-                lastCandidateCreationTimestamp = candidateInfo.getCreatedAt();
-                Boolean shouldOmit = this.shouldOmit(candidateInfo, entityManager);
-                if (shouldOmit) {
-                    continue;
-                }
-                Boolean shouldAwait = this.shouldWait(candidateInfo, entityManager);
-                if (shouldAwait) {
-                    continue;
+                Instant since = lastCandidateCreationTimestamp;
+                List<CandidateInfo> candidates = candidatesTimer.record(() -> this.candidateEventsToRun(since, available, entityManager));
+                if (candidates.isEmpty()) break;
+
+                lastCandidateCreationTimestamp = candidates.get(candidates.size() - 1).getCreatedAt();
+                idleWorkers.acquireUninterruptibly(candidates.size());
+                for (CandidateInfo candidateInfo : candidates) {
+                    workers.execute(() -> {
+                        try {
+                            this.run(candidateInfo);
+                        } finally {
+                            idleWorkers.release();
+                        }
+                    });
                 }
-                this.handle(candidateInfo.getId(), entityManager);
             }
         } catch (Exception e) {
             logger.error(e.getLocalizedMessage(), e);
@@ -84,35 +144,87 @@ public class EventSchedulerTask {
         }
     }
 
-    private CandidateInfo candidateEventToRun(Instant lastCandidateNotificationCreationTimestamp, EntityManager entityManager) {
-        CandidateInfo candidateInfo = null;
+    private void run(CandidateInfo candidateInfo) {
+        EntityManagerFactory entityManagerFactory = applicationContext.getBean(EntityManagerFactory.class);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+
+        try (FakeRequestScope ignored = new FakeRequestScope()) {
+            Boolean shouldOmit = this.shouldOmit(candidateInfo, entityManager);
+            if (shouldOmit) {
+                return;
+            }
+            Boolean shouldAwait = this.shouldWait(candidateInfo, entityManager);
+            if (shouldAwait) {
+                return;
+            }
+            this.handle(candidateInfo.getId(), entityManager);
+        } catch (Exception e) {
+            logger.error(e.getLocalizedMessage(), e);
+            EntityTransaction transaction = entityManager.getTransaction();
+            if (transaction != null && transaction.isActive()) transaction.rollback();
+            this.release(candidateInfo, entityManager);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Puts an event whose handling failed back to ERROR, so that it is retried instead of staying claimed.
+     */
+    private void release(CandidateInfo candidateInfo, EntityManager entityManager) {
+        EntityTransaction transaction = entityManager.getTransaction();
+        try {
+            entityManager.clear();
+            transaction.begin();
+            ScheduledEventEntity scheduledEvent = entityManager.find(ScheduledEventEntity.class, candidateInfo.getId());
+            if (scheduledEvent != null && scheduledEvent.getStatus() == ScheduledEventStatus.PROCESSING) {
+                scheduledEvent.setStatus(ScheduledEventStatus.ERROR);
+                scheduledEvent.setRetryCount(scheduledEvent.getRetryCount() == null ? 1 : scheduledEvent.getRetryCount() + 1);
+                scheduledEvent.setUpdatedAt(Instant.now());
+            }
+            transaction.commit();
+        } catch (Exception e) {
+            if (transaction.isActive()) transaction.rollback();
+            logger.error("Could not release scheduled event {}, it stays claimed until its lease expires: {}", candidateInfo.getId(), e.getMessage());
+        }
+    }
+
+    private List<CandidateInfo> candidateEventsToRun(Instant lastCandidateNotificationCreationTimestamp, int limit, EntityManager entityManager) {
+        List<CandidateInfo> candidateInfos = new ArrayList<>();
         EntityTransaction transaction = entityManager.getTransaction();
         transaction.begin();
 
-        ScheduledEventQuery scheduledEventQuery = applicationContext.getBean(ScheduledEventQuery.class);
-        ScheduledEventEntity candidate;
-
-        scheduledEventQuery = scheduledEventQuery
-                .isActives(IsActive.ACTIVE)
-                .status(ScheduledEventStatus.PENDING, ScheduledEventStatus.ERROR, ScheduledEventStatus.PARKED)
-                .retryThreshold(Math.toIntExact(this.properties.getTask().getProcessor().getOptions().getRetryThreshold()))
-                .shouldRunBefore(Instant.now())
-                .createdAfter(lastCandidateNotificationCreationTimestamp)
-                .ordering(new Ordering().addAscending(ScheduledEventEntity._createdAt));
-        candidate = scheduledEventQuery.first();
-        if (candidate != null) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ScheduledEventEntity> query = criteriaBuilder.createQuery(ScheduledEventEntity.class);
+        Root<ScheduledEventEntity> root = query.from(ScheduledEventEntity.class);
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(criteriaBuilder.equal(root.get(ScheduledEventEntity._isActive), IsActive.ACTIVE));
+        predicates.add(root.get(ScheduledEventEntity._status).in(CANDIDATE_STATUSES));
+        predicates.add(criteriaBuilder.or(criteriaBuilder.isNull(root.get(ScheduledEventEntity._retryCount)),
+                criteriaBuilder.lessThanOrEqualTo(root.get(ScheduledEventEntity._retryCount), Math.toIntExact(this.properties.getTask().getProcessor().getOptions().getRetryThreshold()))));
+        predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get(ScheduledEventEntity._runAt), Instant.now()));
+        if (lastCandidateNotificationCreationTimestamp != null) {
+            predicates.add(criteriaBuilder.greaterThan(root.get(ScheduledEventEntity._createdAt), lastCandidateNotificationCreationTimestamp));
+        }
+        query.select(root).where(predicates.toArray(new Predicate[0])).orderBy(criteriaBuilder.asc(root.get(ScheduledEventEntity._createdAt)));
+
+        List<ScheduledEventEntity> candidates = entityManager.createQuery(query)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint("jakarta.persistence.lock.timeout", SKIP_LOCKED)
+                .setMaxResults(limit)
+                .getResultList();
+        Instant claimedAt = Instant.now();
+        for (ScheduledEventEntity candidate : candidates) {
             ScheduledEventStatus previousState = candidate.getStatus();
-            candidate = entityManager.find(ScheduledEventEntity.class, candidate.getId());
             candidate.setStatus(ScheduledEventStatus.PROCESSING);
-            candidate = entityManager.merge(candidate);
-            entityManager.persist(candidate);
-            entityManager.flush();
-
-            candidateInfo = new CandidateInfo(candidate.getId(), previousState, candidate.getCreatedAt());
+            candidate.setUpdatedAt(claimedAt);
+            candidateInfos.add(new CandidateInfo(candidate.getId(), previousState, candidate.getCreatedAt()));
         }
+        entityManager.flush();
 
         transaction.commit();
-        return candidateInfo;
+        entityManager.clear();
+        return candidateInfos;
     }
 
     private Boolean shouldWait(CandidateInfo candidateInfo, EntityManager entityManager) {
@@ -138,7 +250,7 @@ public class EventSchedulerTask {
 
             if (!itIsTime) {
                 scheduledEventEntity.setStatus(candidateInfo.getPreviousState());
-                //notification.setUpdatedAt(Instant.now());
+                scheduledEventEntity.setUpdatedAt(Instant.now());
                 scheduledEventEntity = entityManager.merge(scheduledEventEntity);
                 entityManager.persist(scheduledEventEntity);
 
@@ -160,6 +272,7 @@ public class EventSchedulerTask {
         long omitSeconds = properties.getTask().getProcessor().getOptions().getTooOldToHandleSeconds();
         if (age >= omitSeconds) {
             scheduledEventEntity.setStatus(ScheduledEventStatus.OMITTED);
+            scheduledEventEntity.setUpdatedAt(Instant.now());
             scheduledEventEntity = entityManager.merge(scheduledEventEntity);
             entityManager.persist(scheduledEventEntity);
             shouldOmit = true;
@@ -173,6 +286,14 @@ public class EventSchedulerTask {
         EntityTransaction transaction = entityManager.getTransaction();
         transaction.begin();
 
+        // Held until the outcome is committed, so that the lease reclaim skips the event however long it runs
+        ScheduledEventEntity claimed = entityManager.find(ScheduledEventEntity.class, eventId, LockModeType.PESSIMISTIC_WRITE);
+        if (claimed != null && claimed.getStatus() != ScheduledEventStatus.PROCESSING) {
+            logger.warn("Scheduled event {} was reclaimed before it was handled, skipping it", eventId);
+            transaction.commit();
+            return;
+        }
+
         ScheduledEventQuery scheduledEventQuery = applicationContext.getBean(ScheduledEventQuery.class);
         ScheduledEventEntity scheduledEvent = scheduledEventQuery.ids(eventId).first();
         if (scheduledEvent == null) throw new IllegalArgumentException("scheduledEvent is null");
@@ -194,6 +315,7 @@ public class EventSchedulerTask {
                 scheduledEvent.setStatus(ScheduledEventStatus.DISCARD);
             }
         }
+        scheduledEvent.setUpdatedAt(Instant.now());
 
         entityManager.merge(scheduledEvent);
         entityManager.flush();
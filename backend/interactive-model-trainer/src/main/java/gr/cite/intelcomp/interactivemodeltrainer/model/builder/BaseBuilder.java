@@ -1,7 +1,6 @@
 package gr.cite.intelcomp.interactivemodeltrainer.model.builder;
 
 import gr.cite.intelcomp.interactivemodeltrainer.convention.ConventionService;
-import gr.cite.intelcomp.interactivemodeltrainer.data.UserEntity;
 import gr.cite.tools.data.builder.Builder;
 import gr.cite.tools.data.query.QueryBase;
 import gr.cite.tools.exception.MyApplicationException;
@@ -38,10 +37,6 @@ public abstract class BaseBuilder<M, D> implements Builder {
 
     public abstract List<M> build(FieldSet directives, List<D> data) throws MyApplicationException;
 
-    public List<M> build(FieldSet directives, List<D> data, List<UserEntity> users) throws MyApplicationException {
-        return null;
-    }
-
     public <K> Map<K, M> asForeignKey(QueryBase<D> query, FieldSet directives, Function<M, K> keySelector) throws MyApplicationException {
         this.logger.trace("Building references from query");
         List<D> data = query.collectAs(directives);
@@ -97,32 +92,4 @@ public abstract class BaseBuilder<M, D> implements Builder {
         return this.conventionService.asIndexer(names);
     }
 
-    public static String extractUsername(String id, List<UserEntity> users) {
-        if (id == null || id.equals("-") || users == null || users.isEmpty())
-            return "-";
-        Optional<UserEntity> found;
-        try {
-            found = users.stream().filter(user ->
-                    user.getId().equals(UUID.fromString(id)) || user.getSubjectId().equals(id)
-            ).findFirst();
-            return found.map(UserEntity::getFirstName).orElse("-");
-        } catch (Exception e) {
-            return "-";
-        }
-    }
-
-    public static String extractId(String id, List<UserEntity> users) {
-        if (id == null || id.equals("-") || users == null || users.isEmpty())
-            return "-";
-        Optional<UserEntity> found;
-        try {
-            found = users.stream().filter(user ->
-                    user.getId().equals(UUID.fromString(id)) || user.getSubjectId().equals(id)
-            ).findFirst();
-            return found.map(UserEntity::getId).orElse(UUID.randomUUID()).toString();
-        } catch (Exception e) {
-            return "-";
-        }
-    }
-
 }
@@ -1,14 +1,13 @@
 package gr.cite.intelcomp.interactivemodeltrainer.model.builder;
 
 import gr.cite.intelcomp.interactivemodeltrainer.cache.CacheLibrary;
+import gr.cite.intelcomp.interactivemodeltrainer.cache.UserDirectory;
 import gr.cite.intelcomp.interactivemodeltrainer.cache.UserTasksCacheEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.convention.ConventionService;
 import gr.cite.intelcomp.interactivemodeltrainer.data.DomainModelEntity;
-import gr.cite.intelcomp.interactivemodeltrainer.data.UserEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.model.DomainModel;
 import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskSubType;
 import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskType;
-import gr.cite.intelcomp.interactivemodeltrainer.query.UserQuery;
 import gr.cite.tools.exception.MyApplicationException;
 import gr.cite.tools.fieldset.FieldSet;
 import gr.cite.tools.logging.DataLogEntry;
@@ -16,7 +15,6 @@ import gr.cite.tools.logging.LoggerService;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
-import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
@@ -29,13 +27,13 @@ public class DomainModelBuilder extends BaseBuilder<DomainModel, DomainModelEnti
 
     private final CacheLibrary cacheLibrary;
 
-    private final ApplicationContext applicationContext;
+    private final UserDirectory userDirectory;
 
     @Autowired
-    public DomainModelBuilder(ConventionService conventionService, CacheLibrary cacheLibrary, ApplicationContext applicationContext) {
+    public DomainModelBuilder(ConventionService conventionService, CacheLibrary cacheLibrary, UserDirectory userDirectory) {
         super(conventionService, new LoggerService(LoggerFactory.getLogger(DomainModelBuilder.class)));
         this.cacheLibrary = cacheLibrary;
-        this.applicationContext = applicationContext;
+        this.userDirectory = userDirectory;
     }
 
     @Override
@@ -47,8 +45,6 @@ public class DomainModelBuilder extends BaseBuilder<DomainModel, DomainModelEnti
 
         List<DomainModel> models = new ArrayList<>(100);
 
-        List<UserEntity> users = applicationContext.getBean(UserQuery.class).collect();
-
         if (data == null)
             return models;
         for (DomainModelEntity d : data) {
@@ -66,7 +62,7 @@ public class DomainModelBuilder extends BaseBuilder<DomainModel, DomainModelEnti
             if (fields.hasField(this.asIndexer(DomainModelEntity._corpus)))
                 m.setCorpus(extractCorpusName(d.getCorpus()));
             if (fields.hasField(this.asIndexer(DomainModelEntity._creator)))
-                m.setCreator(extractUsername(d.getCreator(), users));
+                m.setCreator(userDirectory.usernameOf(d.getCreator()));
             if (fields.hasField(this.asIndexer(DomainModelEntity._location)))
                 m.setLocation(d.getLocation());
             if (fields.hasField(this.asIndexer(DomainModelEntity._creation_date)))
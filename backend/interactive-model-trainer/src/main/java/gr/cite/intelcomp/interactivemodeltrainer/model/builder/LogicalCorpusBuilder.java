@@ -1,13 +1,12 @@
 package gr.cite.intelcomp.interactivemodeltrainer.model.builder;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.cite.intelcomp.interactivemodeltrainer.cache.UserDirectory;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.CorpusType;
 import gr.cite.intelcomp.interactivemodeltrainer.convention.ConventionService;
 import gr.cite.intelcomp.interactivemodeltrainer.data.LogicalCorpusEntity;
-import gr.cite.intelcomp.interactivemodeltrainer.data.UserEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.model.LogicalCorpus;
 import gr.cite.intelcomp.interactivemodeltrainer.model.LogicalCorpusJson;
-import gr.cite.intelcomp.interactivemodeltrainer.query.UserQuery;
 import gr.cite.tools.exception.MyApplicationException;
 import gr.cite.tools.fieldset.FieldSet;
 import gr.cite.tools.logging.DataLogEntry;
@@ -15,7 +14,6 @@ import gr.cite.tools.logging.LoggerService;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
-import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
@@ -25,12 +23,12 @@ import java.util.*;
 @Scope(value = ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class LogicalCorpusBuilder extends BaseBuilder<LogicalCorpus, LogicalCorpusEntity> implements SortableByOwner<LogicalCorpus, LogicalCorpusEntity> {
 
-    private final ApplicationContext applicationContext;
+    private final UserDirectory userDirectory;
 
     @Autowired
-    public LogicalCorpusBuilder(ConventionService conventionService, ObjectMapper mapper, ApplicationContext applicationContext) {
+    public LogicalCorpusBuilder(ConventionService conventionService, ObjectMapper mapper, UserDirectory userDirectory) {
         super(conventionService, new LoggerService(LoggerFactory.getLogger(LogicalCorpusBuilder.class)));
-        this.applicationContext = applicationContext;
+        this.userDirectory = userDirectory;
     }
 
     @Override
@@ -40,8 +38,6 @@ public class LogicalCorpusBuilder extends BaseBuilder<LogicalCorpus, LogicalCorp
         if (fields == null || fields.isEmpty())
             return new ArrayList<>();
 
-        List<UserEntity> users = applicationContext.getBean(UserQuery.class).collect();
-
         List<LogicalCorpus> models = new ArrayList<>(100);
 
         if (data == null)
@@ -65,7 +61,7 @@ public class LogicalCorpusBuilder extends BaseBuilder<LogicalCorpus, LogicalCorp
             if (fields.hasField(this.asIndexer(LogicalCorpusJson._creation_date)))
                 m.setCreation_date(d.getCreation_date());
             if (fields.hasField(this.asIndexer(LogicalCorpusJson._creator)))
-                m.setCreator(extractUsername(d.getCreator(), users));
+                m.setCreator(userDirectory.usernameOf(d.getCreator()));
             models.add(m);
         }
         this.logger.trace("build {} items", Optional.of(models).map(List::size).orElse(0));
@@ -1,6 +1,5 @@
 package gr.cite.intelcomp.interactivemodeltrainer.model.builder;
 
-import gr.cite.intelcomp.interactivemodeltrainer.data.UserEntity;
 import gr.cite.tools.fieldset.FieldSet;
 
 import java.util.List;
@@ -9,14 +8,6 @@ public interface SortableByOwner<M, D> {
 
     List<M> buildSortedByOwnerAsc(FieldSet directives, List<D> data);
 
-    default List<M> buildSortedByOwnerAsc(FieldSet directives, List<D> data, List<UserEntity> users) {
-        return buildSortedByOwnerAsc(directives, data);
-    };
-
     List<M> buildSortedByOwnerDesc(FieldSet directives, List<D> data);
 
-    default List<M> buildSortedByOwnerDesc(FieldSet directives, List<D> data, List<UserEntity> users) {
-        return buildSortedByOwnerDesc(directives, data);
-    };
-
 }
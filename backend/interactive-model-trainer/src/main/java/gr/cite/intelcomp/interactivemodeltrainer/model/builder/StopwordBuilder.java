@@ -1,12 +1,11 @@
 package gr.cite.intelcomp.interactivemodeltrainer.model.builder;
 
+import gr.cite.intelcomp.interactivemodeltrainer.cache.UserDirectory;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.WordlistType;
 import gr.cite.intelcomp.interactivemodeltrainer.convention.ConventionService;
-import gr.cite.intelcomp.interactivemodeltrainer.data.UserEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.data.WordListEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.model.Stopword;
 import gr.cite.intelcomp.interactivemodeltrainer.model.WordListJson;
-import gr.cite.intelcomp.interactivemodeltrainer.query.UserQuery;
 import gr.cite.tools.exception.MyApplicationException;
 import gr.cite.tools.fieldset.FieldSet;
 import gr.cite.tools.logging.DataLogEntry;
@@ -14,7 +13,6 @@ import gr.cite.tools.logging.LoggerService;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
-import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
@@ -24,12 +22,12 @@ import java.util.*;
 @Scope(value = ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class StopwordBuilder extends BaseBuilder<Stopword, WordListEntity> implements SortableByOwner<Stopword, WordListEntity> {
 
-    private final ApplicationContext applicationContext;
+    private final UserDirectory userDirectory;
 
     @Autowired
-    public StopwordBuilder(ConventionService conventionService, ApplicationContext applicationContext) {
+    public StopwordBuilder(ConventionService conventionService, UserDirectory userDirectory) {
         super(conventionService, new LoggerService(LoggerFactory.getLogger(StopwordBuilder.class)));
-        this.applicationContext = applicationContext;
+        this.userDirectory = userDirectory;
     }
 
     @Override
@@ -39,8 +37,6 @@ public class StopwordBuilder extends BaseBuilder<Stopword, WordListEntity> imple
         if (fields == null || fields.isEmpty())
             return new ArrayList<>();
 
-        List<UserEntity> users = applicationContext.getBean(UserQuery.class).collect();
-
         List<Stopword> models = new ArrayList<>(100);
 
         if (data == null)
@@ -57,7 +53,7 @@ public class StopwordBuilder extends BaseBuilder<Stopword, WordListEntity> imple
                 if (fields.hasField(this.asIndexer(WordListJson._visibility)))
                     m.setVisibility(d.getVisibility());
                 if (fields.hasField(this.asIndexer(WordListJson._creator)))
-                    m.setCreator(extractUsername(d.getCreator(), users));
+                    m.setCreator(userDirectory.usernameOf(d.getCreator()));
                 if (fields.hasField(this.asIndexer(WordListJson._location)))
                     m.setLocation(d.getLocation());
                 if (fields.hasField(this.asIndexer(WordListJson._wordlist)))
@@ -1,11 +1,11 @@
 package gr.cite.intelcomp.interactivemodeltrainer.model.builder;
 
 import gr.cite.intelcomp.interactivemodeltrainer.cache.CacheLibrary;
+import gr.cite.intelcomp.interactivemodeltrainer.cache.UserDirectory;
 import gr.cite.intelcomp.interactivemodeltrainer.cache.UserTasksCacheEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.convention.ConventionService;
 import gr.cite.intelcomp.interactivemodeltrainer.data.TopicModelEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.data.TopicModelListingEntity;
-import gr.cite.intelcomp.interactivemodeltrainer.data.UserEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.model.TopicModel;
 import gr.cite.intelcomp.interactivemodeltrainer.model.TopicModelListing;
 import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskSubType;
@@ -30,19 +30,17 @@ public class TopicModelBuilder extends BaseBuilder<TopicModelListing, TopicModel
 
     private final CacheLibrary cacheLibrary;
 
+    private final UserDirectory userDirectory;
+
     @Autowired
-    public TopicModelBuilder(ConventionService conventionService, CacheLibrary cacheLibrary) {
+    public TopicModelBuilder(ConventionService conventionService, CacheLibrary cacheLibrary, UserDirectory userDirectory) {
         super(conventionService, new LoggerService(LoggerFactory.getLogger(TopicModelBuilder.class)));
         this.cacheLibrary = cacheLibrary;
+        this.userDirectory = userDirectory;
     }
 
     @Override
     public List<TopicModelListing> build(FieldSet fields, List<TopicModelListingEntity> data) throws MyApplicationException {
-        return List.of();
-    }
-
-    @Override
-    public List<TopicModelListing> build(FieldSet fields, List<TopicModelListingEntity> data, List<UserEntity> users) throws MyApplicationException {
         this.logger.trace("building for {} items requesting {} fields", Optional.ofNullable(data).map(List::size).orElse(0), Optional.ofNullable(fields).map(FieldSet::getFields).map(Set::size).orElse(0));
         this.logger.trace(new DataLogEntry("requested fields", fields));
         if (fields == null || fields.isEmpty())
@@ -67,7 +65,7 @@ public class TopicModelBuilder extends BaseBuilder<TopicModelListing, TopicModel
             if (fields.hasField(this.asIndexer(TopicModelEntity._corpus)))
                 m.setCorpus(extractCorpusName(d.getCorpus()));
             if (fields.hasField(this.asIndexer(TopicModelEntity._creator)))
-                m.setCreator(extractUsername(d.getCreator(), users));
+                m.setCreator(userDirectory.usernameOf(d.getCreator()));
             if (fields.hasField(this.asIndexer(TopicModelListingEntity._params)))
                 m.setParams(d.getParams());
             if (fields.hasField(this.asIndexer(TopicModelListingEntity._location)))
@@ -109,23 +107,13 @@ public class TopicModelBuilder extends BaseBuilder<TopicModelListing, TopicModel
 
     @Override
     public List<TopicModelListing> buildSortedByOwnerAsc(FieldSet directives, List<TopicModelListingEntity> data) {
-        return null;
-    }
-
-    @Override
-    public List<TopicModelListing> buildSortedByOwnerAsc(FieldSet directives, List<TopicModelListingEntity> data, List<UserEntity> users) {
         Comparator<TopicModelListing> byOwner = Comparator.comparing(TopicModelListing::getCreator);
-        return build(directives, data, users).stream().sorted(byOwner).toList();
+        return build(directives, data).stream().sorted(byOwner).toList();
     }
 
     @Override
     public List<TopicModelListing> buildSortedByOwnerDesc(FieldSet directives, List<TopicModelListingEntity> data) {
-        return null;
-    }
-
-    @Override
-    public List<TopicModelListing> buildSortedByOwnerDesc(FieldSet directives, List<TopicModelListingEntity> data, List<UserEntity> users) {
         Comparator<TopicModelListing> byOwner = Comparator.comparing(TopicModelListing::getCreator);
-        return build(directives, data, users).stream().sorted(byOwner.reversed()).toList();
+        return build(directives, data).stream().sorted(byOwner.reversed()).toList();
     }
 }
@@ -1,19 +1,17 @@
 package gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import gr.cite.intelcomp.interactivemodeltrainer.data.DocumentEntity;
 
 import java.util.List;
-import java.util.Map;
 
 public class RunningTaskResponse {
 
     private List<String> logs;
 
     @JsonIgnore
-    private Map<String, byte[]> puScores;
+    private List<String> puScores;
     @JsonIgnore
-    private List<DocumentEntity> documents;
+    private Integer documentCount;
 
     public List<String> getLogs() {
         return logs;
@@ -23,19 +21,19 @@ public class RunningTaskResponse {
         this.logs = logs;
     }
 
-    public Map<String, byte[]> getPuScores() {
+    public List<String> getPuScores() {
         return puScores;
     }
 
-    public void setPuScores(Map<String, byte[]> puScores) {
+    public void setPuScores(List<String> puScores) {
         this.puScores = puScores;
     }
 
-    public List<DocumentEntity> getDocuments() {
-        return documents;
+    public Integer getDocumentCount() {
+        return documentCount;
     }
 
-    public void setDocuments(List<DocumentEntity> documents) {
-        this.documents = documents;
+    public void setDocumentCount(Integer documentCount) {
+        this.documentCount = documentCount;
     }
 }
@@ -1,9 +1,7 @@
 package gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue;
 
-import gr.cite.intelcomp.interactivemodeltrainer.data.DocumentEntity;
 
 import java.util.List;
-import java.util.Map;
 
 public class RunningTaskResponseFull {
 
@@ -11,9 +9,9 @@ public class RunningTaskResponseFull {
 
     private List<String> logs;
 
-    private Map<String, byte[]> puScores;
+    private List<String> puScores;
 
-    private List<DocumentEntity> documents;
+    private Integer documentCount;
 
     public List<String> getLogs() {
         return logs;
@@ -23,20 +21,20 @@ public class RunningTaskResponseFull {
         this.logs = logs;
     }
 
-    public Map<String, byte[]> getPuScores() {
+    public List<String> getPuScores() {
         return puScores;
     }
 
-    public void setPuScores(Map<String, byte[]> puScores) {
+    public void setPuScores(List<String> puScores) {
         this.puScores = puScores;
     }
 
-    public List<DocumentEntity> getDocuments() {
-        return documents;
+    public Integer getDocumentCount() {
+        return documentCount;
     }
 
-    public void setDocuments(List<DocumentEntity> documents) {
-        this.documents = documents;
+    public void setDocumentCount(Integer documentCount) {
+        this.documentCount = documentCount;
     }
 
 }
@@ -1,5 +1,6 @@
 package gr.cite.intelcomp.interactivemodeltrainer.model.topic;
 
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.TopicSimilarityMetric;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
@@ -9,6 +10,8 @@ public class TopicSimilarityPayload {
     @Min(1)
     private Integer pairs;
 
+    private TopicSimilarityMetric metric;
+
     public Integer getPairs() {
         return pairs;
     }
@@ -16,4 +19,12 @@ public class TopicSimilarityPayload {
     public void setPairs(Integer pairs) {
         this.pairs = pairs;
     }
+
+    public TopicSimilarityMetric getMetric() {
+        return metric;
+    }
+
+    public void setMetric(TopicSimilarityMetric metric) {
+        this.metric = metric;
+    }
 }
@@ -11,10 +11,32 @@ import java.util.List;
 
 public interface ContainerManagementService {
     ContainerKey ensureAvailableService(String service) throws IOException, ApiException;
+
+    /**
+     * Starts the containers of the service ahead of the first command, without selecting one for a command.
+     */
+    default void warmUpService(String service) throws IOException, ApiException {
+        this.ensureAvailableService(service);
+    }
+
     void removeService(String service) throws ApiException;
     String execCommand(CommandType type, List<String> command, ContainerKey executionKey) throws InterruptedException, ApiException, IOException;
+
+    /**
+     * Runs the command with the given payload streamed to its standard input, instead of staging the payload in a
+     * file of the shared volume.
+     */
+    String execCommand(CommandType type, List<String> command, String input, ContainerKey executionKey) throws InterruptedException, ApiException, IOException;
+
+    <T> T execCommand(CommandType type, List<String> command, ContainerKey executionKey, ExecOutputParser<T> parser) throws InterruptedException, ApiException, IOException;
     void destroy();
     String runJob(ExecutionParams executionParams) throws ApiException, IOException;
     JobStatus getJobStatus(String jobId) throws ApiException, Exception;
     void deleteJob(String jobId) throws ApiException;
+
+    /**
+     * Registers a listener for the status changes of jobs, starting the watch of the container platform on first
+     * use.
+     */
+    void watchJobs(JobStatusListener listener);
 }
@@ -1,42 +1,141 @@
 package gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement;
 
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.CommandType;
-import gr.cite.intelcomp.interactivemodeltrainer.common.enums.Status;
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.JobStatus;
 import gr.cite.intelcomp.interactivemodeltrainer.common.scope.user.UserScope;
-import gr.cite.intelcomp.interactivemodeltrainer.data.ExecutionEntity;
-import gr.cite.intelcomp.interactivemodeltrainer.service.execution.ExecutionService;
+import gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties;
+import gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.models.ContainerKey;
+import gr.cite.intelcomp.interactivemodeltrainer.service.execution.ExecutionRecorder;
+import io.kubernetes.client.openapi.ApiException;
 
-import java.time.Instant;
-import java.util.UUID;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class ContainerManagementServiceImpl implements ContainerManagementService {
     protected final UserScope userScope;
-    protected final ExecutionService executionService;
+    protected final ExecutionRecorder executionRecorder;
+    protected final ContainerServicesProperties containerServicesProperties;
+    private final Map<String, ManagerWorker> workers = new ConcurrentHashMap<>();
+    private final Map<String, Object> workerLocks = new ConcurrentHashMap<>();
+    private final List<JobStatusListener> jobStatusListeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean jobWatchStarted = new AtomicBoolean();
 
-    protected ContainerManagementServiceImpl(UserScope userScope, ExecutionService executionService) {
+    protected ContainerManagementServiceImpl(UserScope userScope, ExecutionRecorder executionRecorder, ContainerServicesProperties containerServicesProperties) {
         this.userScope = userScope;
-        this.executionService = executionService;
+        this.executionRecorder = executionRecorder;
+        this.containerServicesProperties = containerServicesProperties;
     }
 
 
-    protected ExecutionEntity initializeExecution(CommandType type, String cmd){
-        ExecutionEntity executionEntity = new ExecutionEntity();
-        executionEntity.setId(UUID.randomUUID());
-        executionEntity.setCreatedAt(Instant.now());
-        executionEntity.setUserId(this.userScope.getUserIdSafe());
-        executionEntity.setType(type);
-        executionEntity.setCommand(cmd);
-        executionEntity.setStatus(Status.NEW);
-        executionEntity.setExecutedAt(Instant.now());
-        return executionEntity;
+    /**
+     * Times the command through the {@link ExecutionRecorder}, recording whether the call completed or failed.
+     */
+    protected <T> T recordExecution(CommandType type, List<String> command, ContainerKey executionKey, RecordedCall<T> call) throws InterruptedException, IOException, ApiException {
+        ExecutionRecorder.Execution execution = this.executionRecorder.start(type, executionKey.getService(), command);
+        try {
+            T result = call.call(execution);
+            execution.succeeded();
+            return result;
+        } catch (InterruptedException | IOException | ApiException | RuntimeException e) {
+            execution.failed(e);
+            throw e;
+        }
     }
 
-    protected void finishAndUpdateExecution(ExecutionEntity executionEntity, String result){
-        executionEntity.setFinishedAt(Instant.now());
-        executionEntity.setStatus(Status.FINISHED);
-        executionEntity.setResult(result);
-        executionEntity.setUpdatedAt(Instant.now());
-        this.executionService.persist(executionEntity);
+    @FunctionalInterface
+    protected interface RecordedCall<T> {
+        T call(ExecutionRecorder.Execution execution) throws InterruptedException, IOException, ApiException;
+    }
+
+    /**
+     * Starts the execWorker.py process in the given container and connects a {@link ManagerWorker} to it.
+     */
+    protected abstract ManagerWorker openWorker(ContainerKey executionKey) throws IOException, ApiException;
+
+    protected List<String> workerCommand() {
+        return List.of("python", "-u", this.containerServicesProperties.getWorker().getScript());
+    }
+
+    /**
+     * Manager script invocations ("python script.py ...") can be served by the warm worker of the container.
+     */
+    protected boolean isWorkerCommand(List<String> command) {
+        return this.containerServicesProperties.getWorker().isEnabled() && command.size() > 1 && "python".equals(command.get(0));
+    }
+
+    /**
+     * Runs a manager script invocation on the worker of the container, starting the worker if needed. A
+     * {@link ManagerWorker.UnavailableException} means the command was not sent and can safely be run as a
+     * one-off exec instead.
+     */
+    protected ManagerWorker.Reply execOnWorker(List<String> command, String input, ContainerKey executionKey, ExecutionRecorder.Execution execution) throws IOException, InterruptedException {
+        ManagerWorker worker = this.workerFor(executionKey);
+        Duration timeout = Duration.ofSeconds(this.containerServicesProperties.getWorker().getRequestTimeoutInSeconds());
+        try {
+            ManagerWorker.Reply reply = worker.execute(command.subList(1, command.size()), input, timeout);
+            execution.ranOnWorker(reply.queued());
+            return reply;
+        } finally {
+            if (!worker.isAlive()) workers.remove(executionKey.getIdentifier(), worker);
+        }
+    }
+
+    private ManagerWorker workerFor(ContainerKey executionKey) throws ManagerWorker.UnavailableException {
+        String identifier = executionKey.getIdentifier();
+        ManagerWorker worker = workers.get(identifier);
+        if (worker != null && worker.isAlive()) return worker;
+        // Per container, so that a slow or dead container only holds up the commands sent to it
+        synchronized (workerLocks.computeIfAbsent(identifier, key -> new Object())) {
+            worker = workers.get(identifier);
+            if (worker == null || !worker.isAlive()) {
+                try {
+                    worker = this.openWorker(executionKey);
+                } catch (IOException | ApiException | RuntimeException e) {
+                    throw new ManagerWorker.UnavailableException("Could not start manager worker in " + identifier, e);
+                }
+                workers.put(identifier, worker);
+            }
+            return worker;
+        }
+    }
+
+    protected void closeWorker(String identifier) {
+        ManagerWorker worker = workers.remove(identifier);
+        if (worker != null) worker.close();
+    }
+
+    protected void closeWorkers() {
+        for (String identifier : List.copyOf(workers.keySet())) {
+            this.closeWorker(identifier);
+        }
+    }
+
+    @Override
+    public void watchJobs(JobStatusListener listener) {
+        jobStatusListeners.add(listener);
+        if (jobWatchStarted.compareAndSet(false, true)) this.startJobWatch();
+    }
+
+    /**
+     * Starts watching the containers or pods of the platform, reporting through the job* methods below.
+     */
+    protected abstract void startJobWatch();
+
+    protected void jobStatusChanged(String jobId, JobStatus status) {
+        for (JobStatusListener listener : jobStatusListeners) listener.onJobStatus(jobId, status);
+    }
+
+    protected void jobWatchStarted() {
+        for (JobStatusListener listener : jobStatusListeners) listener.onWatchStarted();
+    }
+
+    protected void jobWatchLost() {
+        for (JobStatusListener listener : jobStatusListeners) listener.onWatchLost();
     }
 
 }
@@ -15,9 +15,9 @@ public class ContainerStartupUtils {
     public static void initServices(ApplicationContext applicationContext) {
         ContainerManagementService service = applicationContext.getBean(ContainerManagementService.class);
         try {
-            service.ensureAvailableService(DockerService.MANAGE_LISTS);
-            service.ensureAvailableService(DockerService.MANAGE_CORPUS);
-            service.ensureAvailableService(DockerService.MANAGE_MODELS);
+            service.warmUpService(DockerService.MANAGE_LISTS);
+            service.warmUpService(DockerService.MANAGE_CORPUS);
+            service.warmUpService(DockerService.MANAGE_MODELS);
         } catch (IOException | ApiException e) {
             logger.error(e.getMessage(), e);
         }
@@ -1,37 +1,40 @@
 package gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
 import com.github.dockerjava.api.command.CreateContainerCmd;
 import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.EventsCmd;
 import com.github.dockerjava.api.command.ExecCreateCmdResponse;
+import com.github.dockerjava.api.command.ExecStartCmd;
 import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.exception.ConflictException;
+import com.github.dockerjava.api.exception.NotFoundException;
 import com.github.dockerjava.api.model.Bind;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import com.github.dockerjava.api.model.Frame;
 import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.StreamType;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientConfig;
 import com.github.dockerjava.core.DockerClientImpl;
 import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
 import com.github.dockerjava.transport.DockerHttpClient;
-import gr.cite.intelcomp.interactivemodeltrainer.cache.CacheLibrary;
-import gr.cite.intelcomp.interactivemodeltrainer.cache.UserTasksCacheEntity;
-import gr.cite.intelcomp.interactivemodeltrainer.cache.UserTasksCacheEntityFull;
-import gr.cite.intelcomp.interactivemodeltrainer.common.JsonHandlingService;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.CommandType;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.JobStatus;
 import gr.cite.intelcomp.interactivemodeltrainer.common.scope.user.UserScope;
 import gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties;
 import gr.cite.intelcomp.interactivemodeltrainer.configuration.DockerProperties;
-import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskQueueItem;
-import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskQueueItemFull;
-import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskResponseFull;
 import gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.models.ContainerKey;
 import gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.models.DockerContainerKeyImpl;
 import gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.models.ExecutionContainerParams;
 import gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.models.ExecutionParams;
-import gr.cite.intelcomp.interactivemodeltrainer.service.execution.ExecutionService;
+import gr.cite.intelcomp.interactivemodeltrainer.service.execution.ExecutionRecorder;
 import gr.cite.tools.logging.LoggerService;
-import org.apache.commons.io.FileUtils;
+import io.kubernetes.client.openapi.ApiException;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -42,16 +45,23 @@ import org.testcontainers.containers.output.ToStringConsumer;
 
 import jakarta.annotation.PreDestroy;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Path;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
-import static gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties.DockerServiceConfiguration.CACHE_DUMP_FILE_NAME;
-
 @Service
 @ConditionalOnProperty(prefix = "docker", name = "enabled", havingValue = "true")
 public class DockerContainerManagementServiceImpl extends ContainerManagementServiceImpl {
@@ -60,20 +70,19 @@ public class DockerContainerManagementServiceImpl extends ContainerManagementSer
 
     private final DockerProperties dockerProperties;
     private final DockerClient dockerClient;
-    private final HashMap<String, String> syncContainerIds;
-    private final CacheLibrary cacheLibrary;
-    private final ContainerServicesProperties containerServicesProperties;
-    private final JsonHandlingService jsonHandlingService;
+    private final Map<String, ServiceContainerPool> servicePools;
     private final ObjectMapper objectMapper;
 
+    private static final Duration JOB_WATCH_RETRY_DELAY = Duration.ofSeconds(5);
+    private ScheduledExecutorService jobWatchScheduler;
+    private volatile Closeable jobWatch;
+    private volatile Long lastJobEventTime;
+    private volatile boolean closing;
 
     @Autowired
-    public DockerContainerManagementServiceImpl(DockerProperties dockerProperties, UserScope userScope, ExecutionService executionService, CacheLibrary cacheLibrary, ContainerServicesProperties containerServicesProperties, JsonHandlingService jsonHandlingService, ObjectMapper objectMapper) {
-        super(userScope, executionService);
+    public DockerContainerManagementServiceImpl(DockerProperties dockerProperties, UserScope userScope, ExecutionRecorder executionRecorder, ContainerServicesProperties containerServicesProperties, ObjectMapper objectMapper) {
+        super(userScope, executionRecorder, containerServicesProperties);
         this.dockerProperties = dockerProperties;
-        this.cacheLibrary = cacheLibrary;
-        this.containerServicesProperties = containerServicesProperties;
-        this.jsonHandlingService = jsonHandlingService;
         this.objectMapper = objectMapper;
         DockerClientConfig dockerClientConfig = DefaultDockerClientConfig
                 .createDefaultConfigBuilder()
@@ -83,46 +92,21 @@ public class DockerContainerManagementServiceImpl extends ContainerManagementSer
                 .dockerHost(dockerClientConfig.getDockerHost())
                 .build();
         this.dockerClient = DockerClientImpl.getInstance(dockerClientConfig, dockerHttpClient);
-        this.syncContainerIds = new HashMap<>();
+        this.servicePools = new ConcurrentHashMap<>();
     }
 
     @PreDestroy
     public void destroy() {
-        if (syncContainerIds.isEmpty())
+        this.closing = true;
+        this.stopJobWatch();
+        this.closeWorkers();
+        if (servicePools.isEmpty())
             return;
         logger.info("Removing dynamically invoked containers...");
-        for (String executionId : syncContainerIds.values()) {
-            this.removeContainer(new DockerContainerKeyImpl(executionId));
-        }
-        syncContainerIds.clear();
-        logger.info("Dumping user tasks cache to a file...");
-        UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-        UserTasksCacheEntityFull cacheToWrite = objectMapper.convertValue(cache, UserTasksCacheEntityFull.class);
-        for (RunningTaskQueueItemFull item : cacheToWrite.getPayload()) {
-            Optional<RunningTaskQueueItem> cacheItemOptional = cache.getPayload()
-                    .stream()
-                    .filter(i -> i.getTask().equals(item.getTask()))
-                    .findFirst();
-            if (cacheItemOptional.isPresent()) {
-                RunningTaskQueueItem cacheItem = cacheItemOptional.get();
-                item.setUserId(cacheItem.getUserId());
-                RunningTaskResponseFull response = new RunningTaskResponseFull();
-                response.setLogs(cacheItem.getResponse().getLogs());
-                response.setDocuments(cacheItem.getResponse().getDocuments());
-                response.setPuScores(cacheItem.getResponse().getPuScores());
-                item.setResponse(response);
-            }
-        }
-        File file = new File(Path.of(
-                containerServicesProperties.getTopicTrainingService().getTempFolder(),
-                CACHE_DUMP_FILE_NAME
-        ).toUri());
-        try {
-            FileUtils.write(file, jsonHandlingService.toJson(cacheToWrite), Charset.defaultCharset());
-        } catch (IOException e) {
-            logger.error("Unable to dump current user tasks to file.");
-            logger.error(e.getMessage(), e);
+        for (ServiceContainerPool pool : servicePools.values()) {
+            pool.clear();
         }
+        servicePools.clear();
     }
 
     @Override
@@ -176,11 +160,111 @@ public class DockerContainerManagementServiceImpl extends ContainerManagementSer
         this.removeContainer(new DockerContainerKeyImpl(jobId));
     }
 
+    /**
+     * Follows the "die" events of the Docker daemon, so a job is reported the moment its container exits. A
+     * reconnect asks for the events since the last one seen, so exits during a short disconnect are replayed by
+     * the daemon.
+     */
+    @Override
+    protected synchronized void startJobWatch() {
+        if (jobWatchScheduler == null) {
+            jobWatchScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "docker-job-watch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (closing) return;
+        EventsCmd eventsCmd = this.dockerClient.eventsCmd()
+                .withEventTypeFilter(EventType.CONTAINER)
+                .withEventFilter("die");
+        if (lastJobEventTime != null) eventsCmd.withSince(String.valueOf(lastJobEventTime));
+        try {
+            jobWatch = eventsCmd.exec(new ResultCallback.Adapter<Event>() {
+                @Override
+                public void onStart(Closeable stream) {
+                    super.onStart(stream);
+                    logger.debug("Watching Docker container events");
+                    jobWatchStarted();
+                }
+
+                @Override
+                public void onNext(Event event) {
+                    if (event.getTime() != null) lastJobEventTime = event.getTime();
+                    // Jobs are run in containers named after their job id
+                    String name = event.getActor() != null && event.getActor().getAttributes() != null ? event.getActor().getAttributes().get("name") : null;
+                    if (name != null) jobStatusChanged(name, JobStatus.FINISHED);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    logger.warn("Docker container events stream failed: {}", throwable.getMessage());
+                    super.onError(throwable);
+                    restartJobWatch();
+                }
+
+                @Override
+                public void onComplete() {
+                    super.onComplete();
+                    restartJobWatch();
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Could not watch Docker container events: {}", e.getMessage());
+            this.restartJobWatch();
+        }
+    }
+
+    private void restartJobWatch() {
+        if (closing) return;
+        this.jobWatchLost();
+        jobWatchScheduler.schedule(this::startJobWatch, JOB_WATCH_RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void stopJobWatch() {
+        if (jobWatchScheduler != null) jobWatchScheduler.shutdownNow();
+        if (jobWatch == null) return;
+        try {
+            jobWatch.close();
+        } catch (IOException e) {
+            logger.debug("Could not close Docker container events stream: {}", e.getMessage());
+        }
+    }
+
     @Override
     public ContainerKey ensureAvailableService(String service) {
-        if (this.syncContainerIds.get(service) != null)
-            return this.getServiceContainerKey(service);
+        ServiceContainerPool pool = this.servicePools.computeIfAbsent(service, this::createServicePool);
+        return new DockerContainerKeyImpl(pool.select(), service);
+    }
+
+    @Override
+    public void warmUpService(String service) {
+        this.servicePools.computeIfAbsent(service, this::createServicePool).fill();
+    }
+
+    private ServiceContainerPool createServicePool(String service) {
+        Integer poolSize = this.dockerProperties.getServices().get(service).getPoolSize();
+        Duration healthCheckInterval = Duration.ofSeconds(this.dockerProperties.getServiceHealthCheckIntervalInSeconds());
+        return new ServiceContainerPool(service, poolSize == null ? 1 : poolSize, healthCheckInterval, new ServiceContainerPool.Lifecycle() {
+            @Override
+            public String start() {
+                return startServiceContainer(service);
+            }
+
+            @Override
+            public boolean isHealthy(String containerId) {
+                return isRunning(containerId);
+            }
+
+            @Override
+            public void retire(String containerId) {
+                closeWorker(containerId);
+                removeContainer(new DockerContainerKeyImpl(containerId));
+            }
+        });
+    }
 
+    private String startServiceContainer(String service) {
         HostConfig config = HostConfig.newHostConfig();
         if (dockerProperties.getServices().get(service).getVolumeBinding() != null && dockerProperties.getServices().get(service).getVolumeBinding().length > 0) {
             List<Bind> binds = Arrays
@@ -201,25 +285,81 @@ public class DockerContainerManagementServiceImpl extends ContainerManagementSer
                 .exec();
 
         this.dockerClient.startContainerCmd(c.getId()).exec();
-        this.syncContainerIds.put(service, c.getId());
-        return this.getServiceContainerKey(service);
+        logger.debug("Started container {} for service {}", containerName, service);
+        return c.getId();
+    }
+
+    private boolean isRunning(String containerId) {
+        try {
+            InspectContainerResponse containerInfo = this.dockerClient.inspectContainerCmd(containerId).exec();
+            return Boolean.TRUE.equals(containerInfo.getState().getRunning());
+        } catch (NotFoundException e) {
+            return false;
+        }
+    }
+
+    private ServiceContainerPool poolOf(String containerId) {
+        for (ServiceContainerPool pool : this.servicePools.values()) {
+            if (pool.contains(containerId)) return pool;
+        }
+        return null;
+    }
+
+    /**
+     * Releases the load the pool counted for the command when it selected the container, and drops the container
+     * from its pool when docker reports it missing or stopped.
+     */
+    private <T> T onServiceContainer(ContainerKey executionKey, ContainerCall<T> call) throws InterruptedException, IOException {
+        String containerId = ((DockerContainerKeyImpl) executionKey).getContainerId();
+        ServiceContainerPool pool = this.poolOf(containerId);
+        try {
+            return call.call();
+        } catch (NotFoundException | ConflictException e) {
+            if (pool != null) pool.evict(containerId);
+            throw e;
+        } finally {
+            if (pool != null) pool.finished(containerId);
+        }
     }
 
-    private ContainerKey getServiceContainerKey(String service) {
-        if (this.syncContainerIds.get(service) == null)
-            this.ensureAvailableService(service);
-        return new DockerContainerKeyImpl(this.syncContainerIds.get(service));
+    @FunctionalInterface
+    private interface ContainerCall<T> {
+        T call() throws InterruptedException, IOException;
     }
 
     @Override
-    public String execCommand(CommandType type, List<String> command, ContainerKey executionKey) throws InterruptedException {
+    public String execCommand(CommandType type, List<String> command, ContainerKey executionKey) throws InterruptedException, IOException, ApiException {
+        return this.execCommand(type, command, null, executionKey);
+    }
+
+    @Override
+    public String execCommand(CommandType type, List<String> command, String input, ContainerKey executionKey) throws InterruptedException, IOException, ApiException {
+        return this.recordExecution(type, command, executionKey, execution -> this.onServiceContainer(executionKey, () -> this.runCommand(command, input, executionKey, execution)));
+    }
+
+    @Override
+    public <T> T execCommand(CommandType type, List<String> command, ContainerKey executionKey, ExecOutputParser<T> parser) throws InterruptedException, IOException, ApiException {
+        return this.recordExecution(type, command, executionKey, execution -> this.onServiceContainer(executionKey, () -> this.runCommand(command, executionKey, parser, execution)));
+    }
+
+    private String runCommand(List<String> command, String input, ContainerKey executionKey, ExecutionRecorder.Execution execution) throws InterruptedException, IOException {
         logger.debug("Executing docker command -> {}", command.stream().reduce("", (result, element) -> result + " " + element).trim());
+        if (this.isWorkerCommand(command)) {
+            try {
+                String collectedResult = this.execOnWorker(command, input, executionKey, execution).stdoutText();
+                logger.debug(collectedResult);
+                return collectedResult;
+            } catch (ManagerWorker.UnavailableException e) {
+                logger.warn("Manager worker unavailable, falling back to a one-off exec: {}", e.getMessage());
+            }
+        }
         ExecCreateCmdResponse execCreate = this.dockerClient
                 .execCreateCmd(((DockerContainerKeyImpl) executionKey).getContainerId())
                 .withAttachStdout(true)
                 .withAttachStderr(true)
                 .withAttachStdin(true)
-                .withTty(true)
+                // A tty would echo the input back into the output
+                .withTty(input == null)
                 .withCmd(command.toArray(new String[0]))
                 .exec();
 
@@ -227,16 +367,137 @@ public class DockerContainerManagementServiceImpl extends ContainerManagementSer
         ToStringConsumer result = new ToStringConsumer();
         callback.addConsumer(OutputFrame.OutputType.STDOUT, result);
 
-        this.dockerClient
+        ExecStartCmd execStart = this.dockerClient
                 .execStartCmd(execCreate.getId())
-                .withDetach(false)
-                .exec(callback)
-                .awaitCompletion();
+                .withDetach(false);
+        if (input != null) execStart.withStdIn(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+        execStart.exec(callback);
+        execution.startedExec();
+        callback.awaitCompletion();
         String collectedResult = result.toUtf8String();
         logger.debug(collectedResult);
         return collectedResult;
     }
 
+    @Override
+    protected ManagerWorker openWorker(ContainerKey executionKey) throws IOException {
+        String containerId = ((DockerContainerKeyImpl) executionKey).getContainerId();
+        ExecCreateCmdResponse execCreate = this.dockerClient
+                .execCreateCmd(containerId)
+                .withAttachStdout(true)
+                .withAttachStderr(true)
+                .withAttachStdin(true)
+                .withTty(false)
+                .withCmd(this.workerCommand().toArray(new String[0]))
+                .exec();
+
+        // A channel pipe instead of piped streams, since requests are written from any request thread
+        Pipe pipe = Pipe.open();
+        ManagerWorker worker = new ManagerWorker(containerId, Channels.newOutputStream(pipe.sink()), this.objectMapper);
+        this.dockerClient
+                .execStartCmd(execCreate.getId())
+                .withDetach(false)
+                .withStdIn(Channels.newInputStream(pipe.source()))
+                .exec(new ResultCallback.Adapter<Frame>() {
+                    @Override
+                    public void onNext(Frame frame) {
+                        if (frame.getStreamType() == StreamType.STDOUT)
+                            worker.accept(frame.getPayload(), 0, frame.getPayload().length);
+                        else if (frame.getStreamType() == StreamType.STDERR)
+                            logger.debug(new String(frame.getPayload(), StandardCharsets.UTF_8).trim());
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        worker.terminated(throwable);
+                        super.onError(throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        worker.terminated(null);
+                        super.onComplete();
+                    }
+                });
+        logger.debug("Started manager worker in container {}", containerId);
+        return worker;
+    }
+
+    private <T> T runCommand(List<String> command, ContainerKey executionKey, ExecOutputParser<T> parser, ExecutionRecorder.Execution execution) throws InterruptedException, IOException {
+        logger.debug("Executing docker command -> {}", command.stream().reduce("", (result, element) -> result + " " + element).trim());
+        if (this.isWorkerCommand(command)) {
+            try {
+                ManagerWorker.Reply reply = this.execOnWorker(command, null, executionKey, execution);
+                // Parsed straight from the reply bytes, the worker sends the script output as it was written
+                try (JsonParser json = this.objectMapper.createParser(reply.stdout())) {
+                    return parser.parse(json);
+                }
+            } catch (ManagerWorker.UnavailableException e) {
+                logger.warn("Manager worker unavailable, falling back to a one-off exec: {}", e.getMessage());
+            }
+        }
+        ExecCreateCmdResponse execCreate = this.dockerClient
+                .execCreateCmd(((DockerContainerKeyImpl) executionKey).getContainerId())
+                .withAttachStdout(true)
+                .withAttachStderr(true)
+                .withAttachStdin(true)
+                .withTty(true)
+                .withCmd(command.toArray(new String[0]))
+                .exec();
+
+        // Frames are handed to the parser as they arrive instead of being collected into a string first
+        Pipe pipe = Pipe.open();
+        OutputStream frames = Channels.newOutputStream(pipe.sink());
+        ResultCallback.Adapter<Frame> callback = this.dockerClient
+                .execStartCmd(execCreate.getId())
+                .withDetach(false)
+                .exec(new ResultCallback.Adapter<>() {
+                    @Override
+                    public void onNext(Frame frame) {
+                        if (frame.getStreamType() != StreamType.STDOUT && frame.getStreamType() != StreamType.RAW)
+                            return;
+                        try {
+                            frames.write(frame.getPayload());
+                        } catch (IOException e) {
+                            logger.debug("Dropping output of docker command, the parser is gone");
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        this.closeFrames();
+                        super.onError(throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        this.closeFrames();
+                        super.onComplete();
+                    }
+
+                    private void closeFrames() {
+                        try {
+                            frames.close();
+                        } catch (IOException ignored) {
+                        }
+                    }
+                });
+        execution.startedExec();
+        try (InputStream output = new LogLineFilterInputStream(Channels.newInputStream(pipe.source()))) {
+            T result;
+            try (JsonParser json = this.objectMapper.createParser(output)) {
+                json.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+                result = parser.parse(json);
+            }
+            // Whatever follows the parsed value still has to be read for the exec to complete
+            output.transferTo(OutputStream.nullOutputStream());
+            callback.awaitCompletion();
+            return result;
+        } finally {
+            callback.close();
+        }
+    }
+
     private void removeContainer(DockerContainerKeyImpl executionKey) {
         JobStatus status;
         try {
@@ -251,10 +512,10 @@ public class DockerContainerManagementServiceImpl extends ContainerManagementSer
 
     @Override
     public void removeService(String service) {
-        if (this.syncContainerIds.get(service) != null)
+        ServiceContainerPool pool = this.servicePools.remove(service);
+        if (pool == null)
             return;
-        this.removeContainer(new DockerContainerKeyImpl(this.syncContainerIds.get(service)));
-        this.syncContainerIds.remove(service);
+        pool.clear();
     }
 
 }
@@ -0,0 +1,13 @@
+package gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Consumes the JSON output of a container command while it is being produced.
+ */
+@FunctionalInterface
+public interface ExecOutputParser<T> {
+    T parse(JsonParser output) throws IOException;
+}
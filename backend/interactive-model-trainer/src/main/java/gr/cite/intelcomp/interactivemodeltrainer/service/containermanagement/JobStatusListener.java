@@ -0,0 +1,23 @@
+package gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement;
+
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.JobStatus;
+
+/**
+ * Receives the job status changes reported by the watch of a {@link ContainerManagementService}. Changes of
+ * containers or pods that are not jobs are reported as well, so listeners are expected to ignore unknown ids.
+ */
+public interface JobStatusListener {
+
+    void onJobStatus(String jobId, JobStatus status);
+
+    /**
+     * The watch is connected. Changes made while it was down may not have been reported.
+     */
+    void onWatchStarted();
+
+    /**
+     * The watch is disconnected and changes are not reported until it starts again.
+     */
+    void onWatchLost();
+
+}
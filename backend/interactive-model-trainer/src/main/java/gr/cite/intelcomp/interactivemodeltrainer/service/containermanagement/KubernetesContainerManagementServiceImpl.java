@@ -1,18 +1,20 @@
 package gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.CommandType;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.JobStatus;
 import gr.cite.intelcomp.interactivemodeltrainer.common.scope.user.UserScope;
 import gr.cite.intelcomp.interactivemodeltrainer.configuration.*;
-import gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.cache.KubernetesDeploymentByLabelCacheService;
-import gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.cache.KubernetesPodByLabelCacheService;
+import gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.cache.KubernetesResourceIndex;
 import gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.models.ContainerKey;
 import gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.models.ExecutionContainerParams;
 import gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.models.ExecutionParams;
 import gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.models.KubernetesContainerKeyImpl;
-import gr.cite.intelcomp.interactivemodeltrainer.service.execution.ExecutionService;
+import gr.cite.intelcomp.interactivemodeltrainer.service.execution.ExecutionRecorder;
 import gr.cite.tools.logging.LoggerService;
 import io.kubernetes.client.Exec;
+import io.kubernetes.client.informer.ResourceEventHandler;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.Configuration;
@@ -27,19 +29,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.util.ResourceUtils;
-import org.testcontainers.shaded.org.awaitility.Awaitility;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 @Service
@@ -47,23 +51,35 @@ import java.util.stream.Collectors;
 public class KubernetesContainerManagementServiceImpl extends ContainerManagementServiceImpl {
     private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(KubernetesContainerManagementServiceImpl.class));
     private final KubernetesProperties kubernetesProperties;
-    private final KubernetesDeploymentByLabelCacheService kubernetesDeploymentByLabelCacheService;
-    private final KubernetesPodByLabelCacheService kubernetesPodByLabelCacheService;
-    private static final ReentrantLock ensureDeploymentLock = new ReentrantLock();
-    private static final ReentrantLock getAvailablePodsLock = new ReentrantLock();
+    private final ObjectMapper objectMapper;
+    private final KubernetesResourceIndex resourceIndex;
+    private final Map<String, Object> deploymentCreationLocks = new ConcurrentHashMap<>();
+    private final Map<String, String> createdDeployments = new ConcurrentHashMap<>();
+
+    private static final Duration INDEX_SYNC_TIMEOUT = Duration.ofSeconds(30);
 
     @Autowired
-    public KubernetesContainerManagementServiceImpl(KubernetesProperties kubernetesProperties, UserScope userScope, ExecutionService executionService, KubernetesDeploymentByLabelCacheService kubernetesDeploymentByLabelCacheService, KubernetesPodByLabelCacheService kubernetesPodByLabelCacheService) throws IOException {
-        super(userScope, executionService);
+    public KubernetesContainerManagementServiceImpl(KubernetesProperties kubernetesProperties, UserScope userScope, ExecutionRecorder executionRecorder, ContainerServicesProperties containerServicesProperties, ObjectMapper objectMapper) throws IOException {
+        super(userScope, executionRecorder, containerServicesProperties);
         this.kubernetesProperties = kubernetesProperties;
-        this.kubernetesDeploymentByLabelCacheService = kubernetesDeploymentByLabelCacheService;
-        this.kubernetesPodByLabelCacheService = kubernetesPodByLabelCacheService;
+        this.objectMapper = objectMapper;
         ApiClient client = ClientBuilder.kubeconfig(KubeConfig.loadKubeConfig(new FileReader(ResourceUtils.getFile(this.kubernetesProperties.getKubeConfPath())))).build();
         Configuration.setDefaultApiClient(client);
 
+        // Watches are held open by the server until their own timeout, so the informers get a client without a read timeout
+        ApiClient informerClient = ClientBuilder.kubeconfig(KubeConfig.loadKubeConfig(new FileReader(ResourceUtils.getFile(this.kubernetesProperties.getKubeConfPath())))).build();
+        informerClient.setHttpClient(informerClient.getHttpClient().newBuilder().readTimeout(0, TimeUnit.SECONDS).build());
+        this.resourceIndex = new KubernetesResourceIndex(
+                informerClient,
+                this.kubernetesProperties.getNamespace(),
+                this.kubernetesProperties.getDeployments().values().stream().map(KubernetesDeploymentConfiguration::getPodLabelSelector).filter(Objects::nonNull).toList(),
+                this.kubernetesProperties.getDeployments().values().stream().map(KubernetesDeploymentConfiguration::getDeploymentLabelSelector).filter(Objects::nonNull).toList());
+        this.resourceIndex.start();
     }
 
     public void destroy() {
+        this.resourceIndex.stop();
+        this.closeWorkers();
         if (this.kubernetesProperties.getServices().isEmpty()) return;
         logger.info("Removing dynamically invoked containers...");
         for (String executionId : this.kubernetesProperties.getServices().keySet()) {
@@ -78,41 +94,45 @@ public class KubernetesContainerManagementServiceImpl extends ContainerManagemen
     public ContainerKey ensureAvailableService(String service) throws IOException, ApiException {
         KubernetesServiceConfiguration serviceConfiguration = this.kubernetesProperties.getServices().get(service);
         KubernetesDeploymentConfiguration deploymentConfiguration = this.kubernetesProperties.getDeployments().get(serviceConfiguration.getDeploymentName());
-        KubernetesDeploymentByLabelCacheService.KubernetesDeploymentByLabelCacheValue cacheValue = this.kubernetesDeploymentByLabelCacheService.lookup(
-                this.kubernetesDeploymentByLabelCacheService.buildKey(this.kubernetesProperties.getNamespace(), deploymentConfiguration.getDeploymentLabelSelector()));
-        if (cacheValue != null) return this.getServiceContainerKey(service);
+        if (this.deploymentName(deploymentConfiguration) == null) this.createDeployment(serviceConfiguration, deploymentConfiguration);
+        return this.getServiceContainerKey(service);
+    }
 
-        AppsV1Api appsV1Api = new AppsV1Api();
-        boolean isLockAcquired = false;
-        try {
-            isLockAcquired = ensureDeploymentLock.tryLock(1, TimeUnit.SECONDS);
-            if (isLockAcquired) {
-                try {
-                    try {
-                        V1DeploymentList deploymentList = appsV1Api.listNamespacedDeployment(this.kubernetesProperties.getNamespace(), null, null, null, null, deploymentConfiguration.getDeploymentLabelSelector(), null, null, null, null, null);
-                        if (!deploymentList.getItems().isEmpty()) {
-                            this.kubernetesDeploymentByLabelCacheService.put(new KubernetesDeploymentByLabelCacheService.KubernetesDeploymentByLabelCacheValue(this.kubernetesProperties.getNamespace(), deploymentConfiguration.getDeploymentLabelSelector(), Objects.requireNonNull(deploymentList.getItems().get(0).getMetadata()).getName()));
-                        } else {
-                            String jobId = serviceConfiguration.getDeploymentName() + new SecureRandom().nextInt();
-                            V1Deployment deploymentSpec = this.loadV1DeploymentYmlWithResourceLoader(deploymentConfiguration.getPath());
-                            Objects.requireNonNull(deploymentSpec.getMetadata()).setName(jobId);
-
-                            //V1Namespace namespace = api.readNamespace(this.kubernetesProperties.getNamespace(), null);
-                            V1Deployment deployment = appsV1Api.createNamespacedDeployment(this.kubernetesProperties.getNamespace(), deploymentSpec, null, null, null, null);
-                            this.kubernetesDeploymentByLabelCacheService.put(new KubernetesDeploymentByLabelCacheService.KubernetesDeploymentByLabelCacheValue(this.kubernetesProperties.getNamespace(), deploymentConfiguration.getDeploymentLabelSelector(), Objects.requireNonNull(deployment.getMetadata()).getName()));
-                        }
-                    } catch (ApiException e) {
-                        logger.error(e);
-                        throw e;
-                    }
-                } finally {
-                    ensureDeploymentLock.unlock();
-                }
+    private String deploymentName(KubernetesDeploymentConfiguration deploymentConfiguration) {
+        String selector = deploymentConfiguration.getDeploymentLabelSelector();
+        String name = this.resourceIndex.deployment(selector);
+        if (name == null) return this.createdDeployments.get(selector);
+        this.createdDeployments.remove(selector);
+        return name;
+    }
+
+    /**
+     * Creates the deployment of a service unless the index, once synced, already has one. Only the callers of the
+     * same deployment wait on each other here, and only while it is missing.
+     */
+    private void createDeployment(KubernetesServiceConfiguration serviceConfiguration, KubernetesDeploymentConfiguration deploymentConfiguration) throws IOException, ApiException {
+        String selector = deploymentConfiguration.getDeploymentLabelSelector();
+        synchronized (this.deploymentCreationLocks.computeIfAbsent(selector, k -> new Object())) {
+            try {
+                if (!this.resourceIndex.awaitSynced(INDEX_SYNC_TIMEOUT)) throw new IllegalStateException("Kubernetes resource index did not sync in time");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            if (this.deploymentName(deploymentConfiguration) != null) return;
+            try {
+                String jobId = serviceConfiguration.getDeploymentName() + new SecureRandom().nextInt();
+                V1Deployment deploymentSpec = this.loadV1DeploymentYmlWithResourceLoader(deploymentConfiguration.getPath());
+                Objects.requireNonNull(deploymentSpec.getMetadata()).setName(jobId);
+
+                V1Deployment deployment = new AppsV1Api().createNamespacedDeployment(this.kubernetesProperties.getNamespace(), deploymentSpec, null, null, null, null);
+                // Remembered until the informer reports it, so that it is not created twice
+                this.createdDeployments.put(selector, Objects.requireNonNull(deployment.getMetadata()).getName());
+            } catch (ApiException e) {
+                logger.error(e);
+                throw e;
             }
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
         }
-        return this.getServiceContainerKey(service);
     }
 
     private V1Deployment loadV1DeploymentYmlWithResourceLoader(String defaultPodYamlLocation) throws IOException {
@@ -127,59 +147,22 @@ public class KubernetesContainerManagementServiceImpl extends ContainerManagemen
         return podYaml;
     }
 
-    private ContainerKey getServiceContainerKey(String service) throws IOException, ApiException {
+    private ContainerKey getServiceContainerKey(String service) {
         KubernetesServiceConfiguration serviceConfiguration = this.kubernetesProperties.getServices().get(service);
         KubernetesDeploymentConfiguration deploymentConfiguration = this.kubernetesProperties.getDeployments().get(serviceConfiguration.getDeploymentName());
 
-        KubernetesPodByLabelCacheService.KubernetesPodByLabelCacheValue cacheValue = this.kubernetesPodByLabelCacheService.lookup(
-                this.kubernetesPodByLabelCacheService.buildKey(this.kubernetesProperties.getNamespace(), deploymentConfiguration.getPodLabelSelector()));
-        if (cacheValue != null)
-            return new KubernetesContainerKeyImpl(this.kubernetesProperties.getNamespace(), cacheValue.getNames().get(new SecureRandom().nextInt(cacheValue.getNames().size())), serviceConfiguration.getContainerName(), deploymentConfiguration.getPodLabelSelector());
-
-        List<String> podNames = new ArrayList<>();
-        boolean isLockAcquired = false;
-        try {
-            isLockAcquired = getAvailablePodsLock.tryLock(this.kubernetesProperties.getWaitForRunningPodInMilliseconds(), TimeUnit.MILLISECONDS);
-            if (isLockAcquired) {
-                try {
-                    try {
-                        CoreV1Api api = new CoreV1Api();
-//                        V1PodList v1PodList = api.listNamespacedPod(this.kubernetesProperties.getNamespace(), null, false, null, null, deploymentConfiguration.getPodLabelSelector(), null, null, null, null, null);
-
-                        final List<V1Pod> pods = this.getActivePods(api, deploymentConfiguration);
-                        if (pods.isEmpty() && this.kubernetesProperties.getWaitForRunningPodInMilliseconds() != null) {
-                            Awaitility.with().pollInterval(200, TimeUnit.MILLISECONDS).atMost(this.kubernetesProperties.getWaitForRunningPodInMilliseconds(), TimeUnit.MILLISECONDS).await()
-                                    .until(() -> {
-                                        pods.clear();
-                                        pods.addAll(this.getActivePods(api, deploymentConfiguration));
-                                        return !pods.isEmpty();
-                                    });
-                        }
-                        podNames.addAll(pods.stream().map(x -> Objects.requireNonNull(x.getMetadata()).getName()).toList());
-                        if (!pods.isEmpty())
-                            this.kubernetesPodByLabelCacheService.put(new KubernetesPodByLabelCacheService.KubernetesPodByLabelCacheValue(this.kubernetesProperties.getNamespace(), deploymentConfiguration.getPodLabelSelector(), podNames));
-                    } catch (ApiException e) {
-                        logger.error(e);
-                        throw e;
-                    }
-                } finally {
-                    getAvailablePodsLock.unlock();
-                }
+        List<String> podNames = this.resourceIndex.readyPods(deploymentConfiguration.getPodLabelSelector());
+        if (podNames.isEmpty() && this.kubernetesProperties.getWaitForRunningPodInMilliseconds() != null) {
+            try {
+                podNames = this.resourceIndex.awaitReadyPods(deploymentConfiguration.getPodLabelSelector(), Duration.ofMillis(this.kubernetesProperties.getWaitForRunningPodInMilliseconds()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
             }
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
         }
         if (podNames.isEmpty()) throw new RuntimeException("No running pod for " + service);
 
-        return new KubernetesContainerKeyImpl(this.kubernetesProperties.getNamespace(), podNames.get(new SecureRandom().nextInt(podNames.size())), serviceConfiguration.getContainerName(), deploymentConfiguration.getPodLabelSelector());
-    }
-
-    private List<V1Pod> getActivePods(CoreV1Api api, KubernetesDeploymentConfiguration deploymentConfiguration) throws ApiException {
-        V1PodList v1PodList = api.listNamespacedPod(this.kubernetesProperties.getNamespace(), null, Boolean.FALSE, null, null, deploymentConfiguration.getPodLabelSelector(), null, null, null, null, null);
-        return v1PodList.getItems()
-                .stream()
-                .filter(x -> Objects.requireNonNull(Objects.requireNonNull(x.getStatus()).getPhase()).toLowerCase(Locale.ROOT).equals(JobStatus.PodPhase.Running.toLowerCase(Locale.ROOT)))
-                .toList();
+        return new KubernetesContainerKeyImpl(this.kubernetesProperties.getNamespace(), podNames.get(new SecureRandom().nextInt(podNames.size())), serviceConfiguration.getContainerName(), deploymentConfiguration.getPodLabelSelector(), service);
     }
 
     @Override
@@ -248,6 +231,60 @@ public class KubernetesContainerManagementServiceImpl extends ContainerManagemen
         return JobStatus.podStatusToJobStatus(Objects.requireNonNull(Objects.requireNonNull(pod.getStatus()).getPhase()));
     }
 
+    /**
+     * Follows the pods of the namespace through the pod informer of the resource index, so a job is reported as
+     * soon as its pod reaches a final phase. The informer lists the pods again whenever its watch is restarted, so
+     * no phase change is lost while it reconnects. A job pod deleted before it finished is reported as killed.
+     * <p>
+     * The watch is reported as started only once the pods have been listed and the informer has synced, and as
+     * lost whenever the list or the watch of the informer fails, so the job statuses are polled until it recovers.
+     */
+    @Override
+    protected void startJobWatch() {
+        this.resourceIndex.addPodHandler(new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(V1Pod pod) {
+                reportPod(pod, false);
+            }
+
+            @Override
+            public void onUpdate(V1Pod oldPod, V1Pod newPod) {
+                reportPod(newPod, false);
+            }
+
+            @Override
+            public void onDelete(V1Pod pod, boolean deletedFinalStateUnknown) {
+                reportPod(pod, true);
+            }
+        });
+        this.resourceIndex.addPodWatchListener(new KubernetesResourceIndex.PodWatchListener() {
+            @Override
+            public void onPodsListed() {
+                jobWatchStarted();
+            }
+
+            @Override
+            public void onPodWatchFailed() {
+                jobWatchLost();
+            }
+        });
+    }
+
+    private void reportPod(V1Pod pod, boolean deleted) {
+        if (pod.getMetadata() == null || pod.getStatus() == null || pod.getStatus().getPhase() == null) return;
+        JobStatus status;
+        try {
+            status = JobStatus.podStatusToJobStatus(pod.getStatus().getPhase());
+        } catch (Exception e) {
+            return;
+        }
+        if (JobStatus.checkIfStatusIsActive(status)) {
+            if (deleted) this.jobStatusChanged(pod.getMetadata().getName(), JobStatus.KILLED);
+        } else {
+            this.jobStatusChanged(pod.getMetadata().getName(), status);
+        }
+    }
+
     @Override
     public void deleteJob(String jobId) throws ApiException {
         try {
@@ -261,14 +298,43 @@ public class KubernetesContainerManagementServiceImpl extends ContainerManagemen
 
     @Override
     public String execCommand(CommandType type, List<String> command, ContainerKey executionKey) throws InterruptedException, ApiException, IOException {
+        return this.execCommand(type, command, null, executionKey);
+    }
+
+    @Override
+    public String execCommand(CommandType type, List<String> command, String input, ContainerKey executionKey) throws InterruptedException, ApiException, IOException {
+        return this.recordExecution(type, command, executionKey, execution -> this.runCommand(command, input, executionKey, execution));
+    }
+
+    @Override
+    public <T> T execCommand(CommandType type, List<String> command, ContainerKey executionKey, ExecOutputParser<T> parser) throws InterruptedException, ApiException, IOException {
+        return this.recordExecution(type, command, executionKey, execution -> this.runCommand(command, executionKey, parser, execution));
+    }
+
+    private String runCommand(List<String> command, String input, ContainerKey executionKey, ExecutionRecorder.Execution execution) throws InterruptedException, ApiException, IOException {
         logger.debug("Executing docker command -> {}", command.stream().reduce("", (result, element) -> result + " " + element).trim());
 
-//        ExecutionEntity executionEntity = this.initializeExecution(type, String.join(" ", command));
         KubernetesContainerKeyImpl kubernetesExecutionKey = (KubernetesContainerKeyImpl) executionKey;
+        if (this.isWorkerCommand(command)) {
+            try {
+                String collectedResult = this.execOnWorker(command, input, executionKey, execution).stdoutText().trim();
+                logger.debug(collectedResult);
+                return collectedResult;
+            } catch (ManagerWorker.UnavailableException e) {
+                logger.warn("Manager worker unavailable, falling back to a one-off exec: {}", e.getMessage());
+            }
+        }
         try {
             Exec exec = new Exec();
             Process process = null;
-            process = exec.exec(kubernetesExecutionKey.getNamespace(), kubernetesExecutionKey.getPodName(), command.toArray(new String[0]), kubernetesExecutionKey.getContainerName(), false, false);
+            process = exec.exec(kubernetesExecutionKey.getNamespace(), kubernetesExecutionKey.getPodName(), command.toArray(new String[0]), kubernetesExecutionKey.getContainerName(), input != null, false);
+            execution.startedExec();
+            if (input != null) {
+                // Closing stdin is what tells the script the input is complete
+                try (OutputStream processInput = process.getOutputStream()) {
+                    processInput.write(input.getBytes(StandardCharsets.UTF_8));
+                }
+            }
 //            BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()));
             StringBuilder processOutput = new StringBuilder();
             try (BufferedReader processOutputReader = new BufferedReader(new InputStreamReader(process.getInputStream()));) {
@@ -280,27 +346,71 @@ public class KubernetesContainerManagementServiceImpl extends ContainerManagemen
             process.waitFor();
 
             String collectedResult = processOutput.toString().trim();
-//            this.finishAndUpdateExecution(executionEntity, collectedResult);
             logger.debug(collectedResult);
             return collectedResult;
         } catch (ApiException | IOException ex) {
-            this.kubernetesPodByLabelCacheService.evict(this.kubernetesPodByLabelCacheService.buildKey(this.kubernetesProperties.getNamespace(), kubernetesExecutionKey.getPodLabelSelector()));
+            logger.warn("Exec in pod {} failed: {}", kubernetesExecutionKey.getPodName(), ex.getMessage());
+            throw ex;
+        }
+
+    }
+
+    private <T> T runCommand(List<String> command, ContainerKey executionKey, ExecOutputParser<T> parser, ExecutionRecorder.Execution execution) throws InterruptedException, ApiException, IOException {
+        logger.debug("Executing docker command -> {}", command.stream().reduce("", (result, element) -> result + " " + element).trim());
+
+        KubernetesContainerKeyImpl kubernetesExecutionKey = (KubernetesContainerKeyImpl) executionKey;
+        try {
+            if (this.isWorkerCommand(command)) {
+                try {
+                    ManagerWorker.Reply reply = this.execOnWorker(command, null, executionKey, execution);
+                    // Parsed straight from the reply bytes, the worker sends the script output as it was written
+                    try (JsonParser json = this.objectMapper.createParser(reply.stdout())) {
+                        return parser.parse(json);
+                    }
+                } catch (ManagerWorker.UnavailableException e) {
+                    logger.warn("Manager worker unavailable, falling back to a one-off exec: {}", e.getMessage());
+                }
+            }
+            Process process = new Exec().exec(kubernetesExecutionKey.getNamespace(), kubernetesExecutionKey.getPodName(), command.toArray(new String[0]), kubernetesExecutionKey.getContainerName(), false, false);
+            execution.startedExec();
+            try (InputStream output = new LogLineFilterInputStream(process.getInputStream())) {
+                T result;
+                try (JsonParser json = this.objectMapper.createParser(output)) {
+                    json.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+                    result = parser.parse(json);
+                }
+                output.transferTo(OutputStream.nullOutputStream());
+                process.waitFor();
+                return result;
+            } finally {
+                process.destroy();
+            }
+        } catch (ApiException | IOException ex) {
+            logger.warn("Exec in pod {} failed: {}", kubernetesExecutionKey.getPodName(), ex.getMessage());
             throw ex;
         }
+    }
 
+    @Override
+    protected ManagerWorker openWorker(ContainerKey executionKey) throws IOException, ApiException {
+        KubernetesContainerKeyImpl kubernetesExecutionKey = (KubernetesContainerKeyImpl) executionKey;
+        Process process = new Exec().exec(kubernetesExecutionKey.getNamespace(), kubernetesExecutionKey.getPodName(), this.workerCommand().toArray(new String[0]), kubernetesExecutionKey.getContainerName(), true, false);
+        ManagerWorker worker = new ManagerWorker(kubernetesExecutionKey.getIdentifier(), process.getOutputStream(), this.objectMapper);
+        worker.readFrom(process.getInputStream());
+        worker.logFrom(process.getErrorStream());
+        logger.debug("Started manager worker in pod {}", kubernetesExecutionKey.getPodName());
+        return worker;
     }
 
     @Override
     public void removeService(String service) throws ApiException {
         KubernetesServiceConfiguration serviceConfiguration = this.kubernetesProperties.getServices().get(service);
         KubernetesDeploymentConfiguration deploymentConfiguration = this.kubernetesProperties.getDeployments().get(serviceConfiguration.getDeploymentName());
-        KubernetesDeploymentByLabelCacheService.KubernetesDeploymentByLabelCacheValue cacheValue = this.kubernetesDeploymentByLabelCacheService.lookup(
-                this.kubernetesDeploymentByLabelCacheService.buildKey(this.kubernetesProperties.getNamespace(), deploymentConfiguration.getDeploymentLabelSelector()));
-        if (cacheValue == null) return;
+        String deploymentName = this.deploymentName(deploymentConfiguration);
+        if (deploymentName == null) return;
         AppsV1Api appsV1Api = new AppsV1Api();
-        appsV1Api.deleteNamespacedDeployment(this.kubernetesProperties.getNamespace(), serviceConfiguration.getDeploymentName(), null, null, null, null, null, null);
-        this.kubernetesPodByLabelCacheService.evict(this.kubernetesPodByLabelCacheService.buildKey(this.kubernetesProperties.getNamespace(), deploymentConfiguration.getPodLabelSelector()));
-        this.kubernetesDeploymentByLabelCacheService.evict(this.kubernetesDeploymentByLabelCacheService.buildKey(this.kubernetesProperties.getNamespace(), deploymentConfiguration.getDeploymentLabelSelector()));
+        appsV1Api.deleteNamespacedDeployment(deploymentName, this.kubernetesProperties.getNamespace(), null, null, null, null, null, null);
+        this.createdDeployments.remove(deploymentConfiguration.getDeploymentLabelSelector());
     }
 
 }
@@ -0,0 +1,112 @@
+package gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Drops the lines written by the python logging module ("INFO:TMmodel:...") from a command output. When a
+ * command runs with a tty its log lines end up interleaved with the JSON it writes to stdout. Only the first
+ * bytes of every line are looked at, so the JSON itself, usually a single long line, passes through without
+ * being buffered.
+ */
+public class LogLineFilterInputStream extends FilterInputStream {
+
+    private static final byte[][] LOG_PREFIXES = {
+            "DEBUG:".getBytes(StandardCharsets.US_ASCII),
+            "INFO:".getBytes(StandardCharsets.US_ASCII),
+            "WARNING:".getBytes(StandardCharsets.US_ASCII),
+            "ERROR:".getBytes(StandardCharsets.US_ASCII),
+            "CRITICAL:".getBytes(StandardCharsets.US_ASCII)
+    };
+    private static final int LOOKAHEAD = 9;
+
+    private final byte[] lookahead = new byte[LOOKAHEAD];
+    private int lookaheadStart = 0;
+    private int lookaheadEnd = 0;
+    private boolean lineStart = true;
+    private boolean dropping = false;
+
+    public LogLineFilterInputStream(InputStream in) {
+        super(new BufferedInputStream(in));
+    }
+
+    @Override
+    public int read() throws IOException {
+        return this.next();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        int count = 0;
+        while (count < len) {
+            // Do not block for more input once something can be returned
+            if (count > 0 && lookaheadStart >= lookaheadEnd && in.available() == 0) break;
+            int c = this.next();
+            if (c < 0) break;
+            b[off + count++] = (byte) c;
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && this.next() >= 0) skipped++;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return 0;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private int next() throws IOException {
+        while (true) {
+            if (lineStart) {
+                lineStart = false;
+                this.fillLookahead();
+                dropping = this.isLogLine();
+            }
+            int c = lookaheadStart < lookaheadEnd ? lookahead[lookaheadStart++] & 0xff : in.read();
+            if (c < 0) return -1;
+            if (c == '\n') lineStart = true;
+            if (dropping) {
+                if (c == '\n') dropping = false;
+                continue;
+            }
+            return c;
+        }
+    }
+
+    private void fillLookahead() throws IOException {
+        lookaheadStart = 0;
+        lookaheadEnd = 0;
+        int c;
+        while (lookaheadEnd < LOOKAHEAD && (c = in.read()) >= 0) {
+            lookahead[lookaheadEnd++] = (byte) c;
+            if (c == '\n') break;
+        }
+    }
+
+    private boolean isLogLine() {
+        for (byte[] prefix : LOG_PREFIXES) {
+            if (lookaheadEnd < prefix.length) continue;
+            boolean matches = true;
+            for (int i = 0; i < prefix.length && matches; i++) {
+                matches = lookahead[i] == prefix[i];
+            }
+            if (matches) return true;
+        }
+        return false;
+    }
+
+}
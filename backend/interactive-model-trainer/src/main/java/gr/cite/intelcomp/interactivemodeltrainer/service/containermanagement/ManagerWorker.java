@@ -0,0 +1,293 @@
+package gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import gr.cite.tools.logging.LoggerService;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client side of the execWorker.py protocol. The worker is a python process kept running inside a manager
+ * container, which executes the manager scripts in its own interpreter. Requests are framed as a line with
+ * the payload byte length followed by the JSON payload. Replies are framed as a line with the request id, the
+ * status and the byte lengths of the script stdout and of the error, followed by the raw stdout and the error
+ * text, so the script output reaches the caller as the bytes it wrote and can be handed to a parser as is.
+ * Requests are written as soon as they are submitted, without waiting for earlier replies, and every reply
+ * completes the pending request with the same id.
+ */
+public class ManagerWorker implements Closeable {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(ManagerWorker.class));
+
+    private final String name;
+    private final OutputStream requests;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+
+    private final StringBuilder header = new StringBuilder();
+    private Frame frame;
+    private boolean replied;
+    private long lastReplyAt;
+
+    private volatile boolean alive = true;
+
+    public ManagerWorker(String name, OutputStream requests, ObjectMapper objectMapper) {
+        this.name = name;
+        this.requests = requests;
+        this.objectMapper = objectMapper;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isAlive() {
+        return alive;
+    }
+
+    /**
+     * The raw stdout of a request, with the time it waited behind earlier requests and the time it ran.
+     */
+    public record Reply(byte[] stdout, Duration queued, Duration run) {
+
+        public String stdoutText() {
+            return new String(stdout, StandardCharsets.UTF_8);
+        }
+
+    }
+
+    /**
+     * The reply being read, filled in as its bytes arrive.
+     */
+    private static class Frame {
+        private final long id;
+        private final boolean ok;
+        private final byte[] stdout;
+        private final byte[] error;
+        private int read;
+
+        private Frame(String header) {
+            String[] fields = header.trim().split(" ");
+            if (fields.length != 4) throw new NumberFormatException("Unexpected reply header " + header);
+            this.id = Long.parseLong(fields[0]);
+            this.ok = "ok".equals(fields[1]);
+            this.stdout = new byte[Integer.parseInt(fields[2])];
+            this.error = new byte[Integer.parseInt(fields[3])];
+        }
+
+        private int fill(byte[] data, int offset, int length) {
+            int count;
+            if (read < stdout.length) {
+                count = Math.min(length, stdout.length - read);
+                System.arraycopy(data, offset, stdout, read, count);
+            } else {
+                count = Math.min(length, stdout.length + error.length - read);
+                System.arraycopy(data, offset, error, read - stdout.length, count);
+            }
+            read += count;
+            return count;
+        }
+
+        private boolean complete() {
+            return read == stdout.length + error.length;
+        }
+    }
+
+    private record Pending(CompletableFuture<Reply> reply, long submittedAt) {
+    }
+
+    /**
+     * Runs a manager script invocation on the worker and waits for its output. The command is the script
+     * followed by its arguments, without the python executable.
+     */
+    public Reply execute(List<String> command, String input, Duration timeout) throws IOException, InterruptedException {
+        CompletableFuture<Reply> reply = this.submit(command, input);
+        try {
+            return reply.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) throw ioException;
+            throw new IOException(e.getCause());
+        } catch (TimeoutException e) {
+            // The worker handles requests in order, so everything queued behind this one is stuck as well
+            this.terminated(new IOException("Manager worker " + name + " did not reply within " + timeout));
+            this.close();
+            throw new IOException("Manager worker " + name + " did not reply within " + timeout, e);
+        }
+    }
+
+    public CompletableFuture<Reply> submit(List<String> command, String input) throws UnavailableException {
+        if (!alive) throw new UnavailableException("Manager worker " + name + " is not running");
+        long id = ids.incrementAndGet();
+        CompletableFuture<Reply> reply = new CompletableFuture<>();
+        pending.put(id, new Pending(reply, System.nanoTime()));
+
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("id", id);
+        request.set("argv", objectMapper.valueToTree(command));
+        request.put("input", input);
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(request);
+            synchronized (requests) {
+                requests.write((payload.length + "\n").getBytes(StandardCharsets.US_ASCII));
+                requests.write(payload);
+                requests.flush();
+            }
+        } catch (IOException e) {
+            pending.remove(id);
+            this.terminated(e);
+            throw new UnavailableException("Manager worker " + name + " could not accept the request", e);
+        }
+        return reply;
+    }
+
+    /**
+     * Sends an empty request and reports whether the worker answered it in time.
+     */
+    public boolean ping(Duration timeout) {
+        try {
+            this.submit(List.of(), null).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Feeds bytes read from the worker stdout. Calls are expected to come from a single reader.
+     */
+    public synchronized void accept(byte[] data, int offset, int length) {
+        int position = offset;
+        int end = offset + length;
+        try {
+            while (position < end) {
+                if (frame == null) {
+                    byte b = data[position++];
+                    if (b != '\n') {
+                        header.append((char) b);
+                        continue;
+                    }
+                    frame = new Frame(header.toString());
+                    header.setLength(0);
+                } else {
+                    position += frame.fill(data, position, end - position);
+                }
+                if (frame.complete()) {
+                    Frame completed = frame;
+                    frame = null;
+                    this.complete(completed);
+                }
+            }
+        } catch (NumberFormatException | NegativeArraySizeException e) {
+            logger.error("Malformed reply from manager worker {}", name);
+            this.terminated(new IOException("Malformed reply from manager worker " + name, e));
+            this.close();
+        }
+    }
+
+    /**
+     * Pumps the given worker stdout into {@link #accept(byte[], int, int)} on a daemon thread.
+     */
+    public void readFrom(InputStream replies) {
+        Thread reader = new Thread(() -> {
+            byte[] buffer = new byte[8192];
+            try (replies) {
+                int read;
+                while ((read = replies.read(buffer)) >= 0) {
+                    this.accept(buffer, 0, read);
+                }
+                this.terminated(null);
+            } catch (IOException e) {
+                this.terminated(e);
+            }
+        }, "manager-worker-" + name);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Drains the given worker stderr into the debug log on a daemon thread, so that it never fills up and
+     * blocks the worker.
+     */
+    public void logFrom(InputStream errors) {
+        Thread reader = new Thread(() -> {
+            try (BufferedReader lines = new BufferedReader(new InputStreamReader(errors, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    logger.debug(line);
+                }
+            } catch (IOException e) {
+                logger.debug("Manager worker {} stderr closed: {}", name, e.getMessage());
+            }
+        }, "manager-worker-" + name + "-stderr");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Marks the worker as gone and fails every request still waiting for a reply.
+     */
+    public void terminated(Throwable cause) {
+        if (alive) logger.debug("Manager worker {} terminated", name);
+        alive = false;
+        IOException failure = new IOException("Manager worker " + name + " terminated", cause);
+        for (Long id : pending.keySet()) {
+            Pending request = pending.remove(id);
+            if (request != null) request.reply().completeExceptionally(failure);
+        }
+    }
+
+    @Override
+    public void close() {
+        alive = false;
+        try {
+            // Closing stdin lets the worker exit once its current request is done
+            requests.close();
+        } catch (IOException e) {
+            logger.debug("Closing manager worker {} failed: {}", name, e.getMessage());
+        }
+    }
+
+    private void complete(Frame reply) {
+        Pending request = pending.remove(reply.id);
+        long previousReplyAt = lastReplyAt;
+        boolean first = !replied;
+        long now = System.nanoTime();
+        replied = true;
+        lastReplyAt = now;
+        if (request == null) return;
+        // Requests run one at a time and in order, so a request started running when the reply before it arrived
+        long startedAt = first || previousReplyAt - request.submittedAt() < 0 ? request.submittedAt() : previousReplyAt;
+        if (!reply.ok) {
+            // Same as a failed one-off exec, the caller gets whatever the script wrote to stdout
+            logger.warn("Manager worker {} command failed: {}", name, new String(reply.error, StandardCharsets.UTF_8));
+        }
+        request.reply().complete(new Reply(reply.stdout, Duration.ofNanos(startedAt - request.submittedAt()), Duration.ofNanos(now - startedAt)));
+    }
+
+    public static class UnavailableException extends IOException {
+        public UnavailableException(String message) {
+            super(message);
+        }
+
+        public UnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+}
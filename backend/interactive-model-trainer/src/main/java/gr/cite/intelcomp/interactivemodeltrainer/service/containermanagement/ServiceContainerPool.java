@@ -0,0 +1,184 @@
+package gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement;
+
+import gr.cite.tools.logging.LoggerService;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed size set of warm containers serving one manager service. Every selection routes to the container with
+ * the fewest commands in flight, rotating between equally loaded ones, and counts the command against the selected
+ * container right away, so that concurrent selections spread over the pool. Containers are started and checked on
+ * threads of the pool, never while a selection waits on the pool: an empty slot gets a start of its own, and a
+ * background check replaces the containers that are gone.
+ */
+public class ServiceContainerPool {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(ServiceContainerPool.class));
+
+    public interface Lifecycle {
+        String start();
+
+        boolean isHealthy(String containerId);
+
+        void retire(String containerId);
+    }
+
+    private final String service;
+    private final int capacity;
+    private final Lifecycle lifecycle;
+    private final Map<String, Member> members = new ConcurrentHashMap<>();
+    private final List<CompletableFuture<String>> starts = new CopyOnWriteArrayList<>();
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final ExecutorService starter;
+    private final ScheduledExecutorService healthChecker;
+
+    public ServiceContainerPool(String service, int capacity, Duration healthCheckInterval, Lifecycle lifecycle) {
+        this.service = service;
+        this.capacity = Math.max(capacity, 1);
+        this.lifecycle = lifecycle;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.starter = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "service-pool-" + service + "-start-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "service-pool-" + service + "-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(healthCheckInterval.toMillis(), 1000);
+        this.healthChecker.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the id of the least loaded container and counts a command against it, waiting for a container to
+     * start only when none is running yet. Every selection has to be followed by {@link #finished(String)}.
+     */
+    public String select() {
+        this.fill();
+        while (members.isEmpty()) {
+            List<CompletableFuture<String>> pending = List.copyOf(starts);
+            if (pending.isEmpty()) throw new IllegalStateException("Container pool of service " + service + " is closed");
+            try {
+                CompletableFuture.anyOf(pending.toArray(new CompletableFuture[0])).join();
+            } catch (CompletionException e) {
+                // Another start may still bring a container up, otherwise the failure goes to the caller
+                if (members.isEmpty() && starts.isEmpty()) {
+                    if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+                    throw e;
+                }
+            }
+        }
+        return this.reserve();
+    }
+
+    /**
+     * Starts containers for the empty slots of the pool, without waiting for them.
+     */
+    public synchronized void fill() {
+        if (starter.isShutdown()) return;
+        while (members.size() + starts.size() < capacity) {
+            CompletableFuture<String> start = new CompletableFuture<>();
+            starts.add(start);
+            starter.execute(() -> {
+                try {
+                    String containerId = lifecycle.start();
+                    members.put(containerId, new Member(containerId));
+                    starts.remove(start);
+                    start.complete(containerId);
+                } catch (RuntimeException e) {
+                    logger.warn("Could not start a container for service {}: {}", service, e.getMessage());
+                    starts.remove(start);
+                    start.completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+    private synchronized String reserve() {
+        List<Member> candidates = new ArrayList<>(members.values());
+        if (candidates.isEmpty()) throw new IllegalStateException("No container of service " + service + " is running");
+        int offset = Math.floorMod(cursor.getAndIncrement(), candidates.size());
+        Member selected = null;
+        for (int i = 0; i < candidates.size(); i++) {
+            Member member = candidates.get((offset + i) % candidates.size());
+            if (selected == null || member.inFlight.get() < selected.inFlight.get()) selected = member;
+        }
+        selected.inFlight.incrementAndGet();
+        return selected.containerId;
+    }
+
+    private void checkHealth() {
+        for (Member member : List.copyOf(members.values())) {
+            boolean healthy;
+            try {
+                healthy = lifecycle.isHealthy(member.containerId);
+            } catch (RuntimeException e) {
+                logger.warn("Could not check container {} of service {}: {}", member.containerId, service, e.getMessage());
+                continue;
+            }
+            if (!healthy) {
+                logger.warn("Container {} of service {} is not healthy, replacing it", member.containerId, service);
+                this.evict(member.containerId);
+            }
+        }
+        this.fill();
+    }
+
+    public boolean contains(String containerId) {
+        return members.containsKey(containerId);
+    }
+
+    public void finished(String containerId) {
+        Member member = members.get(containerId);
+        if (member != null) member.inFlight.decrementAndGet();
+    }
+
+    /**
+     * Drops a container from the pool, e.g. after an exec on it failed, and retires it.
+     */
+    public void evict(String containerId) {
+        if (members.remove(containerId) == null) return;
+        try {
+            lifecycle.retire(containerId);
+        } catch (RuntimeException e) {
+            logger.warn("Could not retire container {} of service {}: {}", containerId, service, e.getMessage());
+        }
+    }
+
+    public void clear() {
+        healthChecker.shutdownNow();
+        starter.shutdown();
+        for (CompletableFuture<String> start : List.copyOf(starts)) {
+            // Containers still starting are retired as soon as they are up
+            start.thenAccept(this::evict);
+        }
+        for (String containerId : List.copyOf(members.keySet())) {
+            this.evict(containerId);
+        }
+    }
+
+    private static class Member {
+        private final String containerId;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private Member(String containerId) {
+            this.containerId = containerId;
+        }
+    }
+
+}
@@ -0,0 +1,312 @@
+package gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.cache;
+
+import com.google.gson.reflect.TypeToken;
+import gr.cite.tools.logging.LoggerService;
+import io.kubernetes.client.common.KubernetesObject;
+import io.kubernetes.client.informer.ListerWatcher;
+import io.kubernetes.client.informer.ResourceEventHandler;
+import io.kubernetes.client.informer.SharedIndexInformer;
+import io.kubernetes.client.informer.SharedInformerFactory;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.AppsV1Api;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1Deployment;
+import io.kubernetes.client.openapi.models.V1DeploymentList;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodCondition;
+import io.kubernetes.client.openapi.models.V1PodList;
+import io.kubernetes.client.util.CallGeneratorParams;
+import io.kubernetes.client.util.Watch;
+import io.kubernetes.client.util.Watchable;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Local view of the deployments and pods of a namespace, kept current by shared informers that list the
+ * resources once and then follow the watch stream of the API server, relisting on their own whenever the watch
+ * breaks. Pods and deployments are indexed by the configured label selectors they match, so finding the ready
+ * pods of a service is an index lookup that never waits for the API server. A caller that needs a pod which is
+ * not ready yet waits for the informer to report it.
+ * <p>
+ * Whether the pods are being followed is reported to the {@link PodWatchListener}s, in order and on a thread of
+ * the index: once a pod listing succeeded and the informer has synced it the pods are followed, and a failed
+ * listing or watch stops that until the informer lists the pods again.
+ * <p>
+ * Label selectors are equality based, a comma separated list of "key=value", "key==value", "key!=value", "key"
+ * and "!key" requirements.
+ */
+public class KubernetesResourceIndex {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(KubernetesResourceIndex.class));
+
+    private static final String BY_SELECTOR = "bySelector";
+
+    public interface PodWatchListener {
+        void onPodsListed();
+
+        void onPodWatchFailed();
+    }
+
+    private final SharedInformerFactory informerFactory;
+    private final SharedIndexInformer<V1Pod> podInformer;
+    private final SharedIndexInformer<V1Deployment> deploymentInformer;
+    private final Object changed = new Object();
+    private final List<PodWatchListener> podWatchListeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService podWatchNotifier;
+    private boolean followingPods;
+
+    public KubernetesResourceIndex(ApiClient client, String namespace, Collection<String> podSelectors, Collection<String> deploymentSelectors) {
+        CoreV1Api coreV1Api = new CoreV1Api(client);
+        AppsV1Api appsV1Api = new AppsV1Api(client);
+        this.informerFactory = new SharedInformerFactory(client);
+        this.podInformer = this.informerFactory.sharedIndexInformerFor(
+                new ListerWatcher<V1Pod, V1PodList>() {
+                    @Override
+                    public V1PodList list(CallGeneratorParams params) throws ApiException {
+                        V1PodList pods = client.<V1PodList>execute(coreV1Api.listNamespacedPodCall(namespace, null, null, null, null, null, null, params.resourceVersion, null, params.timeoutSeconds, false, null), V1PodList.class).getData();
+                        podsListed();
+                        return pods;
+                    }
+
+                    @Override
+                    public Watchable<V1Pod> watch(CallGeneratorParams params) throws ApiException {
+                        return Watch.createWatch(client,
+                                coreV1Api.listNamespacedPodCall(namespace, null, null, null, null, null, null, params.resourceVersion, null, params.timeoutSeconds, true, null),
+                                TypeToken.getParameterized(Watch.Response.class, V1Pod.class).getType());
+                    }
+                },
+                V1Pod.class,
+                0,
+                (type, error) -> this.podWatchFailed(error));
+        this.deploymentInformer = this.informerFactory.sharedIndexInformerFor(
+                params -> appsV1Api.listNamespacedDeploymentCall(namespace, null, null, null, null, null, null, params.resourceVersion, null, params.timeoutSeconds, params.watch, null),
+                V1Deployment.class,
+                V1DeploymentList.class);
+        this.podWatchNotifier = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kubernetes-pod-watch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Set<String> pods = new TreeSet<>(podSelectors);
+        Set<String> deployments = new TreeSet<>(deploymentSelectors);
+        this.podInformer.addIndexers(Map.of(BY_SELECTOR, pod -> matching(pods, pod.getMetadata())));
+        this.deploymentInformer.addIndexers(Map.of(BY_SELECTOR, deployment -> matching(deployments, deployment.getMetadata())));
+
+        this.podInformer.addEventHandler(this.notifier());
+        this.deploymentInformer.addEventHandler(this.notifier());
+    }
+
+    public void start() {
+        this.informerFactory.startAllRegisteredInformers();
+    }
+
+    public void stop() {
+        this.podWatchNotifier.shutdownNow();
+        this.informerFactory.stopAllRegisteredInformers();
+    }
+
+    public void addPodHandler(ResourceEventHandler<V1Pod> handler) {
+        this.podInformer.addEventHandler(handler);
+    }
+
+    /**
+     * Registers a listener for whether the pods are followed, telling it right away when they already are.
+     */
+    public void addPodWatchListener(PodWatchListener listener) {
+        synchronized (this.podWatchListeners) {
+            this.podWatchListeners.add(listener);
+            if (this.followingPods) listener.onPodsListed();
+        }
+    }
+
+    /**
+     * Called by the informer with the listing it is about to sync, so the listeners are told once it has synced.
+     */
+    private void podsListed() {
+        this.notifyPodWatch(() -> {
+            while (!this.podInformer.hasSynced()) {
+                Thread.sleep(100);
+            }
+            synchronized (this.podWatchListeners) {
+                if (this.followingPods) return;
+                this.followingPods = true;
+                for (PodWatchListener listener : this.podWatchListeners) listener.onPodsListed();
+            }
+        });
+    }
+
+    private void podWatchFailed(Throwable error) {
+        logger.warn("Listing or watching the pods failed, the informer lists them again: {}", error.getMessage());
+        this.notifyPodWatch(() -> {
+            synchronized (this.podWatchListeners) {
+                if (!this.followingPods) return;
+                this.followingPods = false;
+                for (PodWatchListener listener : this.podWatchListeners) listener.onPodWatchFailed();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Notification {
+        void run() throws InterruptedException;
+    }
+
+    private void notifyPodWatch(Notification notification) {
+        try {
+            this.podWatchNotifier.execute(() -> {
+                try {
+                    notification.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Resource index is stopped, not reporting the pod watch state");
+        }
+    }
+
+    public boolean hasSynced() {
+        return this.podInformer.hasSynced() && this.deploymentInformer.hasSynced();
+    }
+
+    /**
+     * Waits for the initial listing of the informers and tells whether it completed in time.
+     */
+    public boolean awaitSynced(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!this.hasSynced()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) return false;
+            // Informers do not signal the end of their initial listing, so it is polled locally
+            Thread.sleep(Math.min(Duration.ofNanos(remaining).toMillis() + 1, 100));
+        }
+        return true;
+    }
+
+    /**
+     * The name of a deployment matching the given configured selector, or null when there is none.
+     */
+    public String deployment(String selector) {
+        String name = null;
+        for (V1Deployment deployment : this.deploymentInformer.getIndexer().byIndex(BY_SELECTOR, selector)) {
+            V1ObjectMeta metadata = deployment.getMetadata();
+            if (metadata == null || metadata.getName() == null || metadata.getDeletionTimestamp() != null) continue;
+            if (name == null || metadata.getName().compareTo(name) < 0) name = metadata.getName();
+        }
+        return name;
+    }
+
+    /**
+     * The names of the running and ready pods matching the given configured selector.
+     */
+    public List<String> readyPods(String selector) {
+        List<String> names = new ArrayList<>();
+        for (V1Pod pod : this.podInformer.getIndexer().byIndex(BY_SELECTOR, selector)) {
+            if (isReady(pod)) names.add(pod.getMetadata().getName());
+        }
+        names.sort(null);
+        return names;
+    }
+
+    /**
+     * Like {@link #readyPods(String)}, waiting up to the given timeout for a ready pod to be reported.
+     */
+    public List<String> awaitReadyPods(String selector, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (this.changed) {
+            List<String> names = this.readyPods(selector);
+            while (names.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) break;
+                this.changed.wait(Duration.ofNanos(remaining).toMillis() + 1);
+                names = this.readyPods(selector);
+            }
+            return names;
+        }
+    }
+
+    private <T extends KubernetesObject> ResourceEventHandler<T> notifier() {
+        return new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(T obj) {
+                signal();
+            }
+
+            @Override
+            public void onUpdate(T oldObj, T newObj) {
+                signal();
+            }
+
+            @Override
+            public void onDelete(T obj, boolean deletedFinalStateUnknown) {
+                signal();
+            }
+        };
+    }
+
+    private void signal() {
+        synchronized (this.changed) {
+            this.changed.notifyAll();
+        }
+    }
+
+    private static boolean isReady(V1Pod pod) {
+        V1ObjectMeta metadata = pod.getMetadata();
+        if (metadata == null || metadata.getName() == null || metadata.getDeletionTimestamp() != null) return false;
+        if (pod.getStatus() == null || pod.getStatus().getPhase() == null) return false;
+        if (!"running".equals(pod.getStatus().getPhase().toLowerCase(Locale.ROOT))) return false;
+        List<V1PodCondition> conditions = pod.getStatus().getConditions();
+        if (conditions == null) return true;
+        for (V1PodCondition condition : conditions) {
+            if ("Ready".equals(condition.getType())) return "True".equals(condition.getStatus());
+        }
+        return true;
+    }
+
+    private static List<String> matching(Set<String> selectors, V1ObjectMeta metadata) {
+        Map<String, String> labels = metadata == null || metadata.getLabels() == null ? Map.of() : metadata.getLabels();
+        List<String> matched = new ArrayList<>();
+        for (String selector : selectors) {
+            if (matches(selector, labels)) matched.add(selector);
+        }
+        return matched;
+    }
+
+    static boolean matches(String selector, Map<String, String> labels) {
+        if (selector == null || selector.isBlank()) return false;
+        for (String requirement : selector.split(",")) {
+            String term = requirement.trim();
+            if (term.isEmpty()) continue;
+            int notEquals = term.indexOf("!=");
+            int equals = term.indexOf('=');
+            if (notEquals > 0) {
+                String value = labels.get(term.substring(0, notEquals).trim());
+                if (term.substring(notEquals + 2).trim().equals(value)) return false;
+            } else if (equals > 0) {
+                String key = term.substring(0, equals).trim();
+                String value = term.substring(term.startsWith("==", equals) ? equals + 2 : equals + 1).trim();
+                if (!value.equals(labels.get(key))) return false;
+            } else if (term.startsWith("!")) {
+                if (labels.containsKey(term.substring(1).trim())) return false;
+            } else if (!labels.containsKey(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
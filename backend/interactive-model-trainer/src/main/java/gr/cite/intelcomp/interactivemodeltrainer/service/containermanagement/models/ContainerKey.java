@@ -2,4 +2,14 @@ package gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.mo
 
 public interface ContainerKey {
 
+	/**
+	 * Identifies the container the key points to, regardless of how the key was obtained.
+	 */
+	String getIdentifier();
+
+	/**
+	 * The service the container runs, or null when the key does not point to a service container.
+	 */
+	String getService();
+
 }
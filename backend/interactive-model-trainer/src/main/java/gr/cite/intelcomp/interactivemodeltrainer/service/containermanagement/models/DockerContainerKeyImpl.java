@@ -2,6 +2,7 @@ package gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.mo
 
 public class DockerContainerKeyImpl implements ContainerKey {
 	private String containerId;
+	private String service;
 
 	public String getContainerId() {
 		return containerId;
@@ -11,11 +12,29 @@ public class DockerContainerKeyImpl implements ContainerKey {
 		this.containerId = containerId;
 	}
 
+	public String getService() {
+		return service;
+	}
+
+	public void setService(String service) {
+		this.service = service;
+	}
+
 	public DockerContainerKeyImpl() {
 	}
 
 	public DockerContainerKeyImpl(String containerId) {
 		this.containerId = containerId;
 	}
-	
+
+	public DockerContainerKeyImpl(String containerId, String service) {
+		this.containerId = containerId;
+		this.service = service;
+	}
+
+	@Override
+	public String getIdentifier() {
+		return containerId;
+	}
+
 }
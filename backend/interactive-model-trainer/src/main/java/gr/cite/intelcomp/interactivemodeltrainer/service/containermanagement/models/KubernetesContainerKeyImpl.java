@@ -5,6 +5,7 @@ public class KubernetesContainerKeyImpl implements ContainerKey {
 	private String containerName;
 	private String namespace;
 	private String podLabelSelector;
+	private String service;
 
 	public String getPodName() {
 		return podName;
@@ -38,13 +39,27 @@ public class KubernetesContainerKeyImpl implements ContainerKey {
 		this.podLabelSelector = podLabelSelector;
 	}
 
+	public String getService() {
+		return service;
+	}
+
+	public void setService(String service) {
+		this.service = service;
+	}
+
 	public KubernetesContainerKeyImpl() {
 	}
 
-	public KubernetesContainerKeyImpl(String namespace, String podName, String containerName, String podLabelSelector) {
+	public KubernetesContainerKeyImpl(String namespace, String podName, String containerName, String podLabelSelector, String service) {
 		this.namespace = namespace;
 		this.podName = podName;
 		this.containerName = containerName;
 		this.podLabelSelector = podLabelSelector;
+		this.service = service;
+	}
+
+	@Override
+	public String getIdentifier() {
+		return namespace + "/" + podName + "/" + containerName;
 	}
 }
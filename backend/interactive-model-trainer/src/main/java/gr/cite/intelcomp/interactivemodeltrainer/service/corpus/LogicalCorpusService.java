@@ -1,5 +1,6 @@
 package gr.cite.intelcomp.interactivemodeltrainer.service.corpus;
 
+import gr.cite.intelcomp.interactivemodeltrainer.cache.UserDirectory;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.CorpusType;
 import gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties;
 import gr.cite.intelcomp.interactivemodeltrainer.data.LogicalCorpusEntity;
@@ -7,7 +8,6 @@ import gr.cite.intelcomp.interactivemodeltrainer.data.UserEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.model.LogicalCorpus;
 import gr.cite.intelcomp.interactivemodeltrainer.model.LogicalCorpusJson;
 import gr.cite.intelcomp.interactivemodeltrainer.model.builder.LogicalCorpusBuilder;
-import gr.cite.intelcomp.interactivemodeltrainer.query.UserQuery;
 import gr.cite.intelcomp.interactivemodeltrainer.query.lookup.CorpusLookup;
 import gr.cite.intelcomp.interactivemodeltrainer.service.docker.DockerService;
 import gr.cite.tools.data.builder.BuilderFactory;
@@ -16,7 +16,6 @@ import gr.cite.tools.logging.LoggerService;
 import io.kubernetes.client.openapi.ApiException;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -26,13 +25,13 @@ import java.util.List;
 public class LogicalCorpusService extends CorpusService<LogicalCorpus, CorpusLookup> {
 
     private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(LogicalCorpusService.class));
-    private final ApplicationContext applicationContext;
+    private final UserDirectory userDirectory;
     private final ContainerServicesProperties containerServicesProperties;
 
     @Autowired
-    protected LogicalCorpusService(BuilderFactory builderFactory, DockerService dockerService, ApplicationContext applicationContext, ContainerServicesProperties containerServicesProperties) {
+    protected LogicalCorpusService(BuilderFactory builderFactory, DockerService dockerService, UserDirectory userDirectory, ContainerServicesProperties containerServicesProperties) {
         super(builderFactory, dockerService);
-        this.applicationContext = applicationContext;
+        this.userDirectory = userDirectory;
         this.containerServicesProperties = containerServicesProperties;
     }
 
@@ -79,8 +78,8 @@ public class LogicalCorpusService extends CorpusService<LogicalCorpus, CorpusLoo
                     .toList();
             String creatorUsername = corpora.get(0).getCreator();
             if (creatorUsername != null && !creatorUsername.equals("-")) {
-                List<UserEntity> users = applicationContext.getBean(UserQuery.class).usernames(creatorUsername).collect();
-                if (!users.isEmpty()) corpus.setCreator(users.get(0).getId().toString());
+                UserEntity user = userDirectory.byUsername(creatorUsername);
+                if (user != null) corpus.setCreator(user.getId().toString());
             }
             dockerService.createCorpus(corpus, false);
         } catch (Exception e) {
@@ -1,7 +1,10 @@
 package gr.cite.intelcomp.interactivemodeltrainer.service.docker;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 import gr.cite.intelcomp.interactivemodeltrainer.cache.*;
 import gr.cite.intelcomp.interactivemodeltrainer.common.JsonHandlingService;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.*;
@@ -17,10 +20,10 @@ import gr.cite.intelcomp.interactivemodeltrainer.model.WordListJson;
 import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskSubType;
 import gr.cite.intelcomp.interactivemodeltrainer.model.taskqueue.RunningTaskType;
 import gr.cite.intelcomp.interactivemodeltrainer.model.topic.TopicSimilarity;
-import gr.cite.intelcomp.interactivemodeltrainer.query.UserQuery;
 import gr.cite.intelcomp.interactivemodeltrainer.query.lookup.*;
 import gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.ContainerManagementService;
 import gr.cite.intelcomp.interactivemodeltrainer.service.domainclassification.DomainClassificationParametersService;
+import gr.cite.tools.data.query.Lookup;
 import gr.cite.tools.logging.LoggerService;
 import io.kubernetes.client.openapi.ApiException;
 import jakarta.annotation.PreDestroy;
@@ -42,13 +45,13 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.SecureRandom;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import static gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties.ManageTopicModels.InnerPaths.TM_MODELS_ROOT;
-import static gr.cite.intelcomp.interactivemodeltrainer.model.builder.BaseBuilder.extractId;
 
 @Service
 public class DockerServiceImpl implements DockerService {
@@ -66,6 +69,7 @@ public class DockerServiceImpl implements DockerService {
     private final DomainClassificationParametersService domainClassificationParametersService;
 
     private final CacheLibrary cacheLibrary;
+    private final RunningTaskRegistry runningTaskRegistry;
 
     private final CheckTasksSchedulerEventConfig checkTasksSchedulerEventConfig;
 
@@ -73,17 +77,24 @@ public class DockerServiceImpl implements DockerService {
 
     private final UserScope userScope;
 
+    private final UserDirectory userDirectory;
+
+    private final ModelCatalog modelCatalog;
+
     @Autowired
-    public DockerServiceImpl(JsonHandlingService jsonHandlingService, ContainerServicesProperties containerServicesProperties, ObjectMapper mapper, ContainerManagementService dockerExecutionService, DomainClassificationParametersService domainClassificationParametersService, CacheLibrary cacheLibrary, CheckTasksSchedulerEventConfig checkTasksSchedulerEventConfig, ApplicationContext applicationContext) {
+    public DockerServiceImpl(JsonHandlingService jsonHandlingService, ContainerServicesProperties containerServicesProperties, ObjectMapper mapper, ContainerManagementService dockerExecutionService, DomainClassificationParametersService domainClassificationParametersService, CacheLibrary cacheLibrary, RunningTaskRegistry runningTaskRegistry, CheckTasksSchedulerEventConfig checkTasksSchedulerEventConfig, ApplicationContext applicationContext, UserDirectory userDirectory, ModelCatalog modelCatalog) {
         this.jsonHandlingService = jsonHandlingService;
         this.containerServicesProperties = containerServicesProperties;
         this.mapper = mapper;
         this.dockerExecutionService = dockerExecutionService;
         this.domainClassificationParametersService = domainClassificationParametersService;
         this.cacheLibrary = cacheLibrary;
+        this.runningTaskRegistry = runningTaskRegistry;
         this.checkTasksSchedulerEventConfig = checkTasksSchedulerEventConfig;
         this.applicationContext = applicationContext;
         this.userScope = applicationContext.getBean(UserScope.class);
+        this.userDirectory = userDirectory;
+        this.modelCatalog = modelCatalog;
         this.mapper.setDateFormat(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSSSSS"));
     }
 
@@ -109,9 +120,56 @@ public class DockerServiceImpl implements DockerService {
         Files.delete(temp_file);
     }
 
-    private void checkResult(String result) {
-        if (result != null && result.trim().endsWith("0"))
+    private boolean checkResult(String result) {
+        if (result != null && result.trim().endsWith("0")) {
             logger.debug("Operation failed");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads a JSON object of name to entity entries one entry at a time, returning null for a JSON null.
+     */
+    private <T> List<T> readEntries(JsonParser parser, Class<T> type, BiConsumer<String, T> onEntry) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.VALUE_NULL)
+            return null;
+        if (token != JsonToken.START_OBJECT)
+            throw MismatchedInputException.from(parser, type, "Expected an object of " + type.getSimpleName() + " entries");
+        List<T> entries = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            parser.nextToken();
+            T value = mapper.readValue(parser, type);
+            onEntry.accept(key, value);
+            entries.add(value);
+        }
+        return entries;
+    }
+
+    /**
+     * Reads a JSON array of entities one element at a time, returning null for a JSON null.
+     */
+    private <T> List<T> readElements(JsonParser parser, Class<T> type) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.VALUE_NULL)
+            return null;
+        if (token != JsonToken.START_ARRAY)
+            throw MismatchedInputException.from(parser, type, "Expected an array of " + type.getSimpleName() + " elements");
+        List<T> elements = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            elements.add(mapper.readValue(parser, type));
+        }
+        return elements;
+    }
+
+    private <T> T copyOf(T entity, Class<T> type) {
+        return mapper.convertValue(entity, type);
+    }
+
+    private static String subcorpusOf(String parentName) {
+        return "Subcorpus created from " + parentName;
     }
 
     private String getUserId() {
@@ -123,10 +181,7 @@ public class DockerServiceImpl implements DockerService {
     }
 
     private @NotNull @Unmodifiable List<String> getUserIdsFromUsername(String username) {
-        UserQuery userQuery = applicationContext.getBean(UserQuery.class);
-        UserEntity user = userQuery
-                .usernames(username)
-                .first();
+        UserEntity user = userDirectory.byUsername(username);
         if (user != null)
             return List.of(user.getId().toString(), user.getSubjectId());
         else
@@ -134,325 +189,131 @@ public class DockerServiceImpl implements DockerService {
     }
 
     private @NotNull @Unmodifiable List<String> getUserIdsFromId(String id) {
-        UserQuery userQuery = applicationContext.getBean(UserQuery.class);
-        UserEntity user = userQuery
-                .ids(UUID.fromString(id))
-                .first();
+        UserEntity user = userDirectory.byId(UUID.fromString(id));
         if (user != null)
             return List.of(user.getId().toString(), user.getSubjectId());
         else
             return List.of("-");
     }
 
-    private List<WordListEntity> applyWordlistLookup(List<WordListEntity> data, @NotNull WordListLookup lookup) {
-        List<WordListEntity> result = new ArrayList<>(data);
-        String currentUser = getUserId();
-
-        List<UserEntity> users = applicationContext.getBean(UserQuery.class).collect();
-        result = result.stream().filter(d -> {
-            if (d.getVisibility() == Visibility.Public)
+    private boolean isVisible(Visibility visibility, String creator) {
+        if (visibility == Visibility.Public)
+            return true;
+        else if (visibility == Visibility.Private) {
+            if (!userScope.isSet())
+                return false;
+            if (creator == null || creator.equals("-"))
                 return true;
-            else if (d.getVisibility() == Visibility.Private) {
-                if (!userScope.isSet())
-                    return false;
-                if (d.getCreator() == null || d.getCreator().equals("-"))
-                    return true;
-                return extractId(d.getCreator(), users).equals(userScope.getUserIdSafe().toString());
-            }
-            return false;
-        }).collect(Collectors.toList());
-
-        if (lookup.getLike() != null) {
-            result = result.stream().filter(e -> e.getName().toLowerCase().contains(lookup.getLike().trim())).toList();
-        }
-        if (lookup.getVisibilities() != null && !lookup.getVisibilities().isEmpty()) {
-            result = result.stream().filter(e -> lookup.getVisibilities().contains(e.getVisibility())).toList();
-        }
-        if (lookup.getCreator() != null && !lookup.getCreator().isEmpty()) {
-            List<String> idsFromUsername = getUserIdsFromUsername(lookup.getCreator());
-            result = result
-                    .stream()
-                    .filter(e -> e.getCreator() != null && idsFromUsername.contains(e.getCreator()))
-                    .toList();
-        }
-        if (!currentUser.equals("-") && lookup.getMine() != null && lookup.getMine()) {
-            List<String> idsFromId = getUserIdsFromId(currentUser);
-            result = result
-                    .stream()
-                    .filter(e -> e.getCreator() != null && idsFromId.contains(e.getCreator()))
-                    .toList();
-        }
-        if (lookup.getCreatedAt() != null) {
-            result = result
-                    .stream()
-                    .filter(e -> e.getCreation_date().toInstant().isAfter(lookup.getCreatedAt()) &&
-                            e.getCreation_date().toInstant().isBefore(lookup.getCreatedAt().plus(1, ChronoUnit.DAYS)))
-                    .toList();
-        }
-        if (lookup.getOrder() != null && !lookup.getOrder().isEmpty()) {
-            String orderItem = lookup.getOrder().getItems().get(0);
-            Comparator<WordListEntity> byNme = Comparator.comparing(WordListEntity::getName);
-            Comparator<WordListEntity> byCreationDate = Comparator.comparing(WordListEntity::getCreationMilliseconds);
-            if (orderItem.contains("-")) {
-                orderItem = orderItem.replace("-", "");
-                if (orderItem.equals("name"))
-                    result = result.stream().sorted(byNme.reversed()).toList();
-                else if (orderItem.equals("creation_date"))
-                    result = result.stream().sorted(byCreationDate.reversed()).toList();
-            } else {
-                if (orderItem.equals("name"))
-                    result = result.stream().sorted(byNme).toList();
-                else if (orderItem.equals("creation_date"))
-                    result = result.stream().sorted(byCreationDate).toList();
-            }
+            UserEntity owner = userDirectory.byCreator(creator);
+            return owner != null && owner.getId().equals(userScope.getUserIdSafe());
         }
+        return false;
+    }
 
-        return result;
+    private static boolean createdOn(Date date, Instant day) {
+        return date.toInstant().isAfter(day) && date.toInstant().isBefore(day.plus(1, ChronoUnit.DAYS));
     }
 
-    private List<RawCorpusEntity> applyRawCorpusLookup(List<RawCorpusEntity> data, @NotNull CorpusLookup lookup) {
-        List<RawCorpusEntity> result = new ArrayList<>(data);
+    /**
+     * Applies the constraints common to every listing lookup: name search, visibility, creator and ownership.
+     */
+    private <T> IndexedView.Query<T> applyCommonLookup(IndexedView.Query<T> query, Lookup lookup, String like, List<Visibility> visibilities, String creator, Boolean mine) {
         String currentUser = getUserId();
-        if (lookup.getLike() != null) {
-            result = result
-                    .stream()
-                    .filter(e -> e.getName().toLowerCase().contains(lookup.getLike().trim()))
-                    .toList();
+        if (like != null) {
+            query.contains(IndexedView.NAME, like.trim());
         }
-        if (lookup.getCreator() != null && !lookup.getCreator().isEmpty()) {
-            List<String> idsFromUsername = getUserIdsFromUsername(lookup.getCreator());
-            result = result
-                    .stream()
-                    .filter(e -> e.getCreator() != null && idsFromUsername.contains(e.getCreator()))
-                    .toList();
+        if (visibilities != null && !visibilities.isEmpty()) {
+            query.in(IndexedView.VISIBILITY, visibilities);
         }
-        if (!currentUser.equals("-") && lookup.getMine() != null && lookup.getMine()) {
-            List<String> idsFromId = getUserIdsFromId(currentUser);
-            result = result
-                    .stream()
-                    .filter(e -> e.getCreator() != null && idsFromId.contains(e.getCreator()))
-                    .toList();
+        if (creator != null && !creator.isEmpty()) {
+            query.in(IndexedView.CREATOR, getUserIdsFromUsername(creator));
         }
-        if (lookup.getCorpusValidFor() != null && CorpusValidFor.ALL != lookup.getCorpusValidFor()) {
-            result = result
-                    .stream()
-                    .filter(e -> e.getValid_for() == lookup.getCorpusValidFor())
-                    .toList();
-        }
-        if (lookup.getCreatedAt() != null) {
-            result = result
-                    .stream()
-                    .filter(e -> e.getDownload_date().toInstant().isAfter(lookup.getCreatedAt()) &&
-                            e.getDownload_date().toInstant().isBefore(lookup.getCreatedAt().plus(1, ChronoUnit.DAYS)))
-                    .toList();
+        if (!currentUser.equals("-") && mine != null && mine) {
+            query.in(IndexedView.CREATOR, getUserIdsFromId(currentUser));
         }
         if (lookup.getOrder() != null && !lookup.getOrder().isEmpty()) {
-            String orderItem = lookup.getOrder().getItems().get(0);
-            Comparator<RawCorpusEntity> byName = Comparator.comparing(RawCorpusEntity::getName);
-            Comparator<RawCorpusEntity> byDownloadDate = Comparator.comparing(RawCorpusEntity::getDownloadedAtMilliseconds);
-            Comparator<RawCorpusEntity> byRecords = Comparator.comparing(RawCorpusEntity::getRecords);
-            if (orderItem.contains("-")) {
-                orderItem = orderItem.replace("-", "");
-                result = switch (orderItem) {
-                    case "name" -> result.stream().sorted(byName.reversed()).toList();
-                    case "download_date" -> result.stream().sorted(byDownloadDate.reversed()).toList();
-                    case "records" -> result.stream().sorted(byRecords.reversed()).toList();
-                    default -> result;
-                };
-            } else {
-                result = switch (orderItem) {
-                    case "name" -> result.stream().sorted(byName).toList();
-                    case "download_date" -> result.stream().sorted(byDownloadDate).toList();
-                    case "records" -> result.stream().sorted(byRecords).toList();
-                    default -> result;
-                };
-            }
+            query.order(lookup.getOrder().getItems().get(0));
         }
+        return query;
+    }
 
+    private static <T> IndexedView.Query<T> applyPaging(IndexedView.Query<T> query, Lookup lookup) {
         if (lookup.getPage() != null) {
-            result = result.subList(lookup.getPage().getOffset(), Math.min(lookup.getPage().getOffset() + lookup.getPage().getSize(), result.size()));
+            query.page(lookup.getPage().getOffset(), lookup.getPage().getSize());
         }
-        return result;
+        return query;
     }
 
-    private List<LogicalCorpusEntity> applyLogicalCorpusLookup(List<LogicalCorpusEntity> data, @NotNull CorpusLookup lookup) {
-        List<LogicalCorpusEntity> result = new ArrayList<>(data);
-        String currentUser = getUserId();
+    private List<WordListEntity> applyWordlistLookup(IndexedView<WordListEntity> view, @NotNull WordListLookup lookup) {
+        IndexedView.Query<WordListEntity> query = view.query()
+                .filter(d -> isVisible(d.getVisibility(), d.getCreator()));
+        applyCommonLookup(query, lookup, lookup.getLike(), lookup.getVisibilities(), lookup.getCreator(), lookup.getMine());
+        if (lookup.getCreatedAt() != null) {
+            query.filter(e -> createdOn(e.getCreation_date(), lookup.getCreatedAt()));
+        }
 
-        List<UserEntity> users = applicationContext.getBean(UserQuery.class).collect();
-        result = result.stream().filter(d -> {
-            if (d.getVisibility() == Visibility.Public)
-                return true;
-            else if (d.getVisibility() == Visibility.Private) {
-                if (!userScope.isSet())
-                    return false;
-                if (d.getCreator() == null || d.getCreator().equals("-"))
-                    return true;
-                return extractId(d.getCreator(), users).equals(userScope.getUserIdSafe().toString());
-            }
-            return false;
-        }).collect(Collectors.toList());
+        return query.list();
+    }
 
-        if (lookup.getLike() != null) {
-            result = result.stream().filter(e -> e.getName().toLowerCase().contains(lookup.getLike().trim())).toList();
-        }
-        if (lookup.getVisibilities() != null && !lookup.getVisibilities().isEmpty()) {
-            result = result.stream().filter(e -> lookup.getVisibilities().contains(e.getVisibility())).toList();
-        }
-        if (lookup.getCreator() != null && !lookup.getCreator().isEmpty()) {
-            List<String> idsFromUsername = getUserIdsFromUsername(lookup.getCreator());
-            result = result
-                    .stream()
-                    .filter(e -> e.getCreator() != null && idsFromUsername.contains(e.getCreator()))
-                    .toList();
-        }
-        if (!currentUser.equals("-") && lookup.getMine() != null && lookup.getMine()) {
-            List<String> idsFromId = getUserIdsFromId(currentUser);
-            result = result
-                    .stream()
-                    .filter(e -> e.getCreator() != null && idsFromId.contains(e.getCreator()))
-                    .toList();
-        }
+    private List<RawCorpusEntity> applyRawCorpusLookup(IndexedView<RawCorpusEntity> view, @NotNull CorpusLookup lookup) {
+        IndexedView.Query<RawCorpusEntity> query = view.query();
+        applyCommonLookup(query, lookup, lookup.getLike(), null, lookup.getCreator(), lookup.getMine());
         if (lookup.getCorpusValidFor() != null && CorpusValidFor.ALL != lookup.getCorpusValidFor()) {
-            result = result
-                    .stream()
-                    .filter(e -> e.getValid_for() == lookup.getCorpusValidFor())
-                    .toList();
+            query.equal(CorpusCachedEntity.VALID_FOR, lookup.getCorpusValidFor());
         }
         if (lookup.getCreatedAt() != null) {
-            result = result
-                    .stream()
-                    .filter(e -> e.getCreation_date().toInstant().isAfter(lookup.getCreatedAt()) &&
-                            e.getCreation_date().toInstant().isBefore(lookup.getCreatedAt().plus(1, ChronoUnit.DAYS)))
-                    .toList();
-        }
-        if (lookup.getOrder() != null && !lookup.getOrder().isEmpty()) {
-            String orderItem = lookup.getOrder().getItems().get(0);
-            Comparator<LogicalCorpusEntity> byName = Comparator.comparing(LogicalCorpusEntity::getName);
-            Comparator<LogicalCorpusEntity> byCreationDate = Comparator.comparing(LogicalCorpusEntity::getCreationMilliseconds);
-            Comparator<LogicalCorpusEntity> byValidFor = Comparator.comparing(LogicalCorpusEntity::getValid_for);
-            if (orderItem.contains("-")) {
-                orderItem = orderItem.replace("-", "");
-                result = switch (orderItem) {
-                    case "name" -> result.stream().sorted(byName.reversed()).toList();
-                    case "creation_date" -> result.stream().sorted(byCreationDate.reversed()).toList();
-                    case "valid_for" -> result.stream().sorted(byValidFor.reversed()).toList();
-                    default -> result;
-                };
-            } else {
-                result = switch (orderItem) {
-                    case "name" -> result.stream().sorted(byName).toList();
-                    case "creation_date" -> result.stream().sorted(byCreationDate).toList();
-                    case "valid_for" -> result.stream().sorted(byValidFor).toList();
-                    default -> result;
-                };
-            }
+            query.filter(e -> createdOn(e.getDownload_date(), lookup.getCreatedAt()));
         }
 
-        if (lookup.getPage() != null) {
-            result = result.subList(lookup.getPage().getOffset(), Math.min(lookup.getPage().getOffset() + lookup.getPage().getSize(), result.size()));
-        }
-        return result;
+        return applyPaging(query, lookup).list();
     }
 
-    private List<TopicModelListingEntity> applyTopicModelLookup(List<TopicModelEntity> data, @NotNull ModelLookup lookup, List<UserEntity> users) {
-        List<TopicModelEntity> result = new ArrayList<>(data);
-        String currentUser = getUserId();
-
-        result = result.stream().filter(d -> !modelIsTraining(d))
-                .collect(Collectors.toList());
-
-        result = result.stream().filter(d -> {
-            if (d.getVisibility() == Visibility.Public)
-                return true;
-            else if (d.getVisibility() == Visibility.Private) {
-                if (!userScope.isSet())
-                    return false;
-                if (d.getCreator() == null || d.getCreator().equals("-"))
-                    return true;
-                return extractId(d.getCreator(), users).equals(userScope.getUserIdSafe().toString());
-            }
-            return false;
-        }).collect(Collectors.toList());
-
-        if (lookup.getLike() != null) {
-            result = result.stream().filter(e -> e.getName().toLowerCase().contains(lookup.getLike().trim())).toList();
-        }
-        if (lookup.getVisibilities() != null && !lookup.getVisibilities().isEmpty()) {
-            result = result.stream().filter(e -> lookup.getVisibilities().contains(e.getVisibility())).toList();
-        }
-        if (lookup.getCreator() != null && !lookup.getCreator().isEmpty()) {
-            List<String> idsFromUsername = getUserIdsFromUsername(lookup.getCreator());
-            result = result
-                    .stream()
-                    .filter(e -> e.getCreator() != null && idsFromUsername.contains(e.getCreator()))
-                    .toList();
+    private List<LogicalCorpusEntity> applyLogicalCorpusLookup(IndexedView<LogicalCorpusEntity> view, @NotNull CorpusLookup lookup) {
+        IndexedView.Query<LogicalCorpusEntity> query = view.query()
+                .filter(d -> isVisible(d.getVisibility(), d.getCreator()));
+        applyCommonLookup(query, lookup, lookup.getLike(), lookup.getVisibilities(), lookup.getCreator(), lookup.getMine());
+        if (lookup.getCorpusValidFor() != null && CorpusValidFor.ALL != lookup.getCorpusValidFor()) {
+            query.equal(CorpusCachedEntity.VALID_FOR, lookup.getCorpusValidFor());
         }
-        if (!currentUser.equals("-") && lookup.getMine() != null && lookup.getMine()) {
-            List<String> idsFromId = getUserIdsFromId(currentUser);
-            result = result
-                    .stream()
-                    .filter(e -> e.getCreator() != null && idsFromId.contains(e.getCreator()))
-                    .toList();
+        if (lookup.getCreatedAt() != null) {
+            query.filter(e -> createdOn(e.getCreation_date(), lookup.getCreatedAt()));
         }
+
+        return applyPaging(query, lookup).list();
+    }
+
+    private List<TopicModelListingEntity> applyTopicModelLookup(IndexedView<TopicModelEntity> view, @NotNull ModelLookup lookup) {
+        IndexedView.Query<TopicModelEntity> query = view.query()
+                .filter(d -> !modelIsTraining(d))
+                .filter(d -> isVisible(d.getVisibility(), d.getCreator()));
+        applyCommonLookup(query, lookup, lookup.getLike(), lookup.getVisibilities(), lookup.getCreator(), lookup.getMine());
         TopicModelLookup topicModelLookup = (TopicModelLookup) lookup;
         if (topicModelLookup.getTrainer() != null && !topicModelLookup.getTrainer().equals("all")) {
-            result = result.stream().filter(e -> e.getTrainer().contains(topicModelLookup.getTrainer().trim())).toList();
+            query.filter(e -> e.getTrainer().contains(topicModelLookup.getTrainer().trim()));
         }
         if (topicModelLookup.getHierarchyLevel() != null) {
-            result = result.stream().filter(e -> e.getHierarchyLevel().equals(topicModelLookup.getHierarchyLevel())).toList();
+            query.filter(e -> e.getHierarchyLevel().equals(topicModelLookup.getHierarchyLevel()));
         }
         if (lookup.getCreatedAt() != null) {
-            result = result.stream().filter(e -> e.getCreation_date().toInstant().isAfter(lookup.getCreatedAt()) &&
-                    e.getCreation_date().toInstant().isBefore(lookup.getCreatedAt().plus(1, ChronoUnit.DAYS))).toList();
-        }
-        if (lookup.getOrder() != null && !lookup.getOrder().isEmpty()) {
-            String orderItem = lookup.getOrder().getItems().get(0);
-            Comparator<TopicModelEntity> byName = Comparator.comparing(TopicModelEntity::getName);
-            Comparator<TopicModelEntity> byCreationDate = Comparator.comparing(TopicModelEntity::getCreationMilliseconds);
-            Comparator<TopicModelEntity> byType = Comparator.comparing(TopicModelEntity::getTrainer);
-            if (orderItem.contains("-")) {
-                orderItem = orderItem.replace("-", "");
-                result = switch (orderItem) {
-                    case "name" -> result.stream().sorted(byName.reversed()).toList();
-                    case "creation_date" -> result.stream().sorted(byCreationDate.reversed()).toList();
-                    case "type" -> result.stream().sorted(byType.reversed()).toList();
-                    default -> result;
-                };
-            } else {
-                result = switch (orderItem) {
-                    case "name" -> result.stream().sorted(byName).toList();
-                    case "creation_date" -> result.stream().sorted(byCreationDate).toList();
-                    case "type" -> result.stream().sorted(byType).toList();
-                    default -> result;
-                };
-            }
+            query.filter(e -> createdOn(e.getCreation_date(), lookup.getCreatedAt()));
         }
 
-        List<TopicModelListingEntity> collectedModels = result.stream()
-                .filter(entity -> entity.getHierarchyLevel() == 0)
-                .toList()
+        List<TopicModelListingEntity> collectedModels = applyPaging(query.copy().filter(entity -> entity.getHierarchyLevel() == 0), lookup)
+                .list()
                 .stream()
                 .map(DockerServiceImpl::topicModelListingFromModel)
                 .collect(Collectors.toList());
-        List<TopicModelEntity> collectedSubmodels = result.stream()
-                .filter(entity -> entity.getHierarchyLevel() > 0)
-                .toList();
-
-        if (lookup.getPage() != null) {
-            collectedModels = collectedModels.subList(lookup.getPage().getOffset(), Math.min(lookup.getPage().getOffset() + lookup.getPage().getSize(), collectedModels.size()));
-        }
+        if (collectedModels.isEmpty())
+            return collectedModels;
 
+        Map<String, TopicModelListingEntity> modelsByName = new HashMap<>();
+        collectedModels.forEach(entity -> modelsByName.putIfAbsent(entity.getName(), entity));
+        List<TopicModelEntity> collectedSubmodels = query
+                .filter(entity -> entity.getHierarchyLevel() > 0)
+                .in(TopicModelCachedEntity.PARENT, modelsByName.keySet())
+                .list();
         for (TopicModelEntity submodel : collectedSubmodels) {
-            String corpus = submodel.getCorpus()
-                    .replaceAll("^(.*)/", "")
-                    .replace("Subcorpus created from ", "")
-                    .replace(".json", "");
-            collectedModels.forEach(entity -> {
-                if (entity.getName().equals(corpus))
-                    entity.getSubmodels().add(submodel);
-            });
-
+            modelsByName.get(TopicModelCachedEntity.parentModelName(submodel)).getSubmodels().add(submodel);
         }
         return collectedModels;
     }
@@ -474,283 +335,154 @@ public class DockerServiceImpl implements DockerService {
         return result;
     }
 
-    private List<DomainModelEntity> applyDomainModelLookup(List<DomainModelEntity> data, @NotNull ModelLookup lookup, List<UserEntity> users) {
-        List<DomainModelEntity> result = new ArrayList<>(data);
-        String currentUser = getUserId();
-
-        result = result.stream().filter(d -> !modelIsTraining(d))
-                .collect(Collectors.toList());
-
-        result = result.stream().filter(d -> {
-            if (d.getVisibility() == Visibility.Public)
-                return true;
-            else if (d.getVisibility() == Visibility.Private) {
-                if (!userScope.isSet())
-                    return false;
-                if (d.getCreator() == null || d.getCreator().equals("-"))
-                    return true;
-                return extractId(d.getCreator(), users).equals(userScope.getUserIdSafe().toString());
-            }
-            return false;
-        }).collect(Collectors.toList());
-
-        if (lookup.getLike() != null) {
-            result = result
-                    .stream()
-                    .filter(e -> e.getName().toLowerCase().contains(lookup.getLike().trim()))
-                    .toList();
-        }
-        if (lookup.getVisibilities() != null && !lookup.getVisibilities().isEmpty()) {
-            result = result
-                    .stream()
-                    .filter(e -> lookup.getVisibilities().contains(e.getVisibility()))
-                    .toList();
-        }
-        if (lookup.getCreator() != null && !lookup.getCreator().isEmpty()) {
-            List<String> idsFromUsername = getUserIdsFromUsername(lookup.getCreator());
-            result = result
-                    .stream()
-                    .filter(e -> e.getCreator() != null && idsFromUsername.contains(e.getCreator()))
-                    .toList();
-        }
-        if (!currentUser.equals("-") && lookup.getMine() != null && lookup.getMine()) {
-            List<String> idsFromId = getUserIdsFromId(currentUser);
-            result = result
-                    .stream()
-                    .filter(e -> e.getCreator() != null && idsFromId.contains(e.getCreator()))
-                    .toList();
-        }
+    private List<DomainModelEntity> applyDomainModelLookup(IndexedView<DomainModelEntity> view, @NotNull ModelLookup lookup) {
+        IndexedView.Query<DomainModelEntity> query = view.query()
+                .filter(d -> !modelIsTraining(d))
+                .filter(d -> isVisible(d.getVisibility(), d.getCreator()));
+        applyCommonLookup(query, lookup, lookup.getLike(), lookup.getVisibilities(), lookup.getCreator(), lookup.getMine());
         DomainModelLookup domainModelLookup = (DomainModelLookup) lookup;
         if (domainModelLookup.getTag() != null && !domainModelLookup.getTag().trim().isEmpty()) {
-            result = result
-                    .stream()
-                    .filter(e -> e.getTag().contains(domainModelLookup.getTag().trim()))
-                    .toList();
+            query.filter(e -> e.getTag().contains(domainModelLookup.getTag().trim()));
         }
         if (lookup.getCreatedAt() != null) {
-            result = result
-                    .stream()
-                    .filter(e -> e.getCreation_date().toInstant().isAfter(lookup.getCreatedAt()) &&
-                            e.getCreation_date().toInstant().isBefore(lookup.getCreatedAt().plus(1, ChronoUnit.DAYS)))
-                    .toList();
-        }
-        if (lookup.getOrder() != null && !lookup.getOrder().isEmpty()) {
-            String orderItem = lookup.getOrder().getItems().get(0);
-            Comparator<DomainModelEntity> byName = Comparator.comparing(DomainModelEntity::getName);
-            Comparator<DomainModelEntity> byCreationDate = Comparator.comparing(DomainModelEntity::getCreationMilliseconds);
-            Comparator<DomainModelEntity> byTag = Comparator.comparing(DomainModelEntity::getTag);
-            if (orderItem.contains("-")) {
-                orderItem = orderItem.replace("-", "");
-                result = switch (orderItem) {
-                    case "name" -> result.stream().sorted(byName.reversed()).toList();
-                    case "creation_date" -> result.stream().sorted(byCreationDate.reversed()).toList();
-                    case "tag" -> result.stream().sorted(byTag.reversed()).toList();
-                    default -> result;
-                };
-            } else {
-                result = switch (orderItem) {
-                    case "name" -> result.stream().sorted(byName).toList();
-                    case "creation_date" -> result.stream().sorted(byCreationDate).toList();
-                    case "tag" -> result.stream().sorted(byTag).toList();
-                    default -> result;
-                };
-            }
+            query.filter(e -> createdOn(e.getCreation_date(), lookup.getCreatedAt()));
         }
 
-        if (lookup.getPage() != null) {
-            result = result.subList(lookup.getPage().getOffset(), Math.min(lookup.getPage().getOffset() + lookup.getPage().getSize(), result.size()));
-        }
-        return result;
+        return applyPaging(query, lookup).list();
     }
 
-    private List<TopicEntity> applyTopicLookup(List<TopicEntity> data, @NotNull TopicLookup lookup) {
-        List<TopicEntity> result = new ArrayList<>(data);
+    private List<TopicEntity> applyTopicLookup(IndexedView<TopicEntity> view, @NotNull TopicLookup lookup) {
+        IndexedView.Query<TopicEntity> query = view.query();
         if (lookup.getLike() != null) {
-            result = result
-                    .stream()
-                    .filter(e -> e.getLabel().toLowerCase().contains(lookup.getLike().trim()))
-                    .toList();
+            query.contains(TopicCachedEntity.LABEL, lookup.getLike().trim());
         }
         if (lookup.getWordDescription() != null) {
-            result = result
-                    .stream()
-                    .filter(e -> e.getWordDescription().toLowerCase().contains(lookup.getWordDescription().trim()))
-                    .toList();
+            query.contains(TopicCachedEntity.WORD_DESCRIPTION, lookup.getWordDescription().trim());
         }
         if (lookup.getOrder() != null && !lookup.getOrder().isEmpty()) {
-            String orderItem = lookup.getOrder().getItems().get(0);
-            Comparator<TopicEntity> byId = Comparator.comparing(TopicEntity::getId);
-            Comparator<TopicEntity> bySize = Comparator.comparing(TopicEntity::getSizeNumber);
-            Comparator<TopicEntity> byLabel = Comparator.comparing(TopicEntity::getLabel);
-            Comparator<TopicEntity> byDocsActive = Comparator.comparing(TopicEntity::getDocsActiveNumber);
-            Comparator<TopicEntity> byCoherence = Comparator.comparing(TopicEntity::getTopicCoherenceNumber);
-            Comparator<TopicEntity> byEntropy = Comparator.comparing(TopicEntity::getTopicEntropyNumber);
-            if (orderItem.contains("-")) {
-                orderItem = orderItem.replace("-", "");
-                result = switch (orderItem) {
-                    case "id" -> result.stream().sorted(byId.reversed()).toList();
-                    case "size" -> result.stream().sorted(bySize.reversed()).toList();
-                    case "label" -> result.stream().sorted(byLabel.reversed()).toList();
-                    case "docsactive" -> result.stream().sorted(byDocsActive.reversed()).toList();
-                    case "topiccoherence" -> result.stream().sorted(byCoherence.reversed()).toList();
-                    case "topicentropy" -> result.stream().sorted(byEntropy.reversed()).toList();
-                    default -> result;
-                };
-            } else {
-                result = switch (orderItem) {
-                    case "id" -> result.stream().sorted(byId).toList();
-                    case "size" -> result.stream().sorted(bySize).toList();
-                    case "label" -> result.stream().sorted(byLabel).toList();
-                    case "docsactive" -> result.stream().sorted(byDocsActive).toList();
-                    case "topiccoherence" -> result.stream().sorted(byCoherence).toList();
-                    case "topicentropy" -> result.stream().sorted(byEntropy).toList();
-                    default -> result;
-                };
-            }
+            query.order(lookup.getOrder().getItems().get(0));
         }
 
-        if (lookup.getPage() != null) {
-            result = result.subList(lookup.getPage().getOffset(), Math.min(lookup.getPage().getOffset() + lookup.getPage().getSize(), result.size()));
-        }
-        return result;
+        return applyPaging(query, lookup).list();
     }
 
-    @Override
-    public List<WordListEntity> listWordLists(WordListLookup lookup) throws InterruptedException, IOException, ApiException {
-        List<WordListEntity> data = new ArrayList<>();
-        WordlistCachedEntity cached = (WordlistCachedEntity) cacheLibrary.get(WordlistCachedEntity.CODE);
-        if (cached == null || cached.isDirty(checkTasksSchedulerEventConfig.get().getCacheOptions().getValidPeriodInSeconds())) {
-            List<String> command = new ArrayList<>(ContainerServicesProperties.ManageLists.MANAGER_ENTRY_CMD);
-            command.add(ContainerServicesProperties.ManageLists.LIST_ALL_CMD);
+    private int reconciliationPeriod() {
+        return checkTasksSchedulerEventConfig.get().getCacheOptions().getReconciliationPeriodInSeconds();
+    }
 
-            String result = this.dockerExecutionService.execCommand(CommandType.WORDLIST_GET, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_LISTS));
+    private WordlistCachedEntity loadWordLists() throws InterruptedException, IOException, ApiException {
+        List<String> command = new ArrayList<>(ContainerServicesProperties.ManageLists.MANAGER_ENTRY_CMD);
+        command.add(ContainerServicesProperties.ManageLists.LIST_ALL_CMD);
 
-            Map<String, WordListEntity> wordLists = mapper.readValue(result, new TypeReference<>() {
-            });
+        List<WordListEntity> data = this.dockerExecutionService.execCommand(CommandType.WORDLIST_GET, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_LISTS),
+                output -> readEntries(output, WordListEntity.class, (key, value) -> value.setLocation(key)));
 
-            if (wordLists == null)
-                return data;
-            wordLists.forEach((key, value) -> {
-                value.setLocation(key);
-                data.add(value);
-            });
-            WordlistCachedEntity toCache = new WordlistCachedEntity();
-            toCache.setPayload(data);
-            cacheLibrary.update(toCache);
-        } else {
-            data.addAll(cached.getPayload());
-        }
+        if (data == null)
+            return null;
+        WordlistCachedEntity toCache = new WordlistCachedEntity();
+        toCache.setPayload(data);
+        return toCache;
+    }
+
+    private LogicalCorpusCachedEntity loadLogicalCorpora() throws InterruptedException, IOException, ApiException {
+        List<String> command = new ArrayList<>(ContainerServicesProperties.ManageCorpus.MANAGER_ENTRY_CMD);
+        command.add(ContainerServicesProperties.ManageCorpus.LIST_ALL_LOGICAL_CMD);
+
+        List<LogicalCorpusEntity> data = this.dockerExecutionService.execCommand(CommandType.CORPUS_GET, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_CORPUS),
+                output -> readEntries(output, LogicalCorpusEntity.class, (key, value) -> value.setLocation(key)));
+        if (data == null)
+            return null;
+        LogicalCorpusCachedEntity toCache = new LogicalCorpusCachedEntity();
+        toCache.setPayload(data);
+        return toCache;
+    }
+
+    private RawCorpusCachedEntity loadRawCorpora() throws InterruptedException, IOException, ApiException {
+        List<String> command = new ArrayList<>(ContainerServicesProperties.ManageCorpus.MANAGER_ENTRY_CMD);
+        command.add(ContainerServicesProperties.ManageCorpus.LIST_ALL_DOWNLOADED_CMD);
+
+        List<RawCorpusEntity> data = this.dockerExecutionService.execCommand(CommandType.CORPUS_GET, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_CORPUS),
+                output -> readEntries(output, RawCorpusEntity.class, (key, value) -> {}));
+        if (data == null)
+            return null;
+        RawCorpusCachedEntity toCache = new RawCorpusCachedEntity();
+        toCache.setPayload(data);
+        return toCache;
+    }
+
+    private DomainModelCachedEntity loadDomainModels() throws InterruptedException, IOException, ApiException {
+        List<String> command = new ArrayList<>(ContainerServicesProperties.ManageDomainModels.MANAGER_ENTRY_CMD(
+                containerServicesProperties.getDomainTrainingService().getModelsInnerFolder(ContainerServicesProperties.ManageDomainModels.class))
+        );
+        command.add(ContainerServicesProperties.ManageDomainModels.LIST_ALL_DOMAIN_CMD);
+
+        String modelsFolder = containerServicesProperties.getDomainTrainingService().getModelsInnerFolder(ContainerServicesProperties.ManageDomainModels.class);
+        List<DomainModelEntity> data = this.dockerExecutionService.execCommand(CommandType.MODEL_GET, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS),
+                output -> readEntries(output, DomainModelEntity.class, (key, value) -> value.setLocation(modelsFolder + "/" + key)));
+        if (data == null)
+            return null;
+        DomainModelCachedEntity toCache = new DomainModelCachedEntity();
+        toCache.setPayload(data);
+        return toCache;
+    }
 
-        return applyWordlistLookup(data, lookup);
+    private TopicModelCachedEntity loadTopicModels() throws InterruptedException, IOException, ApiException {
+        List<String> command = new ArrayList<>(ContainerServicesProperties.ManageTopicModels.MANAGER_ENTRY_CMD);
+        command.add(ContainerServicesProperties.ManageTopicModels.LIST_ALL_TM_MODELS_CMD);
+
+        List<TopicModelEntity> data = this.dockerExecutionService.execCommand(CommandType.MODEL_GET, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS),
+                output -> readEntries(output, TopicModelEntity.class, (key, value) -> value.setLocation(TM_MODELS_ROOT + key)));
+        if (data == null)
+            return null;
+        TopicModelCachedEntity toCache = new TopicModelCachedEntity();
+        toCache.setPayload(data);
+        return toCache;
+    }
+
+    @Override
+    public List<WordListEntity> listWordLists(WordListLookup lookup) throws InterruptedException, IOException, ApiException {
+        WordlistCachedEntity cached = cacheLibrary.getOrLoad(WordlistCachedEntity.CODE, reconciliationPeriod(), this::loadWordLists);
+        if (cached == null)
+            return new ArrayList<>();
+        return applyWordlistLookup(cached.getView(), lookup);
     }
 
     @Override
     public List<? extends CorpusEntity> listCorpus(CorpusLookup lookup) throws InterruptedException, IOException, ApiException {
         List<CorpusEntity> result = Lists.newArrayList();
         if (CorpusType.LOGICAL == lookup.getCorpusType()) {
-            List<LogicalCorpusEntity> data = new ArrayList<>();
-            LogicalCorpusCachedEntity cached = (LogicalCorpusCachedEntity) cacheLibrary.get(LogicalCorpusCachedEntity.CODE);
-            if (cached == null || cached.isDirty(checkTasksSchedulerEventConfig.get().getCacheOptions().getValidPeriodInSeconds())) {
-                List<String> command = new ArrayList<>(ContainerServicesProperties.ManageCorpus.MANAGER_ENTRY_CMD);
-                command.add(ContainerServicesProperties.ManageCorpus.LIST_ALL_LOGICAL_CMD);
-
-                String response = this.dockerExecutionService.execCommand(CommandType.CORPUS_GET, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_CORPUS));
-
-                Map<String, LogicalCorpusEntity> corpus = mapper.readValue(response, new TypeReference<>() {
-                });
-                if (corpus == null)
-                    return data;
-                corpus.forEach((key, value) -> {
-                    value.setLocation(key);
-                    data.add(value);
-                });
-                LogicalCorpusCachedEntity toCache = new LogicalCorpusCachedEntity();
-                toCache.setPayload(data);
-                cacheLibrary.update(toCache);
-            } else {
-                data.addAll(cached.getPayload());
-            }
-            result.addAll(applyLogicalCorpusLookup(data, lookup));
+            LogicalCorpusCachedEntity cached = cacheLibrary.getOrLoad(LogicalCorpusCachedEntity.CODE, reconciliationPeriod(), this::loadLogicalCorpora);
+            if (cached == null)
+                return result;
+            result.addAll(applyLogicalCorpusLookup(cached.getView(), lookup));
         } else if (CorpusType.RAW == lookup.getCorpusType()) {
-            List<RawCorpusEntity> data = new ArrayList<>();
-            RawCorpusCachedEntity cached = (RawCorpusCachedEntity) cacheLibrary.get(RawCorpusCachedEntity.CODE);
-            if (cached == null || cached.isDirty(checkTasksSchedulerEventConfig.get().getCacheOptions().getValidPeriodInSeconds())) {
-                List<String> command = new ArrayList<>(ContainerServicesProperties.ManageCorpus.MANAGER_ENTRY_CMD);
-                command.add(ContainerServicesProperties.ManageCorpus.LIST_ALL_DOWNLOADED_CMD);
-
-                String response = this.dockerExecutionService.execCommand(CommandType.CORPUS_GET, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_CORPUS));
-
-                Map<String, RawCorpusEntity> corpus = mapper.readValue(response, new TypeReference<>() {
-                });
-                if (corpus == null)
-                    return data;
-                data.addAll(corpus.values());
-                RawCorpusCachedEntity toCache = new RawCorpusCachedEntity();
-                toCache.setPayload(data);
-                cacheLibrary.update(toCache);
-            } else {
-                data.addAll(cached.getPayload());
-            }
-            result.addAll(applyRawCorpusLookup(data, lookup));
+            RawCorpusCachedEntity cached = cacheLibrary.getOrLoad(RawCorpusCachedEntity.CODE, reconciliationPeriod(), this::loadRawCorpora);
+            if (cached == null)
+                return result;
+            result.addAll(applyRawCorpusLookup(cached.getView(), lookup));
         }
 
         return result;
     }
 
     @Override
-    public List<? extends ModelEntity> listModels(ModelLookup lookup, List<UserEntity> users) throws InterruptedException, IOException, ApiException {
+    public List<? extends ModelEntity> listModels(ModelLookup lookup) throws InterruptedException, IOException, ApiException {
         List<ModelEntity> result = new ArrayList<>();
 
         if (ModelType.DOMAIN == lookup.getModelType()) {
-            List<DomainModelEntity> data = new ArrayList<>();
-            DomainModelCachedEntity cached = (DomainModelCachedEntity) cacheLibrary.get(DomainModelCachedEntity.CODE);
-            if (cached == null || cached.isDirty(checkTasksSchedulerEventConfig.get().getCacheOptions().getValidPeriodInSeconds())) {
-                List<String> command = new ArrayList<>(ContainerServicesProperties.ManageDomainModels.MANAGER_ENTRY_CMD(
-                        containerServicesProperties.getDomainTrainingService().getModelsInnerFolder(ContainerServicesProperties.ManageDomainModels.class))
-                );
-                command.add(ContainerServicesProperties.ManageDomainModels.LIST_ALL_DOMAIN_CMD);
-
-                String response = this.dockerExecutionService.execCommand(CommandType.MODEL_GET, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS));
-
-                Map<String, DomainModelEntity> models = mapper.readValue(response, new TypeReference<>() {
-                });
-                if (models == null)
-                    return data;
-                models.forEach((key, value) -> {
-                    value.setLocation(containerServicesProperties.getDomainTrainingService().getModelsInnerFolder(ContainerServicesProperties.ManageDomainModels.class) + "/" + key);
-                    data.add(value);
-                });
-                DomainModelCachedEntity toCache = new DomainModelCachedEntity();
-                toCache.setPayload(data);
-                cacheLibrary.update(toCache);
-            } else {
-                data.addAll(cached.getPayload());
-            }
-            result.addAll(applyDomainModelLookup(data, lookup, users));
+            DomainModelCachedEntity cached = modelCatalog.getDomainModels();
+            if (cached == null)
+                cached = cacheLibrary.getOrLoad(DomainModelCachedEntity.CODE, reconciliationPeriod(), this::loadDomainModels);
+            if (cached == null)
+                return result;
+            result.addAll(applyDomainModelLookup(cached.getView(), lookup));
         } else if (ModelType.TOPIC == lookup.getModelType()) {
-            List<TopicModelEntity> data = new ArrayList<>();
-            TopicModelCachedEntity cached = (TopicModelCachedEntity) cacheLibrary.get(TopicModelCachedEntity.CODE);
-            if (cached == null || cached.isDirty(checkTasksSchedulerEventConfig.get().getCacheOptions().getValidPeriodInSeconds())) {
-                List<String> command = new ArrayList<>(ContainerServicesProperties.ManageTopicModels.MANAGER_ENTRY_CMD);
-                command.add(ContainerServicesProperties.ManageTopicModels.LIST_ALL_TM_MODELS_CMD);
-
-                String response = this.dockerExecutionService.execCommand(CommandType.MODEL_GET, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS));
-
-                Map<String, TopicModelEntity> models = mapper.readValue(response, new TypeReference<>() {
-                });
-                if (models == null)
-                    return data;
-                models.forEach((key, value) -> {
-                    value.setLocation(TM_MODELS_ROOT + key);
-                    data.add(value);
-                });
-                TopicModelCachedEntity toCache = new TopicModelCachedEntity();
-                toCache.setPayload(data);
-                cacheLibrary.update(toCache);
-            } else {
-                data.addAll(cached.getPayload());
-            }
-            result.addAll(applyTopicModelLookup(data, lookup, users));
+            TopicModelCachedEntity cached = modelCatalog.getTopicModels();
+            if (cached == null)
+                cached = cacheLibrary.getOrLoad(TopicModelCachedEntity.CODE, reconciliationPeriod(), this::loadTopicModels);
+            if (cached == null)
+                return result;
+            result.addAll(applyTopicModelLookup(cached.getView(), lookup));
         } else {
             logger.error("ModelType not defined");
             return result;
@@ -760,39 +492,31 @@ public class DockerServiceImpl implements DockerService {
     }
 
     private boolean modelIsTraining(TopicModelEntity model) {
-        AtomicBoolean result = new AtomicBoolean(false);
-        UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-        if (cache != null && !cache.getPayload().isEmpty()) {
-            cache.getPayload().forEach((item) -> {
-                if (item.getType() == RunningTaskType.training &&
-                        !item.isFinished() &&
-                        (item.getSubType() == RunningTaskSubType.RUN_ROOT_TOPIC_TRAINING || item.getSubType() == RunningTaskSubType.RUN_HIERARCHICAL_TOPIC_TRAINING) &&
-                        item.getLabel().equals(model.getName()))
-                    result.set(true);
-            });
-        }
-        return result.get();
+        return runningTaskRegistry.anyMatch(item -> item.getType() == RunningTaskType.training &&
+                !item.isFinished() &&
+                (item.getSubType() == RunningTaskSubType.RUN_ROOT_TOPIC_TRAINING || item.getSubType() == RunningTaskSubType.RUN_HIERARCHICAL_TOPIC_TRAINING) &&
+                item.getLabel().equals(model.getName()));
     }
 
     private boolean modelIsTraining(DomainModelEntity model) {
-        AtomicBoolean result = new AtomicBoolean(false);
-        UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-        if (cache != null && !cache.getPayload().isEmpty()) {
-            cache.getPayload().forEach((item) -> {
-                if (item.getType() == RunningTaskType.training &&
-                        !item.isFinished() &&
-                        item.getSubType() == RunningTaskSubType.RUN_ROOT_DOMAIN_TRAINING &&
-                        item.getLabel().equals(model.getName()))
-                    result.set(true);
-            });
-        }
-        return result.get();
+        return runningTaskRegistry.anyMatch(item -> item.getType() == RunningTaskType.training &&
+                !item.isFinished() &&
+                item.getSubType() == RunningTaskSubType.RUN_ROOT_DOMAIN_TRAINING &&
+                item.getLabel().equals(model.getName()));
     }
 
     @Override
     public List<? extends ModelEntity> getModel(ModelLookup lookup, String name) throws IOException, ApiException, InterruptedException {
         List<ModelEntity> result = new ArrayList<>();
 
+        KeyedCachedEntity<? extends ModelEntity> catalog = ModelType.DOMAIN == lookup.getModelType() ? modelCatalog.getDomainModels() : modelCatalog.getTopicModels();
+        if (catalog != null) {
+            ModelEntity model = catalog.getEntry(name);
+            if (model != null)
+                result.add(model);
+            return result;
+        }
+
         List<String> command = new ArrayList<>(ContainerServicesProperties.ManageTopicModels.MANAGER_ENTRY_CMD);
         command.add(ContainerServicesProperties.ManageTopicModels.GET_TM_MODEL_CMD);
         command.add(name);
@@ -847,10 +571,15 @@ public class DockerServiceImpl implements DockerService {
 
         String result = this.dockerExecutionService.execCommand(CommandType.WORDLIST_CREATE, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_LISTS));
 
-        checkResult(result);
-
         this.deleteInputTempFileInTempFolder(tmp_file, DockerService.MANAGE_LISTS);
-        cacheLibrary.setDirtyByKey(WordlistCachedEntity.CODE);
+        if (checkResult(result)) {
+            WordListEntity created = mapper.convertValue(wordList, WordListEntity.class);
+            created.setCreation_date(new Date());
+            created.setLocation(ContainerServicesProperties.ManageLists.InnerPaths.WORDLISTS_ROOT + wordList.getName() + ".json");
+            cacheLibrary.<WordListEntity>patchByKey(WordlistCachedEntity.CODE, cached -> cached.upsertEntry(created));
+        } else {
+            cacheLibrary.setDirtyByKey(WordlistCachedEntity.CODE);
+        }
     }
 
     @Override
@@ -872,10 +601,15 @@ public class DockerServiceImpl implements DockerService {
 
         String result = this.dockerExecutionService.execCommand(CommandType.CORPUS_CREATE, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_CORPUS));
 
-        checkResult(result);
-
         this.deleteInputTempFileInTempFolder(tmp_file, DockerService.MANAGE_CORPUS);
-        cacheLibrary.setDirtyByKey(LogicalCorpusCachedEntity.CODE);
+        if (checkResult(result)) {
+            LogicalCorpusEntity created = mapper.convertValue(corpus, LogicalCorpusEntity.class);
+            created.setCreation_date(new Date());
+            created.setLocation(ContainerServicesProperties.ManageCorpus.InnerPaths.DATASETS_ROOT + corpus.getName() + ".json");
+            cacheLibrary.<LogicalCorpusEntity>patchByKey(LogicalCorpusCachedEntity.CODE, cached -> cached.upsertEntry(created));
+        } else {
+            cacheLibrary.setDirtyByKey(LogicalCorpusCachedEntity.CODE);
+        }
     }
 
     @Override
@@ -883,9 +617,11 @@ public class DockerServiceImpl implements DockerService {
         Path datasetMetaPath = Path.of(this.containerServicesProperties.getCorpusService().getParquetFolder(), "datasetMeta.json");
         String content = Files.readString(datasetMetaPath, Charset.defaultCharset());
         Map<String, RawCorpusJson> existingCorpora = jsonHandlingService.fromJson(Map.class, content);
-        existingCorpora.put(generatedName, new RawCorpusJson(corpus));
+        RawCorpusJson created = new RawCorpusJson(corpus);
+        existingCorpora.put(generatedName, created);
         Files.writeString(datasetMetaPath, jsonHandlingService.toJson(existingCorpora), Charset.defaultCharset());
-        cacheLibrary.setDirtyByKey(RawCorpusCachedEntity.CODE);
+        RawCorpusEntity entity = mapper.convertValue(created, RawCorpusEntity.class);
+        cacheLibrary.<RawCorpusEntity>patchByKey(RawCorpusCachedEntity.CODE, cached -> cached.upsertEntry(entity));
     }
 
     @Override
@@ -894,8 +630,23 @@ public class DockerServiceImpl implements DockerService {
         command.add(ContainerServicesProperties.ManageLists.COPY_CMD);
         command.add(name);
 
-        this.dockerExecutionService.execCommand(CommandType.WORDLIST_COPY, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_LISTS));
-        cacheLibrary.setDirtyByKey(WordlistCachedEntity.CODE);
+        String result = this.dockerExecutionService.execCommand(CommandType.WORDLIST_COPY, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_LISTS));
+
+        if (!checkResult(result)) {
+            cacheLibrary.setDirtyByKey(WordlistCachedEntity.CODE);
+            return;
+        }
+        cacheLibrary.<WordListEntity>patchByKey(WordlistCachedEntity.CODE, cached -> {
+            WordListEntity source = cached.getEntry(name);
+            if (source == null) {
+                cached.setDirty();
+                return;
+            }
+            WordListEntity copy = copyOf(source, WordListEntity.class);
+            copy.setName(name + "-copy");
+            copy.setLocation(ContainerServicesProperties.ManageLists.InnerPaths.WORDLISTS_ROOT + copy.getName() + ".json");
+            cached.upsertEntry(copy);
+        });
     }
 
     @Override
@@ -904,8 +655,23 @@ public class DockerServiceImpl implements DockerService {
         command.add(ContainerServicesProperties.ManageCorpus.COPY_CMD);
         command.add(name);
 
-        this.dockerExecutionService.execCommand(CommandType.CORPUS_COPY, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_CORPUS));
-        cacheLibrary.setDirtyByKey(LogicalCorpusCachedEntity.CODE);
+        String result = this.dockerExecutionService.execCommand(CommandType.CORPUS_COPY, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_CORPUS));
+
+        if (!checkResult(result)) {
+            cacheLibrary.setDirtyByKey(LogicalCorpusCachedEntity.CODE);
+            return;
+        }
+        cacheLibrary.<LogicalCorpusEntity>patchByKey(LogicalCorpusCachedEntity.CODE, cached -> {
+            LogicalCorpusEntity source = cached.getEntry(name);
+            if (source == null) {
+                cached.setDirty();
+                return;
+            }
+            LogicalCorpusEntity copy = copyOf(source, LogicalCorpusEntity.class);
+            copy.setName(name + "-copy");
+            copy.setLocation(ContainerServicesProperties.ManageCorpus.InnerPaths.DATASETS_ROOT + copy.getName() + ".json");
+            cached.upsertEntry(copy);
+        });
     }
 
     @Override
@@ -923,11 +689,43 @@ public class DockerServiceImpl implements DockerService {
         command.add(name);
         command.add(name + "-copy");
 
-        this.dockerExecutionService.execCommand(CommandType.MODEL_COPY, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS));
+        String result = this.dockerExecutionService.execCommand(CommandType.MODEL_COPY, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS));
+
+        boolean succeeded = checkResult(result);
+        modelCatalog.refresh(modelType, name + "-copy");
         if (ModelType.TOPIC == modelType) {
-            cacheLibrary.setDirtyByKey(TopicModelCachedEntity.CODE);
+            if (!succeeded) {
+                cacheLibrary.setDirtyByKey(TopicModelCachedEntity.CODE);
+                return;
+            }
+            cacheLibrary.<TopicModelEntity>patchByKey(TopicModelCachedEntity.CODE, cached -> {
+                TopicModelEntity source = cached.getEntry(name);
+                if (source == null || !cached.findEntries(e -> subcorpusOf(name).equals(e.getCorpus())).isEmpty()) {
+                    // Copied submodels keep their own names, so leave hierarchies to the reconciliation
+                    cached.setDirty();
+                    return;
+                }
+                TopicModelEntity copy = copyOf(source, TopicModelEntity.class);
+                copy.setName(name + "-copy");
+                copy.setLocation(TM_MODELS_ROOT + copy.getName());
+                cached.upsertEntry(copy);
+            });
         } else {
-            cacheLibrary.setDirtyByKey(DomainModelCachedEntity.CODE);
+            if (!succeeded) {
+                cacheLibrary.setDirtyByKey(DomainModelCachedEntity.CODE);
+                return;
+            }
+            cacheLibrary.<DomainModelEntity>patchByKey(DomainModelCachedEntity.CODE, cached -> {
+                DomainModelEntity source = cached.getEntry(name);
+                if (source == null) {
+                    cached.setDirty();
+                    return;
+                }
+                DomainModelEntity copy = copyOf(source, DomainModelEntity.class);
+                copy.setName(name + "-copy");
+                copy.setLocation(containerServicesProperties.getDomainTrainingService().getModelsInnerFolder(ContainerServicesProperties.ManageDomainModels.class) + "/" + copy.getName());
+                cached.upsertEntry(copy);
+            });
         }
     }
 
@@ -940,8 +738,21 @@ public class DockerServiceImpl implements DockerService {
 
         String result = this.dockerExecutionService.execCommand(CommandType.WORDLIST_RENAME, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_LISTS));
 
-        checkResult(result);
-        cacheLibrary.setDirtyByKey(WordlistCachedEntity.CODE);
+        if (!checkResult(result)) {
+            cacheLibrary.setDirtyByKey(WordlistCachedEntity.CODE);
+            return;
+        }
+        cacheLibrary.<WordListEntity>patchByKey(WordlistCachedEntity.CODE, cached -> {
+            WordListEntity source = cached.getEntry(oldName);
+            if (source == null) {
+                cached.setDirty();
+                return;
+            }
+            WordListEntity renamed = copyOf(source, WordListEntity.class);
+            renamed.setName(newName);
+            renamed.setLocation(ContainerServicesProperties.ManageLists.InnerPaths.WORDLISTS_ROOT + newName + ".json");
+            cached.replaceEntry(oldName, renamed);
+        });
     }
 
     @Override
@@ -953,8 +764,21 @@ public class DockerServiceImpl implements DockerService {
 
         String result = this.dockerExecutionService.execCommand(CommandType.CORPUS_RENAME, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_CORPUS));
 
-        checkResult(result);
-        cacheLibrary.setDirtyByKey(LogicalCorpusCachedEntity.CODE);
+        if (!checkResult(result)) {
+            cacheLibrary.setDirtyByKey(LogicalCorpusCachedEntity.CODE);
+            return;
+        }
+        cacheLibrary.<LogicalCorpusEntity>patchByKey(LogicalCorpusCachedEntity.CODE, cached -> {
+            LogicalCorpusEntity source = cached.getEntry(oldName);
+            if (source == null) {
+                cached.setDirty();
+                return;
+            }
+            LogicalCorpusEntity renamed = copyOf(source, LogicalCorpusEntity.class);
+            renamed.setName(newName);
+            renamed.setLocation(ContainerServicesProperties.ManageCorpus.InnerPaths.DATASETS_ROOT + newName + ".json");
+            cached.replaceEntry(oldName, renamed);
+        });
     }
 
     @Override
@@ -967,7 +791,17 @@ public class DockerServiceImpl implements DockerService {
                 value.put("name", newName);
         });
         Files.writeString(datasetMetaPath, jsonHandlingService.toJson(existingCorpora), Charset.defaultCharset());
-        cacheLibrary.setDirtyByKey(RawCorpusCachedEntity.CODE);
+        cacheLibrary.<RawCorpusEntity>patchByKey(RawCorpusCachedEntity.CODE, cached -> {
+            String oldKey = RawCorpusCachedEntity.rawCorpusKey(source, oldName);
+            RawCorpusEntity existing = cached.getEntry(oldKey);
+            if (existing == null) {
+                cached.setDirty();
+                return;
+            }
+            RawCorpusEntity renamed = copyOf(existing, RawCorpusEntity.class);
+            renamed.setName(newName);
+            cached.replaceEntry(oldKey, renamed);
+        });
     }
 
     @Override
@@ -987,11 +821,46 @@ public class DockerServiceImpl implements DockerService {
 
         String result = this.dockerExecutionService.execCommand(CommandType.MODEL_RENAME, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS));
 
-        checkResult(result);
+        boolean succeeded = checkResult(result);
+        modelCatalog.refresh(modelType, oldName);
+        modelCatalog.refresh(modelType, newName);
         if (ModelType.TOPIC == modelType) {
-            cacheLibrary.setDirtyByKey(TopicModelCachedEntity.CODE);
+            if (!succeeded) {
+                cacheLibrary.setDirtyByKey(TopicModelCachedEntity.CODE);
+                return;
+            }
+            cacheLibrary.<TopicModelEntity>patchByKey(TopicModelCachedEntity.CODE, cached -> {
+                TopicModelEntity source = cached.getEntry(oldName);
+                if (source == null) {
+                    cached.setDirty();
+                    return;
+                }
+                TopicModelEntity renamed = copyOf(source, TopicModelEntity.class);
+                renamed.setName(newName);
+                renamed.setLocation(TM_MODELS_ROOT + newName);
+                cached.replaceEntry(oldName, renamed);
+                for (TopicModelEntity submodel : cached.findEntries(e -> subcorpusOf(oldName).equals(e.getCorpus()))) {
+                    TopicModelEntity reattached = copyOf(submodel, TopicModelEntity.class);
+                    reattached.setCorpus(subcorpusOf(newName));
+                    cached.upsertEntry(reattached);
+                }
+            });
         } else {
-            cacheLibrary.setDirtyByKey(DomainModelCachedEntity.CODE);
+            if (!succeeded) {
+                cacheLibrary.setDirtyByKey(DomainModelCachedEntity.CODE);
+                return;
+            }
+            cacheLibrary.<DomainModelEntity>patchByKey(DomainModelCachedEntity.CODE, cached -> {
+                DomainModelEntity source = cached.getEntry(oldName);
+                if (source == null) {
+                    cached.setDirty();
+                    return;
+                }
+                DomainModelEntity renamed = copyOf(source, DomainModelEntity.class);
+                renamed.setName(newName);
+                renamed.setLocation(containerServicesProperties.getDomainTrainingService().getModelsInnerFolder(ContainerServicesProperties.ManageDomainModels.class) + "/" + newName);
+                cached.replaceEntry(oldName, renamed);
+            });
         }
     }
 
@@ -1003,8 +872,10 @@ public class DockerServiceImpl implements DockerService {
 
         String result = this.dockerExecutionService.execCommand(CommandType.WORDLIST_DELETE, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_LISTS));
 
-        checkResult(result);
-        cacheLibrary.setDirtyByKey(WordlistCachedEntity.CODE);
+        if (checkResult(result))
+            cacheLibrary.<WordListEntity>patchByKey(WordlistCachedEntity.CODE, cached -> cached.evictEntry(name));
+        else
+            cacheLibrary.setDirtyByKey(WordlistCachedEntity.CODE);
     }
 
     @Override
@@ -1015,8 +886,10 @@ public class DockerServiceImpl implements DockerService {
 
         String result = this.dockerExecutionService.execCommand(CommandType.CORPUS_DELETE, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_CORPUS));
 
-        checkResult(result);
-        cacheLibrary.setDirtyByKey(LogicalCorpusCachedEntity.CODE);
+        if (checkResult(result))
+            cacheLibrary.<LogicalCorpusEntity>patchByKey(LogicalCorpusCachedEntity.CODE, cached -> cached.evictEntry(name));
+        else
+            cacheLibrary.setDirtyByKey(LogicalCorpusCachedEntity.CODE);
     }
 
     @Override
@@ -1037,10 +910,17 @@ public class DockerServiceImpl implements DockerService {
 
         String result = this.dockerExecutionService.execCommand(CommandType.MODEL_DELETE, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS));
 
-        checkResult(result);
+        boolean succeeded = checkResult(result);
+        modelCatalog.refresh(modelType, name);
         if (ModelType.TOPIC == modelType) {
-            cacheLibrary.setDirtyByKey(TopicModelCachedEntity.CODE);
-            cacheLibrary.remove(TopicCachedEntity.CODE + name);
+            if (succeeded)
+                cacheLibrary.<TopicModelEntity>patchByKey(TopicModelCachedEntity.CODE, cached -> {
+                    cached.evictEntry(name);
+                    cached.evictEntries(e -> subcorpusOf(name).equals(e.getCorpus()));
+                });
+            else
+                cacheLibrary.setDirtyByKey(TopicModelCachedEntity.CODE);
+            cacheLibrary.clearByKey(TopicCachedEntity.CODE + name);
         } else {
             String root = containerServicesProperties.getDomainTrainingService().getModelsFolder(ContainerServicesProperties.ManageDomainModels.class);
             URI pathToDelete = Path.of(root, projectName + "_classification", "models", name).toUri();
@@ -1050,111 +930,82 @@ public class DockerServiceImpl implements DockerService {
             } else {
                 logger.debug("No model folder on path '{}' found for deletion. Skipping...", pathToDelete.getPath());
             }
-            cacheLibrary.setDirtyByKey(DomainModelCachedEntity.CODE);
+            if (succeeded)
+                cacheLibrary.<DomainModelEntity>patchByKey(DomainModelCachedEntity.CODE, cached -> cached.evictEntry(name));
+            else
+                cacheLibrary.setDirtyByKey(DomainModelCachedEntity.CODE);
         }
     }
 
-    @Override
-    public List<TopicEntity> listTopics(String name, TopicLookup lookup) throws IOException, ApiException, InterruptedException {
-        List<TopicEntity> data = new ArrayList<>();
-        TopicCachedEntity cached = (TopicCachedEntity) cacheLibrary.get(TopicCachedEntity.CODE + name);
-        if (cached == null || cached.isDirty(checkTasksSchedulerEventConfig.get().getCacheOptions().getValidPeriodInSeconds())) {
-            List<String> command = new ArrayList<>(ContainerServicesProperties.ManageTopicModels.MANAGER_ENTRY_CMD);
-            command.add(ContainerServicesProperties.ManageTopicModels.LIST_TOPICS_CMD);
-            command.add(name);
-
-            String response = this.dockerExecutionService.execCommand(CommandType.TOPIC_GET, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS));
-            response = response.replace("INFO:TMmodel:-- -- -- Topic model object (TMmodel) successfully created", "");
+    private TopicCachedEntity loadTopics(String name) throws InterruptedException, IOException, ApiException {
+        List<String> command = new ArrayList<>(ContainerServicesProperties.ManageTopicModels.MANAGER_ENTRY_CMD);
+        command.add(ContainerServicesProperties.ManageTopicModels.LIST_TOPICS_CMD);
+        command.add(name);
 
-            ArrayList<TopicEntity> topics = mapper.readValue(response, new TypeReference<>() {
-            });
-            if (topics == null)
-                return data;
-            for (int i = 0; i < topics.size(); i++) {
-                topics.get(i).setId(i);
-            }
-            data.addAll(topics);
-            TopicCachedEntity toCache = new TopicCachedEntity();
-            toCache.setPayload(data);
-            cacheLibrary.update(toCache, TopicCachedEntity.CODE + name);
-        } else {
-            data.addAll(cached.getPayload());
+        // Log lines interleaved with the output are dropped while it is streamed into the parser
+        List<TopicEntity> topics = this.dockerExecutionService.execCommand(CommandType.TOPIC_GET, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS),
+                output -> readElements(output, TopicEntity.class));
+        if (topics == null)
+            return null;
+        for (int i = 0; i < topics.size(); i++) {
+            topics.get(i).setId(i);
         }
+        TopicCachedEntity toCache = new TopicCachedEntity();
+        toCache.setPayload(topics);
+        return toCache;
+    }
 
-        return new ArrayList<>(applyTopicLookup(data, lookup));
+    @Override
+    public List<TopicEntity> listTopics(String name, TopicLookup lookup) throws IOException, ApiException, InterruptedException {
+        TopicCachedEntity cached = cacheLibrary.getOrLoad(TopicCachedEntity.CODE, TopicCachedEntity.CODE + name,
+                checkTasksSchedulerEventConfig.get().getCacheOptions().getValidPeriodInSeconds(), () -> loadTopics(name));
+        if (cached == null)
+            return new ArrayList<>();
+        return applyTopicLookup(cached.getView(), lookup);
     }
 
     @Override
     public TopicSimilarity getSimilarTopics(String name, Integer pairs) throws IOException, ApiException, InterruptedException {
-        //Create temporary input file
-        String tmp_file = "generated_" + new SecureRandom().nextInt();
-        createInputFileInTempFolder(tmp_file, pairs.toString(), DockerService.MANAGE_MODELS);
-
-        List<String> command = new ArrayList<>();
-        command.add("/bin/sh");
-        command.add("-c");
-        command.add(
-                String.join(" ", ContainerServicesProperties.ManageTopicModels.MANAGER_ENTRY_CMD) + " " +
-                        String.join(" ", List.of(ContainerServicesProperties.ManageTopicModels.GET_SIMILAR_TOPICS_CMD, name, "< /data/temp/" + tmp_file))
-        );
+        List<String> command = new ArrayList<>(ContainerServicesProperties.ManageTopicModels.MANAGER_ENTRY_CMD);
+        command.add(ContainerServicesProperties.ManageTopicModels.GET_SIMILAR_TOPICS_CMD);
+        command.add(name);
 
-        String response = this.dockerExecutionService.execCommand(CommandType.TOPIC_SIMILAR, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS));
+        String response = this.dockerExecutionService.execCommand(CommandType.TOPIC_SIMILAR, command, pairs.toString(), this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS));
         response = response.replace("INFO:TMmodel:-- -- -- Topic model object (TMmodel) successfully created", "");
         response = response.replace("\n", "");
-        TopicSimilarity similarity = mapper.readValue(response, new TypeReference<>() {
+        return mapper.readValue(response, new TypeReference<TopicSimilarity>() {
         });
-
-        deleteInputTempFileInTempFolder(tmp_file, DockerService.MANAGE_MODELS);
-        return similarity;
     }
 
     @Override
     public void setTopicLabels(String name, ArrayList<String> labels) throws IOException, ApiException, InterruptedException {
-        //Create temporary input file
-        String tmp_file = "generated_" + new SecureRandom().nextInt();
         String contents = jsonHandlingService.toJsonSafe(labels);
-        createInputFileInTempFolder(tmp_file, contents, DockerService.MANAGE_MODELS);
-
-        List<String> command = new ArrayList<>();
-        command.add("/bin/sh");
-        command.add("-c");
-        command.add(
-                String.join(" ", ContainerServicesProperties.ManageTopicModels.MANAGER_ENTRY_CMD) + " " +
-                        String.join(" ", List.of(ContainerServicesProperties.ManageTopicModels.SET_TPC_LABELS_CMD, name, "< /data/temp/" + tmp_file))
-        );
+        List<String> command = new ArrayList<>(ContainerServicesProperties.ManageTopicModels.MANAGER_ENTRY_CMD);
+        command.add(ContainerServicesProperties.ManageTopicModels.SET_TPC_LABELS_CMD);
+        command.add(name);
 
-        String response = this.dockerExecutionService.execCommand(CommandType.TOPIC_LABELS_SET, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS));
+        String response = this.dockerExecutionService.execCommand(CommandType.TOPIC_LABELS_SET, command, contents, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS));
         response = response.replace("INFO:TMmodel:-- -- -- Topic model object (TMmodel) successfully created", "");
         response = response.replace("\n", "");
 
         checkResult(response);
 
-        deleteInputTempFileInTempFolder(tmp_file, DockerService.MANAGE_MODELS);
         cacheLibrary.setDirtyByKey(TopicCachedEntity.CODE + name);
     }
 
     @Override
     public void fuseTopics(String name, ArrayList<Integer> topics) throws IOException, ApiException, InterruptedException {
-        //Create temporary input file
-        String tmp_file = "generated_" + new SecureRandom().nextInt();
         String contents = jsonHandlingService.toJsonSafe(topics);
-        createInputFileInTempFolder(tmp_file, contents, DockerService.MANAGE_MODELS);
-
-        List<String> command = new ArrayList<>();
-        command.add("/bin/sh");
-        command.add("-c");
-        command.add(
-                String.join(" ", ContainerServicesProperties.ManageTopicModels.MANAGER_ENTRY_CMD) + " " +
-                        String.join(" ", List.of(ContainerServicesProperties.ManageTopicModels.FUSE_TOPICS_CMD, name, "< /data/temp/" + tmp_file))
-        );
+        List<String> command = new ArrayList<>(ContainerServicesProperties.ManageTopicModels.MANAGER_ENTRY_CMD);
+        command.add(ContainerServicesProperties.ManageTopicModels.FUSE_TOPICS_CMD);
+        command.add(name);
 
-        String response = this.dockerExecutionService.execCommand(CommandType.TOPIC_FUSE, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS));
+        String response = this.dockerExecutionService.execCommand(CommandType.TOPIC_FUSE, command, contents, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS));
         response = response.replace("INFO:TMmodel:-- -- -- Topic model object (TMmodel) successfully created", "");
         response = response.replace("\n", "");
 
         checkResult(response);
 
-        deleteInputTempFileInTempFolder(tmp_file, DockerService.MANAGE_MODELS);
         cacheLibrary.setDirtyByKey(TopicCachedEntity.CODE + name);
     }
 
@@ -1172,26 +1023,17 @@ public class DockerServiceImpl implements DockerService {
 
     @Override
     public void deleteTopics(String name, ArrayList<Integer> topics) throws IOException, ApiException, InterruptedException {
-        //Create temporary input file
-        String tmp_file = "generated_" + new SecureRandom().nextInt();
         String contents = jsonHandlingService.toJsonSafe(topics);
-        createInputFileInTempFolder(tmp_file, contents, DockerService.MANAGE_MODELS);
-
-        List<String> command = new ArrayList<>();
-        command.add("/bin/sh");
-        command.add("-c");
-        command.add(
-                String.join(" ", ContainerServicesProperties.ManageTopicModels.MANAGER_ENTRY_CMD) + " " +
-                        String.join(" ", List.of(ContainerServicesProperties.ManageTopicModels.DELETE_TOPICS_CMD, name, "< /data/temp/" + tmp_file))
-        );
+        List<String> command = new ArrayList<>(ContainerServicesProperties.ManageTopicModels.MANAGER_ENTRY_CMD);
+        command.add(ContainerServicesProperties.ManageTopicModels.DELETE_TOPICS_CMD);
+        command.add(name);
 
-        String response = this.dockerExecutionService.execCommand(CommandType.TOPIC_DELETE, command, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS));
+        String response = this.dockerExecutionService.execCommand(CommandType.TOPIC_DELETE, command, contents, this.dockerExecutionService.ensureAvailableService(DockerService.MANAGE_MODELS));
         response = response.replace("INFO:TMmodel:-- -- -- Topic model object (TMmodel) successfully created", "");
         response = response.replace("\n", "");
 
         checkResult(response);
 
-        deleteInputTempFileInTempFolder(tmp_file, DockerService.MANAGE_MODELS);
         cacheLibrary.setDirtyByKey(TopicCachedEntity.CODE + name);
     }
 }
@@ -6,7 +6,6 @@ import gr.cite.intelcomp.interactivemodeltrainer.model.persist.domainclassificat
 
 import java.nio.file.Path;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
 import static gr.cite.intelcomp.interactivemodeltrainer.service.domainclassification.DomainClassificationParametersServiceJson.DomainClassificationParametersModel;
@@ -20,7 +19,7 @@ public abstract class DomainClassificationParametersService {
     public abstract void prepareLogFile(String modelName, String logFile);
     public abstract void generateLabelsFile(String modelName, String modelDomain, DomainLabelsSelectionJsonModel labels);
     public abstract List<String> getLogs(String modelName, String logFile);
-    public abstract Map<String, byte[]> getPU_scores(String modelName, String modelDomain);
+    public abstract List<Path> getPU_scores(String modelName, String modelDomain);
     public abstract List<DocumentEntity> getSampledDocuments(String modelName, String modelDomain);
 
     public abstract DomainClassificationParametersModel getConfigurationModel(String name);
@@ -14,7 +14,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -150,17 +149,13 @@ public class DomainClassificationParametersServiceJson extends DomainClassificat
     }
 
     @Override
-    public Map<String, byte[]> getPU_scores(String modelName, String modelDomain) {
-        Map<String, byte[]> result = new HashMap<>();
-        try {
-            String outputFolder = containerServicesProperties.getDomainTrainingService().getOutputFolder(modelDomain);
-            result.put(modelName + "_PUscores.png", FileUtils.readFileToByteArray(new File(outputFolder + "/" + modelName + "_PUscores.png")));
-            result.put(modelName + "_PUscores_log.png", FileUtils.readFileToByteArray(new File(outputFolder + "/" + modelName + "_PUscores_log.png")));
-            result.put(modelName + "_PUscores_hist.png", FileUtils.readFileToByteArray(new File(outputFolder + "/" + modelName + "_PUscores_hist.png")));
-        } catch (IOException e) {
-            logger.error(e.getMessage(), e);
-        }
-        return result;
+    public List<Path> getPU_scores(String modelName, String modelDomain) {
+        String outputFolder = containerServicesProperties.getDomainTrainingService().getOutputFolder(modelDomain);
+        return List.of(
+                Path.of(outputFolder, modelName + "_PUscores.png"),
+                Path.of(outputFolder, modelName + "_PUscores_log.png"),
+                Path.of(outputFolder, modelName + "_PUscores_hist.png")
+        );
     }
 
     @Override
@@ -0,0 +1,216 @@
+package gr.cite.intelcomp.interactivemodeltrainer.service.execution;
+
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.CommandType;
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.Status;
+import gr.cite.intelcomp.interactivemodeltrainer.common.scope.user.UserScope;
+import gr.cite.intelcomp.interactivemodeltrainer.data.ExecutionEntity;
+import gr.cite.tools.logging.LoggerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.hibernate.Session;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the commands executed in the service containers, as timers and as rows of the execution table. Every
+ * execution is timed as a whole and split into the time it waited before it started running in the container and
+ * the time it ran. The timers are tagged with the command type, the service, the path the command took (a manager
+ * worker or a one-off exec) and the outcome, and publish percentile histograms so that tail latencies can be compared
+ * per command type.
+ * <p>
+ * Rows are not written by the calling thread. Finished executions are queued and a single writer persists them in
+ * batches, one transaction per batch. When the queue is full, for instance while the database is unreachable, the
+ * executions are still timed but their rows are dropped and counted.
+ */
+@Component
+@Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
+public class ExecutionRecorder {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(ExecutionRecorder.class));
+
+    public static final String PATH_WORKER = "worker";
+    public static final String PATH_EXEC = "exec";
+
+    private static final int QUEUE_CAPACITY = 10000;
+    private static final int BATCH_SIZE = 200;
+    private static final Duration FLUSH_INTERVAL = Duration.ofSeconds(2);
+    private static final int COMMAND_LENGTH = 200;
+    private static final int RESULT_LENGTH = 200;
+    private static final UUID SYSTEM_USER = new UUID(0, 0);
+
+    private final MeterRegistry meterRegistry;
+    private final UserScope userScope;
+    private final EntityManagerFactory entityManagerFactory;
+    private final BlockingQueue<ExecutionEntity> rows = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final ScheduledExecutorService writer;
+
+    public ExecutionRecorder(MeterRegistry meterRegistry, UserScope userScope, EntityManagerFactory entityManagerFactory) {
+        this.meterRegistry = meterRegistry;
+        this.userScope = userScope;
+        this.entityManagerFactory = entityManagerFactory;
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "execution-recorder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writer.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL.toMillis(), FLUSH_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) logger.warn("Execution recorder did not finish in time");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.flush();
+    }
+
+    /**
+     * Starts timing a command. Expected to be called by the thread that requested the command, so that the
+     * execution is attributed to the current user.
+     */
+    public Execution start(CommandType type, String service, List<String> command) {
+        UUID userId = null;
+        try {
+            userId = userScope.getUserIdSafe();
+        } catch (RuntimeException e) {
+            logger.trace("No user scope for execution of {}", type);
+        }
+        return new Execution(type, service == null ? "unknown" : service, String.join(" ", command), userId == null ? SYSTEM_USER : userId);
+    }
+
+    private synchronized void flush() {
+        List<ExecutionEntity> batch = new ArrayList<>(BATCH_SIZE);
+        while (rows.drainTo(batch, BATCH_SIZE) > 0) {
+            this.persist(batch);
+            batch.clear();
+        }
+    }
+
+    private void persist(List<ExecutionEntity> batch) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        EntityTransaction transaction = entityManager.getTransaction();
+        try {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(BATCH_SIZE);
+            transaction.begin();
+            for (ExecutionEntity row : batch) entityManager.persist(row);
+            transaction.commit();
+        } catch (RuntimeException e) {
+            logger.warn("Could not persist {} executions: {}", batch.size(), e.getMessage());
+            meterRegistry.counter("container.exec.records.dropped").increment(batch.size());
+            if (transaction.isActive()) transaction.rollback();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private Timer timer(String name, String description, Execution execution, String outcome) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("type", execution.type.name())
+                .tag("service", execution.service)
+                .tag("path", execution.path)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static String truncate(String value, int length) {
+        if (value == null || value.length() <= length) return value;
+        return value.substring(0, length);
+    }
+
+    /**
+     * A command being timed. The container services tell which path the command took and when it started
+     * running, and the execution is finished once, with its outcome.
+     */
+    public final class Execution {
+
+        private final CommandType type;
+        private final String service;
+        private final String command;
+        private final UUID userId;
+        private final Instant createdAt = Instant.now();
+        private final long startedAt = System.nanoTime();
+        private String path = PATH_EXEC;
+        private long queuedNanos;
+        private boolean finished;
+
+        private Execution(CommandType type, String service, String command, UUID userId) {
+            this.type = type;
+            this.service = service;
+            this.command = command;
+            this.userId = userId;
+        }
+
+        /**
+         * The command ran on a manager worker, after waiting the given time behind the commands sent before it.
+         */
+        public void ranOnWorker(Duration queued) {
+            this.path = PATH_WORKER;
+            this.queuedNanos = queued.toNanos();
+        }
+
+        /**
+         * A one-off exec of the command has just started in the container.
+         */
+        public void startedExec() {
+            this.path = PATH_EXEC;
+            this.queuedNanos = System.nanoTime() - startedAt;
+        }
+
+        public void succeeded() {
+            this.finish(null);
+        }
+
+        public void failed(Throwable failure) {
+            this.finish(failure);
+        }
+
+        private void finish(Throwable failure) {
+            if (finished) return;
+            finished = true;
+            long total = System.nanoTime() - startedAt;
+            long queued = Math.min(Math.max(queuedNanos, 0), total);
+            String outcome = failure == null ? "success" : "error";
+
+            timer("container.exec.duration", "Time from requesting a command until its output is read", this, outcome).record(total, TimeUnit.NANOSECONDS);
+            timer("container.exec.queue", "Time a command waited before it started running in the container", this, outcome).record(queued, TimeUnit.NANOSECONDS);
+            timer("container.exec.run", "Time a command ran in the container", this, outcome).record(total - queued, TimeUnit.NANOSECONDS);
+
+            ExecutionEntity row = new ExecutionEntity();
+            row.setId(UUID.randomUUID());
+            row.setUserId(userId);
+            row.setType(type);
+            row.setCommand(truncate(command, COMMAND_LENGTH));
+            row.setStatus(failure == null ? Status.FINISHED : Status.ERROR);
+            row.setResult(failure == null ? null : truncate(failure.getClass().getSimpleName() + ": " + failure.getMessage(), RESULT_LENGTH));
+            row.setCreatedAt(createdAt);
+            row.setExecutedAt(createdAt.plusNanos(queued));
+            row.setFinishedAt(createdAt.plusNanos(total));
+            row.setUpdatedAt(row.getFinishedAt());
+            if (!rows.offer(row)) meterRegistry.counter("container.exec.records.dropped").increment();
+        }
+
+    }
+
+}
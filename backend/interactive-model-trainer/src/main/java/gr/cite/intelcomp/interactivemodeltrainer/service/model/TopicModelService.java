@@ -1,13 +1,14 @@
 package gr.cite.intelcomp.interactivemodeltrainer.service.model;
 
 import gr.cite.intelcomp.interactivemodeltrainer.cache.CacheLibrary;
+import gr.cite.intelcomp.interactivemodeltrainer.cache.ModelAssetStore;
 import gr.cite.intelcomp.interactivemodeltrainer.cache.TopicModelCachedEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.common.enums.ModelType;
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.TopicSimilarityMetric;
 import gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties;
 import gr.cite.intelcomp.interactivemodeltrainer.data.ModelEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.data.TopicModelEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.data.TopicModelListingEntity;
-import gr.cite.intelcomp.interactivemodeltrainer.data.UserEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.data.topic.TopicEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.model.TopicModel;
 import gr.cite.intelcomp.interactivemodeltrainer.model.TopicModelListing;
@@ -15,21 +16,19 @@ import gr.cite.intelcomp.interactivemodeltrainer.model.builder.TopicBuilder;
 import gr.cite.intelcomp.interactivemodeltrainer.model.builder.TopicModelBuilder;
 import gr.cite.intelcomp.interactivemodeltrainer.model.topic.Topic;
 import gr.cite.intelcomp.interactivemodeltrainer.model.topic.TopicSimilarity;
-import gr.cite.intelcomp.interactivemodeltrainer.query.UserQuery;
 import gr.cite.intelcomp.interactivemodeltrainer.query.lookup.ModelLookup;
 import gr.cite.intelcomp.interactivemodeltrainer.query.lookup.TopicLookup;
 import gr.cite.intelcomp.interactivemodeltrainer.query.lookup.TopicModelLookup;
 import gr.cite.intelcomp.interactivemodeltrainer.service.docker.DockerService;
 import gr.cite.intelcomp.interactivemodeltrainer.service.topicmodeling.TopicModelingParametersService;
+import gr.cite.intelcomp.interactivemodeltrainer.service.topicsimilarity.TopicSimilarityService;
 import gr.cite.tools.data.builder.BuilderFactory;
 import gr.cite.tools.fieldset.BaseFieldSet;
 import io.kubernetes.client.openapi.ApiException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -40,35 +39,36 @@ public class TopicModelService extends ModelService<TopicModel, TopicModelLookup
     private final ContainerServicesProperties containerServicesProperties;
     private final TopicModelingParametersService topicModelingParametersService;
     private final CacheLibrary cacheLibrary;
-    private final ApplicationContext applicationContext;
+    private final TopicSimilarityService topicSimilarityService;
+    private final ModelAssetStore modelAssetStore;
 
     @Autowired
-    protected TopicModelService(BuilderFactory builderFactory, DockerService dockerService, ContainerServicesProperties containerServicesProperties, TopicModelingParametersService topicModelingParametersService, CacheLibrary cacheLibrary, ApplicationContext applicationContext) {
+    protected TopicModelService(BuilderFactory builderFactory, DockerService dockerService, ContainerServicesProperties containerServicesProperties, TopicModelingParametersService topicModelingParametersService, CacheLibrary cacheLibrary, TopicSimilarityService topicSimilarityService, ModelAssetStore modelAssetStore) {
         super(builderFactory, dockerService);
         this.containerServicesProperties = containerServicesProperties;
         this.topicModelingParametersService = topicModelingParametersService;
         this.cacheLibrary = cacheLibrary;
-        this.applicationContext = applicationContext;
+        this.topicSimilarityService = topicSimilarityService;
+        this.modelAssetStore = modelAssetStore;
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public List<TopicModelListing> getAll(TopicModelLookup lookup) throws IOException, InterruptedException, ApiException {
-        List<UserEntity> users = applicationContext.getBean(UserQuery.class).collect();
         lookup.setModelType(ModelType.TOPIC);
-        List<TopicModelListingEntity> data = (List<TopicModelListingEntity>) dockerService.listModels(lookup, users);
+        List<TopicModelListingEntity> data = (List<TopicModelListingEntity>) dockerService.listModels(lookup);
         if (lookup.getOrder() == null || lookup.getOrder().isEmpty() || lookup.getOrder().getItems() == null || lookup.getOrder().getItems().isEmpty()) {
-            return builderFactory.builder(TopicModelBuilder.class).build(lookup.getProject(), data, users);
+            return builderFactory.builder(TopicModelBuilder.class).build(lookup.getProject(), data);
         }
         String orderItem = lookup.getOrder().getItems().get(0);
         if (orderItem.endsWith("creator")) {
             if (orderItem.startsWith("-")) {
-                return builderFactory.builder(TopicModelBuilder.class).buildSortedByOwnerDesc(lookup.getProject(), data, users);
+                return builderFactory.builder(TopicModelBuilder.class).buildSortedByOwnerDesc(lookup.getProject(), data);
             } else {
-                return builderFactory.builder(TopicModelBuilder.class).buildSortedByOwnerAsc(lookup.getProject(), data, users);
+                return builderFactory.builder(TopicModelBuilder.class).buildSortedByOwnerAsc(lookup.getProject(), data);
             }
         }
-        return builderFactory.builder(TopicModelBuilder.class).build(lookup.getProject(), data, users);
+        return builderFactory.builder(TopicModelBuilder.class).build(lookup.getProject(), data);
     }
 
     public void patch(String name, String description, String visibility) {
@@ -83,12 +83,11 @@ public class TopicModelService extends ModelService<TopicModel, TopicModelLookup
 
     @SuppressWarnings("unchecked")
     public List<TopicModelListing> getModel(String name) throws IOException, InterruptedException, ApiException {
-        List<UserEntity> users = applicationContext.getBean(UserQuery.class).collect();
         ModelLookup lookup = new ModelLookup();
         lookup.setModelType(ModelType.TOPIC);
         lookup.setProject(new BaseFieldSet("name", "type", "params"));
         List<? extends ModelEntity> data = dockerService.getModel(lookup, name);
-        return builderFactory.builder(TopicModelBuilder.class).build(lookup.getProject(), (List<TopicModelListingEntity>) data, users);
+        return builderFactory.builder(TopicModelBuilder.class).build(lookup.getProject(), (List<TopicModelListingEntity>) data);
     }
 
     public List<Topic> getAllTopics(String name, TopicLookup lookup) throws IOException, InterruptedException, ApiException {
@@ -100,7 +99,11 @@ public class TopicModelService extends ModelService<TopicModel, TopicModelLookup
         dockerService.setTopicLabels(name, labels);
     }
 
-    public TopicSimilarity getSimilarTopics(String name, Integer pairs) throws IOException, InterruptedException, ApiException {
+    public TopicSimilarity getSimilarTopics(String name, Integer pairs, TopicSimilarityMetric metric) throws IOException, InterruptedException, ApiException {
+        TopicSimilarity similarity = topicSimilarityService.getSimilarTopics(name, pairs, metric);
+        if (similarity != null)
+            return similarity;
+        // The manager container only compares word descriptions with the Jensen-Shannon distance
         return dockerService.getSimilarTopics(name, pairs);
     }
 
@@ -118,40 +121,33 @@ public class TopicModelService extends ModelService<TopicModel, TopicModelLookup
         dockerService.deleteTopics(name, topics);
     }
 
-    public String getPyLDAvis(String name) throws IOException {
-        String modelFolder = containerServicesProperties.getTopicTrainingService().getModelsFolder(ContainerServicesProperties.ManageTopicModels.class) + "/" + name;
-        Path file = Path.of(modelFolder, "TMmodel", "pyLDAvis.html");
-        return Files.readString(file);
+    public ModelAssetStore.Asset getPyLDAvis(String name) throws IOException {
+        return this.visualizationAsset(name, "pyLDAvis.html");
     }
 
-    public String getD3(String name) throws IOException {
-        String modelFolder = containerServicesProperties.getTopicTrainingService().getModelsFolder(ContainerServicesProperties.ManageTopicModels.class) + "/" + name;
-        Path file = Path.of(modelFolder, "TMmodel", "d3.js");
-        return Files.readString(file);
+    public ModelAssetStore.Asset getD3(String name) throws IOException {
+        return this.visualizationAsset(name, "d3.js");
     }
 
-    public String getPyLDAvisLibrary(String name) throws IOException {
-        String modelFolder = containerServicesProperties.getTopicTrainingService().getModelsFolder(ContainerServicesProperties.ManageTopicModels.class) + "/" + name;
-        Path file = Path.of(modelFolder, "TMmodel", "ldavis.v3.0.0.js");
-        return Files.readString(file);
+    public ModelAssetStore.Asset getPyLDAvisLibrary(String name) throws IOException {
+        return this.visualizationAsset(name, "ldavis.v3.0.0.js");
     }
 
-    public String getPyLDAvis(String parentName, String name) throws IOException {
-        String modelFolder = containerServicesProperties.getTopicTrainingService().getModelsFolder(ContainerServicesProperties.ManageTopicModels.class) + "/" + parentName + "/" + name;
-        Path file = Path.of(modelFolder, "TMmodel", "pyLDAvis.html");
-        return Files.readString(file);
+    public ModelAssetStore.Asset getPyLDAvis(String parentName, String name) throws IOException {
+        return this.visualizationAsset(parentName + "/" + name, "pyLDAvis.html");
     }
 
-    public String getD3(String parentName, String name) throws IOException {
-        String modelFolder = containerServicesProperties.getTopicTrainingService().getModelsFolder(ContainerServicesProperties.ManageTopicModels.class) + "/" + parentName + "/" + name;
-        Path file = Path.of(modelFolder, "TMmodel", "d3.js");
-        return Files.readString(file);
+    public ModelAssetStore.Asset getD3(String parentName, String name) throws IOException {
+        return this.visualizationAsset(parentName + "/" + name, "d3.js");
     }
 
-    public String getPyLDAvisLibrary(String parentName, String name) throws IOException {
-        String modelFolder = containerServicesProperties.getTopicTrainingService().getModelsFolder(ContainerServicesProperties.ManageTopicModels.class) + "/" + parentName + "/" + name;
-        Path file = Path.of(modelFolder, "TMmodel", "ldavis.v3.0.0.js");
-        return Files.readString(file);
+    public ModelAssetStore.Asset getPyLDAvisLibrary(String parentName, String name) throws IOException {
+        return this.visualizationAsset(parentName + "/" + name, "ldavis.v3.0.0.js");
+    }
+
+    private ModelAssetStore.Asset visualizationAsset(String model, String fileName) throws IOException {
+        String modelFolder = containerServicesProperties.getTopicTrainingService().getModelsFolder(ContainerServicesProperties.ManageTopicModels.class) + "/" + model;
+        return modelAssetStore.get(Path.of(modelFolder, "TMmodel", fileName));
     }
 
 }
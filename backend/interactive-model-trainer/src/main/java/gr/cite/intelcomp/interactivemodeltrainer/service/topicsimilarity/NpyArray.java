@@ -0,0 +1,117 @@
+package gr.cite.intelcomp.interactivemodeltrainer.service.topicsimilarity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A numpy array as written by numpy.save, limited to what the TMmodel files use: little endian or single byte
+ * integers and floats, in C order. The elements stay in the buffer they were read into, which is a memory map of
+ * the file for {@link #map(Path)}, and are read by flat index.
+ */
+final class NpyArray {
+
+    private static final byte[] MAGIC = {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y'};
+    private static final Pattern DESCR = Pattern.compile("'descr'\\s*:\\s*'([<|>=])([fiub])(\\d+)'");
+    private static final Pattern FORTRAN_ORDER = Pattern.compile("'fortran_order'\\s*:\\s*(True|False)");
+    private static final Pattern SHAPE = Pattern.compile("'shape'\\s*:\\s*\\(([^)]*)\\)");
+
+    private final char kind;
+    private final int itemSize;
+    private final long[] shape;
+    private final ByteBuffer data;
+
+    private NpyArray(char kind, int itemSize, long[] shape, ByteBuffer data) {
+        this.kind = kind;
+        this.itemSize = itemSize;
+        this.shape = shape;
+        this.data = data;
+    }
+
+    /**
+     * Maps the array file read only, so that its elements are paged in from the file instead of being copied
+     * to the heap.
+     */
+    static NpyArray map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file.toString());
+        }
+    }
+
+    static NpyArray read(InputStream input, String name) throws IOException {
+        return parse(ByteBuffer.wrap(input.readAllBytes()), name);
+    }
+
+    private static NpyArray parse(ByteBuffer buffer, String name) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        byte[] magic = new byte[MAGIC.length];
+        if (buffer.remaining() < MAGIC.length + 4) throw new IOException(name + " is not a numpy array");
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException(name + " is not a numpy array");
+        int major = buffer.get();
+        buffer.get();
+        int headerLength = major == 1 ? Short.toUnsignedInt(buffer.getShort()) : buffer.getInt();
+        byte[] headerBytes = new byte[headerLength];
+        buffer.get(headerBytes);
+        String header = new String(headerBytes, major == 3 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+
+        Matcher descr = DESCR.matcher(header);
+        Matcher fortranOrder = FORTRAN_ORDER.matcher(header);
+        Matcher shapeMatcher = SHAPE.matcher(header);
+        if (!descr.find() || !fortranOrder.find() || !shapeMatcher.find())
+            throw new IOException("Unsupported numpy header in " + name + ": " + header.trim());
+        int itemSize = Integer.parseInt(descr.group(3));
+        if (">".equals(descr.group(1)) && itemSize > 1)
+            throw new IOException("Big endian numpy array in " + name + " is not supported");
+        if ("f".equals(descr.group(2)) && itemSize != 4 && itemSize != 8)
+            throw new IOException("Numpy float" + itemSize * 8 + " array in " + name + " is not supported");
+        if ("True".equals(fortranOrder.group(1)))
+            throw new IOException("Fortran ordered numpy array in " + name + " is not supported");
+        long[] shape = Arrays.stream(shapeMatcher.group(1).split(","))
+                .map(String::trim)
+                .filter(dimension -> !dimension.isEmpty())
+                .mapToLong(Long::parseLong)
+                .toArray();
+
+        ByteBuffer data = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        NpyArray array = new NpyArray(descr.group(2).charAt(0), itemSize, shape, data);
+        if (array.size() * itemSize > data.remaining()) throw new IOException("Truncated numpy array in " + name);
+        return array;
+    }
+
+    long[] shape() {
+        return shape;
+    }
+
+    long size() {
+        long size = 1;
+        for (long dimension : shape) size *= dimension;
+        return size;
+    }
+
+    double getDouble(long index) {
+        int offset = Math.toIntExact(index * itemSize);
+        if (kind == 'f') return itemSize == 4 ? data.getFloat(offset) : data.getDouble(offset);
+        return this.getLong(index);
+    }
+
+    long getLong(long index) {
+        int offset = Math.toIntExact(index * itemSize);
+        if (kind == 'f') return (long) this.getDouble(index);
+        return switch (itemSize) {
+            case 1 -> kind == 'i' ? data.get(offset) : Byte.toUnsignedLong(data.get(offset));
+            case 2 -> kind == 'i' ? data.getShort(offset) : Short.toUnsignedLong(data.getShort(offset));
+            case 4 -> kind == 'i' ? data.getInt(offset) : Integer.toUnsignedLong(data.getInt(offset));
+            default -> data.getLong(offset);
+        };
+    }
+
+}
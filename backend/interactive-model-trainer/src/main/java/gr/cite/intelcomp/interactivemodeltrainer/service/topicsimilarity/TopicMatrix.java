@@ -0,0 +1,215 @@
+package gr.cite.intelcomp.interactivemodeltrainer.service.topicsimilarity;
+
+import gr.cite.intelcomp.interactivemodeltrainer.model.topic.TopicSimilarity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * The topic-word and document-topic distributions of a TMmodel, as needed to compare its topics. The topic-word
+ * matrix (betas.npy) stays memory mapped and is only scanned once, to find the words whose weight exceeds
+ * {@link #WORD_THRESHOLD} in some topic, the same vocabulary restriction TMmodel applies before comparing word
+ * distributions. The sparse document-topic matrix (thetas.npz) is read once and reduced to the topic correlation
+ * matrix. Computed similarities are kept with the matrix, so they are dropped together with it.
+ */
+final class TopicMatrix {
+
+    static final String BETAS_FILE_NAME = "betas.npy";
+    static final String THETAS_FILE_NAME = "thetas.npz";
+
+    private static final double WORD_THRESHOLD = 1e-3;
+
+    private final Path betasFile;
+    private final Path thetasFile;
+    private final long betasStamp;
+    private final long thetasStamp;
+    private final NpyArray betas;
+    private final int topics;
+    private final int words;
+    private final int[] columns;
+    private final double[] sums;
+    private final double[] norms;
+    private final double[] correlation;
+    private final Map<String, TopicSimilarity> similarities = new ConcurrentHashMap<>();
+    private long generation;
+
+    private TopicMatrix(Path folder) throws IOException {
+        this.betasFile = folder.resolve(BETAS_FILE_NAME);
+        this.thetasFile = folder.resolve(THETAS_FILE_NAME);
+        this.betasStamp = stamp(betasFile);
+        this.thetasStamp = stamp(thetasFile);
+        this.betas = NpyArray.map(betasFile);
+        if (betas.shape().length != 2) throw new IOException(betasFile + " is not a topic-word matrix");
+        this.topics = Math.toIntExact(betas.shape()[0]);
+        this.words = Math.toIntExact(betas.shape()[1]);
+
+        int[] kept = new int[words];
+        int count = 0;
+        for (int word = 0; word < words; word++) {
+            for (int topic = 0; topic < topics; topic++) {
+                if (this.beta(topic, word) > WORD_THRESHOLD) {
+                    kept[count++] = word;
+                    break;
+                }
+            }
+        }
+        this.columns = Arrays.copyOf(kept, count);
+        this.sums = new double[topics];
+        this.norms = new double[topics];
+        for (int topic = 0; topic < topics; topic++) {
+            for (int word : columns) {
+                double value = this.beta(topic, word);
+                sums[topic] += value;
+                norms[topic] += value * value;
+            }
+            norms[topic] = Math.sqrt(norms[topic]);
+        }
+        this.correlation = this.readCorrelation();
+    }
+
+    static TopicMatrix open(Path folder) throws IOException {
+        return new TopicMatrix(folder);
+    }
+
+    /**
+     * Whether the files are still the ones the matrix was read from.
+     */
+    boolean isCurrent() {
+        try {
+            return stamp(betasFile) == betasStamp && stamp(thetasFile) == thetasStamp;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    int topics() {
+        return topics;
+    }
+
+    TopicSimilarity similarity(String key) {
+        return similarities.get(key);
+    }
+
+    /**
+     * Counts the invalidations of the similarities, read before computing one so that it is only kept if the
+     * topics did not change in the meantime.
+     */
+    synchronized long generation() {
+        return generation;
+    }
+
+    synchronized void keep(String key, TopicSimilarity similarity, long computedAt) {
+        if (generation == computedAt) similarities.put(key, similarity);
+    }
+
+    synchronized void invalidate() {
+        generation++;
+        similarities.clear();
+    }
+
+    /**
+     * Pearson correlation of the weights of the two topics across documents. Topics that co-occur in the same
+     * documents correlate.
+     */
+    double correlation(int a, int b) {
+        return correlation[a * topics + b];
+    }
+
+    /**
+     * One minus the Jensen-Shannon distance (natural logarithm) of the word distributions of the two topics.
+     */
+    double jensenShannonSimilarity(int a, int b) {
+        if (sums[a] <= 0 || sums[b] <= 0) return Double.NaN;
+        double divergence = 0;
+        for (int word : columns) {
+            double p = this.beta(a, word) / sums[a];
+            double q = this.beta(b, word) / sums[b];
+            double m = (p + q) / 2;
+            if (p > 0) divergence += p * Math.log(p / m);
+            if (q > 0) divergence += q * Math.log(q / m);
+        }
+        return 1 - Math.sqrt(Math.max(divergence, 0) / 2);
+    }
+
+    double cosineSimilarity(int a, int b) {
+        if (norms[a] <= 0 || norms[b] <= 0) return Double.NaN;
+        double dot = 0;
+        for (int word : columns) {
+            dot += this.beta(a, word) * this.beta(b, word);
+        }
+        return dot / (norms[a] * norms[b]);
+    }
+
+    private double beta(int topic, int word) {
+        return betas.getDouble((long) topic * words + word);
+    }
+
+    /**
+     * Reads the CSR matrix saved by scipy.sparse.save_npz and accumulates the topic moments a row at a time.
+     */
+    private double[] readCorrelation() throws IOException {
+        NpyArray data = null, indices = null, indptr = null, shape = null;
+        try (InputStream file = Files.newInputStream(thetasFile); ZipInputStream zip = new ZipInputStream(file)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                switch (entry.getName()) {
+                    case "data.npy" -> data = NpyArray.read(zip, thetasFile + "/data");
+                    case "indices.npy" -> indices = NpyArray.read(zip, thetasFile + "/indices");
+                    case "indptr.npy" -> indptr = NpyArray.read(zip, thetasFile + "/indptr");
+                    case "shape.npy" -> shape = NpyArray.read(zip, thetasFile + "/shape");
+                    default -> {
+                    }
+                }
+            }
+        }
+        if (data == null || indices == null || indptr == null || shape == null)
+            throw new IOException(thetasFile + " is not a sparse matrix");
+        long documents = shape.getLong(0);
+        if (shape.getLong(1) != topics || indptr.size() != documents + 1)
+            throw new IOException(thetasFile + " does not match the " + topics + " topics of " + betasFile);
+
+        double[] means = new double[topics];
+        double[] squares = new double[topics];
+        double[] products = new double[topics * topics];
+        for (long document = 0; document < documents; document++) {
+            long start = indptr.getLong(document);
+            long end = indptr.getLong(document + 1);
+            for (long p = start; p < end; p++) {
+                int i = (int) indices.getLong(p);
+                double v = data.getDouble(p);
+                means[i] += v;
+                squares[i] += v * v;
+                products[i * topics + i] += v * v;
+                for (long q = p + 1; q < end; q++) {
+                    int j = (int) indices.getLong(q);
+                    double product = v * data.getDouble(q);
+                    products[i * topics + j] += product;
+                    products[j * topics + i] += product;
+                }
+            }
+        }
+        double[] deviations = new double[topics];
+        for (int i = 0; i < topics; i++) {
+            means[i] /= documents;
+            deviations[i] = Math.sqrt(Math.max(squares[i] / documents - means[i] * means[i], 0));
+        }
+        for (int i = 0; i < topics; i++) {
+            for (int j = 0; j < topics; j++) {
+                products[i * topics + j] = (products[i * topics + j] / documents - means[i] * means[j]) / (deviations[i] * deviations[j]);
+            }
+        }
+        return products;
+    }
+
+    private static long stamp(Path file) throws IOException {
+        return Files.getLastModifiedTime(file).toMillis() * 31 + Files.size(file);
+    }
+
+}
@@ -0,0 +1,189 @@
+package gr.cite.intelcomp.interactivemodeltrainer.service.topicsimilarity;
+
+import gr.cite.intelcomp.interactivemodeltrainer.cache.CacheLibrary;
+import gr.cite.intelcomp.interactivemodeltrainer.cache.TopicCachedEntity;
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.TopicSimilarityMetric;
+import gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties;
+import gr.cite.intelcomp.interactivemodeltrainer.model.topic.TopicSimilarity;
+import gr.cite.tools.logging.LoggerService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes the similar topics of a topic model in the backend, from the TMmodel files of the models folder,
+ * instead of having the manager container rebuild the TMmodel for every request. Matrices of the most recently
+ * used models are kept open, and the similarities computed over them are kept until the topics of the model
+ * change, which is when {@link TopicCachedEntity} of the model is marked dirty or cleared, or until its files are
+ * rewritten.
+ * <p>
+ * The pairs are scored in blocks of topics on a pool sized to the available processors. Co-occurring topics are
+ * ranked by the correlation of their document weights and topics with a similar word description by the
+ * similarity of their word distributions, one minus the Jensen-Shannon distance like TMmodel, or cosine.
+ */
+@Service
+public class TopicSimilarityService {
+
+    private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(TopicSimilarityService.class));
+
+    private static final String TM_MODEL_FOLDER = "TMmodel";
+    private static final int OPEN_MATRICES = 8;
+
+    private final ContainerServicesProperties containerServicesProperties;
+    private final CacheLibrary cacheLibrary;
+    private final int parallelism = Runtime.getRuntime().availableProcessors();
+    private final ExecutorService workers;
+    private final Map<String, TopicMatrix> matrices = new LinkedHashMap<>(OPEN_MATRICES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TopicMatrix> eldest) {
+            return size() > OPEN_MATRICES;
+        }
+    };
+
+    public TopicSimilarityService(ContainerServicesProperties containerServicesProperties, CacheLibrary cacheLibrary) {
+        this.containerServicesProperties = containerServicesProperties;
+        this.cacheLibrary = cacheLibrary;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "topic-similarity-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void register() {
+        cacheLibrary.addInvalidationListener(key -> {
+            if (key.startsWith(TopicCachedEntity.CODE)) this.invalidate(key.substring(TopicCachedEntity.CODE.length()));
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Returns the given number of most similar topic pairs of the model, or null when the TMmodel files of the
+     * model cannot be read from the backend, in which case the manager container has to compute them.
+     */
+    public TopicSimilarity getSimilarTopics(String name, int pairs, TopicSimilarityMetric metric) throws InterruptedException {
+        TopicMatrix matrix = this.matrix(name);
+        if (matrix == null) return null;
+        TopicSimilarityMetric wordMetric = metric == null ? TopicSimilarityMetric.JENSEN_SHANNON : metric;
+        String key = wordMetric.name() + ":" + pairs;
+        TopicSimilarity cached = matrix.similarity(key);
+        if (cached != null) return cached;
+        long generation = matrix.generation();
+
+        TopicSimilarity similarity = new TopicSimilarity();
+        similarity.setCoocurring(this.topPairs(matrix.topics(), pairs, matrix::correlation));
+        similarity.setWordDesc(this.topPairs(matrix.topics(), pairs, TopicSimilarityMetric.COSINE == wordMetric ? matrix::cosineSimilarity : matrix::jensenShannonSimilarity));
+        matrix.keep(key, similarity, generation);
+        return similarity;
+    }
+
+    /**
+     * Drops the similarities computed for the model, the matrices are read again only if their files changed.
+     */
+    public void invalidate(String name) {
+        synchronized (matrices) {
+            TopicMatrix matrix = matrices.get(name);
+            if (matrix != null) matrix.invalidate();
+        }
+    }
+
+    private TopicMatrix matrix(String name) {
+        String modelsFolder = containerServicesProperties.getTopicTrainingService().getModelsFolder(ContainerServicesProperties.ManageTopicModels.class);
+        if (modelsFolder == null || name == null) return null;
+        Path folder = Path.of(modelsFolder, name, TM_MODEL_FOLDER);
+        if (!Files.isRegularFile(folder.resolve(TopicMatrix.BETAS_FILE_NAME)) || !Files.isRegularFile(folder.resolve(TopicMatrix.THETAS_FILE_NAME)))
+            return null;
+        synchronized (matrices) {
+            TopicMatrix current = matrices.get(name);
+            if (current != null && current.isCurrent()) return current;
+        }
+        try {
+            TopicMatrix loaded = TopicMatrix.open(folder);
+            synchronized (matrices) {
+                matrices.put(name, loaded);
+            }
+            return loaded;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read the topic matrices of model '{}': {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface PairScore {
+        double score(int a, int b);
+    }
+
+    private record Pair(int a, int b, double score) {
+    }
+
+    /**
+     * Scores every pair of distinct topics and keeps the highest. Topic rows are dealt to the blocks in turn, since
+     * the first rows have the most pairs, and every block keeps its own best pairs until they are merged.
+     */
+    private ArrayList<ArrayList<Object>> topPairs(int topics, int pairs, PairScore score) throws InterruptedException {
+        int limit = (int) Math.min(pairs, (long) topics * (topics - 1) / 2);
+        Comparator<Pair> byScore = Comparator.comparingDouble(Pair::score);
+        int blocks = Math.max(1, Math.min(parallelism, topics));
+        List<Callable<PriorityQueue<Pair>>> tasks = new ArrayList<>(blocks);
+        for (int block = 0; block < blocks; block++) {
+            int first = block;
+            tasks.add(() -> {
+                PriorityQueue<Pair> best = new PriorityQueue<>(byScore);
+                for (int a = first; a < topics; a += blocks) {
+                    for (int b = a + 1; b < topics; b++) {
+                        double value = score.score(a, b);
+                        if (Double.isNaN(value)) continue;
+                        if (best.size() < limit) best.add(new Pair(a, b, value));
+                        else if (limit > 0 && best.peek().score() < value) {
+                            best.poll();
+                            best.add(new Pair(a, b, value));
+                        }
+                    }
+                }
+                return best;
+            });
+        }
+
+        List<Pair> merged = new ArrayList<>();
+        try {
+            for (Future<PriorityQueue<Pair>> block : workers.invokeAll(tasks)) {
+                merged.addAll(block.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        }
+        merged.sort(byScore.reversed());
+
+        ArrayList<ArrayList<Object>> result = new ArrayList<>();
+        for (Pair pair : merged.subList(0, Math.min(limit, merged.size()))) {
+            result.add(new ArrayList<>(List.of(pair.a(), pair.b(), pair.score())));
+        }
+        return result;
+    }
+
+}
@@ -45,9 +45,7 @@ import jakarta.persistence.EntityManager;
 
 import java.nio.file.Path;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 
 import static gr.cite.intelcomp.interactivemodeltrainer.configuration.ContainerServicesProperties.DockerServiceConfiguration.*;
@@ -69,12 +67,13 @@ public class TrainingTaskRequestServiceImpl implements TrainingTaskRequestServic
     private final DomainClassificationParametersService domainClassificationParametersService;
     private final JsonHandlingService jsonHandlingService;
     private final CacheLibrary cacheLibrary;
+    private final RunningTaskRegistry runningTaskRegistry;
     private final ContainerManagementService dockerExecutionService;
     private final ContainerServicesProperties containerServicesProperties;
     private final ObjectMapper objectMapper;
 
     @Autowired
-    public TrainingTaskRequestServiceImpl(ScheduledEventManageService scheduledEventManageService, UserScope userScope, EntityManager entityManager, TopicModelingParametersService topicModelingParametersService, DomainClassificationParametersService domainClassificationParametersService, JsonHandlingService jsonHandlingService, CacheLibrary cacheLibrary, ContainerManagementService dockerExecutionService, ContainerServicesProperties containerServicesProperties, ObjectMapper objectMapper) {
+    public TrainingTaskRequestServiceImpl(ScheduledEventManageService scheduledEventManageService, UserScope userScope, EntityManager entityManager, TopicModelingParametersService topicModelingParametersService, DomainClassificationParametersService domainClassificationParametersService, JsonHandlingService jsonHandlingService, CacheLibrary cacheLibrary, RunningTaskRegistry runningTaskRegistry, ContainerManagementService dockerExecutionService, ContainerServicesProperties containerServicesProperties, ObjectMapper objectMapper) {
         this.scheduledEventManageService = scheduledEventManageService;
         this.userScope = userScope;
         this.entityManager = entityManager;
@@ -82,13 +81,13 @@ public class TrainingTaskRequestServiceImpl implements TrainingTaskRequestServic
         this.domainClassificationParametersService = domainClassificationParametersService;
         this.jsonHandlingService = jsonHandlingService;
         this.cacheLibrary = cacheLibrary;
+        this.runningTaskRegistry = runningTaskRegistry;
         this.dockerExecutionService = dockerExecutionService;
         this.containerServicesProperties = containerServicesProperties;
         this.objectMapper = objectMapper;
     }
 
     private void updateTrainingCache(TopicModelingParametersModel model, UUID task) {
-        UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
         TrainingTaskQueueItem item = new TrainingTaskQueueItem();
         item.setPayload(model);
         item.setTask(task);
@@ -97,21 +96,10 @@ public class TrainingTaskRequestServiceImpl implements TrainingTaskRequestServic
         item.setLabel(model.getName());
         item.setFinished(false);
         item.setStartedAt(Instant.now());
-        if (cache != null) {
-            if (cache.getPayload() == null)
-                cache.setPayload(new ArrayList<>());
-            cache.getPayload().add(item);
-        } else {
-            UserTasksCacheEntity newCache = new UserTasksCacheEntity();
-            newCache.setPayload(new ArrayList<>());
-            newCache.getPayload().add(item);
-            cacheLibrary.update(newCache);
-        }
+        runningTaskRegistry.add(item);
     }
 
     private void updateTrainingCache(HierarchicalTopicModelingParametersModel model, String parentName, UUID task) {
-        UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-
         HierarchicalTopicModelingParametersEnhancedModel enhancedModel = objectMapper.convertValue(model, HierarchicalTopicModelingParametersEnhancedModel.class);
         enhancedModel.setParentName(parentName);
 
@@ -123,21 +111,10 @@ public class TrainingTaskRequestServiceImpl implements TrainingTaskRequestServic
         item.setLabel(model.getName());
         item.setFinished(false);
         item.setStartedAt(Instant.now());
-        if (cache != null) {
-            if (cache.getPayload() == null)
-                cache.setPayload(new ArrayList<>());
-            cache.getPayload().add(item);
-        } else {
-            UserTasksCacheEntity newCache = new UserTasksCacheEntity();
-            newCache.setPayload(new ArrayList<>());
-            newCache.getPayload().add(item);
-            cacheLibrary.update(newCache);
-        }
+        runningTaskRegistry.add(item);
     }
 
     private void updateTrainingCache(DomainClassificationParametersModel model, UUID task) {
-        UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-
         TrainingTaskQueueItem item = new TrainingTaskQueueItem();
         item.setPayload(model);
         item.setTask(task);
@@ -146,21 +123,10 @@ public class TrainingTaskRequestServiceImpl implements TrainingTaskRequestServic
         item.setLabel(String.join("::", model.getName(), model.getTag()));
         item.setFinished(false);
         item.setStartedAt(Instant.now());
-        if (cache != null) {
-            if (cache.getPayload() == null)
-                cache.setPayload(new ArrayList<>());
-            cache.getPayload().add(item);
-        } else {
-            UserTasksCacheEntity newCache = new UserTasksCacheEntity();
-            newCache.setPayload(new ArrayList<>());
-            newCache.getPayload().add(item);
-            cacheLibrary.update(newCache);
-        }
+        runningTaskRegistry.add(item);
     }
 
     private void updateCuratingCache(String modelName, UUID task, RunningTaskSubType taskType) {
-        UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-
         CuratingTaskQueueItem item = new CuratingTaskQueueItem();
         item.setPayload(null);
         item.setTask(task);
@@ -169,21 +135,10 @@ public class TrainingTaskRequestServiceImpl implements TrainingTaskRequestServic
         item.setFinished(false);
         item.setSubType(taskType);
         item.setStartedAt(Instant.now());
-        if (cache != null) {
-            if (cache.getPayload() == null)
-                cache.setPayload(new ArrayList<>());
-            cache.getPayload().add(item);
-        } else {
-            UserTasksCacheEntity newCache = new UserTasksCacheEntity();
-            newCache.setPayload(new ArrayList<>());
-            newCache.getPayload().add(item);
-            cacheLibrary.update(newCache);
-        }
+        runningTaskRegistry.add(item);
     }
 
     private void updateCuratingCache(DomainClassificationParametersModel model, UUID task, RunningTaskSubType taskType) {
-        UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-
         CuratingTaskQueueItem item = new CuratingTaskQueueItem();
         item.setPayload(model);
         item.setTask(task);
@@ -192,16 +147,7 @@ public class TrainingTaskRequestServiceImpl implements TrainingTaskRequestServic
         item.setFinished(false);
         item.setSubType(taskType);
         item.setStartedAt(Instant.now());
-        if (cache != null) {
-            if (cache.getPayload() == null)
-                cache.setPayload(new ArrayList<>());
-            cache.getPayload().add(item);
-        } else {
-            UserTasksCacheEntity newCache = new UserTasksCacheEntity();
-            newCache.setPayload(new ArrayList<>());
-            newCache.getPayload().add(item);
-            cacheLibrary.update(newCache);
-        }
+        runningTaskRegistry.add(item);
     }
 
     @Override
@@ -640,28 +586,15 @@ public class TrainingTaskRequestServiceImpl implements TrainingTaskRequestServic
 
     @Override
     public TrainingTaskRequestStatus getTaskStatus(UUID task) {
-        UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-        if (cache != null && cache.getPayload() != null) {
-            Optional<RunningTaskQueueItem> found = cache.getPayload().stream()
-                    .filter(i -> i.getTask().equals(task) && i.getUserId().equals(userScope.getUserIdSafe()))
-                    .findFirst();
-            return found
-                    .map(trainingQueueItem -> trainingQueueItem.isFinished() ? TrainingTaskRequestStatus.COMPLETED : TrainingTaskRequestStatus.PENDING)
-                    .orElse(TrainingTaskRequestStatus.ERROR);
-        } else {
-            return TrainingTaskRequestStatus.ERROR;
-        }
+        RunningTaskQueueItem item = runningTaskRegistry.get(task, userScope.getUserIdSafe());
+        if (item == null) return TrainingTaskRequestStatus.ERROR;
+        return item.isFinished() ? TrainingTaskRequestStatus.COMPLETED : TrainingTaskRequestStatus.PENDING;
     }
 
     @Override
     public void clearFinishedTask(UUID task) {
-        UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-        if (cache != null && cache.getPayload() != null) {
-            cache.getPayload().stream()
-                    .filter(i -> i.isFinished() && i.getTask().equals(task) && i.getUserId().equals(userScope.getUserIdSafe()))
-                    .findFirst()
-                    .ifPresent(item -> cache.getPayload().remove(item));
-        }
+        RunningTaskQueueItem item = runningTaskRegistry.get(task, userScope.getUserIdSafe());
+        if (item != null && item.isFinished()) runningTaskRegistry.remove(task);
     }
 
     @Override
@@ -672,50 +605,34 @@ public class TrainingTaskRequestServiceImpl implements TrainingTaskRequestServic
         } catch (ApiException e) {
             logger.error("Could not cancel task. There is no container present with id {}", task);
         }
-        UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-        if (cache != null && cache.getPayload() != null) {
-            cache.getPayload().stream()
-                    .filter(i -> i.getTask().equals(task) && i.getUserId().equals(userScope.getUserIdSafe()))
-                    .findFirst()
-                    .ifPresent(item -> {
-                        if (RunningTaskType.training == item.getType()) {
-                            cacheLibrary.setDirtyByKey(TopicModelCachedEntity.CODE);
-                            cacheLibrary.setDirtyByKey(DomainModelCachedEntity.CODE);
-                        }
-                        cache.getPayload().remove(item);
-                    });
-            cacheLibrary.update(cache);
+        RunningTaskQueueItem item = runningTaskRegistry.get(task, userScope.getUserIdSafe());
+        if (item == null) return;
+        if (RunningTaskType.training == item.getType()) {
+            cacheLibrary.setDirtyByKey(TopicModelCachedEntity.CODE);
+            cacheLibrary.setDirtyByKey(DomainModelCachedEntity.CODE);
         }
+        runningTaskRegistry.remove(task);
     }
 
     @Override
     public void clearAllFinishedTasks(RunningTaskType type) {
-        UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-        if (cache != null && cache.getPayload() != null) {
-            cache.getPayload().stream()
-                    .filter(i -> i.getType() == type && i.isFinished() && i.getUserId().equals(userScope.getUserIdSafe()))
-                    .toList()
-                    .forEach(item -> cache.getPayload().remove(item));
-            cacheLibrary.update(cache);
+        for (RunningTaskQueueItem item : runningTaskRegistry.ofUser(userScope.getUserIdSafe())) {
+            if (item.getType() == type && item.isFinished()) runningTaskRegistry.remove(item.getTask());
         }
     }
 
     @Override
     public List<? extends RunningTaskQueueItem> getRunningTasks(RunningTaskType type) {
-        UserTasksCacheEntity cache = (UserTasksCacheEntity) cacheLibrary.get(UserTasksCacheEntity.CODE);
-        List<? extends RunningTaskQueueItem> items = new ArrayList<>();
-        if (cache != null) {
-            items = cache.getPayload();
-        }
         if (type == RunningTaskType.curating) {
-            return items
+            return runningTaskRegistry.all()
                     .stream()
                     .filter(item -> item.getType() == type)
                     .toList();
         } else {
-            return items
+            if (!userScope.isSet()) return List.of();
+            return runningTaskRegistry.ofUser(userScope.getUserIdSafe())
                     .stream()
-                    .filter(item -> userScope.isSet() && userScope.getUserIdSafe().equals(item.getUserId()) && item.getType() == type)
+                    .filter(item -> item.getType() == type)
                     .toList();
         }
     }
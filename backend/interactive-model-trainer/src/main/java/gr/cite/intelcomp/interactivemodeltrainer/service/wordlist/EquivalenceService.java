@@ -1,11 +1,11 @@
 package gr.cite.intelcomp.interactivemodeltrainer.service.wordlist;
 
+import gr.cite.intelcomp.interactivemodeltrainer.cache.UserDirectory;
 import gr.cite.intelcomp.interactivemodeltrainer.data.UserEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.data.WordListEntity;
 import gr.cite.intelcomp.interactivemodeltrainer.model.Equivalence;
 import gr.cite.intelcomp.interactivemodeltrainer.model.WordListJson;
 import gr.cite.intelcomp.interactivemodeltrainer.model.builder.EquivalenceBuilder;
-import gr.cite.intelcomp.interactivemodeltrainer.query.UserQuery;
 import gr.cite.intelcomp.interactivemodeltrainer.query.lookup.WordListLookup;
 import gr.cite.intelcomp.interactivemodeltrainer.service.docker.DockerService;
 import gr.cite.tools.data.builder.BuilderFactory;
@@ -14,7 +14,6 @@ import gr.cite.tools.logging.LoggerService;
 import io.kubernetes.client.openapi.ApiException;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -26,12 +25,12 @@ public class EquivalenceService extends WordlistService<Equivalence, WordListLoo
 
     private static final LoggerService logger = new LoggerService(LoggerFactory.getLogger(EquivalenceService.class));
 
-    private final ApplicationContext applicationContext;
+    private final UserDirectory userDirectory;
 
     @Autowired
-    public EquivalenceService(BuilderFactory builderFactory, DockerService dockerService, ApplicationContext applicationContext) {
+    public EquivalenceService(BuilderFactory builderFactory, DockerService dockerService, UserDirectory userDirectory) {
         super(builderFactory, dockerService);
-        this.applicationContext = applicationContext;
+        this.userDirectory = userDirectory;
     }
 
     @Override
@@ -78,9 +77,9 @@ public class EquivalenceService extends WordlistService<Equivalence, WordListLoo
                     .toList();
             String creatorUsername = corpora.get(0).getCreator();
             if (creatorUsername != null && !creatorUsername.equals("-")) {
-                List<UserEntity> users = applicationContext.getBean(UserQuery.class).usernames(creatorUsername).collect();
-                if (!users.isEmpty())
-                    wordList.setCreator(users.get(0).getId().toString());
+                UserEntity user = userDirectory.byUsername(creatorUsername);
+                if (user != null)
+                    wordList.setCreator(user.getId().toString());
             }
             dockerService.createWordList(wordList, false);
         } catch (Exception e) {
@@ -0,0 +1,170 @@
+package gr.cite.intelcomp.interactivemodeltrainer.cache;
+
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.CorpusValidFor;
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.Visibility;
+import gr.cite.intelcomp.interactivemodeltrainer.data.LogicalCorpusEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the lookups run through the index of a cached listing with the stream filtering they replaced.
+ */
+class IndexedViewTest {
+
+    private static final List<String> CREATORS = Arrays.asList("alice", "bob", "carol", null);
+    private static final List<String> LIKES = Arrays.asList(null, "corpus-1", "7", " pus-2 ", "missing");
+    private static final List<List<Visibility>> VISIBILITIES = Arrays.asList(null, List.of(Visibility.Public), List.of(Visibility.Public, Visibility.Private));
+    private static final List<List<String>> CREATOR_IDS = Arrays.asList(null, List.of("alice"), List.of("bob", "carol"));
+    private static final List<CorpusValidFor> VALID_FOR = Arrays.asList(null, CorpusValidFor.TM, CorpusValidFor.DC);
+    private static final List<String> ORDERS = Arrays.asList(null, "name", "-name", "creation_date", "-creation_date", "valid_for", "-valid_for", "unknown");
+    private static final List<int[]> PAGES = Arrays.asList(null, new int[]{0, 5}, new int[]{5, 5}, new int[]{3, 100}, new int[]{0, 0});
+
+    private final LogicalCorpusCachedEntity cached = new LogicalCorpusCachedEntity();
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(7);
+        List<LogicalCorpusEntity> corpora = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            // Few distinct dates and scopes, so that the orderings have ties to keep stable
+            corpora.add(corpus((i % 2 == 0 ? "Corpus-" : "corpus-") + i, CREATORS.get(random.nextInt(CREATORS.size())),
+                    random.nextBoolean() ? Visibility.Public : Visibility.Private,
+                    random.nextBoolean() ? CorpusValidFor.TM : CorpusValidFor.DC, random.nextInt(5)));
+        }
+        Collections.shuffle(corpora, random);
+        cached.setPayload(corpora);
+    }
+
+    @Test
+    void matchesStreamFiltering() {
+        List<LogicalCorpusEntity> payload = cached.getPayload();
+        int compared = 0;
+        for (String like : LIKES)
+            for (List<Visibility> visibilities : VISIBILITIES)
+                for (List<String> creators : CREATOR_IDS)
+                    for (CorpusValidFor validFor : VALID_FOR)
+                        for (String order : ORDERS)
+                            for (int[] page : PAGES) {
+                                String lookup = String.join(" ", String.valueOf(like), String.valueOf(visibilities), String.valueOf(creators), String.valueOf(validFor), String.valueOf(order), page == null ? "all" : page[0] + "+" + page[1]);
+                                List<LogicalCorpusEntity> indexed = indexed(cached.getView(), like, visibilities, creators, validFor, order, page);
+                                List<LogicalCorpusEntity> filtered = streamed(payload, like, visibilities, creators, validFor, order, null);
+                                if (page != null && page[0] > filtered.size()) {
+                                    // The stream filtering failed with an IndexOutOfBoundsException here
+                                    assertEquals(List.of(), indexed, lookup);
+                                    continue;
+                                }
+                                assertEquals(streamed(payload, like, visibilities, creators, validFor, order, page), indexed, lookup);
+                                compared++;
+                            }
+        assertTrue(compared > 1000);
+    }
+
+    @Test
+    void rebuildsTheViewAfterEntriesChange() {
+        IndexedView<LogicalCorpusEntity> view = cached.getView();
+        assertSame(view, cached.getView());
+
+        cached.upsertEntry(corpus("corpus-new", "alice", Visibility.Public, CorpusValidFor.TM, 9));
+        assertNotSame(view, cached.getView());
+        assertEquals(41, cached.getView().size());
+        this.assertMatchesStreamFiltering();
+
+        LogicalCorpusEntity renamed = corpus("renamed-corpus-3", "bob", Visibility.Private, CorpusValidFor.DC, 0);
+        cached.replaceEntry("corpus-3", renamed);
+        assertTrue(cached.getView().query().contains(IndexedView.NAME, "corpus-3").list().contains(renamed));
+        assertEquals(41, cached.getView().size());
+        this.assertMatchesStreamFiltering();
+
+        cached.evictEntry("corpus-new");
+        cached.evictEntries(corpus -> "alice".equals(corpus.getCreator()));
+        assertEquals(List.of(), cached.getView().query().equal(IndexedView.CREATOR, "alice").list());
+        assertEquals(cached.getPayload().size(), cached.getView().size());
+        this.assertMatchesStreamFiltering();
+    }
+
+    @Test
+    void unorderedListingsFollowTheKeyOrder() {
+        List<String> names = cached.getView().query().list().stream().map(LogicalCorpusEntity::getName).toList();
+        assertEquals(names.stream().sorted().toList(), names);
+        assertEquals(names, indexed(cached.getView(), null, null, null, null, "unknown", null).stream().map(LogicalCorpusEntity::getName).toList());
+    }
+
+    private void assertMatchesStreamFiltering() {
+        List<LogicalCorpusEntity> payload = cached.getPayload();
+        for (String order : ORDERS) {
+            assertEquals(streamed(payload, "corpus", null, null, null, order, new int[]{2, 10}), indexed(cached.getView(), "corpus", null, null, null, order, new int[]{2, 10}), order);
+            assertEquals(streamed(payload, null, null, List.of("bob"), CorpusValidFor.DC, order, null), indexed(cached.getView(), null, null, List.of("bob"), CorpusValidFor.DC, order, null), order);
+        }
+    }
+
+    /**
+     * The lookup the way DockerServiceImpl runs it over the index.
+     */
+    private static List<LogicalCorpusEntity> indexed(IndexedView<LogicalCorpusEntity> view, String like, List<Visibility> visibilities, List<String> creators, CorpusValidFor validFor, String order, int[] page) {
+        IndexedView.Query<LogicalCorpusEntity> query = view.query();
+        if (like != null) query.contains(IndexedView.NAME, like.trim());
+        if (visibilities != null && !visibilities.isEmpty()) query.in(IndexedView.VISIBILITY, visibilities);
+        if (creators != null) query.in(IndexedView.CREATOR, creators);
+        if (validFor != null) query.equal(CorpusCachedEntity.VALID_FOR, validFor);
+        query.order(order);
+        if (page != null) query.page(page[0], page[1]);
+        return query.list();
+    }
+
+    /**
+     * The lookup the way DockerServiceImpl ran it before the index, filtering and sorting the whole listing.
+     */
+    private static List<LogicalCorpusEntity> streamed(List<LogicalCorpusEntity> data, String like, List<Visibility> visibilities, List<String> creators, CorpusValidFor validFor, String order, int[] page) {
+        List<LogicalCorpusEntity> result = new ArrayList<>(data);
+        if (like != null) {
+            result = result.stream().filter(e -> e.getName().toLowerCase().contains(like.trim())).toList();
+        }
+        if (visibilities != null && !visibilities.isEmpty()) {
+            result = result.stream().filter(e -> visibilities.contains(e.getVisibility())).toList();
+        }
+        if (creators != null) {
+            result = result.stream().filter(e -> e.getCreator() != null && creators.contains(e.getCreator())).toList();
+        }
+        if (validFor != null) {
+            result = result.stream().filter(e -> e.getValid_for() == validFor).toList();
+        }
+        if (order != null) {
+            Comparator<LogicalCorpusEntity> byName = Comparator.comparing(LogicalCorpusEntity::getName);
+            Comparator<LogicalCorpusEntity> byCreationDate = Comparator.comparing(LogicalCorpusEntity::getCreationMilliseconds);
+            Comparator<LogicalCorpusEntity> byValidFor = Comparator.comparing(LogicalCorpusEntity::getValid_for);
+            boolean descending = order.contains("-");
+            Comparator<LogicalCorpusEntity> comparator = switch (order.replace("-", "")) {
+                case "name" -> byName;
+                case "creation_date" -> byCreationDate;
+                case "valid_for" -> byValidFor;
+                default -> null;
+            };
+            if (comparator != null) result = result.stream().sorted(descending ? comparator.reversed() : comparator).toList();
+        }
+        if (page != null) {
+            result = result.subList(page[0], Math.min(page[0] + page[1], result.size()));
+        }
+        return result;
+    }
+
+    private static LogicalCorpusEntity corpus(String name, String creator, Visibility visibility, CorpusValidFor validFor, int day) {
+        LogicalCorpusEntity corpus = new LogicalCorpusEntity();
+        corpus.setName(name);
+        corpus.setCreator(creator);
+        corpus.setVisibility(visibility);
+        corpus.setValid_for(validFor);
+        corpus.setCreation_date(new Date(1_700_000_000_000L + day * 86_400_000L));
+        return corpus;
+    }
+
+}
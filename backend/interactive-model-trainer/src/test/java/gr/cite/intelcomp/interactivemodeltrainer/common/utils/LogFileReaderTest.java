@@ -0,0 +1,71 @@
+package gr.cite.intelcomp.interactivemodeltrainer.common.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogFileReaderTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void tailsTheLastCompleteLines() throws IOException {
+        Path log = this.log("first\r\nsecond\nthird\n");
+        assertEquals(new LogFileReader.Chunk(List.of("second", "third"), 20), LogFileReader.tail(log, 2));
+        assertEquals(new LogFileReader.Chunk(List.of("first", "second", "third"), 20), LogFileReader.tail(log, 10));
+        assertEquals(new LogFileReader.Chunk(List.of(), 20), LogFileReader.tail(log, 0));
+        assertEquals(new LogFileReader.Chunk(List.of(), 0), LogFileReader.tail(this.log(""), 5));
+    }
+
+    @Test
+    void leavesALineBeingWrittenForTheFollowRead() throws IOException {
+        Path log = this.log("first\nsecond\nthi");
+        assertEquals(new LogFileReader.Chunk(List.of("second"), 13), LogFileReader.tail(log, 1));
+        // Without lines the offset is still the one after the last complete line, where a follow starts
+        assertEquals(new LogFileReader.Chunk(List.of(), 13), LogFileReader.tail(log, 0));
+        assertEquals(new LogFileReader.Chunk(List.of(), 0), LogFileReader.tail(this.log("partial"), 0));
+        assertEquals(new LogFileReader.Chunk(List.of(), 13), LogFileReader.readFrom(log, 13, 1024));
+
+        Files.writeString(log, "rd\nfourth\n", StandardOpenOption.APPEND);
+        assertEquals(new LogFileReader.Chunk(List.of("third", "fourth"), 26), LogFileReader.readFrom(log, 13, 1024));
+    }
+
+    @Test
+    void returnsTheLastLineOnceTheFileSettled() throws IOException {
+        Path log = this.log("first\nlast");
+        Files.setLastModifiedTime(log, FileTime.from(Instant.now().minus(Duration.ofMinutes(1))));
+        assertEquals(new LogFileReader.Chunk(List.of("first", "last"), 10), LogFileReader.tail(log, 5));
+        assertEquals(new LogFileReader.Chunk(List.of("last"), 10), LogFileReader.tail(log, 1));
+        assertEquals(new LogFileReader.Chunk(List.of(), 10), LogFileReader.tail(log, 0));
+        assertEquals(new LogFileReader.Chunk(List.of("last"), 10), LogFileReader.readFrom(log, 6, 1024));
+        assertEquals(new LogFileReader.Chunk(List.of(), 10), LogFileReader.readFrom(log, 10, 1024));
+    }
+
+    @Test
+    void splitsLinesLongerThanTheReadLimit() throws IOException {
+        Path log = this.log("abcdefgh\nij\n");
+        assertEquals(new LogFileReader.Chunk(List.of("abcd"), 4), LogFileReader.readFrom(log, 0, 4));
+        assertEquals(new LogFileReader.Chunk(List.of("efgh"), 9), LogFileReader.readFrom(log, 4, 5));
+        // A log that got shorter than the offset, e.g. by a restarted training, is read from the beginning
+        assertEquals(new LogFileReader.Chunk(List.of("abcdefgh", "ij"), 12), LogFileReader.readFrom(log, 100, 1024));
+    }
+
+    private Path log(String content) throws IOException {
+        Path log = Files.createTempFile(folder, "training", ".log");
+        Files.writeString(log, content, StandardCharsets.UTF_8);
+        return log;
+    }
+
+}
@@ -0,0 +1,109 @@
+package gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.checkimports.hdfs;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportFolderWatcherTest {
+
+    @TempDir
+    Path temp;
+
+    private Path imports;
+    private FileSystem fileSystem;
+    private HdfsFileReader reader;
+    private ImportFolderWatcher watcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imports = Files.createDirectories(temp.resolve("imports"));
+        fileSystem = FileSystem.newInstanceLocal(new Configuration());
+        reader = new HdfsFileReader().config(fileSystem, imports.toString());
+        watcher = new ImportFolderWatcher();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        fileSystem.close();
+    }
+
+    @Test
+    void reportsOnlyNewAndChangedFolders() throws IOException {
+        Path first = this.folder("job_1", 1000);
+        this.folder("job_2", 1000);
+
+        assertEquals(List.of("job_1", "job_2"), this.names(watcher.changed(reader.listFolders())));
+        reader.listFolders().forEach(watcher::seen);
+        assertTrue(watcher.changed(reader.listFolders()).isEmpty());
+
+        // The _SUCCESS marker of a finished job changes the folder modification time
+        Files.createFile(first.resolve("_SUCCESS"));
+        Files.setLastModifiedTime(first, FileTime.from(Instant.ofEpochSecond(2000)));
+        this.folder("job_3", 1000);
+        assertEquals(List.of("job_1", "job_3"), this.names(watcher.changed(reader.listFolders())));
+    }
+
+    @Test
+    void forgetsRemovedFolders() throws IOException {
+        Path first = this.folder("job_1", 1000);
+        reader.listFolders().forEach(watcher::seen);
+
+        FileUtils.deleteDirectory(first.toFile());
+        assertTrue(watcher.changed(reader.listFolders()).isEmpty());
+
+        // Once forgotten, a folder with the same name and time is reported again
+        this.folder("job_1", 1000);
+        assertEquals(List.of("job_1"), this.names(watcher.changed(reader.listFolders())));
+    }
+
+    @Test
+    void keepsSeenFoldersWhenListingFails() throws IOException {
+        this.folder("job_1", 1000);
+        this.folder("job_2", 1000);
+        reader.listFolders().forEach(watcher::seen);
+
+        Path moved = temp.resolve("moved");
+        Files.move(imports, moved);
+        assertThrows(IOException.class, () -> reader.listFolders());
+
+        Files.move(moved, imports);
+        assertTrue(watcher.changed(reader.listFolders()).isEmpty());
+    }
+
+    @Test
+    void listsFolderFilesThroughTheProvidedFileSystem() throws IOException {
+        Path folder = this.folder("job_1", 1000);
+        Files.writeString(folder.resolve("metadata.json"), "{}");
+        Files.createDirectories(folder.resolve("nested"));
+
+        List<FileStatus> files = reader.getFolderFiles("job_1");
+        assertEquals(List.of("metadata.json"), this.names(files));
+        assertArrayEquals("{}".getBytes(), reader.getFileData(files.get(0)));
+        assertThrows(IOException.class, () -> reader.getFolderFiles("missing"));
+    }
+
+    private Path folder(String name, long modifiedAtSeconds) throws IOException {
+        Path folder = Files.createDirectories(imports.resolve(name));
+        Files.setLastModifiedTime(folder, FileTime.from(Instant.ofEpochSecond(modifiedAtSeconds)));
+        return folder;
+    }
+
+    private List<String> names(List<FileStatus> folders) {
+        return folders.stream().map(status -> status.getPath().getName()).sorted().toList();
+    }
+
+}
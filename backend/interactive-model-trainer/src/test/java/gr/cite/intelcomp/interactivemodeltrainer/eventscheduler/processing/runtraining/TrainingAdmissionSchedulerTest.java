@@ -0,0 +1,174 @@
+package gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.runtraining;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.TrainingTaskRequestStatus;
+import gr.cite.intelcomp.interactivemodeltrainer.data.ScheduledEventEntity;
+import gr.cite.intelcomp.interactivemodeltrainer.data.TrainingTaskRequestEntity;
+import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.runtraining.config.RunTrainingSchedulerEventConfig;
+import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.runtraining.config.RunTrainingSchedulerEventProperties;
+import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.task.EventSchedulerTask;
+import gr.cite.intelcomp.interactivemodeltrainer.query.TrainingTaskRequestQuery;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the admission decisions against a budget of 4 CPUs and 4000 MB, with the pending trainings listed from
+ * memory instead of the database.
+ */
+class TrainingAdmissionSchedulerTest {
+
+    private static final String SMALL = "small";
+    private static final String MEDIUM = "medium";
+    private static final String URGENT = "urgent";
+    private static final String HUGE = "huge";
+
+    private final List<TrainingTaskRequestEntity> running = new ArrayList<>();
+    private TrainingAdmissionScheduler scheduler;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        TrainingTaskRequestQuery query = mock(TrainingTaskRequestQuery.class);
+        when(query.status(any(TrainingTaskRequestStatus.class))).thenReturn(query);
+        when(query.jobName(anyList())).thenReturn(query);
+        when(query.collect()).thenAnswer(invocation -> new ArrayList<>(running));
+        ApplicationContext applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.getBean(TrainingTaskRequestQuery.class)).thenReturn(query);
+        when(applicationContext.getBean(EntityManagerFactory.class)).thenReturn(mock(EntityManagerFactory.class, RETURNS_DEEP_STUBS));
+        when(applicationContext.getBeanProvider(EventSchedulerTask.class)).thenReturn(mock(ObjectProvider.class));
+
+        RunTrainingSchedulerEventProperties.Admission admission = new RunTrainingSchedulerEventProperties.Admission(4d, 4000L, Map.of(
+                SMALL, new RunTrainingSchedulerEventProperties.JobResources(1d, 500L, null),
+                MEDIUM, new RunTrainingSchedulerEventProperties.JobResources(2d, 1000L, null),
+                URGENT, new RunTrainingSchedulerEventProperties.JobResources(1d, 500L, 5),
+                HUGE, new RunTrainingSchedulerEventProperties.JobResources(8d, 8000L, null)));
+        RunTrainingSchedulerEventConfig config = new RunTrainingSchedulerEventConfig(new RunTrainingSchedulerEventProperties(null, 60L, admission));
+        scheduler = new TrainingAdmissionScheduler(applicationContext, config, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.destroy();
+    }
+
+    @Test
+    void admitsHigherPriorityFirst() {
+        UUID user = UUID.randomUUID();
+        TrainingTaskRequestEntity ending = this.running(user, SMALL);
+        for (int i = 0; i < 3; i++) this.running(user, SMALL);
+
+        TrainingTaskRequestEntity normal = this.request(UUID.randomUUID(), SMALL);
+        TrainingTaskRequestEntity urgent = this.request(UUID.randomUUID(), URGENT);
+        assertFalse(this.admit(normal));
+        assertFalse(this.admit(urgent));
+
+        scheduler.release(List.of(ending.getId()));
+        assertFalse(this.admit(normal));
+        assertTrue(this.admit(urgent));
+    }
+
+    @Test
+    void ordersUsersByDominantShare() {
+        UUID heavy = UUID.randomUUID();
+        UUID light = UUID.randomUUID();
+        TrainingTaskRequestEntity ending = this.running(heavy, SMALL);
+        this.running(heavy, SMALL);
+        this.running(heavy, SMALL);
+        this.running(light, SMALL);
+
+        // Queued first, but its user still holds half of the budget once one of their trainings ends
+        TrainingTaskRequestEntity heavyNext = this.request(heavy, SMALL);
+        TrainingTaskRequestEntity lightNext = this.request(light, SMALL);
+        assertFalse(this.admit(heavyNext));
+        assertFalse(this.admit(lightNext));
+
+        scheduler.release(List.of(ending.getId()));
+        assertFalse(this.admit(heavyNext));
+        assertTrue(this.admit(lightNext));
+    }
+
+    @Test
+    void headOfTheQueueIsNeverOvertaken() {
+        UUID user = UUID.randomUUID();
+        TrainingTaskRequestEntity ending = this.running(user, SMALL);
+        this.running(user, SMALL);
+        this.running(user, SMALL);
+
+        TrainingTaskRequestEntity medium = this.request(UUID.randomUUID(), MEDIUM);
+        TrainingTaskRequestEntity small = this.request(UUID.randomUUID(), SMALL);
+        assertFalse(this.admit(medium));
+        // Would fit in the CPU left, but the medium training is ahead of it
+        assertFalse(this.admit(small));
+
+        scheduler.release(List.of(ending.getId()));
+        assertFalse(this.admit(small));
+        assertTrue(this.admit(medium));
+        assertFalse(this.admit(small));
+    }
+
+    @Test
+    void requestLargerThanTheBudgetRunsAlone() {
+        TrainingTaskRequestEntity huge = this.request(UUID.randomUUID(), HUGE);
+        TrainingTaskRequestEntity small = this.request(UUID.randomUUID(), SMALL);
+        assertTrue(this.admit(huge));
+        assertFalse(this.admit(small));
+
+        scheduler.abandon(huge.getId());
+        assertTrue(this.admit(small));
+        // Anything running holds it back again
+        assertFalse(this.admit(this.request(UUID.randomUUID(), HUGE)));
+    }
+
+    @Test
+    void releasedAndAbandonedCapacityIsHandedBack() {
+        TrainingTaskRequestEntity ending = this.running(UUID.randomUUID(), MEDIUM);
+        TrainingTaskRequestEntity first = this.request(UUID.randomUUID(), MEDIUM);
+        TrainingTaskRequestEntity second = this.request(UUID.randomUUID(), MEDIUM);
+        assertTrue(this.admit(first));
+        assertFalse(this.admit(second));
+
+        // Handed back ahead of the commit that moves the ended training out of the pending ones
+        scheduler.release(List.of(ending.getId()));
+        assertTrue(this.admit(second));
+
+        TrainingTaskRequestEntity third = this.request(UUID.randomUUID(), MEDIUM);
+        assertFalse(this.admit(third));
+        scheduler.abandon(first.getId());
+        assertTrue(this.admit(third));
+    }
+
+    private boolean admit(TrainingTaskRequestEntity request) {
+        ScheduledEventEntity scheduledEvent = new ScheduledEventEntity();
+        scheduledEvent.setId(UUID.randomUUID());
+        return scheduler.admit(scheduledEvent, request);
+    }
+
+    private TrainingTaskRequestEntity running(UUID user, String job) {
+        TrainingTaskRequestEntity request = this.request(user, job);
+        running.add(request);
+        return request;
+    }
+
+    private TrainingTaskRequestEntity request(UUID user, String job) {
+        TrainingTaskRequestEntity request = new TrainingTaskRequestEntity();
+        request.setId(UUID.randomUUID());
+        request.setCreatorId(user);
+        request.setJobName(job);
+        request.setStatus(TrainingTaskRequestStatus.PENDING);
+        return request;
+    }
+
+}
@@ -0,0 +1,195 @@
+package gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.task;
+
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.IsActive;
+import gr.cite.intelcomp.interactivemodeltrainer.common.enums.ScheduledEventStatus;
+import gr.cite.intelcomp.interactivemodeltrainer.data.ScheduledEventEntity;
+import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.EventSchedulerProperties;
+import gr.cite.intelcomp.interactivemodeltrainer.eventscheduler.processing.EventProcessingStatus;
+import gr.cite.intelcomp.interactivemodeltrainer.query.ScheduledEventQuery;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the scheduler against an in memory scheduled_event table. The claim query returns the oldest candidates
+ * up to the requested limit, the way the SKIP LOCKED query does when no other replica holds any of them.
+ */
+class EventSchedulerTaskTest {
+
+    private static final int WORKERS = 2;
+
+    private final Map<UUID, ScheduledEventEntity> events = new ConcurrentHashMap<>();
+    private final List<Integer> claimLimits = new CopyOnWriteArrayList<>();
+    private ApplicationContext applicationContext;
+    private EventSchedulerProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.createEntityManager()).thenAnswer(invocation -> this.entityManager());
+        ScheduledEventQuery scheduledEventQuery = mock(ScheduledEventQuery.class);
+        when(scheduledEventQuery.ids(any(UUID.class))).thenAnswer(invocation -> {
+            ScheduledEventQuery byId = mock(ScheduledEventQuery.class);
+            when(byId.first()).thenReturn(events.get(invocation.<UUID>getArgument(0)));
+            return byId;
+        });
+        applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.getBean(EntityManagerFactory.class)).thenReturn(entityManagerFactory);
+        when(applicationContext.getBean(MeterRegistry.class)).thenReturn(new SimpleMeterRegistry());
+        when(applicationContext.getBean(ScheduledEventQuery.class)).thenReturn(scheduledEventQuery);
+
+        EventSchedulerProperties.Task.Processor.Options options = new EventSchedulerProperties.Task.Processor.Options(2L, 60L, 3600L, null);
+        properties = new EventSchedulerProperties(new EventSchedulerProperties.Task("test", new EventSchedulerProperties.Task.Processor(false, 0L, options, WORKERS, 10)));
+    }
+
+    @Test
+    void claimsNoMoreEventsThanIdleWorkers() throws InterruptedException {
+        for (int i = 0; i < 5; i++) this.event(null);
+        CountDownLatch started = new CountDownLatch(WORKERS);
+        CountDownLatch proceed = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        EventSchedulerTask task = this.task(event -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            started.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return EventProcessingStatus.Success;
+        });
+
+        task.process();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(WORKERS), claimLimits);
+        assertEquals(WORKERS, this.count(ScheduledEventStatus.PROCESSING));
+        assertEquals(3, this.count(ScheduledEventStatus.PENDING));
+
+        // Every worker is busy, so a poll leaves the due events to another replica
+        task.process();
+        assertEquals(List.of(WORKERS), claimLimits);
+
+        proceed.countDown();
+        this.pollUntil(task, () -> this.count(ScheduledEventStatus.SUCCESSFUL) == 5);
+        assertTrue(maxRunning.get() <= WORKERS);
+        assertTrue(claimLimits.stream().allMatch(limit -> limit >= 1 && limit <= WORKERS));
+    }
+
+    @Test
+    void failedEventsAreReleasedForRetry() throws InterruptedException {
+        ScheduledEventEntity first = this.event(null);
+        ScheduledEventEntity retried = this.event(2);
+        ScheduledEventEntity reclaimed = this.event(null);
+        Set<UUID> failed = ConcurrentHashMap.newKeySet();
+        EventSchedulerTask task = this.task(event -> {
+            if (!failed.add(event.getId())) return EventProcessingStatus.Success;
+            // Given back by the lease reclaim while it ran, so its failure is no longer this worker's to report
+            if (event.getId().equals(reclaimed.getId())) events.get(event.getId()).setStatus(ScheduledEventStatus.PENDING);
+            throw new IllegalStateException("Handler failed");
+        });
+
+        // Released events are candidates again, and succeed on their retry
+        this.pollUntil(task, () -> this.count(ScheduledEventStatus.SUCCESSFUL) == 3);
+        assertEquals(3, failed.size());
+        assertEquals(1, first.getRetryCount());
+        assertEquals(3, retried.getRetryCount());
+        assertNull(reclaimed.getRetryCount());
+    }
+
+    private EventSchedulerTask task(Function<ScheduledEventEntity, EventProcessingStatus> handler) {
+        return new EventSchedulerTask(applicationContext, properties) {
+            @Override
+            protected EventProcessingStatus process(ScheduledEventEntity scheduledEventMessage, EntityManager entityManager) {
+                return handler.apply(scheduledEventMessage);
+            }
+        };
+    }
+
+    private ScheduledEventEntity event(Integer retryCount) {
+        ScheduledEventEntity event = new ScheduledEventEntity();
+        event.setId(UUID.randomUUID());
+        event.setIsActive(IsActive.ACTIVE);
+        event.setStatus(retryCount == null ? ScheduledEventStatus.PENDING : ScheduledEventStatus.ERROR);
+        event.setRetryCount(retryCount);
+        // Old enough for any retry delay to have passed
+        event.setCreatedAt(Instant.now().minus(Duration.ofMinutes(5)).plusMillis(events.size()));
+        event.setRunAt(event.getCreatedAt());
+        events.put(event.getId(), event);
+        return event;
+    }
+
+    private long count(ScheduledEventStatus status) {
+        return events.values().stream().filter(event -> event.getStatus() == status).count();
+    }
+
+    private void pollUntil(EventSchedulerTask task, BooleanSupplier done) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!done.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Scheduled events were not handled in time");
+            task.process();
+            Thread.sleep(10);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private EntityManager entityManager() {
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.getTransaction()).thenReturn(mock(EntityTransaction.class));
+        when(entityManager.getCriteriaBuilder()).thenReturn(mock(CriteriaBuilder.class, RETURNS_DEEP_STUBS));
+        when(entityManager.find(eq(ScheduledEventEntity.class), any())).thenAnswer(invocation -> events.get(invocation.<UUID>getArgument(1)));
+        when(entityManager.find(eq(ScheduledEventEntity.class), any(), any(LockModeType.class))).thenAnswer(invocation -> events.get(invocation.<UUID>getArgument(1)));
+        when(entityManager.merge(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TypedQuery<ScheduledEventEntity> claim = mock(TypedQuery.class);
+        AtomicInteger limit = new AtomicInteger();
+        when(claim.setLockMode(any())).thenReturn(claim);
+        when(claim.setHint(anyString(), any())).thenReturn(claim);
+        when(claim.setMaxResults(anyInt())).thenAnswer(invocation -> {
+            limit.set(invocation.getArgument(0));
+            return claim;
+        });
+        when(claim.getResultList()).thenAnswer(invocation -> {
+            claimLimits.add(limit.get());
+            List<ScheduledEventEntity> candidates = new ArrayList<>(events.values().stream()
+                    .filter(event -> EventSchedulerTask.CANDIDATE_STATUSES.contains(event.getStatus()))
+                    .sorted(Comparator.comparing(ScheduledEventEntity::getCreatedAt))
+                    .limit(limit.get())
+                    .toList());
+            return candidates;
+        });
+        when(entityManager.createQuery(any(CriteriaQuery.class))).thenReturn(claim);
+        return entityManager;
+    }
+
+}
@@ -0,0 +1,163 @@
+package gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Feeds hand framed execWorker.py replies to the worker, the way its stdout reader does.
+ */
+class ManagerWorkerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Requests requests = new Requests();
+    private final ManagerWorker worker = new ManagerWorker("test", requests, objectMapper);
+
+    @Test
+    void completesRepliesSplitAtEveryByteBoundary() throws Exception {
+        byte[] reply = reply(1, "ok", "{\"topics\": [\"\u00e9\"]}\n", "");
+        for (int split = 0; split <= reply.length; split++) {
+            ManagerWorker splitWorker = new ManagerWorker("split", new ByteArrayOutputStream(), objectMapper);
+            CompletableFuture<ManagerWorker.Reply> pending = splitWorker.submit(List.of("script.py"), null);
+            splitWorker.accept(reply, 0, split);
+            assertEquals(split == reply.length, pending.isDone(), "split at " + split);
+            splitWorker.accept(reply, split, reply.length - split);
+            assertEquals("{\"topics\": [\"\u00e9\"]}\n", pending.get(1, TimeUnit.SECONDS).stdoutText(), "split at " + split);
+        }
+
+        CompletableFuture<ManagerWorker.Reply> pending = worker.submit(List.of("script.py"), null);
+        for (int i = 0; i < reply.length; i++) {
+            worker.accept(reply, i, 1);
+        }
+        assertEquals("{\"topics\": [\"\u00e9\"]}\n", pending.get(1, TimeUnit.SECONDS).stdoutText());
+    }
+
+    @Test
+    void completesPipelinedReplies() throws Exception {
+        CompletableFuture<ManagerWorker.Reply> first = worker.submit(List.of("first.py", "--all"), null);
+        CompletableFuture<ManagerWorker.Reply> second = worker.submit(List.of("second.py"), "input");
+        CompletableFuture<ManagerWorker.Reply> third = worker.submit(List.of("third.py"), null);
+
+        List<JsonNode> sent = requests.sent(objectMapper);
+        assertEquals(3, sent.size());
+        assertEquals(List.of(1L, 2L, 3L), sent.stream().map(request -> request.get("id").asLong()).toList());
+        assertEquals("first.py", sent.get(0).get("argv").get(0).asText());
+        assertEquals("input", sent.get(1).get("input").asText());
+
+        ByteArrayOutputStream replies = new ByteArrayOutputStream();
+        replies.write(reply(1, "ok", "one", ""));
+        replies.write(reply(2, "error", "two", "Traceback"));
+        replies.write(reply(3, "ok", "", ""));
+        byte[] data = replies.toByteArray();
+        worker.accept(data, 0, data.length);
+
+        assertEquals("one", first.get(1, TimeUnit.SECONDS).stdoutText());
+        // A failed script still hands its stdout to the caller, as a failed one-off exec does
+        assertEquals("two", second.get(1, TimeUnit.SECONDS).stdoutText());
+        assertEquals("", third.get(1, TimeUnit.SECONDS).stdoutText());
+        assertTrue(worker.isAlive());
+    }
+
+    @Test
+    void malformedHeaderFailsEveryPendingRequest() throws Exception {
+        CompletableFuture<ManagerWorker.Reply> first = worker.submit(List.of("first.py"), null);
+        CompletableFuture<ManagerWorker.Reply> second = worker.submit(List.of("second.py"), null);
+
+        byte[] data = "Traceback (most recent call last):\n".getBytes(StandardCharsets.UTF_8);
+        worker.accept(data, 0, data.length);
+
+        assertFailedWithIOException(first);
+        assertFailedWithIOException(second);
+        assertFalse(worker.isAlive());
+        assertTrue(requests.closed);
+        assertThrows(ManagerWorker.UnavailableException.class, () -> worker.submit(List.of("third.py"), null));
+    }
+
+    @Test
+    void timeoutRetiresTheWorker() throws Exception {
+        CompletableFuture<ManagerWorker.Reply> queued = worker.submit(List.of("first.py"), null);
+
+        IOException timeout = assertThrows(IOException.class, () -> worker.execute(List.of("second.py"), null, Duration.ofMillis(50)));
+        // The request was sent and may have run, so it must not be retried as a one-off exec
+        assertFalse(timeout instanceof ManagerWorker.UnavailableException);
+        assertFalse(worker.isAlive());
+        assertTrue(requests.closed);
+        assertFailedWithIOException(queued);
+        assertThrows(ManagerWorker.UnavailableException.class, () -> worker.submit(List.of("third.py"), null));
+    }
+
+    @Test
+    void unsentRequestsAreUnavailable() throws Exception {
+        ManagerWorker broken = new ManagerWorker("broken", new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        }, objectMapper);
+        assertThrows(ManagerWorker.UnavailableException.class, () -> broken.submit(List.of("script.py"), null));
+        assertFalse(broken.isAlive());
+
+        // A request already sent when the worker goes away fails without offering the fallback
+        CompletableFuture<ManagerWorker.Reply> sent = worker.submit(List.of("script.py"), null);
+        worker.terminated(null);
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> sent.get(1, TimeUnit.SECONDS));
+        assertFalse(failure.getCause() instanceof ManagerWorker.UnavailableException);
+        assertThrows(ManagerWorker.UnavailableException.class, () -> worker.submit(List.of("script.py"), null));
+        assertThrows(ManagerWorker.UnavailableException.class, () -> worker.execute(List.of("script.py"), null, Duration.ofSeconds(1)));
+    }
+
+    private static byte[] reply(long id, String status, String stdout, String error) throws IOException {
+        byte[] out = stdout.getBytes(StandardCharsets.UTF_8);
+        byte[] err = error.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+        reply.write((id + " " + status + " " + out.length + " " + err.length + "\n").getBytes(StandardCharsets.US_ASCII));
+        reply.write(out);
+        reply.write(err);
+        return reply.toByteArray();
+    }
+
+    private static void assertFailedWithIOException(CompletableFuture<ManagerWorker.Reply> reply) {
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> reply.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, failure.getCause());
+    }
+
+    /**
+     * The worker stdin, keeping the requests written to it.
+     */
+    private static class Requests extends ByteArrayOutputStream {
+        private volatile boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        private List<JsonNode> sent(ObjectMapper objectMapper) throws IOException {
+            byte[] data = this.toByteArray();
+            List<JsonNode> requests = new ArrayList<>();
+            int position = 0;
+            while (position < data.length) {
+                int newline = position;
+                while (data[newline] != '\n') newline++;
+                int length = Integer.parseInt(new String(data, position, newline - position, StandardCharsets.US_ASCII));
+                requests.add(objectMapper.readTree(data, newline + 1, length));
+                position = newline + 1 + length;
+            }
+            return requests;
+        }
+    }
+
+}
@@ -0,0 +1,208 @@
+package gr.cite.intelcomp.interactivemodeltrainer.service.containermanagement.cache;
+
+import io.kubernetes.client.openapi.ApiClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the index against recorded list and watch responses of the API server.
+ */
+class KubernetesResourceIndexTest {
+
+    private static final String NAMESPACE = "imt";
+    private static final String PODS_PATH = "/api/v1/namespaces/" + NAMESPACE + "/pods";
+    private static final String DEPLOYMENTS_PATH = "/apis/apps/v1/namespaces/" + NAMESPACE + "/deployments";
+
+    private static final String POD_LIST = """
+            {"apiVersion": "v1", "kind": "PodList", "metadata": {"resourceVersion": "10"}, "items": [
+              {"metadata": {"name": "models-0", "namespace": "imt", "resourceVersion": "8", "labels": {"app": "models"}},
+               "status": {"phase": "Running", "conditions": [{"type": "Ready", "status": "True"}]}},
+              {"metadata": {"name": "models-1", "namespace": "imt", "resourceVersion": "9", "labels": {"app": "models"}},
+               "status": {"phase": "Running", "conditions": [{"type": "Ready", "status": "False"}]}},
+              {"metadata": {"name": "lists-0", "namespace": "imt", "resourceVersion": "10", "labels": {"app": "lists"}},
+               "status": {"phase": "Running"}}
+            ]}""";
+
+    // Watch events are read a line at a time
+    private static final String POD_WATCH = "{\"type\": \"MODIFIED\", \"object\": {\"apiVersion\": \"v1\", \"kind\": \"Pod\", "
+            + "\"metadata\": {\"name\": \"models-1\", \"namespace\": \"imt\", \"resourceVersion\": \"11\", \"labels\": {\"app\": \"models\"}}, "
+            + "\"status\": {\"phase\": \"Running\", \"conditions\": [{\"type\": \"Ready\", \"status\": \"True\"}]}}}\n";
+
+    private static final String DEPLOYMENT_LIST = """
+            {"apiVersion": "apps/v1", "kind": "DeploymentList", "metadata": {"resourceVersion": "5"}, "items": [
+              {"metadata": {"name": "models", "namespace": "imt", "resourceVersion": "5", "labels": {"app": "models"}}},
+              {"metadata": {"name": "other", "namespace": "imt", "resourceVersion": "4", "labels": {"app": "other"}}}
+            ]}""";
+
+    private MockWebServer server;
+    private KubernetesResourceIndex index;
+    private final CountDownLatch closing = new CountDownLatch(1);
+    private final AtomicInteger listRequests = new AtomicInteger();
+    private final AtomicInteger podWatches = new AtomicInteger();
+    private volatile boolean podWatchesFail;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                String path = request.getRequestUrl().encodedPath();
+                boolean watch = "true".equals(request.getRequestUrl().queryParameter("watch"));
+                if (!watch) {
+                    listRequests.incrementAndGet();
+                    if (PODS_PATH.equals(path)) return json(POD_LIST);
+                    if (DEPLOYMENTS_PATH.equals(path)) return json(DEPLOYMENT_LIST);
+                    return new MockResponse().setResponseCode(404);
+                }
+                if (PODS_PATH.equals(path) && podWatchesFail) return new MockResponse().setResponseCode(500);
+                // The first pod watch delivers a change, later watches stay idle like a quiet namespace
+                if (PODS_PATH.equals(path) && podWatches.getAndIncrement() == 0) return json(POD_WATCH);
+                closing.await(30, TimeUnit.SECONDS);
+                return json("");
+            }
+        });
+        server.start();
+
+        ApiClient client = new ApiClient();
+        client.setBasePath(server.url("").toString().replaceAll("/$", ""));
+        // Informers hold their watches open, like the informer client of the Kubernetes service
+        client.setReadTimeout(0);
+        index = new KubernetesResourceIndex(client, NAMESPACE, List.of("app=models", "app=lists"), List.of("app=models"));
+        index.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        closing.countDown();
+        index.stop();
+        server.shutdown();
+    }
+
+    @Test
+    void servesLookupsFromTheIndex() throws InterruptedException {
+        assertTrue(index.awaitSynced(Duration.ofSeconds(10)));
+        this.awaitPods("app=models", 2);
+        // Both lists, the pod watch that delivered the change, the one that replaced it and the deployment watch
+        this.awaitRequests(5);
+        int lists = listRequests.get();
+        int requests = server.getRequestCount();
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(List.of("models-0", "models-1"), index.readyPods("app=models"));
+            assertEquals(List.of("lists-0"), index.readyPods("app=lists"));
+            assertEquals("models", index.deployment("app=models"));
+        }
+        assertEquals(List.of(), index.readyPods("app=unknown"));
+        assertNull(index.deployment("app=lists"));
+
+        // Lookups neither list again nor open more watches
+        assertEquals(lists, listRequests.get());
+        assertEquals(requests, server.getRequestCount());
+    }
+
+    @Test
+    void followsTheWatchStream() throws InterruptedException {
+        assertTrue(index.awaitSynced(Duration.ofSeconds(10)));
+        // models-1 is listed as not ready and becomes ready through the watch
+        this.awaitPods("app=models", 2);
+        assertEquals(2, listRequests.get());
+    }
+
+    @Test
+    void reportsWhetherPodsAreFollowed() throws InterruptedException {
+        BlockingQueue<String> reported = new LinkedBlockingQueue<>();
+        KubernetesResourceIndex.PodWatchListener listener = new KubernetesResourceIndex.PodWatchListener() {
+            @Override
+            public void onPodsListed() {
+                reported.add("listed");
+            }
+
+            @Override
+            public void onPodWatchFailed() {
+                reported.add("failed");
+            }
+        };
+        assertTrue(index.awaitSynced(Duration.ofSeconds(10)));
+        index.addPodWatchListener(listener);
+        assertEquals("listed", reported.poll(10, TimeUnit.SECONDS));
+
+        // An index whose pod watch fails reports it, and reports the pods followed again once they are relisted
+        podWatchesFail = true;
+        ApiClient client = new ApiClient();
+        client.setBasePath(server.url("").toString().replaceAll("/$", ""));
+        client.setReadTimeout(0);
+        KubernetesResourceIndex failing = new KubernetesResourceIndex(client, NAMESPACE, List.of("app=models"), List.of());
+        BlockingQueue<String> failingReported = new LinkedBlockingQueue<>();
+        failing.addPodWatchListener(new KubernetesResourceIndex.PodWatchListener() {
+            @Override
+            public void onPodsListed() {
+                failingReported.add("listed");
+            }
+
+            @Override
+            public void onPodWatchFailed() {
+                failingReported.add("failed");
+            }
+        });
+        failing.start();
+        try {
+            assertEquals("listed", failingReported.poll(10, TimeUnit.SECONDS));
+            assertEquals("failed", failingReported.poll(10, TimeUnit.SECONDS));
+            assertEquals("listed", failingReported.poll(10, TimeUnit.SECONDS));
+        } finally {
+            podWatchesFail = false;
+            failing.stop();
+        }
+    }
+
+    @Test
+    void matchesEqualityBasedSelectors() {
+        Map<String, String> labels = Map.of("app", "models", "tier", "manager");
+        assertTrue(KubernetesResourceIndex.matches("app=models", labels));
+        assertTrue(KubernetesResourceIndex.matches("app==models, tier", labels));
+        assertTrue(KubernetesResourceIndex.matches("app!=lists,!gpu", labels));
+        assertFalse(KubernetesResourceIndex.matches("app=lists", labels));
+        assertFalse(KubernetesResourceIndex.matches("app=models,tier!=manager", labels));
+        assertFalse(KubernetesResourceIndex.matches("!tier", labels));
+        assertFalse(KubernetesResourceIndex.matches(" ", labels));
+    }
+
+    private void awaitPods(String selector, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (index.readyPods(selector).size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, index.readyPods(selector).size());
+    }
+
+    private void awaitRequests(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (server.getRequestCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, server.getRequestCount());
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+
+}
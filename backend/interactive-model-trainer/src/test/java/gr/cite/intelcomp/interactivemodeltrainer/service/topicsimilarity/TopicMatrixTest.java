@@ -0,0 +1,154 @@
+package gr.cite.intelcomp.interactivemodeltrainer.service.topicsimilarity;
+
+import gr.cite.intelcomp.interactivemodeltrainer.model.topic.TopicSimilarity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads a small TMmodel written the way numpy.save and scipy.sparse.save_npz write it. The expected values are
+ * those of np.corrcoef over the dense thetas and of 1 - scipy.spatial.distance.jensenshannon and the cosine
+ * similarity over the betas.
+ */
+class TopicMatrixTest {
+
+    private static final double[][] BETAS = {
+            {0.5, 0.3, 0.2, 0.0, 1e-4},
+            {0.4, 0.4, 0.1, 0.1, 1e-4},
+            {0.0, 0.1, 0.2, 0.7, 1e-4}
+    };
+
+    // Documents [0.6, 0.4, 0], [0.5, 0, 0.5], [0, 0.3, 0.7] and [0.2, 0.8, 0] in CSR form
+    private static final double[] THETAS_DATA = {0.6, 0.4, 0.5, 0.5, 0.3, 0.7, 0.2, 0.8};
+    private static final int[] THETAS_INDICES = {0, 1, 0, 2, 1, 2, 0, 1};
+    private static final int[] THETAS_INDPTR = {0, 2, 4, 6, 8};
+
+    private static final double DELTA = 1e-9;
+
+    @TempDir
+    Path folder;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ByteBuffer betas = buffer(BETAS.length * BETAS[0].length * 8);
+        for (double[] topic : BETAS) {
+            for (double weight : topic) betas.putDouble(weight);
+        }
+        Files.write(folder.resolve(TopicMatrix.BETAS_FILE_NAME), npy("<f8", "3, 5", betas));
+
+        ByteBuffer data = buffer(THETAS_DATA.length * 8);
+        for (double value : THETAS_DATA) data.putDouble(value);
+        ByteBuffer indices = buffer(THETAS_INDICES.length * 4);
+        for (int value : THETAS_INDICES) indices.putInt(value);
+        ByteBuffer indptr = buffer(THETAS_INDPTR.length * 4);
+        for (int value : THETAS_INDPTR) indptr.putInt(value);
+        ByteBuffer shape = buffer(16).putLong(4).putLong(3);
+        try (OutputStream file = Files.newOutputStream(folder.resolve(TopicMatrix.THETAS_FILE_NAME)); ZipOutputStream zip = new ZipOutputStream(file)) {
+            entry(zip, "indices.npy", npy("<i4", "8,", indices));
+            entry(zip, "indptr.npy", npy("<i4", "5,", indptr));
+            entry(zip, "format.npy", npy("|S3", "", buffer(3).put("csr".getBytes(StandardCharsets.US_ASCII))));
+            entry(zip, "shape.npy", npy("<i8", "2,", shape));
+            entry(zip, "data.npy", npy("<f8", "8,", data));
+        }
+    }
+
+    @Test
+    void readsNumpyArrays() throws IOException {
+        NpyArray betas = NpyArray.map(folder.resolve(TopicMatrix.BETAS_FILE_NAME));
+        assertArrayEquals(new long[]{3, 5}, betas.shape());
+        assertEquals(15, betas.size());
+        assertEquals(0.7, betas.getDouble(2 * 5 + 3));
+
+        ByteBuffer floats = buffer(8).putFloat(0.25f).putFloat(-2f);
+        NpyArray read = NpyArray.read(new ByteArrayInputStream(npy("<f4", "2,", floats)), "floats");
+        assertEquals(-2.0, read.getDouble(1));
+        assertEquals(-2, read.getLong(1));
+
+        ByteBuffer bytes = buffer(2).put((byte) 200).put((byte) -1);
+        assertEquals(200, NpyArray.read(new ByteArrayInputStream(npy("|u1", "2,", bytes)), "bytes").getLong(0));
+        assertEquals(-1, NpyArray.read(new ByteArrayInputStream(npy("|i1", "2,", bytes)), "bytes").getLong(1));
+    }
+
+    @Test
+    void rejectsUnsupportedArrays() {
+        ByteBuffer values = buffer(16).putDouble(1).putDouble(2);
+        assertThrows(IOException.class, () -> NpyArray.read(new ByteArrayInputStream(npy(">f8", "2,", values)), "big endian"));
+        assertThrows(IOException.class, () -> NpyArray.read(new ByteArrayInputStream(npy("<f8", "3,", values)), "truncated"));
+        assertThrows(IOException.class, () -> NpyArray.read(new ByteArrayInputStream("not an array".getBytes()), "text"));
+    }
+
+    @Test
+    void correlatesTopicsAcrossDocuments() throws IOException {
+        TopicMatrix matrix = TopicMatrix.open(folder);
+        assertEquals(3, matrix.topics());
+        assertEquals(-0.3205617500330678, matrix.correlation(0, 1), DELTA);
+        assertEquals(-0.47615191669600504, matrix.correlation(0, 2), DELTA);
+        assertEquals(-0.6803208658524761, matrix.correlation(2, 1), DELTA);
+        assertEquals(1, matrix.correlation(1, 1), DELTA);
+    }
+
+    @Test
+    void comparesWordDistributionsOverTheKeptWords() throws IOException {
+        // The last word is under the threshold in every topic and does not count
+        TopicMatrix matrix = TopicMatrix.open(folder);
+        assertEquals(0.7774702060357696, matrix.jensenShannonSimilarity(0, 1), DELTA);
+        assertEquals(0.33513105387287445, matrix.jensenShannonSimilarity(0, 2), DELTA);
+        assertEquals(0.4326717132659419, matrix.jensenShannonSimilarity(2, 1), DELTA);
+        assertEquals(0.9459053029269172, matrix.cosineSimilarity(0, 1), DELTA);
+        assertEquals(0.15452877499092182, matrix.cosineSimilarity(0, 2), DELTA);
+        assertEquals(0.3033940182060688, matrix.cosineSimilarity(1, 2), DELTA);
+    }
+
+    @Test
+    void dropsSimilaritiesComputedBeforeAnInvalidation() throws IOException {
+        TopicMatrix matrix = TopicMatrix.open(folder);
+        long generation = matrix.generation();
+        matrix.invalidate();
+        matrix.keep("JENSEN_SHANNON:10", new TopicSimilarity(), generation);
+        assertNull(matrix.similarity("JENSEN_SHANNON:10"));
+
+        matrix.keep("JENSEN_SHANNON:10", new TopicSimilarity(), matrix.generation());
+        assertNotNull(matrix.similarity("JENSEN_SHANNON:10"));
+        assertTrue(matrix.isCurrent());
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * A version 1.0 array file, with the header padded to 64 bytes like numpy pads it.
+     */
+    private static byte[] npy(String descr, String shape, ByteBuffer data) {
+        String dictionary = "{'descr': '" + descr + "', 'fortran_order': False, 'shape': (" + shape + "), }";
+        int length = 10 + dictionary.length() + 1;
+        String header = dictionary + " ".repeat((64 - length % 64) % 64) + "\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[]{(byte) 0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0});
+        out.writeBytes(buffer(2).putShort((short) header.length()).array());
+        out.writeBytes(header.getBytes(StandardCharsets.ISO_8859_1));
+        out.writeBytes(data.array());
+        return out.toByteArray();
+    }
+
+    private static void entry(ZipOutputStream zip, String name, byte[] bytes) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(bytes);
+        zip.closeEntry();
+    }
+
+}
@@ -0,0 +1,105 @@
+"""
+Long lived worker that runs manager script invocations inside a single interpreter, so that
+the interpreter start up and the library imports are paid once per container instead of once
+per command.
+
+Requests are framed on stdin as a line holding the byte length of the payload, followed by
+the UTF-8 JSON payload itself:
+
+    {"id": 1, "argv": ["manageLists.py", "--path_wordlists", "/data/wordlists", "--listWordLists"], "input": null}
+
+Replies are framed on stdout as a header line with the request id, the status and the byte
+lengths of the captured stdout and of the error, followed by the raw stdout bytes and then
+the UTF-8 error text:
+
+    1 ok 1024 0\n<1024 bytes of stdout>
+    1 error 12 240\n<12 bytes of stdout><240 bytes of traceback>
+
+The stdout of the script is passed on as it was written, not wrapped in a JSON string, so the
+client can parse the script output straight from the reply bytes.
+
+Every request runs the script given as the first argv element as __main__, with the rest of
+argv as its arguments, "input" as its stdin and its stdout captured into the reply. A request
+with an empty argv is answered right away and serves as a health check. Requests are handled
+in arrival order, so a client may write several requests before reading any reply.
+"""
+
+import io
+import json
+import os
+import runpy
+import sys
+import traceback
+from contextlib import redirect_stdout
+
+
+def read_frame(stream):
+    header = stream.readline()
+    if not header:
+        return None
+    length = int(header.strip())
+    payload = stream.read(length)
+    if len(payload) < length:
+        return None
+    return json.loads(payload.decode("utf-8"))
+
+
+def write_reply(stream, request_id, stdout, error=None):
+    error_bytes = error.encode("utf-8") if error is not None else b""
+    status = "ok" if error is None else "error"
+    stream.write(f"{request_id} {status} {len(stdout)} {len(error_bytes)}\n".encode("ascii"))
+    stream.write(stdout)
+    stream.write(error_bytes)
+    stream.flush()
+
+
+def run(argv, stdin_text):
+    script = os.path.abspath(argv[0])
+    script_dir = os.path.dirname(script)
+    if script_dir not in sys.path:
+        sys.path.insert(0, script_dir)
+
+    captured_bytes = io.BytesIO()
+    captured = io.TextIOWrapper(captured_bytes, encoding="utf-8", newline="", write_through=True)
+    saved_argv, saved_stdin = sys.argv, sys.stdin
+    sys.argv = [script] + list(argv[1:])
+    sys.stdin = io.StringIO(stdin_text or "")
+    error = None
+    try:
+        with redirect_stdout(captured):
+            runpy.run_path(script, run_name="__main__")
+    except SystemExit as e:
+        if e.code not in (None, 0):
+            error = f"exit status {e.code}"
+    except BaseException:
+        error = traceback.format_exc()
+    finally:
+        sys.argv, sys.stdin = saved_argv, saved_stdin
+        captured.flush()
+        # Detached so that collecting the wrapper does not close the captured bytes
+        captured.detach()
+    return captured_bytes.getbuffer(), error
+
+
+def main():
+    requests = sys.stdin.buffer
+    replies = sys.stdout.buffer
+    # Anything printed outside of a request must not corrupt the reply stream
+    sys.stdout = sys.stderr
+
+    while True:
+        request = read_frame(requests)
+        if request is None:
+            break
+        argv = request.get("argv") or []
+        if not argv:
+            write_reply(replies, request.get("id"), b"")
+            continue
+        stdout, error = run(argv, request.get("input"))
+        if error is not None:
+            sys.stderr.write(error + "\n")
+        write_reply(replies, request.get("id"), stdout, error)
+
+
+if __name__ == "__main__":
+    main()